@@ -22,6 +22,7 @@ import org.apereo.cas.client.Protocol;
 import org.apereo.cas.client.configuration.ConfigurationKeys;
 import org.apereo.cas.client.util.AbstractCasFilter;
 import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.LruCache;
 import org.apereo.cas.client.util.ReflectUtils;
 import org.apereo.cas.client.validation.Assertion;
 
@@ -92,6 +93,11 @@ public class AuthenticationFilter extends AbstractCasFilter {
 
     private UrlPatternMatcherStrategy ignoreUrlPatternMatcherStrategyClass = null;
 
+    /**
+     * Memoized login redirect urls keyed by service url, sized like the service url cache (null if disabled).
+     */
+    private LruCache<String, String> redirectUrlCache;
+
     public AuthenticationFilter() {
         this(Protocol.CAS2);
     }
@@ -110,6 +116,9 @@ public class AuthenticationFilter extends AbstractCasFilter {
             ConfigurationKeys.CAS_SERVER_URL_PREFIX.getName());
 
         CommonUtils.assertNotNull(this.casServerLoginUrl, message);
+
+        final var cacheSize = getServiceUrlCacheSize();
+        this.redirectUrlCache = cacheSize > 0 ? new LruCache<>(cacheSize) : null;
     }
 
     @Override
@@ -183,13 +192,35 @@ public class AuthenticationFilter extends AbstractCasFilter {
             return;
         }
 
+        final var cookieAssertion = getAssertionCookieCodec() != null ? getAssertionCookieCodec().readCookie(request) : null;
+        if (cookieAssertion != null) {
+            request.setAttribute(CONST_CAS_ASSERTION, cookieAssertion);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (authenticate(request, response, retrieveTicketFromRequest(request))) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Redirects the user agent to the CAS server login page, unless the request carries a ticket or was gatewayed already.
+     * Expects that neither the request is excluded nor an assertion is available.
+     *
+     * @param request the HttpServletRequest.
+     * @param response the HttpServletResponse.
+     * @param ticket the ticket extracted from the request, may be blank.
+     * @return true if the request should proceed down the filter chain, false if it has been redirected.
+     * @throws IOException if the redirect fails.
+     */
+    public final boolean authenticate(final HttpServletRequest request, final HttpServletResponse response,
+                                      final String ticket) throws IOException {
         final var serviceUrl = constructServiceUrl(request, response);
-        final var ticket = retrieveTicketFromRequest(request);
         final var wasGatewayed = this.gateway && this.gatewayStorage.hasGatewayedAlready(request, serviceUrl);
 
         if (CommonUtils.isNotBlank(ticket) || wasGatewayed) {
-            filterChain.doFilter(request, response);
-            return;
+            return true;
         }
 
         final String modifiedServiceUrl;
@@ -204,23 +235,28 @@ public class AuthenticationFilter extends AbstractCasFilter {
 
         logger.debug("Constructed service url: {}", modifiedServiceUrl);
 
-        final var urlToRedirectTo = CommonUtils.constructRedirectUrl(this.casServerLoginUrl,
-            getProtocol().getServiceParameterName(), modifiedServiceUrl, this.renew, this.gateway, this.method);
+        final var urlToRedirectTo = this.redirectUrlCache != null
+            ? this.redirectUrlCache.computeIfAbsent(modifiedServiceUrl, this::constructRedirectUrl)
+            : constructRedirectUrl(modifiedServiceUrl);
 
         logger.debug("redirecting to \"{}\"", urlToRedirectTo);
         this.authenticationRedirectStrategy.redirect(request, response, urlToRedirectTo);
+        return false;
     }
 
     public final void setRenew(final boolean renew) {
         this.renew = renew;
+        clearRedirectUrlCache();
     }
 
     public final void setGateway(final boolean gateway) {
         this.gateway = gateway;
+        clearRedirectUrlCache();
     }
 
     public void setMethod(final String method) {
         this.method = method;
+        clearRedirectUrlCache();
     }
 
     public final void setCasServerUrlPrefix(final String casServerUrlPrefix) {
@@ -229,6 +265,7 @@ public class AuthenticationFilter extends AbstractCasFilter {
 
     public final void setCasServerLoginUrl(final String casServerLoginUrl) {
         this.casServerLoginUrl = casServerLoginUrl;
+        clearRedirectUrlCache();
     }
 
     public final void setGatewayStorage(final GatewayResolver gatewayStorage) {
@@ -240,7 +277,24 @@ public class AuthenticationFilter extends AbstractCasFilter {
         this.ignoreUrlPatternMatcherStrategyClass = ignoreUrlPatternMatcherStrategyClass;
     }
 
-    private boolean isRequestUrlExcluded(final HttpServletRequest request) {
+    private void clearRedirectUrlCache() {
+        if (this.redirectUrlCache != null) {
+            this.redirectUrlCache.clear();
+        }
+    }
+
+    private String constructRedirectUrl(final String serviceUrl) {
+        return CommonUtils.constructRedirectUrl(this.casServerLoginUrl,
+            getProtocol().getServiceParameterName(), serviceUrl, this.renew, this.gateway, this.method);
+    }
+
+    /**
+     * Determines whether the request matches the configured ignore pattern.
+     *
+     * @param request the HttpServletRequest.
+     * @return true if the request must not be authenticated.
+     */
+    public final boolean isRequestUrlExcluded(final HttpServletRequest request) {
         if (this.ignoreUrlPatternMatcherStrategyClass == null) {
             return false;
         }
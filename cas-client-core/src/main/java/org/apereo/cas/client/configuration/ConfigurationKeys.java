@@ -24,7 +24,10 @@ import org.apereo.cas.client.authentication.DefaultGatewayResolverImpl;
 import org.apereo.cas.client.authentication.GatewayResolver;
 import org.apereo.cas.client.proxy.ProxyGrantingTicketStorage;
 import org.apereo.cas.client.proxy.ProxyGrantingTicketStorageImpl;
+import org.apereo.cas.client.session.InMemorySessionRevocationList;
+import org.apereo.cas.client.session.SessionRevocationList;
 import org.apereo.cas.client.validation.Cas20ServiceTicketValidator;
+import org.apereo.cas.client.validation.TicketFormatPolicy;
 
 import javax.net.ssl.HostnameVerifier;
 
@@ -44,6 +47,7 @@ public interface ConfigurationKeys {
     ConfigurationKey<Boolean> ARTIFACT_PARAMETER_OVER_POST = new ConfigurationKey<>("artifactParameterOverPost", Boolean.FALSE);
     ConfigurationKey<Boolean> EAGERLY_CREATE_SESSIONS = new ConfigurationKey<>("eagerlyCreateSessions", Boolean.TRUE);
     ConfigurationKey<Boolean> ENCODE_SERVICE_URL = new ConfigurationKey<>("encodeServiceUrl", Boolean.TRUE);
+    ConfigurationKey<Integer> SERVICE_URL_CACHE_SIZE = new ConfigurationKey<>("serviceUrlCacheSize", 0);
     ConfigurationKey<String> SSL_CONFIG_FILE = new ConfigurationKey<>("sslConfigFile", null);
     ConfigurationKey<String> ROLE_ATTRIBUTE = new ConfigurationKey<>("roleAttribute", null);
     ConfigurationKey<Boolean> IGNORE_CASE = new ConfigurationKey<>("ignoreCase", Boolean.FALSE);
@@ -85,4 +89,33 @@ public interface ConfigurationKeys {
     ConfigurationKey<String> PROXY_CALLBACK_URL = new ConfigurationKey<>("proxyCallbackUrl", null);
     ConfigurationKey<String> RELAY_STATE_PARAMETER_NAME = new ConfigurationKey<>("relayStateParameterName", "RelayState");
     ConfigurationKey<String> LOGOUT_CALLBACK_PATH = new ConfigurationKey<>("logoutCallbackPath", null);
+    ConfigurationKey<Boolean> SINGLE_SIGN_OUT = new ConfigurationKey<>("singleSignOut", Boolean.FALSE);
+    ConfigurationKey<Boolean> ASYNC_VALIDATION = new ConfigurationKey<>("asyncValidation", Boolean.FALSE);
+    ConfigurationKey<Long> ASYNC_VALIDATION_TIMEOUT = new ConfigurationKey<>("asyncValidationTimeout", 30000L);
+    ConfigurationKey<Boolean> COALESCE_VALIDATIONS = new ConfigurationKey<>("coalesceValidations", Boolean.FALSE);
+    ConfigurationKey<Integer> CONNECT_TIMEOUT = new ConfigurationKey<>("connectTimeout", 5000);
+    ConfigurationKey<Integer> READ_TIMEOUT = new ConfigurationKey<>("readTimeout", 15000);
+    ConfigurationKey<Boolean> CIRCUIT_BREAKER = new ConfigurationKey<>("circuitBreaker", Boolean.FALSE);
+    ConfigurationKey<Long> CIRCUIT_BREAKER_OPEN_DURATION = new ConfigurationKey<>("circuitBreakerOpenDuration", 30000L);
+    ConfigurationKey<Integer> NEGATIVE_TICKET_CACHE_SIZE = new ConfigurationKey<>("negativeTicketCacheSize", 0);
+    ConfigurationKey<Long> NEGATIVE_TICKET_CACHE_TTL = new ConfigurationKey<>("negativeTicketCacheTtl", 60000L);
+    ConfigurationKey<Integer> CLIENT_REJECTION_RATE = new ConfigurationKey<>("clientRejectionRate", 0);
+    ConfigurationKey<Integer> CLIENT_REJECTION_BURST = new ConfigurationKey<>("clientRejectionBurst", 10);
+    ConfigurationKey<String> NEGATIVE_TICKET_CACHE_FALSE_POSITIVE_RATE =
+        new ConfigurationKey<>("negativeTicketCacheFalsePositiveRate", "0.001");
+    ConfigurationKey<String> TRUSTED_PROXIES = new ConfigurationKey<>("trustedProxies", null);
+    ConfigurationKey<String> CLIENT_ADDRESS_HEADER = new ConfigurationKey<>("clientAddressHeader", "X-Forwarded-For");
+    ConfigurationKey<Boolean> ADAPTIVE_CONCURRENCY_LIMIT = new ConfigurationKey<>("adaptiveConcurrencyLimit", Boolean.FALSE);
+    ConfigurationKey<Long> CONCURRENCY_LIMIT_RETRY_AFTER = new ConfigurationKey<>("concurrencyLimitRetryAfter", 1000L);
+    ConfigurationKey<Boolean> HEDGE_VALIDATIONS = new ConfigurationKey<>("hedgeValidations", Boolean.FALSE);
+    ConfigurationKey<String> CAS_SERVER_URL_PREFIXES = new ConfigurationKey<>("casServerUrlPrefixes", null);
+    ConfigurationKey<Class<? extends TicketFormatPolicy>> TICKET_FORMAT_POLICY_CLASS =
+        new ConfigurationKey<>("ticketFormatPolicyClass", null);
+    ConfigurationKey<String> ASSERTION_COOKIE_SECRET_KEYS = new ConfigurationKey<>("assertionCookieSecretKeys", null);
+    ConfigurationKey<String> ASSERTION_COOKIE_NAME = new ConfigurationKey<>("assertionCookieName", "CASASSERTION");
+    ConfigurationKey<Long> ASSERTION_COOKIE_MAX_AGE = new ConfigurationKey<>("assertionCookieMaxAge", 1800000L);
+    ConfigurationKey<String> ASSERTION_COOKIE_ATTRIBUTES = new ConfigurationKey<>("assertionCookieAttributes", null);
+    ConfigurationKey<Class<? extends SessionRevocationList>> SESSION_REVOCATION_LIST_CLASS =
+        new ConfigurationKey<>("sessionRevocationListClass", InMemorySessionRevocationList.class);
+    ConfigurationKey<Boolean> HIDE_TICKET_AFTER_VALIDATION = new ConfigurationKey<>("hideTicketAfterValidation", Boolean.FALSE);
 }
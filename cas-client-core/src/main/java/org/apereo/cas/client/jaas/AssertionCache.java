@@ -0,0 +1,322 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.jaas;
+
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.validation.Assertion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe cache of the assertions validated by {@link CasLoginModule}, for the JAAS providers re-authenticating
+ * with a ticket already used.
+ * <p>
+ * Each entry expires on its own, the given time after its assertion became valid. Lookups never return an expired
+ * entry, and a task of a scheduler shared by all caches drops the expired entries in the background. The entries are
+ * also queued in insertion order, which is close to their expiration order: the background task and the eviction of
+ * the oldest entries once the cache holds more than <code>maxSize</code> both stop at the first entry to keep, so
+ * that their cost is amortized over the insertions.
+ *
+ * @since 4.0.5
+ */
+public final class AssertionCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssertionCache.class);
+
+    /** Default maximum number of cached assertions. */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private static final long PURGE_INTERVAL_MILLIS = 30000;
+
+    private final Map<TicketCredential, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Insertion order of the entries, including those since replaced or removed until they are polled. */
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicBoolean purgeScheduled = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    private final LongSupplier clock;
+
+    private volatile int maxSize;
+
+    public AssertionCache(final int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    AssertionCache(final int maxSize, final LongSupplier clock) {
+        setMaxSize(maxSize);
+        this.clock = clock;
+    }
+
+    /**
+     * @param ticket the ticket the assertion was validated for.
+     * @return the cached assertion, null if none or expired.
+     */
+    public Assertion get(final TicketCredential ticket) {
+        final var entry = this.entries.get(ticket);
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= this.clock.getAsLong()) {
+            if (this.entries.remove(ticket, entry)) {
+                this.expirations.increment();
+            }
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return entry.assertion;
+    }
+
+    /**
+     * @param ticket the ticket the assertion was validated for.
+     * @param assertion the assertion.
+     * @param timeToLiveMillis milliseconds the assertion is cached for from its validity start, or from now if unknown.
+     */
+    public void put(final TicketCredential ticket, final Assertion assertion, final long timeToLiveMillis) {
+        final var validFrom = assertion.getValidFromDate();
+        final var start = validFrom == null ? this.clock.getAsLong() : validFrom.getTime();
+        final var entry = new Entry(ticket, assertion, start + timeToLiveMillis);
+        this.entries.put(ticket, entry);
+        this.insertionOrder.add(entry);
+        this.queued.incrementAndGet();
+        evictOverflow();
+        if (this.purgeScheduled.compareAndSet(false, true)) {
+            Scheduler.INSTANCE.scheduleWithFixedDelay(this::purgeExpired, PURGE_INTERVAL_MILLIS, PURGE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void remove(final TicketCredential ticket) {
+        this.entries.remove(ticket);
+    }
+
+    public void clear() {
+        this.entries.clear();
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns a live {@link Map} view of the cache. Assertions put through the view are cached like with
+     * {@link #put(TicketCredential, Assertion, long)}, the given time to live applying to them.
+     *
+     * @param timeToLiveMillis milliseconds the assertions put through the view are cached for.
+     * @return the view.
+     */
+    public Map<TicketCredential, Assertion> asMap(final long timeToLiveMillis) {
+        return new MapView(timeToLiveMillis);
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public void setMaxSize(final int maxSize) {
+        CommonUtils.assertTrue(maxSize > 0, "maxSize must be greater than zero.");
+        this.maxSize = maxSize;
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the entries dropped to stay within the maximum size.
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return the entries dropped because they expired.
+     */
+    public long getExpirationCount() {
+        return this.expirations.sum();
+    }
+
+    /**
+     * Drops the expired entries at the head of the insertion order.
+     */
+    void purgeExpired() {
+        final var now = this.clock.getAsLong();
+        var head = this.insertionOrder.peek();
+        while (head != null && (head.expiresAt <= now || this.entries.get(head.ticket) != head)) {
+            if (this.insertionOrder.remove(head)) {
+                this.queued.decrementAndGet();
+                if (head.expiresAt <= now && this.entries.remove(head.ticket, head)) {
+                    this.expirations.increment();
+                }
+            }
+            head = this.insertionOrder.peek();
+        }
+    }
+
+    private void evictOverflow() {
+        // the queue may also hold replaced or removed entries, bounded to as many as the cache itself
+        while (this.entries.size() > this.maxSize || this.queued.get() > 2 * this.maxSize) {
+            final var oldest = this.insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            this.queued.decrementAndGet();
+            if (this.entries.remove(oldest.ticket, oldest)) {
+                LOGGER.debug("Evicting the cached assertion of {} to stay within {} entries.", oldest.ticket, this.maxSize);
+                this.evictions.increment();
+            }
+        }
+    }
+
+    private final class MapView extends AbstractMap<TicketCredential, Assertion> {
+
+        private final long timeToLiveMillis;
+
+        private MapView(final long timeToLiveMillis) {
+            this.timeToLiveMillis = timeToLiveMillis;
+        }
+
+        @Override
+        public Assertion get(final Object key) {
+            return key instanceof TicketCredential ticket ? AssertionCache.this.get(ticket) : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Assertion put(final TicketCredential key, final Assertion value) {
+            final var previous = entries.get(key);
+            AssertionCache.this.put(key, value, this.timeToLiveMillis);
+            return previous == null ? null : previous.assertion;
+        }
+
+        @Override
+        public Assertion remove(final Object key) {
+            final var previous = entries.remove(key);
+            return previous == null ? null : previous.assertion;
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public void clear() {
+            AssertionCache.this.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<TicketCredential, Assertion>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<TicketCredential, Assertion>> iterator() {
+                    final var iterator = entries.values().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<TicketCredential, Assertion> next() {
+                            final var entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.ticket, entry.assertion);
+                        }
+
+                        @Override
+                        public void remove() {
+                            iterator.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Cache entry, compared by identity so that a replaced entry is told from its replacement.
+     */
+    private static final class Entry {
+
+        private final TicketCredential ticket;
+
+        private final Assertion assertion;
+
+        private final long expiresAt;
+
+        private Entry(final TicketCredential ticket, final Assertion assertion, final long expiresAt) {
+            this.ticket = ticket;
+            this.assertion = assertion;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Holds the scheduler shared by all caches, started by the first insertion.
+     */
+    private static final class Scheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "cas-assertion-cache-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -20,7 +20,6 @@ package org.apereo.cas.client.jaas;
 
 import org.apereo.cas.client.authentication.SimplePrincipal;
 import org.apereo.cas.client.util.CommonUtils;
-import org.apereo.cas.client.util.ReflectUtils;
 import org.apereo.cas.client.validation.Assertion;
 import org.apereo.cas.client.validation.TicketValidator;
 
@@ -36,13 +35,9 @@ import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.auth.login.LoginException;
 import javax.security.auth.spi.LoginModule;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.security.Principal;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -82,11 +77,13 @@ import java.util.concurrent.TimeUnit;
  * <li>cacheTimeout (optional) - Assertion cache timeout in minutes.</li>
  * <li>cacheTimeoutUnit (optional) - Assertion cache timeout unit.  Must be one of {@link TimeUnit} enumeration
  *     names, e.g. DAYS, HOURS, MINUTES, SECONDS, MILLISECONDS. Default unit is MINUTES.</li>
+ * <li>cacheMaxSize (optional) - Maximum number of cached assertions, shared by all modules. Default is 10000.</li>
  * </ul>
  *
  * <p>
  * Module options not explicitly listed above are treated as attributes of the
  * given ticket validator class, e.g. <code>tolerance</code> in the following example.
+ * The validator is built by the first login and shared by every login module with the same options.
  *
  * <p>
  * Sample jaas.config file entry for this module:
@@ -143,7 +140,16 @@ public class CasLoginModule implements LoginModule {
      * CAS tickets are one-time-use, a cached assertion must be provided on
      * re-authentication.
      */
-    protected static final Map<TicketCredential, Assertion> ASSERTION_CACHE = new HashMap<>();
+    private static final AssertionCache ASSERTIONS = new AssertionCache(AssertionCache.DEFAULT_MAX_SIZE);
+
+    /**
+     * Map view of the assertion cache; assertions put through it expire after the default cache timeout.
+     *
+     * @deprecated Since 4.0.5, the cache bounds its size and expires its entries on its own.
+     */
+    @Deprecated(since = "4.0.5")
+    protected static final Map<TicketCredential, Assertion> ASSERTION_CACHE =
+        ASSERTIONS.asMap(DEFAULT_CACHE_TIMEOUT_UNIT.toMillis(DEFAULT_CACHE_TIMEOUT));
 
     /**
      * Logger instance
@@ -220,31 +226,6 @@ public class CasLoginModule implements LoginModule {
      */
     protected TimeUnit cacheTimeoutUnit = DEFAULT_CACHE_TIMEOUT_UNIT;
 
-    /**
-     * Attempts to do simple type conversion from a string value to the type expected
-     * by the given property.
-     * <p>
-     * Currently only conversion to int, long, and boolean are supported.
-     *
-     * @param pd    Property descriptor of target property to set.
-     * @param value Property value as a string.
-     * @return Value converted to type expected by property if a conversion strategy exists.
-     */
-    private static Object convertIfNecessary(final PropertyDescriptor pd, final String value) {
-        if (String.class.equals(pd.getPropertyType())) {
-            return value;
-        } else if (boolean.class.equals(pd.getPropertyType())) {
-            return Boolean.valueOf(value);
-        } else if (int.class.equals(pd.getPropertyType())) {
-            return new Integer(value);
-        } else if (long.class.equals(pd.getPropertyType())) {
-            return new Long(value);
-        } else {
-            throw new IllegalArgumentException("No conversion strategy exists for property " + pd.getName()
-                                               + " of type " + pd.getPropertyType());
-        }
-    }
-
     /**
      * Initializes the CAS login module.
      *
@@ -267,6 +248,7 @@ public class CasLoginModule implements LoginModule {
      *                 <li>cacheTimeout (optional) - assertion cache timeout in minutes.</li>
      *                 <li>cacheTimeoutUnit (optional) - Assertion cache timeout unit.  Must be one of {@link TimeUnit} enumeration
      *                     names, e.g. DAYS, HOURS, MINUTES, SECONDS, MILLISECONDS. Default unit is MINUTES.</li>
+     *                 <li>cacheMaxSize (optional) - maximum number of cached assertions, shared by all modules.</li>
      *                </ul>
      */
     @Override
@@ -315,15 +297,14 @@ public class CasLoginModule implements LoginModule {
             } else if ("cacheTimeoutUnit".equals(key)) {
                 this.cacheTimeoutUnit = Enum.valueOf(TimeUnit.class, (String) options.get(key));
                 logger.debug("Set cacheTimeoutUnit={}", this.cacheTimeoutUnit);
+            } else if ("cacheMaxSize".equals(key)) {
+                ASSERTIONS.setMaxSize(Integer.parseInt((String) options.get(key)));
+                logger.debug("Set cacheMaxSize={}", ASSERTIONS.getMaxSize());
             }
         }
 
-        if (this.cacheAssertions) {
-            cleanCache();
-        }
-
         CommonUtils.assertNotNull(ticketValidatorClass, "ticketValidatorClass is required.");
-        this.ticketValidator = createTicketValidator(ticketValidatorClass, options);
+        this.ticketValidator = TicketValidatorRegistry.getTicketValidator(ticketValidatorClass, options);
     }
 
     @Override
@@ -356,7 +337,7 @@ public class CasLoginModule implements LoginModule {
                     : this.service;
 
                 if (this.cacheAssertions) {
-                    this.assertion = ASSERTION_CACHE.get(ticket);
+                    this.assertion = ASSERTIONS.get(ticket);
                     if (this.assertion != null) {
                         logger.debug("Assertion found in cache.");
                     }
@@ -417,7 +398,7 @@ public class CasLoginModule implements LoginModule {
 
                 if (this.cacheAssertions) {
                     logger.debug("Caching assertion for principal {}", this.assertion.getPrincipal());
-                    ASSERTION_CACHE.put(this.ticket, this.assertion);
+                    ASSERTIONS.put(this.ticket, this.assertion, this.cacheTimeoutUnit.toMillis(this.cacheTimeout));
                 }
             } else {
                 // Login must have failed if there is no assertion defined
@@ -456,7 +437,7 @@ public class CasLoginModule implements LoginModule {
         if (this.cacheAssertions) {
             for (final var ticket : this.subject.getPrivateCredentials(TicketCredential.class)) {
                 logger.debug("Removing cached assertion for {}", ticket);
-                ASSERTION_CACHE.remove(ticket);
+                ASSERTIONS.remove(ticket);
             }
         }
 
@@ -525,44 +506,6 @@ public class CasLoginModule implements LoginModule {
         // template method
     }
 
-    /**
-     * Creates a {@link TicketValidator} instance from a class name and map of property name/value pairs.
-     *
-     * @param className   Fully-qualified name of {@link TicketValidator} concrete class.
-     * @param propertyMap Map of property name/value pairs to set on validator instance.
-     * @return Ticket validator with properties set.
-     */
-    private TicketValidator createTicketValidator(final String className, final Map<String, ?> propertyMap) {
-        CommonUtils.assertTrue(propertyMap.containsKey("casServerUrlPrefix"),
-            "Required property casServerUrlPrefix not found.");
-
-        final Class<TicketValidator> validatorClass = ReflectUtils.loadClass(className);
-        final var validator = ReflectUtils.newInstance(validatorClass,
-            propertyMap.get("casServerUrlPrefix"));
-
-        try {
-            final var info = Introspector.getBeanInfo(validatorClass);
-
-            for (final var property : propertyMap.keySet()) {
-                if (!"casServerUrlPrefix".equals(property)) {
-                    logger.debug("Attempting to set TicketValidator property {}", property);
-                    final var value = (String) propertyMap.get(property);
-                    final var pd = ReflectUtils.getPropertyDescriptor(info, property);
-                    if (pd != null) {
-                        ReflectUtils.setProperty(property, convertIfNecessary(pd, value), validator, info);
-                        logger.debug("Set {} = {}", property, value);
-                    } else {
-                        logger.warn("Cannot find property {} on {}", property, className);
-                    }
-                }
-            }
-        } catch (final IntrospectionException e) {
-            throw new RuntimeException("Error getting bean info for " + validatorClass, e);
-        }
-
-        return validator;
-    }
-
     /**
      * Removes all principals of the given type from the JAAS subject.
      *
@@ -580,23 +523,4 @@ public class CasLoginModule implements LoginModule {
     private void removeCredentialsOfType(final Class<? extends Principal> clazz) {
         this.subject.getPrivateCredentials().removeAll(this.subject.getPrivateCredentials(clazz));
     }
-
-    /**
-     * Removes expired entries from the assertion cache.
-     */
-    private void cleanCache() {
-        logger.debug("Cleaning assertion cache of size {}", ASSERTION_CACHE.size());
-        final var iter = ASSERTION_CACHE.entrySet().iterator();
-        final var cutoff = Calendar.getInstance();
-        cutoff.setTimeInMillis(System.currentTimeMillis() - this.cacheTimeoutUnit.toMillis(this.cacheTimeout));
-        while (iter.hasNext()) {
-            final var assertion = iter.next().getValue();
-            final var created = Calendar.getInstance();
-            created.setTime(assertion.getValidFromDate());
-            if (created.before(cutoff)) {
-                logger.debug("Removing expired assertion for principal {}", assertion.getPrincipal());
-                iter.remove();
-            }
-        }
-    }
 }
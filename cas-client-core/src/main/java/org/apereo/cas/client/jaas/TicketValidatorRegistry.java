@@ -0,0 +1,155 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.jaas;
+
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.ReflectUtils;
+import org.apereo.cas.client.validation.TicketValidator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of the ticket validators configured by {@link CasLoginModule}, so that the logins sharing a
+ * JAAS configuration share a validator instead of building one, with its connection factory and proxy retriever, on
+ * every login.
+ * <p>
+ * Validators are keyed by the whole option map of the module and are thread-safe like those of the validation
+ * filters. The writable properties of each validator class are introspected once.
+ *
+ * @since 4.0.5
+ */
+final class TicketValidatorRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicketValidatorRegistry.class);
+
+    private static final Map<Map<String, ?>, TicketValidator> VALIDATORS = new ConcurrentHashMap<>();
+
+    private static final ClassValue<Map<String, PropertyDescriptor>> PROPERTIES = new ClassValue<>() {
+        @Override
+        protected Map<String, PropertyDescriptor> computeValue(final Class<?> type) {
+            try {
+                final Map<String, PropertyDescriptor> properties = new HashMap<>();
+                for (final var pd : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                    properties.put(pd.getName(), pd);
+                }
+                return Map.copyOf(properties);
+            } catch (final IntrospectionException e) {
+                throw new RuntimeException("Error getting bean info for " + type, e);
+            }
+        }
+    };
+
+    private TicketValidatorRegistry() {
+    }
+
+    /**
+     * @param className Fully-qualified name of {@link TicketValidator} concrete class.
+     * @param options   Login module options, the validator properties among them.
+     * @return the validator configured by these options, created by the first login using them.
+     */
+    static TicketValidator getTicketValidator(final String className, final Map<String, ?> options) {
+        final var key = Collections.unmodifiableMap(new HashMap<>(options));
+        return VALIDATORS.computeIfAbsent(key, k -> createTicketValidator(className, k));
+    }
+
+    static int size() {
+        return VALIDATORS.size();
+    }
+
+    static void clear() {
+        VALIDATORS.clear();
+    }
+
+    /**
+     * Creates a {@link TicketValidator} instance from a class name and map of property name/value pairs.
+     *
+     * @param className   Fully-qualified name of {@link TicketValidator} concrete class.
+     * @param propertyMap Map of property name/value pairs to set on validator instance.
+     * @return Ticket validator with properties set.
+     */
+    private static TicketValidator createTicketValidator(final String className, final Map<String, ?> propertyMap) {
+        CommonUtils.assertTrue(propertyMap.containsKey("casServerUrlPrefix"),
+            "Required property casServerUrlPrefix not found.");
+
+        final Class<TicketValidator> validatorClass = ReflectUtils.loadClass(className);
+        final var validator = ReflectUtils.newInstance(validatorClass,
+            propertyMap.get("casServerUrlPrefix"));
+        final var properties = PROPERTIES.get(validatorClass);
+
+        for (final var property : propertyMap.keySet()) {
+            if (!"casServerUrlPrefix".equals(property)) {
+                LOGGER.debug("Attempting to set TicketValidator property {}", property);
+                final var value = (String) propertyMap.get(property);
+                final var pd = properties.get(property);
+                if (pd != null) {
+                    setProperty(pd, convertIfNecessary(pd, value), validator);
+                    LOGGER.debug("Set {} = {}", property, value);
+                } else {
+                    LOGGER.warn("Cannot find property {} on {}", property, className);
+                }
+            }
+        }
+        return validator;
+    }
+
+    private static void setProperty(final PropertyDescriptor pd, final Object value, final Object target) {
+        try {
+            pd.getWriteMethod().invoke(target, value);
+        } catch (final InvocationTargetException e) {
+            throw new RuntimeException("Error setting property " + pd.getName(), e.getCause());
+        } catch (final Exception e) {
+            throw new RuntimeException("Error setting property " + pd.getName(), e);
+        }
+    }
+
+    /**
+     * Attempts to do simple type conversion from a string value to the type expected
+     * by the given property.
+     * <p>
+     * Currently only conversion to int, long, and boolean are supported.
+     *
+     * @param pd    Property descriptor of target property to set.
+     * @param value Property value as a string.
+     * @return Value converted to type expected by property if a conversion strategy exists.
+     */
+    private static Object convertIfNecessary(final PropertyDescriptor pd, final String value) {
+        if (String.class.equals(pd.getPropertyType())) {
+            return value;
+        } else if (boolean.class.equals(pd.getPropertyType())) {
+            return Boolean.valueOf(value);
+        } else if (int.class.equals(pd.getPropertyType())) {
+            return Integer.valueOf(value);
+        } else if (long.class.equals(pd.getPropertyType())) {
+            return Long.valueOf(value);
+        } else {
+            throw new IllegalArgumentException("No conversion strategy exists for property " + pd.getName()
+                                               + " of type " + pd.getPropertyType());
+        }
+    }
+}
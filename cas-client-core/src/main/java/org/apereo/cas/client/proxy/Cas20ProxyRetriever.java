@@ -19,6 +19,9 @@
 package org.apereo.cas.client.proxy;
 
 import org.apereo.cas.client.ssl.HttpURLConnectionFactory;
+import org.apereo.cas.client.util.AdaptiveConcurrencyLimiter;
+import org.apereo.cas.client.util.CasServerPool;
+import org.apereo.cas.client.util.CircuitBreaker;
 import org.apereo.cas.client.util.CommonUtils;
 import org.apereo.cas.client.util.XmlUtils;
 
@@ -59,6 +62,15 @@ public final class Cas20ProxyRetriever implements ProxyRetriever {
     /** Url connection factory to use when communicating with the server **/
     private final HttpURLConnectionFactory urlConnectionFactory;
 
+    /** Breaker shared with the ticket validator, not carried along when the principal is serialized. */
+    private transient CircuitBreaker circuitBreaker;
+
+    /** Limiter shared with the ticket validator, not carried along when the principal is serialized. */
+    private transient AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /** Pool shared with the ticket validator, not carried along when the principal is serialized. */
+    private transient CasServerPool casServerPool;
+
     @Deprecated
     public Cas20ProxyRetriever(final String casServerUrl, final String encoding) {
         this(casServerUrl, encoding, null);
@@ -84,13 +96,53 @@ public final class Cas20ProxyRetriever implements ProxyRetriever {
         CommonUtils.assertNotNull(proxyGrantingTicketId, "proxyGrantingTicketId cannot be null.");
         CommonUtils.assertNotNull(targetService, "targetService cannot be null.");
 
-        final var url = constructUrl(proxyGrantingTicketId, targetService);
+        final var limiter = this.concurrencyLimiter;
+        final var breaker = this.circuitBreaker;
+        final var pool = this.casServerPool;
+        if (limiter != null && !limiter.tryAcquire()) {
+            logger.warn("Too many requests in flight to the CAS server, not requesting a proxy ticket.");
+            return null;
+        }
+        if (breaker != null && !breaker.tryAcquirePermission()) {
+            if (limiter != null) {
+                limiter.release();
+            }
+            logger.warn("Circuit breaker open, not requesting a proxy ticket from the CAS server.");
+            return null;
+        }
+        final var endpoint = pool != null ? pool.choose(null) : null;
+        final var url = constructUrl(endpoint != null ? endpoint.getUrlPrefix() : this.casServerUrl,
+            proxyGrantingTicketId, targetService);
+        final var start = System.nanoTime();
         final String response;
 
-        if (this.urlConnectionFactory != null) {
-            response = CommonUtils.getResponseFromServer(url, this.urlConnectionFactory, this.encoding);
-        } else {
-            response = CommonUtils.getResponseFromServer(url, this.encoding);
+        try {
+            if (this.urlConnectionFactory != null) {
+                response = CommonUtils.getResponseFromServer(url, this.urlConnectionFactory, this.encoding);
+            } else {
+                response = CommonUtils.getResponseFromServer(url, this.encoding);
+            }
+        } catch (final RuntimeException e) {
+            if (limiter != null) {
+                limiter.onDropped();
+            }
+            if (breaker != null) {
+                breaker.onFailure();
+            }
+            if (endpoint != null) {
+                pool.onFailure(endpoint, System.nanoTime() - start);
+            }
+            throw e;
+        }
+        final var elapsed = System.nanoTime() - start;
+        if (limiter != null) {
+            limiter.onSample(elapsed);
+        }
+        if (breaker != null) {
+            breaker.onSuccess();
+        }
+        if (endpoint != null) {
+            pool.onSuccess(endpoint, elapsed);
         }
         final var error = XmlUtils.getTextForElement(response, "proxyFailure");
 
@@ -104,9 +156,33 @@ public final class Cas20ProxyRetriever implements ProxyRetriever {
         return ticket;
     }
 
-    private URL constructUrl(final String proxyGrantingTicketId, final String targetService) {
+    /**
+     * @param circuitBreaker the breaker guarding the CAS server, null for none.
+     * @since 4.0.5
+     */
+    public void setCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * @param concurrencyLimiter the limiter bounding the requests in flight to the CAS server, null for none.
+     * @since 4.0.5
+     */
+    public void setConcurrencyLimiter(final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * @param casServerPool the pool of CAS server nodes to spread the requests over, null for none.
+     * @since 4.0.5
+     */
+    public void setCasServerPool(final CasServerPool casServerPool) {
+        this.casServerPool = casServerPool;
+    }
+
+    private static URL constructUrl(final String casServerUrl, final String proxyGrantingTicketId, final String targetService) {
         try {
-            return new URL(this.casServerUrl + (this.casServerUrl.endsWith("/") ? "" : "/") + "proxy" + "?pgt="
+            return new URL(casServerUrl + (casServerUrl.endsWith("/") ? "" : "/") + "proxy" + "?pgt="
                            + proxyGrantingTicketId + "&targetService=" + URLEncoder.encode(targetService, "UTF-8"));
         } catch (final Exception e) {
             throw new RuntimeException(e);
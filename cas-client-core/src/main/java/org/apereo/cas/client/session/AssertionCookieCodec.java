@@ -0,0 +1,388 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.session;
+
+import org.apereo.cas.client.authentication.AttributePrincipalImpl;
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.validation.Assertion;
+import org.apereo.cas.client.validation.AssertionImpl;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Stores an assertion in a cookie protected by an HMAC-SHA256 signature, so that applications not keeping an
+ * {@link jakarta.servlet.http.HttpSession} can authenticate the following requests locally instead of asking the CAS
+ * server again.
+ * <p>
+ * The cookie holds the principal, the selected principal attributes, when it expires and a digest of the service
+ * ticket, which the {@link SessionRevocationList} is checked against to honor single sign-out. Its content is signed,
+ * not encrypted: attributes that must stay confidential must not be selected. As a {@link SessionRevocationList#isLocal()
+ * local} list does not see the logout requests sent to the other nodes of a cluster, cookies checked against one live
+ * at most {@link #MAX_AGE_WITH_LOCAL_REVOCATION} milliseconds.
+ * <p>
+ * Several secret keys may be given to rotate them: the first one signs new cookies while all of them verify cookies,
+ * so a new key can be put first and the old one dropped once the cookies it signed have expired.
+ *
+ * @since 4.0.5
+ */
+public final class AssertionCookieCodec {
+
+    /** Largest cookie value issued; browsers ignore cookies beyond 4096 bytes, name and attributes included. */
+    public static final int MAX_COOKIE_LENGTH = 3800;
+
+    /** Longest lifetime of the cookies checked against a {@link SessionRevocationList#isLocal() local} list. */
+    public static final long MAX_AGE_WITH_LOCAL_REVOCATION = 1800000L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssertionCookieCodec.class);
+
+    private static final int VERSION = 1;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, SigningKey> keys = new LinkedHashMap<>();
+
+    private final SigningKey signingKey;
+
+    private final String cookieName;
+
+    private final long maxAgeMillis;
+
+    private final Set<String> attributeNames;
+
+    private final SessionRevocationList revocationList;
+
+    private final LongSupplier clock;
+
+    public AssertionCookieCodec(final List<byte[]> secretKeys, final String cookieName, final long maxAgeMillis,
+                                final Collection<String> attributeNames) {
+        this(secretKeys, cookieName, maxAgeMillis, attributeNames, SessionRevocationList.getSharedInstance());
+    }
+
+    public AssertionCookieCodec(final List<byte[]> secretKeys, final String cookieName, final long maxAgeMillis,
+                                final Collection<String> attributeNames, final SessionRevocationList revocationList) {
+        this(secretKeys, cookieName, maxAgeMillis, attributeNames, revocationList, System::currentTimeMillis);
+    }
+
+    AssertionCookieCodec(final List<byte[]> secretKeys, final String cookieName, final long maxAgeMillis,
+                         final Collection<String> attributeNames, final SessionRevocationList revocationList,
+                         final LongSupplier clock) {
+        CommonUtils.assertTrue(!secretKeys.isEmpty(), "at least one secret key is required.");
+        CommonUtils.assertNotNull(cookieName, "cookieName cannot be null.");
+        CommonUtils.assertTrue(maxAgeMillis > 0, "maxAgeMillis must be greater than zero.");
+        CommonUtils.assertNotNull(revocationList, "revocationList cannot be null.");
+        for (final var secretKey : secretKeys) {
+            CommonUtils.assertTrue(secretKey.length >= MIN_KEY_LENGTH,
+                "secret keys must be at least " + MIN_KEY_LENGTH + " bytes long.");
+            final var key = new SigningKey(secretKey);
+            this.keys.put(key.id, key);
+        }
+        this.signingKey = this.keys.values().iterator().next();
+        this.cookieName = cookieName;
+        if (revocationList.isLocal() && maxAgeMillis > MAX_AGE_WITH_LOCAL_REVOCATION) {
+            LOGGER.warn("Assertion cookies checked against the in-memory session revocation list live at most [{}] ms "
+                        + "instead of [{}] ms: configure a shared sessionRevocationListClass for longer cookies.",
+                MAX_AGE_WITH_LOCAL_REVOCATION, maxAgeMillis);
+            this.maxAgeMillis = MAX_AGE_WITH_LOCAL_REVOCATION;
+        } else {
+            this.maxAgeMillis = maxAgeMillis;
+        }
+        this.attributeNames = new LinkedHashSet<>(attributeNames);
+        this.revocationList = revocationList;
+        this.clock = clock;
+        revocationList.retainAtLeast(this.maxAgeMillis);
+    }
+
+    /**
+     * Parses secret keys given as base64 strings separated by commas or whitespace.
+     *
+     * @param value the keys, the signing one first.
+     * @return the decoded keys.
+     */
+    public static List<byte[]> parseSecretKeys(final String value) {
+        final List<byte[]> keys = new ArrayList<>();
+        for (final var key : value.split("[,\\s]+")) {
+            if (!key.isEmpty()) {
+                keys.add(Base64.getMimeDecoder().decode(key));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Serializes and signs the assertion.
+     *
+     * @param assertion the assertion validated from the ticket.
+     * @param ticket the ticket, i.e. the session index single sign-out requests will refer to.
+     * @return the cookie value, or null if it would be too large for a cookie.
+     */
+    public String encode(final Assertion assertion, final String ticket) {
+        final var now = this.clock.getAsLong();
+        var expiresAt = now + this.maxAgeMillis;
+        if (assertion.getValidUntilDate() != null) {
+            expiresAt = Math.min(expiresAt, assertion.getValidUntilDate().getTime());
+        }
+        final var principal = assertion.getPrincipal();
+        final var bytes = new ByteArrayOutputStream(256);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(now);
+            out.writeLong(expiresAt);
+            out.writeLong(assertion.getAuthenticationDate() != null ? assertion.getAuthenticationDate().getTime() : now);
+            out.writeUTF(SessionRevocationList.digest(ticket));
+            out.writeUTF(principal.getName());
+
+            final Map<String, Object> attributes = new LinkedHashMap<>();
+            for (final var name : this.attributeNames) {
+                final var value = principal.getAttributes().get(name);
+                if (value != null) {
+                    attributes.put(name, value);
+                }
+            }
+            out.writeShort(attributes.size());
+            for (final var attribute : attributes.entrySet()) {
+                out.writeUTF(attribute.getKey());
+                if (attribute.getValue() instanceof Collection<?> values) {
+                    out.writeShort(values.size());
+                    for (final var value : values) {
+                        out.writeUTF(String.valueOf(value));
+                    }
+                } else {
+                    out.writeShort(-1);
+                    out.writeUTF(String.valueOf(attribute.getValue()));
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final var signed = this.signingKey.id + '.' + ENCODER.encodeToString(bytes.toByteArray());
+        final var value = signed + '.' + ENCODER.encodeToString(this.signingKey.sign(signed));
+        if (value.length() > MAX_COOKIE_LENGTH) {
+            LOGGER.warn("Assertion of [{}] does not fit in a cookie ({} characters), select fewer attributes.",
+                principal.getName(), value.length());
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Verifies and deserializes a cookie value.
+     *
+     * @param value the cookie value.
+     * @return the assertion, or null if the value is forged, expired, revoked or signed with an unknown key.
+     */
+    public Assertion decode(final String value) {
+        final var macStart = value.lastIndexOf('.');
+        final var payloadStart = value.indexOf('.');
+        if (payloadStart <= 0 || macStart == payloadStart) {
+            return null;
+        }
+        final var key = this.keys.get(value.substring(0, payloadStart));
+        if (key == null) {
+            LOGGER.debug("Assertion cookie signed with an unknown key.");
+            return null;
+        }
+        final var signed = value.substring(0, macStart);
+        try {
+            if (!MessageDigest.isEqual(key.sign(signed), DECODER.decode(value.substring(macStart + 1)))) {
+                LOGGER.debug("Assertion cookie has an invalid signature.");
+                return null;
+            }
+            return read(DECODER.decode(value.substring(payloadStart + 1, macStart)));
+        } catch (final IllegalArgumentException | IOException e) {
+            LOGGER.debug("Malformed assertion cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sets the cookie holding the assertion on the response, unless the assertion does not fit.
+     *
+     * @param request the HttpServletRequest.
+     * @param response the HttpServletResponse.
+     * @param assertion the assertion validated from the ticket.
+     * @param ticket the validated ticket.
+     * @return whether the cookie was set.
+     */
+    public boolean writeCookie(final HttpServletRequest request, final HttpServletResponse response,
+                               final Assertion assertion, final String ticket) {
+        final var value = encode(assertion, ticket);
+        if (value == null) {
+            return false;
+        }
+        final var cookie = new Cookie(this.cookieName, value);
+        cookie.setPath(CommonUtils.isBlank(request.getContextPath()) ? "/" : request.getContextPath());
+        cookie.setMaxAge((int) Math.max(1, this.maxAgeMillis / 1000));
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+        return true;
+    }
+
+    /**
+     * @param request the HttpServletRequest.
+     * @return the assertion of the request's cookie, or null if there is no valid one.
+     */
+    public Assertion readCookie(final HttpServletRequest request) {
+        final var cookies = request.getCookies();
+        if (cookies != null) {
+            for (final var cookie : cookies) {
+                if (this.cookieName.equals(cookie.getName())) {
+                    return decode(cookie.getValue());
+                }
+            }
+        }
+        return null;
+    }
+
+    public String getCookieName() {
+        return this.cookieName;
+    }
+
+    public long getMaxAgeMillis() {
+        return this.maxAgeMillis;
+    }
+
+    public SessionRevocationList getRevocationList() {
+        return this.revocationList;
+    }
+
+    private Assertion read(final byte[] payload) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            final var issuedAt = in.readLong();
+            final var expiresAt = in.readLong();
+            final var authenticatedAt = in.readLong();
+            if (expiresAt <= this.clock.getAsLong()) {
+                LOGGER.debug("Assertion cookie expired.");
+                return null;
+            }
+            if (this.revocationList.isRevoked(in.readUTF())) {
+                LOGGER.debug("Assertion cookie revoked by single sign-out.");
+                return null;
+            }
+            final var name = in.readUTF();
+            final var count = in.readShort();
+            final Map<String, Object> attributes = new HashMap<>(Math.max(4, count * 2));
+            for (var i = 0; i < count; i++) {
+                final var attribute = in.readUTF();
+                final var size = in.readShort();
+                if (size < 0) {
+                    attributes.put(attribute, in.readUTF());
+                } else {
+                    final List<Object> values = new ArrayList<>(size);
+                    for (var j = 0; j < size; j++) {
+                        values.add(in.readUTF());
+                    }
+                    attributes.put(attribute, values);
+                }
+            }
+            return new AssertionImpl(new AttributePrincipalImpl(name, attributes), new Date(issuedAt),
+                new Date(expiresAt), new Date(authenticatedAt), new HashMap<>());
+        }
+    }
+
+    /**
+     * Secret key with a short identifier derived from it. {@link Mac} instances are not thread-safe, so they are
+     * borrowed from a small bounded pool for each signature rather than kept per thread, which would initialize a new
+     * one for every request running on its own virtual thread.
+     */
+    private static final class SigningKey {
+
+        private final String id;
+
+        private final SecretKeySpec spec;
+
+        /** Initialized instances not currently in use. */
+        private final BlockingQueue<Mac> pool =
+            new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
+        private SigningKey(final byte[] secret) {
+            this.spec = new SecretKeySpec(secret.clone(), ALGORITHM);
+            try {
+                final var hash = MessageDigest.getInstance("SHA-256").digest(secret);
+                this.id = ENCODER.encodeToString(Arrays.copyOf(hash, 6));
+                this.pool.offer(newMac());
+            } catch (final GeneralSecurityException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        private Mac newMac() throws GeneralSecurityException {
+            final var mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.spec);
+            return mac;
+        }
+
+        private byte[] sign(final String value) {
+            var mac = this.pool.poll();
+            if (mac == null) {
+                try {
+                    mac = newMac();
+                } catch (final GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            try {
+                return mac.doFinal(value.getBytes(StandardCharsets.US_ASCII));
+            } finally {
+                this.pool.offer(mac);
+            }
+        }
+    }
+}
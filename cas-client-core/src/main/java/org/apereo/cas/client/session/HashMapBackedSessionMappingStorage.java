@@ -22,11 +22,14 @@ import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * HashMap backed implementation of SessionMappingStorage.
+ * <p>
+ * Both maps are concurrent so that no lock is held while sessions are recorded or removed, which keeps
+ * virtual threads from pinning their carrier.
  *
  * @author Scott Battaglia
  * @version $Revision$ $Date$
@@ -38,18 +41,18 @@ public final class HashMapBackedSessionMappingStorage implements SessionMappingS
     /**
      * Maps the ID from the CAS server to the Session.
      */
-    private final Map<String, HttpSession> MANAGED_SESSIONS = new HashMap<>();
+    private final Map<String, HttpSession> MANAGED_SESSIONS = new ConcurrentHashMap<>();
 
     /**
      * Maps the Session ID to the key from the CAS Server.
      */
-    private final Map<String, String> ID_TO_SESSION_KEY_MAPPING = new HashMap<>();
+    private final Map<String, String> ID_TO_SESSION_KEY_MAPPING = new ConcurrentHashMap<>();
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     @Override
-    public synchronized HttpSession removeSessionByMappingId(final String mappingId) {
-        final var session = MANAGED_SESSIONS.get(mappingId);
+    public HttpSession removeSessionByMappingId(final String mappingId) {
+        final var session = MANAGED_SESSIONS.remove(mappingId);
 
         if (session != null) {
             removeBySessionById(session.getId());
@@ -59,10 +62,10 @@ public final class HashMapBackedSessionMappingStorage implements SessionMappingS
     }
 
     @Override
-    public synchronized void removeBySessionById(final String sessionId) {
+    public void removeBySessionById(final String sessionId) {
         logger.debug("Attempting to remove Session=[{}]", sessionId);
 
-        final var key = ID_TO_SESSION_KEY_MAPPING.get(sessionId);
+        final var key = ID_TO_SESSION_KEY_MAPPING.remove(sessionId);
 
         if (logger.isDebugEnabled()) {
             if (key != null) {
@@ -71,14 +74,14 @@ public final class HashMapBackedSessionMappingStorage implements SessionMappingS
                 logger.debug("No mapping for session found.  Ignoring.");
             }
         }
-        MANAGED_SESSIONS.remove(key);
-        ID_TO_SESSION_KEY_MAPPING.remove(sessionId);
+        if (key != null) {
+            MANAGED_SESSIONS.remove(key);
+        }
     }
 
     @Override
-    public synchronized void addSessionById(final String mappingId, final HttpSession session) {
+    public void addSessionById(final String mappingId, final HttpSession session) {
         ID_TO_SESSION_KEY_MAPPING.put(session.getId(), mappingId);
         MANAGED_SESSIONS.put(mappingId, session);
-
     }
 }
@@ -0,0 +1,85 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link SessionRevocationList} kept in memory.
+ * <p>
+ * Indexes are remembered as long as the longest lived cookie any codec issues, and nothing is remembered while no
+ * codec uses the list. The list is local to the JVM: in a cluster every node has to receive the logout requests,
+ * which CAS only sends to one of them.
+ *
+ * @since 4.0.5
+ */
+public final class InMemorySessionRevocationList implements SessionRevocationList {
+
+    static final InMemorySessionRevocationList SHARED = new InMemorySessionRevocationList();
+
+    private static final int PURGE_INTERVAL = 256;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final AtomicInteger revocationsSincePurge = new AtomicInteger();
+
+    private final LongSupplier clock;
+
+    private volatile long retentionMillis;
+
+    public InMemorySessionRevocationList() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemorySessionRevocationList(final LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void retainAtLeast(final long millis) {
+        this.retentionMillis = Math.max(this.retentionMillis, millis);
+    }
+
+    @Override
+    public void revoke(final String sessionIndex) {
+        final var retention = this.retentionMillis;
+        if (retention <= 0) {
+            return;
+        }
+        final var now = this.clock.getAsLong();
+        this.revoked.put(SessionRevocationList.digest(sessionIndex), now + retention);
+        if (this.revocationsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            this.revocationsSincePurge.set(0);
+            this.revoked.values().removeIf(forgetAt -> forgetAt < now);
+        }
+    }
+
+    @Override
+    public boolean isRevoked(final String digest) {
+        return !this.revoked.isEmpty() && this.revoked.containsKey(digest);
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+}
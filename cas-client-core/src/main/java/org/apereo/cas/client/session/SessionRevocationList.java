@@ -0,0 +1,98 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.session;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Session indexes whose single sign-out has been requested, so that the {@link AssertionCookieCodec assertion cookies}
+ * issued for them are refused even though they have not expired yet.
+ * <p>
+ * CAS sends a single logout request per service, which a single node of a cluster receives. Without sticky sessions,
+ * the other nodes only refuse the cookies of that session when the list is backed by a store all of them share; the
+ * default {@link InMemorySessionRevocationList} only protects the node that received the request. Implementations
+ * are chosen with the <code>sessionRevocationListClass</code> setting, need a public no-arg constructor and are
+ * instantiated once per class, see {@link #getInstance(Class)}.
+ *
+ * @since 4.0.5
+ */
+public interface SessionRevocationList {
+
+    /**
+     * @return the in-memory list fed by the {@link SingleSignOutHandler} and used by default by the assertion cookies.
+     */
+    static SessionRevocationList getSharedInstance() {
+        return InMemorySessionRevocationList.SHARED;
+    }
+
+    /**
+     * Returns the instance of the given class shared by the filters of the JVM, so that the single sign-out filter
+     * revokes the sessions in the list the assertion cookies are checked against.
+     *
+     * @param type the implementation, null for the {@link #getSharedInstance() shared in-memory list}.
+     * @return the instance, created on first use.
+     */
+    static SessionRevocationList getInstance(final Class<? extends SessionRevocationList> type) {
+        return SessionRevocationLists.get(type);
+    }
+
+    /**
+     * Makes the list remember revoked indexes for at least the given period.
+     *
+     * @param millis the lifetime of the cookies checked against the list.
+     */
+    void retainAtLeast(long millis);
+
+    /**
+     * @param sessionIndex the session index, i.e. the service ticket, a logout request was received for.
+     */
+    void revoke(String sessionIndex);
+
+    /**
+     * @param digest the {@link #digest(String) digest} of a session index.
+     * @return whether the session has been logged out.
+     */
+    boolean isRevoked(String digest);
+
+    /**
+     * @return whether revocations only reach the JVM they are received by.
+     */
+    default boolean isLocal() {
+        return false;
+    }
+
+    /**
+     * Digests a session index so that cookies and the list do not hold the service ticket itself.
+     *
+     * @param sessionIndex the session index.
+     * @return the base64url encoded first 16 bytes of its SHA-256 digest.
+     */
+    static String digest(final String sessionIndex) {
+        try {
+            final var hash = MessageDigest.getInstance("SHA-256").digest(sessionIndex.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.session;
+
+import org.apereo.cas.client.util.ReflectUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instances of the {@link SessionRevocationList} implementations, one per class.
+ *
+ * @since 4.0.5
+ */
+final class SessionRevocationLists {
+
+    private static final Map<Class<? extends SessionRevocationList>, SessionRevocationList> INSTANCES =
+        new ConcurrentHashMap<>();
+
+    private SessionRevocationLists() {
+    }
+
+    static SessionRevocationList get(final Class<? extends SessionRevocationList> type) {
+        if (type == null || type == InMemorySessionRevocationList.class) {
+            return SessionRevocationList.getSharedInstance();
+        }
+        return INSTANCES.computeIfAbsent(type, key -> ReflectUtils.newInstance(key));
+    }
+}
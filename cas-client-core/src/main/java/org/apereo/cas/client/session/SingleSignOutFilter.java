@@ -45,7 +45,7 @@ public final class SingleSignOutFilter extends AbstractConfigurationFilter {
 
     private final AtomicBoolean handlerInitialized = new AtomicBoolean(false);
 
-    static SingleSignOutHandler getSingleSignOutHandler() {
+    public static SingleSignOutHandler getSingleSignOutHandler() {
         return HANDLER;
     }
 
@@ -59,6 +59,7 @@ public final class SingleSignOutFilter extends AbstractConfigurationFilter {
             setLogoutCallbackPath(getString(ConfigurationKeys.LOGOUT_CALLBACK_PATH));
             HANDLER.setArtifactParameterOverPost(getBoolean(ConfigurationKeys.ARTIFACT_PARAMETER_OVER_POST));
             HANDLER.setEagerlyCreateSessions(getBoolean(ConfigurationKeys.EAGERLY_CREATE_SESSIONS));
+            HANDLER.setSessionRevocationList(getSessionRevocationList());
         }
         HANDLER.init();
         handlerInitialized.set(true);
@@ -58,6 +58,9 @@ public final class SingleSignOutHandler {
     /** Mapping of token IDs and session IDs to HTTP sessions */
     private SessionMappingStorage sessionMappingStorage = new HashMapBackedSessionMappingStorage();
 
+    /** Logged out tokens, refused when presented through an assertion cookie */
+    private SessionRevocationList sessionRevocationList = SessionRevocationList.getSharedInstance();
+
     /** The name of the artifact parameter.  This is used to capture the session identifier. */
     private String artifactParameterName = Protocol.CAS2.getArtifactParameterName();
 
@@ -74,7 +77,7 @@ public final class SingleSignOutHandler {
 
     private boolean eagerlyCreateSessions = true;
 
-    private List<String> safeParameters;
+    private volatile List<String> safeParameters;
 
     private static boolean isServlet30() {
         try {
@@ -96,6 +99,14 @@ public final class SingleSignOutHandler {
         this.sessionMappingStorage = storage;
     }
 
+    /**
+     * @param sessionRevocationList the list of logged out tokens checked by the assertion cookies.
+     * @since 4.0.5
+     */
+    public void setSessionRevocationList(final SessionRevocationList sessionRevocationList) {
+        this.sessionRevocationList = sessionRevocationList;
+    }
+
     /**
      * @param name Name of the authentication token parameter.
      */
@@ -129,20 +140,18 @@ public final class SingleSignOutHandler {
     }
 
     /**
-     * Initializes the component for use.
+     * Initializes the component for use. Concurrent calls are harmless: they compute the same parameters.
      */
-    public synchronized void init() {
+    public void init() {
         if (this.safeParameters == null) {
             CommonUtils.assertNotNull(this.artifactParameterName, "artifactParameterName cannot be null.");
             CommonUtils.assertNotNull(this.logoutParameterName, "logoutParameterName cannot be null.");
             CommonUtils.assertNotNull(this.sessionMappingStorage, "sessionMappingStorage cannot be null.");
             CommonUtils.assertNotNull(this.relayStateParameterName, "relayStateParameterName cannot be null.");
 
-            if (this.artifactParameterOverPost) {
-                this.safeParameters = Arrays.asList(this.logoutParameterName, this.artifactParameterName);
-            } else {
-                this.safeParameters = Collections.singletonList(this.logoutParameterName);
-            }
+            this.safeParameters = this.artifactParameterOverPost
+                ? Arrays.asList(this.logoutParameterName, this.artifactParameterName)
+                : Collections.singletonList(this.logoutParameterName);
         }
     }
 
@@ -154,9 +163,22 @@ public final class SingleSignOutHandler {
      * @return if the request should continue to be processed.
      */
     public boolean process(final HttpServletRequest request, final HttpServletResponse response) {
-        if (isTokenRequest(request)) {
+        return process(request, response,
+            WebUtils.safeGetParameter(request, this.artifactParameterName, this.safeParameters));
+    }
+
+    /**
+     * Process a request regarding the SLO process when the artifact has already been extracted from the request.
+     *
+     * @param request the incoming HTTP request.
+     * @param response the HTTP response.
+     * @param token the authentication token carried by the request, if any.
+     * @return if the request should continue to be processed.
+     */
+    public boolean process(final HttpServletRequest request, final HttpServletResponse response, final String token) {
+        if (CommonUtils.isNotBlank(token)) {
             logger.trace("Received a token request");
-            recordSession(request);
+            recordSession(request, token);
             return true;
         }
 
@@ -198,18 +220,6 @@ public final class SingleSignOutHandler {
         }
     }
 
-    /**
-     * Determines whether the given request contains an authentication token.
-     *
-     * @param request HTTP reqest.
-     *
-     * @return True if request contains authentication token, false otherwise.
-     */
-    private boolean isTokenRequest(final HttpServletRequest request) {
-        return CommonUtils.isNotBlank(WebUtils.safeGetParameter(request, this.artifactParameterName,
-            this.safeParameters));
-    }
-
     /**
      * Determines whether the given request is a CAS  logout request.
      *
@@ -244,8 +254,9 @@ public final class SingleSignOutHandler {
      * in the the configured {@link SessionMappingStorage} container.
      *
      * @param request HTTP request containing an authentication token.
+     * @param token the authentication token.
      */
-    private void recordSession(final HttpServletRequest request) {
+    private void recordSession(final HttpServletRequest request, final String token) {
         final var session = request.getSession(this.eagerlyCreateSessions);
 
         if (session == null) {
@@ -253,7 +264,6 @@ public final class SingleSignOutHandler {
             return;
         }
 
-        final var token = WebUtils.safeGetParameter(request, this.artifactParameterName, this.safeParameters);
         logger.debug("Recording session for token {}", token);
 
         try {
@@ -313,6 +323,7 @@ public final class SingleSignOutHandler {
         logger.trace("Logout request:\n{}", logoutMessage);
         final var token = XmlUtils.getTextForElement(logoutMessage, "SessionIndex");
         if (CommonUtils.isNotBlank(token)) {
+            this.sessionRevocationList.revoke(token);
             final var session = this.sessionMappingStorage.removeSessionByMappingId(token);
 
             if (session != null) {
@@ -30,6 +30,7 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -71,6 +72,16 @@ public final class HttpsURLConnectionFactory implements HttpURLConnectionFactory
      */
     private Properties sslConfiguration = new Properties();
 
+    /**
+     * Connect timeout in milliseconds; zero or less leaves the JVM default in place.
+     */
+    private int connectTimeout;
+
+    /**
+     * Read timeout in milliseconds; zero or less leaves the JVM default in place.
+     */
+    private int readTimeout;
+
     public HttpsURLConnectionFactory() {
     }
 
@@ -94,8 +105,34 @@ public final class HttpsURLConnectionFactory implements HttpURLConnectionFactory
         this.hostnameVerifier = verifier;
     }
 
+    /**
+     * Bounds the time spent establishing the connection to the CAS server.
+     *
+     * @param connectTimeout the timeout in milliseconds; zero or less keeps the JVM default.
+     * @since 4.0.5
+     */
+    public final void setConnectTimeout(final int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Bounds the time spent waiting for the CAS server to answer.
+     *
+     * @param readTimeout the timeout in milliseconds; zero or less keeps the JVM default.
+     * @since 4.0.5
+     */
+    public final void setReadTimeout(final int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
     @Override
     public HttpURLConnection buildHttpURLConnection(final URLConnection url) {
+        if (this.connectTimeout > 0) {
+            url.setConnectTimeout(this.connectTimeout);
+        }
+        if (this.readTimeout > 0) {
+            url.setReadTimeout(this.readTimeout);
+        }
         return this.configureHttpsConnectionIfNeeded(url);
     }
 
@@ -103,6 +140,8 @@ public final class HttpsURLConnectionFactory implements HttpURLConnectionFactory
     public int hashCode() {
         var result = hostnameVerifier.hashCode();
         result = 31 * result + sslConfiguration.hashCode();
+        result = 31 * result + connectTimeout;
+        result = 31 * result + readTimeout;
         return result;
     }
 
@@ -123,6 +162,9 @@ public final class HttpsURLConnectionFactory implements HttpURLConnectionFactory
         if (!sslConfiguration.equals(that.sslConfiguration)) {
             return false;
         }
+        if (connectTimeout != that.connectTimeout || readTimeout != that.readTimeout) {
+            return false;
+        }
 
         return true;
     }
@@ -222,7 +264,8 @@ public final class HttpsURLConnectionFactory implements HttpURLConnectionFactory
         }
 
         out.writeObject(this.sslConfiguration);
-
+        out.writeInt(this.connectTimeout);
+        out.writeInt(this.readTimeout);
     }
 
     @Serial
@@ -235,5 +278,13 @@ public final class HttpsURLConnectionFactory implements HttpURLConnectionFactory
         }
 
         this.sslConfiguration = (Properties) in.readObject();
+        try {
+            this.connectTimeout = in.readInt();
+            this.readTimeout = in.readInt();
+        } catch (final EOFException e) {
+            // serialized by a version without timeouts
+            this.connectTimeout = 0;
+            this.readTimeout = 0;
+        }
     }
 }
@@ -20,6 +20,7 @@ package org.apereo.cas.client.util;
 
 import org.apereo.cas.client.Protocol;
 import org.apereo.cas.client.configuration.ConfigurationKeys;
+import org.apereo.cas.client.session.AssertionCookieCodec;
 
 import jakarta.servlet.FilterConfig;
 import jakarta.servlet.ServletException;
@@ -35,6 +36,13 @@ import java.util.Collections;
  * <ul>
  * <li><code>serverName</code> - the name of the CAS client server, in the format: localhost:8080 or localhost:8443 or localhost or https://localhost:8443</li>
  * <li><code>service</code> - the completely qualified service url, i.e. https://localhost/cas-client/app</li>
+ * <li><code>serviceUrlCacheSize</code> - the maximum number of generated service urls to memoize, 0 to disable (default: 0)</li>
+ * <li><code>assertionCookieSecretKeys</code> - base64 secret keys of at least 32 bytes, separated by commas, enabling
+ * the signed assertion cookie, see {@link AssertionCookieCodec}. The first key signs, all of them verify.</li>
+ * <li><code>assertionCookieName</code> - name of the assertion cookie (default: CASASSERTION)</li>
+ * <li><code>assertionCookieMaxAge</code> - milliseconds the assertion cookie is valid for (default: 1800000)</li>
+ * <li><code>assertionCookieAttributes</code> - principal attributes, separated by commas, kept in the assertion
+ * cookie (default: none)</li>
  * </ul>
  * <p>Please note that one of the two above parameters must be set.</p>
  *
@@ -60,6 +68,12 @@ public abstract class AbstractCasFilter extends AbstractConfigurationFilter {
     /** The exact url of the service. */
     private String service;
 
+    /** Memoized service urls generated from the serverName, or null if disabled. */
+    private LruCache<WebUtils.ServiceUrlKey, String> serviceUrlCache;
+
+    /** Codec of the signed cookie holding the assertion, or null if disabled. */
+    private AssertionCookieCodec assertionCookieCodec;
+
     protected AbstractCasFilter(final Protocol protocol) {
         this.protocol = protocol;
     }
@@ -71,6 +85,8 @@ public abstract class AbstractCasFilter extends AbstractConfigurationFilter {
             setServerName(getString(ConfigurationKeys.SERVER_NAME));
             setService(getString(ConfigurationKeys.SERVICE));
             setEncodeServiceUrl(getBoolean(ConfigurationKeys.ENCODE_SERVICE_URL));
+            setServiceUrlCacheSize(getInt(ConfigurationKeys.SERVICE_URL_CACHE_SIZE));
+            setAssertionCookieCodec(createAssertionCookieCodec());
 
             initInternal(filterConfig);
         }
@@ -117,6 +133,30 @@ public abstract class AbstractCasFilter extends AbstractConfigurationFilter {
         this.encodeServiceUrl = encodeServiceUrl;
     }
 
+    /**
+     * Enables memoization of the service urls generated from the serverName.  Useful when the application serves a
+     * bounded set of urls, since the generated url is recomputed on every unauthenticated request and every validation.
+     *
+     * @param serviceUrlCacheSize the maximum number of service urls to remember; 0 or less disables the cache.
+     */
+    public final void setServiceUrlCacheSize(final int serviceUrlCacheSize) {
+        this.serviceUrlCache = serviceUrlCacheSize > 0 ? new LruCache<>(serviceUrlCacheSize) : null;
+    }
+
+    /**
+     * Enables the stateless mode where the assertion is kept in a signed cookie rather than, or besides, the session.
+     *
+     * @param assertionCookieCodec the codec of the cookie, null to disable the cookie.
+     * @since 4.0.5
+     */
+    public final void setAssertionCookieCodec(final AssertionCookieCodec assertionCookieCodec) {
+        this.assertionCookieCodec = assertionCookieCodec;
+    }
+
+    protected final AssertionCookieCodec getAssertionCookieCodec() {
+        return this.assertionCookieCodec;
+    }
+
     /** Controls the ordering of filter initialization and checking by defining a method that runs before the init.
      * @param filterConfig the original filter configuration.
      * @throws ServletException if there is a problem.
@@ -129,7 +169,11 @@ public abstract class AbstractCasFilter extends AbstractConfigurationFilter {
     protected final String constructServiceUrl(final HttpServletRequest request, final HttpServletResponse response) {
         return WebUtils.constructServiceUrl(request, response, this.service, this.serverName,
             this.protocol.getServiceParameterName(),
-            this.protocol.getArtifactParameterName(), this.encodeServiceUrl);
+            this.protocol.getArtifactParameterName(), this.encodeServiceUrl, this.serviceUrlCache);
+    }
+
+    protected final int getServiceUrlCacheSize() {
+        return this.serviceUrlCache != null ? this.serviceUrlCache.getMaxSize() : 0;
     }
 
     protected Protocol getProtocol() {
@@ -19,8 +19,11 @@
 package org.apereo.cas.client.util;
 
 import org.apereo.cas.client.configuration.ConfigurationKey;
+import org.apereo.cas.client.configuration.ConfigurationKeys;
 import org.apereo.cas.client.configuration.ConfigurationStrategy;
 import org.apereo.cas.client.configuration.ConfigurationStrategyName;
+import org.apereo.cas.client.session.AssertionCookieCodec;
+import org.apereo.cas.client.session.SessionRevocationList;
 
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterConfig;
@@ -28,6 +31,9 @@ import jakarta.servlet.ServletException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Abstracts out the ability to configure the filters from the initial properties provided.
  *
@@ -72,6 +78,33 @@ public abstract class AbstractConfigurationFilter implements Filter {
         return this.configurationStrategy.getClass(configurationKey);
     }
 
+    /**
+     * Builds the codec of the signed cookie holding the assertion, when secret keys are configured for it.
+     *
+     * @return the codec, or null if <code>assertionCookieSecretKeys</code> is not set.
+     * @since 4.0.5
+     */
+    protected final AssertionCookieCodec createAssertionCookieCodec() {
+        final var secretKeys = getString(ConfigurationKeys.ASSERTION_COOKIE_SECRET_KEYS);
+        if (CommonUtils.isBlank(secretKeys)) {
+            return null;
+        }
+        final var attributes = getString(ConfigurationKeys.ASSERTION_COOKIE_ATTRIBUTES);
+        return new AssertionCookieCodec(AssertionCookieCodec.parseSecretKeys(secretKeys),
+            getString(ConfigurationKeys.ASSERTION_COOKIE_NAME), getLong(ConfigurationKeys.ASSERTION_COOKIE_MAX_AGE),
+            CommonUtils.isBlank(attributes) ? List.of() : Arrays.asList(attributes.trim().split("[,\\s]+")),
+            getSessionRevocationList());
+    }
+
+    /**
+     * @return the list of logged out sessions chosen with <code>sessionRevocationListClass</code>, shared by the
+     * filters of the JVM.
+     * @since 4.0.5
+     */
+    protected final SessionRevocationList getSessionRevocationList() {
+        return SessionRevocationList.getInstance(getClass(ConfigurationKeys.SESSION_REVOCATION_LIST_CLASS));
+    }
+
     protected final boolean isIgnoreInitConfiguration() {
         return this.ignoreInitConfiguration;
     }
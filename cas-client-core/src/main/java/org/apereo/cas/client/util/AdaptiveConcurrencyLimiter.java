@@ -0,0 +1,176 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit on the calls concurrently in flight to the CAS server, in the style of TCP Vegas.
+ * <p>
+ * The lowest round-trip time observed stands for the latency of an idle server. Each new sample estimates how many
+ * calls are queued at the server, <code>limit * (1 - minRtt / rtt)</code>: while the queue stays short the limit
+ * grows, once it lengthens the limit shrinks, and a dropped call (error or timeout) cuts it by a tenth. The
+ * idle-server latency is forgotten every few hundred samples so that the limiter follows a server whose baseline
+ * changed. Calls beyond the limit are refused straight away, leaving the caller to shed them.
+ * <p>
+ * Every permission granted by {@link #tryAcquire()} is handed back through exactly one of
+ * {@link #onSample(long)}, {@link #onDropped()} or {@link #release()}.
+ *
+ * @since 4.0.5
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final int MIN_RTT_RESET_SAMPLES = 500;
+
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long retryAfterMillis;
+
+    private double limit;
+
+    private int inFlight;
+
+    private long minRttNanos = Long.MAX_VALUE;
+
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter() {
+        this(20, 1, 200, 1000);
+    }
+
+    /**
+     * @param initialLimit the limit to start with.
+     * @param minLimit the lowest the limit may fall.
+     * @param maxLimit the highest the limit may rise.
+     * @param retryAfterMillis the delay after which refused callers are advised to come back.
+     */
+    public AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit,
+                                      final long retryAfterMillis) {
+        CommonUtils.assertTrue(minLimit > 0 && minLimit <= initialLimit && initialLimit <= maxLimit,
+            "limits must satisfy 0 < minLimit <= initialLimit <= maxLimit.");
+        CommonUtils.assertTrue(retryAfterMillis >= 0, "retryAfterMillis cannot be negative.");
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return true if the call may proceed, false if it must be shed.
+     */
+    public boolean tryAcquire() {
+        this.lock.lock();
+        try {
+            if (this.inFlight >= (int) this.limit) {
+                return false;
+            }
+            this.inFlight++;
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Hands back the permission of a call that completed in the given round-trip time.
+     *
+     * @param rttNanos the round-trip time of the call.
+     */
+    public void onSample(final long rttNanos) {
+        this.lock.lock();
+        try {
+            // samples taken while most of the limit was unused say nothing about the limit
+            final var saturated = this.inFlight * 2 >= this.limit;
+            this.inFlight--;
+            if (++this.samples % MIN_RTT_RESET_SAMPLES == 0) {
+                this.minRttNanos = rttNanos;
+            }
+            this.minRttNanos = Math.min(this.minRttNanos, Math.max(rttNanos, 1));
+            if (!saturated) {
+                return;
+            }
+            final var queue = this.limit * (1 - (double) this.minRttNanos / Math.max(rttNanos, 1));
+            final var log = Math.max(1, Math.log10(this.limit));
+            if (queue <= 3 * log) {
+                setLimit(this.limit + log);
+            } else if (queue >= 6 * log) {
+                setLimit(this.limit - log);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Hands back the permission of a call that failed or timed out, shrinking the limit.
+     */
+    public void onDropped() {
+        this.lock.lock();
+        try {
+            this.inFlight--;
+            setLimit(this.limit * DROP_BACKOFF);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Hands back the permission of a call that says nothing about the server, e.g. one refused before being sent.
+     */
+    public void release() {
+        this.lock.lock();
+        try {
+            this.inFlight--;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        this.lock.lock();
+        try {
+            return (int) this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        this.lock.lock();
+        try {
+            return this.inFlight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long getRetryAfterMillis() {
+        return this.retryAfterMillis;
+    }
+
+    private void setLimit(final double newLimit) {
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+    }
+}
@@ -22,6 +22,9 @@ import org.apereo.cas.client.validation.Assertion;
 
 /**
  * Static holder that places Assertion in a ThreadLocal.
+ * <p>
+ * An assertion can also be bound for the duration of an action with {@link #runWithAssertion(Assertion, ScopedAction)},
+ * which uses a <code>ScopedValue</code> when the runtime provides one. {@link #getAssertion()} sees either binding.
  *
  * @author Scott Battaglia
  * @since 3.0
@@ -34,27 +37,86 @@ public class AssertionHolder {
     private static final ThreadLocal<Assertion> threadLocal = new ThreadLocal<>();
 
     /**
-     * Retrieve the assertion from the ThreadLocal.
+     * Whether assertions were ever bound with {@link #runWithAssertion(Assertion, ScopedAction)}; until then only the
+     * ThreadLocal is looked up.
+     */
+    private static volatile boolean scopeInUse;
+
+    /**
+     * Retrieve the assertion bound by an enclosing {@link #runWithAssertion(Assertion, ScopedAction)}, or else from the
+     * ThreadLocal.
      *
      * @return the Asssertion associated with this thread.
      */
     public static Assertion getAssertion() {
+        if (scopeInUse) {
+            final var scoped = Scope.INSTANCE.get();
+            if (scoped != null) {
+                return scoped;
+            }
+        }
         return threadLocal.get();
     }
 
+    /**
+     * Runs the action with the given assertion bound, restoring the previous binding afterwards.
+     *
+     * @param assertion the assertion to bind.
+     * @param action the action to run.
+     * @param <X> the exception type thrown by the action.
+     * @throws X when the action throws.
+     */
+    public static <X extends Exception> void runWithAssertion(final Assertion assertion, final ScopedAction<X> action) throws X {
+        useScope();
+        Scope.INSTANCE.run(assertion, action);
+    }
+
+    /**
+     * Makes {@link #getAssertion()} look up scoped assertions, ahead of the first
+     * {@link #runWithAssertion(Assertion, ScopedAction)} call.
+     */
+    static void useScope() {
+        if (!scopeInUse) {
+            scopeInUse = true;
+        }
+    }
+
     /**
      * Add the Assertion to the ThreadLocal.
      *
      * @param assertion the assertion to add.
      */
     public static void setAssertion(final Assertion assertion) {
-        threadLocal.set(assertion);
+        if (assertion == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(assertion);
+        }
     }
 
     /**
-     * Clear the ThreadLocal.
+     * Clear the ThreadLocal, removing its entry so that no per-thread state is retained.
      */
     public static void clear() {
-        threadLocal.set(null);
+        threadLocal.remove();
+    }
+
+    /**
+     * Scope binding assertions for the duration of an action, only created once needed.
+     */
+    private static final class Scope {
+
+        private static final AssertionScope INSTANCE = AssertionScope.create();
+    }
+
+    /**
+     * Action run by {@link #runWithAssertion(Assertion, ScopedAction)}.
+     *
+     * @param <X> the exception type thrown by the action.
+     */
+    @FunctionalInterface
+    public interface ScopedAction<X extends Exception> {
+
+        void run() throws X;
     }
 }
@@ -0,0 +1,152 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import org.apereo.cas.client.validation.Assertion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Binds an assertion for the duration of an action on behalf of {@link AssertionHolder}.
+ * <p>
+ * On runtimes providing <code>java.lang.ScopedValue</code> the assertion is bound to a scoped value, which is
+ * inherited by structured concurrency subtasks and leaves no per-thread state behind. The class is looked up
+ * reflectively because the client is built for Java 17; elsewhere the holder's ThreadLocal is set for the
+ * duration of the action and the previous value restored afterwards.
+ *
+ * @since 4.0.5
+ */
+abstract class AssertionScope {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssertionScope.class);
+
+    static AssertionScope create() {
+        try {
+            return new ScopedValueAssertionScope();
+        } catch (final Throwable e) {
+            LOGGER.debug("ScopedValue is not available, scoped assertions are bound to a ThreadLocal: {}", e.toString());
+            return new ThreadLocalAssertionScope();
+        }
+    }
+
+    /**
+     * @return the assertion bound by an enclosing {@link #run(Assertion, AssertionHolder.ScopedAction)}, or null.
+     */
+    abstract Assertion get();
+
+    abstract <X extends Exception> void run(Assertion assertion, AssertionHolder.ScopedAction<X> action) throws X;
+
+    @SuppressWarnings("unchecked")
+    private static <X extends Exception> void sneakyThrow(final Throwable throwable) throws X {
+        throw (X) throwable;
+    }
+
+    private static final class ThreadLocalAssertionScope extends AssertionScope {
+
+        @Override
+        Assertion get() {
+            return null;
+        }
+
+        @Override
+        <X extends Exception> void run(final Assertion assertion, final AssertionHolder.ScopedAction<X> action) throws X {
+            final var previous = AssertionHolder.getAssertion();
+            AssertionHolder.setAssertion(assertion);
+            try {
+                action.run();
+            } finally {
+                AssertionHolder.setAssertion(previous);
+            }
+        }
+    }
+
+    private static final class ScopedValueAssertionScope extends AssertionScope {
+
+        // static final handles invoked exactly are constant folded by the JIT, unlike instance fields and invoke()
+        private static final Object SCOPED_VALUE;
+
+        private static final MethodHandle IS_BOUND;
+
+        private static final MethodHandle GET;
+
+        private static final MethodHandle WHERE;
+
+        private static final MethodHandle RUN_IN_CARRIER;
+
+        static {
+            try {
+                final var lookup = MethodHandles.publicLookup();
+                final var scopedValueClass = Class.forName("java.lang.ScopedValue");
+                final var carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+                SCOPED_VALUE = lookup.findStatic(scopedValueClass, "newInstance", MethodType.methodType(scopedValueClass))
+                    .invoke();
+                IS_BOUND = lookup.findVirtual(scopedValueClass, "isBound", MethodType.methodType(boolean.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class));
+                GET = lookup.findVirtual(scopedValueClass, "get", MethodType.methodType(Object.class))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+                WHERE = lookup.findStatic(scopedValueClass, "where",
+                        MethodType.methodType(carrierClass, scopedValueClass, Object.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+                RUN_IN_CARRIER = lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class))
+                    .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+            } catch (final Throwable e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        ScopedValueAssertionScope() {
+            // fail now rather than on the first request if preview features are required but disabled
+            run(null, () -> get());
+        }
+
+        @Override
+        Assertion get() {
+            try {
+                return (boolean) IS_BOUND.invokeExact(SCOPED_VALUE) ? (Assertion) (Object) GET.invokeExact(SCOPED_VALUE) : null;
+            } catch (final Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        <X extends Exception> void run(final Assertion assertion, final AssertionHolder.ScopedAction<X> action) throws X {
+            final var failure = new Throwable[1];
+            final Runnable runnable = () -> {
+                try {
+                    action.run();
+                } catch (final Throwable e) {
+                    failure[0] = e;
+                }
+            };
+            try {
+                RUN_IN_CARRIER.invokeExact((Object) WHERE.invokeExact(SCOPED_VALUE, (Object) assertion), runnable);
+            } catch (final Throwable e) {
+                throw new IllegalStateException(e);
+            }
+            if (failure[0] != null) {
+                sneakyThrow(failure[0]);
+            }
+        }
+    }
+}
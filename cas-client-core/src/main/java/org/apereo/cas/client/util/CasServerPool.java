@@ -0,0 +1,286 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import org.apereo.cas.client.ssl.HttpURLConnectionFactory;
+import org.apereo.cas.client.ssl.HttpsURLConnectionFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Pool of CAS server nodes sharing the validation load without an external load balancer.
+ * <p>
+ * Each call goes to the cheaper of two randomly drawn healthy nodes ("power of two choices"), the cost of a node
+ * being the exponentially weighted moving average of its latency on successful calls scaled by its calls in flight.
+ * A node failing <code>ejectAfterFailures</code> calls in a row, timeouts included, is ejected; a background task
+ * then probes it every <code>probeIntervalMillis</code> and readmits it once it answers. Should every node be
+ * ejected, calls are spread over all of them rather than refused.
+ * <p>
+ * Every endpoint obtained from {@link #choose(Endpoint)} is handed back through exactly one of
+ * {@link #onSuccess(Endpoint, long)}, {@link #onFailure(Endpoint, long)} or {@link #release(Endpoint)}.
+ *
+ * @since 4.0.5
+ */
+public final class CasServerPool implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CasServerPool.class);
+
+    /** Weight of the latest observation in the moving average. */
+    private static final double EWMA_WEIGHT = 0.3;
+
+    private final List<Endpoint> endpoints;
+
+    private final int ejectAfterFailures;
+
+    private final Predicate<String> probe;
+
+    private final ScheduledExecutorService prober;
+
+    public CasServerPool(final Collection<String> urlPrefixes) {
+        this(urlPrefixes, 3, 10000, new HttpsURLConnectionFactory());
+    }
+
+    /**
+     * @param urlPrefixes the CAS server URL prefixes, i.e. https://cas1.example.com/cas/
+     * @param ejectAfterFailures consecutive failures after which a node is ejected.
+     * @param probeIntervalMillis milliseconds between two probes of the ejected nodes.
+     * @param probeConnectionFactory connection factory used to probe the ejected nodes.
+     */
+    public CasServerPool(final Collection<String> urlPrefixes, final int ejectAfterFailures,
+                         final long probeIntervalMillis, final HttpURLConnectionFactory probeConnectionFactory) {
+        this(urlPrefixes, ejectAfterFailures, probeIntervalMillis,
+            (Predicate<String>) prefix -> isAnswering(prefix, probeConnectionFactory));
+    }
+
+    CasServerPool(final Collection<String> urlPrefixes, final int ejectAfterFailures,
+                  final long probeIntervalMillis, final Predicate<String> probe) {
+        CommonUtils.assertTrue(urlPrefixes != null && !urlPrefixes.isEmpty(), "urlPrefixes cannot be empty.");
+        CommonUtils.assertTrue(ejectAfterFailures > 0, "ejectAfterFailures must be greater than zero.");
+        CommonUtils.assertTrue(probeIntervalMillis > 0, "probeIntervalMillis must be greater than zero.");
+        final List<Endpoint> list = new ArrayList<>(urlPrefixes.size());
+        for (final var prefix : urlPrefixes) {
+            list.add(new Endpoint(CommonUtils.addTrailingSlash(prefix)));
+        }
+        this.endpoints = List.copyOf(list);
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.probe = probe;
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "cas-server-pool-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prober.scheduleWithFixedDelay(this::probeEjected, probeIntervalMillis, probeIntervalMillis,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Parses a comma or whitespace separated list of URL prefixes.
+     *
+     * @param urlPrefixes the list.
+     * @return the URL prefixes.
+     */
+    public static List<String> parseUrlPrefixes(final String urlPrefixes) {
+        final List<String> result = new ArrayList<>();
+        for (final var prefix : urlPrefixes.split("[\\s,]+")) {
+            if (!prefix.isEmpty()) {
+                result.add(prefix);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Picks the node for the next call.
+     *
+     * @param avoid a node that just failed the call being retried, null for none.
+     * @return the node, its calls in flight already incremented.
+     */
+    public Endpoint choose(final Endpoint avoid) {
+        final List<Endpoint> candidates = new ArrayList<>(this.endpoints.size());
+        for (final var endpoint : this.endpoints) {
+            if (!endpoint.ejected && endpoint != avoid) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(this.endpoints);
+            if (avoid != null && candidates.size() > 1) {
+                candidates.remove(avoid);
+            }
+        }
+
+        final Endpoint chosen;
+        if (candidates.size() == 1) {
+            chosen = candidates.get(0);
+        } else {
+            final var random = ThreadLocalRandom.current();
+            final var first = random.nextInt(candidates.size());
+            final var second = (first + 1 + random.nextInt(candidates.size() - 1)) % candidates.size();
+            final var a = candidates.get(first);
+            final var b = candidates.get(second);
+            chosen = a.cost() <= b.cost() ? a : b;
+        }
+        chosen.inFlight.incrementAndGet();
+        return chosen;
+    }
+
+    public void onSuccess(final Endpoint endpoint, final long latencyNanos) {
+        endpoint.inFlight.decrementAndGet();
+        endpoint.consecutiveFailures.set(0);
+        endpoint.observe(latencyNanos);
+    }
+
+    /**
+     * Records a failed call. Its latency is not observed: a node refusing connections at once would otherwise
+     * look like the cheapest one and draw the traffic, and one failing slowly would stop being chosen before
+     * reaching the ejection threshold.
+     *
+     * @param endpoint the node.
+     * @param latencyNanos the duration of the failed call.
+     */
+    public void onFailure(final Endpoint endpoint, final long latencyNanos) {
+        endpoint.inFlight.decrementAndGet();
+        if (endpoint.consecutiveFailures.incrementAndGet() >= this.ejectAfterFailures && !endpoint.ejected) {
+            LOGGER.warn("Ejecting CAS server [{}] after {} consecutive failures.", endpoint.urlPrefix,
+                this.ejectAfterFailures);
+            endpoint.ejected = true;
+        }
+    }
+
+    /**
+     * Hands back a node whose call was abandoned before reaching it.
+     *
+     * @param endpoint the node.
+     */
+    public void release(final Endpoint endpoint) {
+        endpoint.inFlight.decrementAndGet();
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return this.endpoints;
+    }
+
+    public int size() {
+        return this.endpoints.size();
+    }
+
+    @Override
+    public void close() {
+        this.prober.shutdownNow();
+    }
+
+    private void probeEjected() {
+        for (final var endpoint : this.endpoints) {
+            if (endpoint.ejected && this.probe.test(endpoint.urlPrefix)) {
+                LOGGER.info("Readmitting CAS server [{}].", endpoint.urlPrefix);
+                endpoint.ewmaNanos.set((long) averageHealthyLatency());
+                endpoint.consecutiveFailures.set(0);
+                endpoint.ejected = false;
+            }
+        }
+    }
+
+    private double averageHealthyLatency() {
+        var sum = 0.0;
+        var count = 0;
+        for (final var endpoint : this.endpoints) {
+            if (!endpoint.ejected) {
+                sum += endpoint.ewmaNanos.get();
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    private static boolean isAnswering(final String urlPrefix, final HttpURLConnectionFactory factory) {
+        try {
+            final var connection = factory.buildHttpURLConnection(new URL(urlPrefix).openConnection());
+            try {
+                return connection.getResponseCode() < 500;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.debug("CAS server [{}] is still unavailable: {}", urlPrefix, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * A CAS server node of the pool.
+     */
+    public static final class Endpoint {
+
+        private final String urlPrefix;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        /** Moving average of the latency, zero until the first call so that new nodes are tried first. */
+        private final AtomicLong ewmaNanos = new AtomicLong();
+
+        private volatile boolean ejected;
+
+        private Endpoint(final String urlPrefix) {
+            this.urlPrefix = urlPrefix;
+        }
+
+        public String getUrlPrefix() {
+            return this.urlPrefix;
+        }
+
+        public boolean isEjected() {
+            return this.ejected;
+        }
+
+        public long getLatencyNanos() {
+            return this.ewmaNanos.get();
+        }
+
+        private void observe(final long latencyNanos) {
+            this.ewmaNanos.updateAndGet(current -> current == 0
+                ? latencyNanos : (long) (EWMA_WEIGHT * latencyNanos + (1 - EWMA_WEIGHT) * current));
+        }
+
+        private double cost() {
+            return (this.ewmaNanos.get() + 1.0) * (this.inFlight.get() + 1);
+        }
+
+        @Override
+        public String toString() {
+            return this.urlPrefix;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker guarding the calls made to a remote CAS server.
+ * <p>
+ * The outcomes of the last <code>windowSize</code> calls are tracked; once at least <code>minimumCalls</code> have
+ * been recorded and their failure rate reaches <code>failureRateThreshold</code>, the breaker opens and
+ * {@link #tryAcquirePermission()} refuses every call for the open duration, randomly stretched or shortened by up
+ * to 20% so that a fleet of clients does not probe a recovering server in lockstep. A single probe call is then
+ * let through: its success closes the breaker, its failure opens it again.
+ * <p>
+ * Callers pair every granted permission with exactly one of {@link #onSuccess()} or {@link #onFailure()}.
+ *
+ * @since 4.0.5
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final double OPEN_DURATION_JITTER = 0.2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongSupplier nanoClock;
+
+    /** Ring of the latest outcomes, true marking a failure. */
+    private final boolean[] window;
+
+    private final int minimumCalls;
+
+    private final double failureRateThreshold;
+
+    private final long openDurationNanos;
+
+    private int next;
+
+    private int recorded;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openUntil;
+
+    private boolean probeInFlight;
+
+    public CircuitBreaker() {
+        this(20, 10, 0.5, 30000);
+    }
+
+    public CircuitBreaker(final int windowSize, final int minimumCalls, final double failureRateThreshold,
+                          final long openDurationMillis) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDurationMillis, System::nanoTime);
+    }
+
+    CircuitBreaker(final int windowSize, final int minimumCalls, final double failureRateThreshold,
+                   final long openDurationMillis, final LongSupplier nanoClock) {
+        CommonUtils.assertTrue(windowSize > 0, "windowSize must be greater than zero.");
+        CommonUtils.assertTrue(minimumCalls > 0 && minimumCalls <= windowSize,
+            "minimumCalls must be between one and windowSize.");
+        CommonUtils.assertTrue(failureRateThreshold > 0 && failureRateThreshold <= 1,
+            "failureRateThreshold must be greater than zero and at most one.");
+        CommonUtils.assertTrue(openDurationMillis > 0, "openDurationMillis must be greater than zero.");
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return true if the call may proceed, false if it must fail fast.
+     */
+    public boolean tryAcquirePermission() {
+        this.lock.lock();
+        try {
+            if (this.state == State.OPEN && this.nanoClock.getAsLong() - this.openUntil >= 0) {
+                this.state = State.HALF_OPEN;
+                this.probeInFlight = false;
+            }
+            return switch (this.state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (this.probeInFlight) {
+                        yield false;
+                    }
+                    this.probeInFlight = true;
+                    yield true;
+                }
+            };
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        this.lock.lock();
+        try {
+            if (this.state == State.HALF_OPEN) {
+                this.state = State.CLOSED;
+                this.probeInFlight = false;
+                resetWindow();
+            } else if (this.state == State.CLOSED) {
+                record(false);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        this.lock.lock();
+        try {
+            if (this.state == State.HALF_OPEN) {
+                open();
+            } else if (this.state == State.CLOSED) {
+                record(true);
+                if (this.recorded >= this.minimumCalls
+                    && (double) this.failures / this.recorded >= this.failureRateThreshold) {
+                    open();
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public State getState() {
+        this.lock.lock();
+        try {
+            return this.state;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the milliseconds until the next probe is let through, zero unless the breaker is open.
+     */
+    public long getRemainingOpenMillis() {
+        this.lock.lock();
+        try {
+            if (this.state != State.OPEN) {
+                return 0;
+            }
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.openUntil - this.nanoClock.getAsLong()));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void record(final boolean failure) {
+        if (this.recorded == this.window.length) {
+            if (this.window[this.next]) {
+                this.failures--;
+            }
+        } else {
+            this.recorded++;
+        }
+        this.window[this.next] = failure;
+        if (failure) {
+            this.failures++;
+        }
+        this.next = (this.next + 1) % this.window.length;
+    }
+
+    private void open() {
+        final var jitter = 1 + OPEN_DURATION_JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        this.state = State.OPEN;
+        this.openUntil = this.nanoClock.getAsLong() + (long) (this.openDurationNanos * jitter);
+        this.probeInFlight = false;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        this.next = 0;
+        this.recorded = 0;
+        this.failures = 0;
+    }
+}
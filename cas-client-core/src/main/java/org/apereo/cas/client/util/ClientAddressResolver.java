@@ -0,0 +1,39 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the address of the client a request comes from, e.g. to throttle clients individually.
+ *
+ * @since 4.0.5
+ */
+@FunctionalInterface
+public interface ClientAddressResolver {
+
+    /** The address the container reports, which is the one of the last proxy when there are any. */
+    ClientAddressResolver REMOTE_ADDRESS = HttpServletRequest::getRemoteAddr;
+
+    /**
+     * @param request the request.
+     * @return the address of the client.
+     */
+    String resolveClientAddress(HttpServletRequest request);
+}
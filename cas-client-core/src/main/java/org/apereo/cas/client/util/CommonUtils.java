@@ -30,10 +30,8 @@ import javax.net.ssl.SSLException;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLEncoder;
 import java.util.Collection;
 
 /**
@@ -189,11 +187,7 @@ public final class CommonUtils {
      * @return the encoded value.
      */
     public static String urlEncode(final String value) {
-        try {
-            return URLEncoder.encode(value, "UTF-8");
-        } catch (final UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
+        return URIBuilder.formEncode(value);
     }
 
     /**
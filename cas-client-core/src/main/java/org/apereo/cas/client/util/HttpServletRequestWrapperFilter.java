@@ -20,6 +20,7 @@ package org.apereo.cas.client.util;
 
 import org.apereo.cas.client.authentication.AttributePrincipal;
 import org.apereo.cas.client.configuration.ConfigurationKeys;
+import org.apereo.cas.client.session.AssertionCookieCodec;
 import org.apereo.cas.client.validation.Assertion;
 
 import jakarta.servlet.FilterChain;
@@ -31,8 +32,12 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.security.Principal;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Implementation of a filter that wraps the normal HttpServletRequest with a
@@ -46,6 +51,13 @@ import java.util.Collection;
  * <p/>
  * This filter needs to be configured in the chain so that it executes after
  * both the authentication and the validation filters.
+ * <p/>
+ * Role membership is answered from a set of the principal's roles that is built on the first
+ * {@link HttpServletRequest#isUserInRole(String)} call and kept in the session next to the assertion,
+ * so later requests of the same login only pay a hash lookup.
+ * <p/>
+ * Without a session nor a request attribute holding the assertion, the signed assertion cookie is verified when
+ * <code>assertionCookieSecretKeys</code> is configured, see {@link AssertionCookieCodec}.
  *
  * @author Scott Battaglia
  * @author Marvin S. Addison
@@ -53,12 +65,18 @@ import java.util.Collection;
  */
 public final class HttpServletRequestWrapperFilter extends AbstractConfigurationFilter {
 
+    /** Name of the session attribute caching the role index of the session's assertion */
+    public static final String CONST_CAS_ROLE_INDEX = "_const_cas_role_index_";
+
     /** Name of the attribute used to answer role membership queries */
     private String roleAttribute;
 
     /** Whether or not to ignore case in role membership queries */
     private boolean ignoreCase;
 
+    /** Codec of the signed cookie holding the assertion, or null if disabled */
+    private AssertionCookieCodec assertionCookieCodec;
+
     /**
      * Wraps the HttpServletRequest in a wrapper class that delegates
      * <code>request.getRemoteUser</code> to the underlying Assertion object
@@ -69,8 +87,18 @@ public final class HttpServletRequestWrapperFilter extends AbstractConfiguration
                          final FilterChain filterChain) throws IOException, ServletException {
         final var principal = retrievePrincipalFromSessionOrRequest(servletRequest);
 
-        filterChain.doFilter(new CasHttpServletRequestWrapper((HttpServletRequest) servletRequest, principal),
-            servletResponse);
+        filterChain.doFilter(wrapRequest((HttpServletRequest) servletRequest, principal), servletResponse);
+    }
+
+    /**
+     * Wraps the request so that the user principal, remote user and role membership are answered from the given principal.
+     *
+     * @param request the request to wrap.
+     * @param principal the CAS principal of the request, may be null.
+     * @return the wrapped request.
+     */
+    public HttpServletRequest wrapRequest(final HttpServletRequest request, final AttributePrincipal principal) {
+        return new CasHttpServletRequestWrapper(request, principal);
     }
 
     @Override
@@ -83,22 +111,95 @@ public final class HttpServletRequestWrapperFilter extends AbstractConfiguration
         super.init(filterConfig);
         this.roleAttribute = getString(ConfigurationKeys.ROLE_ATTRIBUTE);
         this.ignoreCase = getBoolean(ConfigurationKeys.IGNORE_CASE);
+        this.assertionCookieCodec = createAssertionCookieCodec();
     }
 
-    private static AttributePrincipal retrievePrincipalFromSessionOrRequest(final ServletRequest servletRequest) {
+    private AttributePrincipal retrievePrincipalFromSessionOrRequest(final ServletRequest servletRequest) {
         final var request = (HttpServletRequest) servletRequest;
         final var session = request.getSession(false);
-        final var assertion = (Assertion) (session == null ? request
+        var assertion = (Assertion) (session == null ? request
             .getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION) : session
             .getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION));
 
+        if (assertion == null && this.assertionCookieCodec != null) {
+            assertion = (Assertion) request.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION);
+            if (assertion == null) {
+                assertion = this.assertionCookieCodec.readCookie(request);
+            }
+        }
         return assertion == null ? null : assertion.getPrincipal();
     }
 
+    /**
+     * Folds the case of the given role so that two roles fold to the same string exactly when
+     * {@link String#equalsIgnoreCase(String)} considers them equal.
+     */
+    private static String foldCase(final String role) {
+        final var folded = new StringBuilder(role.length());
+        for (var i = 0; i < role.length(); i++) {
+            folded.append(Character.toLowerCase(Character.toUpperCase(role.charAt(i))));
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Immutable set of the roles of one principal, stored in the session alongside the assertion.
+     * The principal is only referenced to tell whether the index still belongs to the current assertion.
+     */
+    private static final class RoleIndex implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient AttributePrincipal principal;
+
+        private final String roleAttribute;
+
+        private final boolean ignoreCase;
+
+        private final Set<String> roles;
+
+        private RoleIndex(final AttributePrincipal principal, final String roleAttribute, final boolean ignoreCase) {
+            this.principal = principal;
+            this.roleAttribute = roleAttribute;
+            this.ignoreCase = ignoreCase;
+
+            final var value = principal.getAttributes().get(roleAttribute);
+            final Set<String> roles = new HashSet<>();
+            if (value instanceof Collection<?>) {
+                for (final Object o : (Collection<?>) value) {
+                    addRole(roles, o);
+                }
+            } else {
+                addRole(roles, value);
+            }
+            this.roles = Collections.unmodifiableSet(roles);
+        }
+
+        private void addRole(final Set<String> roles, final Object candidate) {
+            if (this.ignoreCase) {
+                if (candidate != null) {
+                    roles.add(foldCase(candidate.toString()));
+                }
+            } else if (candidate instanceof String) {
+                roles.add((String) candidate);
+            }
+        }
+
+        private boolean isFor(final AttributePrincipal principal, final String roleAttribute, final boolean ignoreCase) {
+            return this.principal == principal && this.roleAttribute.equals(roleAttribute) && this.ignoreCase == ignoreCase;
+        }
+
+        private boolean contains(final String role) {
+            return this.roles.contains(this.ignoreCase ? foldCase(role) : role);
+        }
+    }
+
     final class CasHttpServletRequestWrapper extends HttpServletRequestWrapper {
 
         private final AttributePrincipal principal;
 
+        private RoleIndex roleIndex;
+
         CasHttpServletRequestWrapper(final HttpServletRequest request, final AttributePrincipal principal) {
             super(request);
             this.principal = principal;
@@ -126,18 +227,7 @@ public final class HttpServletRequestWrapperFilter extends AbstractConfiguration
                 return false;
             }
 
-            final var value = this.principal.getAttributes().get(roleAttribute);
-
-            if (value instanceof Collection<?>) {
-                for (final Object o : (Collection<?>) value) {
-                    if (rolesEqual(role, o)) {
-                        logger.debug("User [{}] is in role [{}]: true", getRemoteUser(), role);
-                        return true;
-                    }
-                }
-            }
-
-            final var isMember = rolesEqual(role, value);
+            final var isMember = getRoleIndex().contains(role);
             logger.debug("User [{}] is in role [{}]: {}", getRemoteUser(), role, isMember);
             return isMember;
         }
@@ -148,16 +238,24 @@ public final class HttpServletRequestWrapperFilter extends AbstractConfiguration
         }
 
         /**
-         * Determines whether the given role is equal to the candidate
-         * role attribute taking into account case sensitivity.
-         *
-         * @param given  Role under consideration.
-         * @param candidate Role that the current user possesses.
-         *
-         * @return True if roles are equal, false otherwise.
+         * Returns the role index of the principal, reusing the one cached in the session when it
+         * was built for the same principal and configuration.
          */
-        private boolean rolesEqual(final String given, final Object candidate) {
-            return ignoreCase ? given.equalsIgnoreCase(candidate.toString()) : given.equals(candidate);
+        private RoleIndex getRoleIndex() {
+            if (this.roleIndex != null) {
+                return this.roleIndex;
+            }
+            final var session = getSession(false);
+            final var cached = session == null ? null : session.getAttribute(CONST_CAS_ROLE_INDEX);
+            if (cached instanceof RoleIndex && ((RoleIndex) cached).isFor(this.principal, roleAttribute, ignoreCase)) {
+                this.roleIndex = (RoleIndex) cached;
+            } else {
+                this.roleIndex = new RoleIndex(this.principal, roleAttribute, ignoreCase);
+                if (session != null) {
+                    session.setAttribute(CONST_CAS_ROLE_INDEX, this.roleIndex);
+                }
+            }
+            return this.roleIndex;
         }
     }
 }
@@ -0,0 +1,159 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Small thread-safe, size-bounded cache that evicts the least recently used entry once full.
+ * <p>
+ * Caches of at least {@value #MIN_STRIPED_SIZE} entries are split into {@value #STRIPES} independently locked
+ * stripes selected by key hash, so concurrent lookups of different keys rarely contend; eviction is then least
+ * recently used within the stripe of the new entry. Smaller caches keep a single stripe and exact LRU order.
+ * <p>
+ * Values are computed outside the lock, so two threads missing on the same key may both compute it;
+ * callers must therefore only cache the results of pure functions.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @since 4.0.5
+ */
+public final class LruCache<K, V> {
+
+    static final int STRIPES = 16;
+
+    static final int MIN_STRIPED_SIZE = 256;
+
+    private final Stripe<K, V>[] stripes;
+
+    private final int maxSize;
+
+    @SuppressWarnings("unchecked")
+    public LruCache(final int maxSize) {
+        CommonUtils.assertTrue(maxSize > 0, "maxSize must be greater than zero.");
+        this.maxSize = maxSize;
+        final var count = maxSize >= MIN_STRIPED_SIZE ? STRIPES : 1;
+        this.stripes = new Stripe[count];
+        for (var i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe<>(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    public V get(final K key) {
+        final var stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            return stripe.entries.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void put(final K key, final V value) {
+        final var stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.entries.put(key, value);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached value for the key, computing and caching it when absent.
+     *
+     * @param key the key to look up.
+     * @param mappingFunction the function computing the value; must not return null.
+     * @return the cached or freshly computed value.
+     */
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        final var cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final V value = mappingFunction.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    public V remove(final K key) {
+        final var stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            return stripe.entries.remove(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void clear() {
+        for (final var stripe : this.stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.entries.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        var size = 0;
+        for (final var stripe : this.stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    private Stripe<K, V> stripeFor(final K key) {
+        if (this.stripes.length == 1) {
+            return this.stripes[0];
+        }
+        final var hash = key.hashCode();
+        return this.stripes[(hash ^ (hash >>> 16)) & (this.stripes.length - 1)];
+    }
+
+    private static final class Stripe<K, V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Map<K, V> entries;
+
+        Stripe(final int maxSize) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Thread-safe XPath expression, replacing {@link ThreadLocalXPathExpression}.
+ * <p>
+ * {@link XPathExpression} instances are not thread safe, so compiled expressions are borrowed from a small bounded
+ * pool for each evaluation and returned afterwards. Unlike a per-thread copy, this does not recompile the expression
+ * for every new thread, which matters when each request runs on its own virtual thread.
+ *
+ * @since 4.0.5
+ */
+public class PooledXPathExpression implements XPathExpression {
+
+    /** XPath expression */
+    private final String expression;
+
+    /** Namespace context. */
+    private final NamespaceContext context;
+
+    /** Compiled expressions not currently in use. */
+    private final BlockingQueue<XPathExpression> pool =
+        new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
+    /**
+     * Creates a new instance from an XPath expression and namespace context.
+     *
+     * @param xPath XPath expression.
+     * @param context Namespace context for handling namespace prefix to URI mappings.
+     */
+    public PooledXPathExpression(final String xPath, final NamespaceContext context) {
+        this.expression = xPath;
+        this.context = context;
+        this.pool.offer(compile());
+    }
+
+    @Override
+    public Object evaluate(final Object o, final QName qName) throws XPathExpressionException {
+        final var xPathExpression = borrow();
+        try {
+            return xPathExpression.evaluate(o, qName);
+        } finally {
+            this.pool.offer(xPathExpression);
+        }
+    }
+
+    @Override
+    public String evaluate(final Object o) throws XPathExpressionException {
+        final var xPathExpression = borrow();
+        try {
+            return xPathExpression.evaluate(o);
+        } finally {
+            this.pool.offer(xPathExpression);
+        }
+    }
+
+    @Override
+    public Object evaluate(final InputSource inputSource, final QName qName) throws XPathExpressionException {
+        final var xPathExpression = borrow();
+        try {
+            return xPathExpression.evaluate(inputSource, qName);
+        } finally {
+            this.pool.offer(xPathExpression);
+        }
+    }
+
+    @Override
+    public String evaluate(final InputSource inputSource) throws XPathExpressionException {
+        final var xPathExpression = borrow();
+        try {
+            return xPathExpression.evaluate(inputSource);
+        } finally {
+            this.pool.offer(xPathExpression);
+        }
+    }
+
+    /**
+     * Evaluates the XPath expression and returns the result coerced to a string.
+     *
+     * @param o Object on which to evaluate the expression; typically a DOM node.
+     *
+     * @return Evaluation result as a string.
+     *
+     * @throws XPathExpressionException On XPath evaluation errors.
+     */
+    public String evaluateAsString(final Object o) throws XPathExpressionException {
+        return (String) evaluate(o, XPathConstants.STRING);
+    }
+
+    /**
+     * Evaluates the XPath expression and returns the result coerced to a node list.
+     *
+     * @param o Object on which to evaluate the expression; typically a DOM node.
+     *
+     * @return Evaluation result as a node list.
+     *
+     * @throws XPathExpressionException On XPath evaluation errors.
+     */
+    public NodeList evaluateAsNodeList(final Object o) throws XPathExpressionException {
+        return (NodeList) evaluate(o, XPathConstants.NODESET);
+    }
+
+    private XPathExpression borrow() {
+        final var pooled = this.pool.poll();
+        return pooled != null ? pooled : compile();
+    }
+
+    private XPathExpression compile() {
+        try {
+            final var xPath = XPathFactory.newInstance().newXPath();
+            xPath.setNamespaceContext(context);
+            return xPath.compile(expression);
+        } catch (final XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid XPath expression");
+        }
+    }
+}
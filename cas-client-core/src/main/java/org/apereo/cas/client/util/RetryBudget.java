@@ -0,0 +1,105 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the retries made against a remote server to a fraction of the calls made to it, so that retrying never
+ * multiplies the load on a server that is already struggling.
+ * <p>
+ * Every call deposits <code>retryRatio</code> of a token and every retry withdraws a whole one; the balance is
+ * capped at <code>maxTokens</code>. Retries are spaced by {@link #nextBackoffMillis(int)}, an exponential backoff
+ * with full jitter.
+ *
+ * @since 4.0.5
+ */
+public final class RetryBudget {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final double retryRatio;
+
+    private final double maxTokens;
+
+    private final long baseBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private double tokens;
+
+    public RetryBudget() {
+        this(0.1, 10, 50, 500);
+    }
+
+    public RetryBudget(final double retryRatio, final int maxTokens) {
+        this(retryRatio, maxTokens, 50, 500);
+    }
+
+    public RetryBudget(final double retryRatio, final int maxTokens, final long baseBackoffMillis,
+                       final long maxBackoffMillis) {
+        CommonUtils.assertTrue(retryRatio >= 0, "retryRatio cannot be negative.");
+        CommonUtils.assertTrue(maxTokens >= 0, "maxTokens cannot be negative.");
+        CommonUtils.assertTrue(baseBackoffMillis > 0 && baseBackoffMillis <= maxBackoffMillis,
+            "baseBackoffMillis must be greater than zero and at most maxBackoffMillis.");
+        this.retryRatio = retryRatio;
+        this.maxTokens = maxTokens;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Records a first attempt, earning part of a retry.
+     */
+    public void onCall() {
+        this.lock.lock();
+        try {
+            this.tokens = Math.min(this.maxTokens, this.tokens + this.retryRatio);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if a retry may be made, in which case it has been charged to the budget.
+     */
+    public boolean tryAcquireRetry() {
+        this.lock.lock();
+        try {
+            if (this.tokens < 1) {
+                return false;
+            }
+            this.tokens--;
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @param retry the number of the retry about to be made, starting at one.
+     * @return a random delay between zero and the exponentially growing, capped, backoff of that retry.
+     */
+    public long nextBackoffMillis(final int retry) {
+        final var shift = Math.min(Math.max(retry - 1, 0), 30);
+        final var ceiling = Math.min(this.maxBackoffMillis, this.baseBackoffMillis << shift);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, time-decaying set membership filter: a Bloom filter split in two generations.
+ * <p>
+ * Values are added to the current generation and looked up in both. Once the current generation is
+ * <code>rotationMillis</code> old or holds <code>expectedInsertions</code> values, it becomes the previous one and
+ * the former previous generation is dropped; a value is therefore remembered for one to two rotation periods, and the
+ * false positive rate never exceeds the configured one however many values are added. The hash functions are seeded
+ * at random per instance so that the values colliding cannot be predicted.
+ * <p>
+ * As with any Bloom filter, {@link #mightContain(String)} may answer true for a value never added, with the
+ * configured probability, but never answers false for a value added within the last rotation period.
+ *
+ * @since 4.0.5
+ */
+public final class RotatingBloomFilter {
+
+    private final ReentrantLock rotationLock = new ReentrantLock();
+
+    private final int bits;
+
+    private final int hashFunctions;
+
+    private final int expectedInsertions;
+
+    private final long rotationNanos;
+
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    private volatile Generation current;
+
+    private volatile Generation previous;
+
+    /**
+     * @param expectedInsertions the values one generation may hold.
+     * @param falsePositiveProbability the acceptable false positive rate, between zero and one.
+     * @param rotationMillis the age at which a generation is retired.
+     */
+    public RotatingBloomFilter(final int expectedInsertions, final double falsePositiveProbability,
+                               final long rotationMillis) {
+        CommonUtils.assertTrue(expectedInsertions > 0, "expectedInsertions must be greater than zero.");
+        CommonUtils.assertTrue(falsePositiveProbability > 0 && falsePositiveProbability < 1,
+            "falsePositiveProbability must be between zero and one.");
+        CommonUtils.assertTrue(rotationMillis > 0, "rotationMillis must be greater than zero.");
+        final var optimalBits = -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        // rounded up to whole longs
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, (long) Math.ceil(optimalBits / 64) * 64));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) this.bits / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+        this.rotationNanos = TimeUnit.MILLISECONDS.toNanos(rotationMillis);
+        this.current = new Generation(this.bits, System.nanoTime());
+        this.previous = new Generation(this.bits, System.nanoTime());
+    }
+
+    public void put(final String value) {
+        rotateIfNeeded();
+        final var generation = this.current;
+        final var hash = SeededHash.doubleHash(value, this.seed);
+        var combined = hash[0];
+        for (var i = 0; i < this.hashFunctions; i++, combined += hash[1]) {
+            generation.set(index(combined));
+        }
+        generation.insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(final String value) {
+        rotateIfNeeded();
+        final var hash = SeededHash.doubleHash(value, this.seed);
+        return contains(this.current, hash) || contains(this.previous, hash);
+    }
+
+    private boolean contains(final Generation generation, final long[] hash) {
+        var combined = hash[0];
+        for (var i = 0; i < this.hashFunctions; i++, combined += hash[1]) {
+            if (!generation.get(index(combined))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(final long combined) {
+        return (int) Long.remainderUnsigned(combined, this.bits);
+    }
+
+    private void rotateIfNeeded() {
+        final var generation = this.current;
+        final var now = System.nanoTime();
+        if (now - generation.createdAt < this.rotationNanos && generation.insertions.get() < this.expectedInsertions) {
+            return;
+        }
+        this.rotationLock.lock();
+        try {
+            if (this.current == generation) {
+                this.previous = generation;
+                this.current = new Generation(this.bits, now);
+            }
+        } finally {
+            this.rotationLock.unlock();
+        }
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray words;
+
+        private final AtomicInteger insertions = new AtomicInteger();
+
+        private final long createdAt;
+
+        private Generation(final int bits, final long createdAt) {
+            this.words = new AtomicLongArray(bits / 64);
+            this.createdAt = createdAt;
+        }
+
+        private void set(final int bit) {
+            final var mask = 1L << bit;
+            final var word = bit >>> 6;
+            var value = this.words.get(word);
+            while ((value & mask) == 0 && !this.words.compareAndSet(word, value, value | mask)) {
+                value = this.words.get(word);
+            }
+        }
+
+        private boolean get(final int bit) {
+            return (this.words.get(bit >>> 6) & (1L << bit)) != 0;
+        }
+    }
+}
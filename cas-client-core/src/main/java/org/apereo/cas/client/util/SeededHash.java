@@ -0,0 +1,61 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+/**
+ * Seeded string hashing shared by the Bloom filters of the client.
+ * <p>
+ * The two hashes returned by {@link #doubleHash(String, long)} derive the k indexes of a value by double hashing,
+ * <code>h1 + i * h2</code>, the second one being odd so that it never degenerates to a single index. Seeding the hash
+ * at random per filter keeps the values colliding from being predicted.
+ *
+ * @since 4.0.5
+ */
+public final class SeededHash {
+
+    private SeededHash() {
+        // static methods only
+    }
+
+    /**
+     * Seeded 64-bit FNV-1a over the characters followed by two different finalizers.
+     *
+     * @param value the value to hash.
+     * @param seed the seed of the filter.
+     * @return the base hash and the odd step of double hashing.
+     */
+    public static long[] doubleHash(final String value, final long seed) {
+        var h = 0xcbf29ce484222325L ^ seed;
+        for (var i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return new long[]{mix(h), mix(h ^ 0x9e3779b97f4a7c15L) | 1};
+    }
+
+    private static long mix(final long value) {
+        var h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
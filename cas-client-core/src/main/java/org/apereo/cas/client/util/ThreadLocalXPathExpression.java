@@ -33,7 +33,10 @@ import javax.xml.xpath.XPathFactory;
  *
  * @author Marvin S. Addison
  * @since 3.4
+ * @deprecated Since 4.0.5, use {@link PooledXPathExpression}, which does not compile the expression again for
+ * every new thread, as happens when each request runs on its own virtual thread.
  */
+@Deprecated(since = "4.0.5")
 public class ThreadLocalXPathExpression extends ThreadLocal<XPathExpression> implements XPathExpression {
 
     /** XPath expression */
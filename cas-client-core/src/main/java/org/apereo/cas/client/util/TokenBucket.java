@@ -0,0 +1,82 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket refilled at <code>permitsPerSecond</code> and holding at most <code>burst</code> tokens.
+ * <p>
+ * Rather than counting tokens, the bucket keeps the time at which it will be full again (the generic cell rate
+ * algorithm), so that refilling needs neither a timer nor a lock.
+ *
+ * @since 4.0.5
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    /** Time at which the bucket is full again; any time in the past means it is full now. */
+    private final AtomicLong fullAt;
+
+    public TokenBucket(final double permitsPerSecond, final int burst) {
+        CommonUtils.assertTrue(permitsPerSecond > 0, "permitsPerSecond must be greater than zero.");
+        CommonUtils.assertTrue(burst > 0, "burst must be greater than zero.");
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = this.intervalNanos * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return true if a token is available, without taking it.
+     */
+    public boolean hasToken() {
+        return this.fullAt.get() - System.nanoTime() <= this.burstNanos - this.intervalNanos;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return true if a token was taken.
+     */
+    public boolean tryConsume() {
+        while (true) {
+            final var now = System.nanoTime();
+            final var current = this.fullAt.get();
+            final var next = Math.max(current, now) + this.intervalNanos;
+            if (next - now > this.burstNanos) {
+                return false;
+            }
+            if (this.fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the milliseconds until a token is available, zero if one is.
+     */
+    public long getMillisUntilToken() {
+        final var wait = this.fullAt.get() - System.nanoTime() - (this.burstNanos - this.intervalNanos);
+        return wait <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait) + 1;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the client address from a header listing the hops of the request, such as <code>X-Forwarded-For</code>,
+ * trusting it only as far as the proxies it goes through are trusted.
+ * <p>
+ * When the request comes from a trusted proxy, the hops of the header are walked from the closest one and the first
+ * address that is not a trusted proxy is the client. The header is ignored for requests coming from any other
+ * address, so that clients cannot pick the address they are throttled by.
+ *
+ * @since 4.0.5
+ */
+public final class TrustedProxyClientAddressResolver implements ClientAddressResolver {
+
+    private final String header;
+
+    private final Pattern trustedProxies;
+
+    /**
+     * @param header the header the proxies append the address they received the request from to.
+     * @param trustedProxies the addresses of the trusted proxies.
+     */
+    public TrustedProxyClientAddressResolver(final String header, final Pattern trustedProxies) {
+        CommonUtils.assertNotNull(header, "header cannot be null.");
+        CommonUtils.assertNotNull(trustedProxies, "trustedProxies cannot be null.");
+        this.header = header;
+        this.trustedProxies = trustedProxies;
+    }
+
+    @Override
+    public String resolveClientAddress(final HttpServletRequest request) {
+        final var remoteAddress = request.getRemoteAddr();
+        if (remoteAddress == null || !isTrusted(remoteAddress)) {
+            return remoteAddress;
+        }
+        final var hops = new ArrayList<String>();
+        for (final var value : Collections.list(request.getHeaders(this.header))) {
+            for (final var hop : value.split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        for (var i = hops.size() - 1; i >= 0; i--) {
+            if (!isTrusted(hops.get(i))) {
+                return hops.get(i);
+            }
+        }
+        return hops.isEmpty() ? remoteAddress : hops.get(0);
+    }
+
+    private boolean isTrusted(final String address) {
+        return this.trustedProxies.matcher(address).matches();
+    }
+}
@@ -18,31 +18,49 @@
  */
 package org.apereo.cas.client.util;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.io.Serial;
 import java.io.Serializable;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLDecoder;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * A utility class borrowed from apache http-client to build uris.
+ * <p>
+ * Query parsing and form encoding are done in a single pass over the input using a lookup table of
+ * characters that never need encoding, and produce exactly the same output as
+ * {@link URLDecoder} and {@link java.net.URLEncoder} with UTF-8.
  *
  * @author Misagh Moayyed
  * @since 3.4
  */
 public final class URIBuilder {
-    private static final Logger LOGGER = LoggerFactory.getLogger(URIBuilder.class);
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Characters left untouched by form encoding, same set as {@link java.net.URLEncoder}.
+     */
+    private static final boolean[] DONT_NEED_ENCODING = new boolean[128];
 
-    private static final Pattern IPV6_STD_PATTERN = Pattern.compile("^[0-9a-fA-F]{1,4}(:[0-9a-fA-F]{1,4}){7}$");
+    static {
+        for (var c = 'a'; c <= 'z'; c++) {
+            DONT_NEED_ENCODING[c] = true;
+        }
+        for (var c = 'A'; c <= 'Z'; c++) {
+            DONT_NEED_ENCODING[c] = true;
+        }
+        for (var c = '0'; c <= '9'; c++) {
+            DONT_NEED_ENCODING[c] = true;
+        }
+        DONT_NEED_ENCODING['-'] = true;
+        DONT_NEED_ENCODING['_'] = true;
+        DONT_NEED_ENCODING['.'] = true;
+        DONT_NEED_ENCODING['*'] = true;
+    }
 
     private String scheme;
 
@@ -123,8 +141,94 @@ public final class URIBuilder {
         digestURI(uri);
     }
 
+    /**
+     * Matches the standard (uncompressed) IPv6 form: eight groups of one to four hex digits separated by colons.
+     */
     private static boolean isIPv6Address(final CharSequence input) {
-        return IPV6_STD_PATTERN.matcher(input).matches();
+        final var length = input.length();
+        var groups = 1;
+        var digits = 0;
+        for (var i = 0; i < length; i++) {
+            final var c = input.charAt(i);
+            if (c == ':') {
+                if (digits == 0 || ++groups > 8) {
+                    return false;
+                }
+                digits = 0;
+            } else if (Character.digit(c, 16) >= 0 && c < 128 && ++digits <= 4) {
+                continue;
+            } else {
+                return false;
+            }
+        }
+        return groups == 8 && digits > 0;
+    }
+
+    private static boolean needsEncoding(final char c) {
+        return c >= 128 || !DONT_NEED_ENCODING[c];
+    }
+
+    /**
+     * Appends the {@code application/x-www-form-urlencoded} form of the value, identical to
+     * {@code URLEncoder.encode(value, "UTF-8")}.
+     */
+    static void appendFormEncoded(final StringBuilder sb, final String value) {
+        final var length = value.length();
+        var i = 0;
+        while (i < length) {
+            final var c = value.charAt(i);
+            if (c == ' ') {
+                sb.append('+');
+                i++;
+            } else if (!needsEncoding(c)) {
+                sb.append(c);
+                i++;
+            } else if (c < 128) {
+                appendEscaped(sb, c);
+                i++;
+            } else {
+                // encode runs of characters together so that surrogate pairs become a single code point
+                final var start = i;
+                do {
+                    i++;
+                } while (i < length && value.charAt(i) != ' ' && needsEncoding(value.charAt(i)));
+                for (final var b : value.substring(start, i).getBytes(StandardCharsets.UTF_8)) {
+                    appendEscaped(sb, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@code URLEncoder.encode(value, "UTF-8")}, returning the value itself when nothing needs encoding.
+     */
+    static String formEncode(final String value) {
+        final var length = value.length();
+        for (var i = 0; i < length; i++) {
+            final var c = value.charAt(i);
+            if (c == ' ' || needsEncoding(c)) {
+                final var sb = new StringBuilder(length + 16);
+                sb.append(value, 0, i);
+                appendFormEncoded(sb, value.substring(i));
+                return sb.toString();
+            }
+        }
+        return value;
+    }
+
+    private static void appendEscaped(final StringBuilder sb, final int b) {
+        sb.append('%').append(HEX_DIGITS[(b >> 4) & 0x0F]).append(HEX_DIGITS[b & 0x0F]);
+    }
+
+    /**
+     * Same as {@code URLDecoder.decode(value, "UTF-8")}; values without escapes are decoded without allocation
+     * beyond the resulting string, escaped values are delegated to {@link URLDecoder} to keep its error handling.
+     */
+    private static String formDecode(final String value) {
+        if (value.indexOf('%') >= 0) {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        }
+        return value.replace('+', ' ');
     }
 
     private static String normalizePath(final String path) {
@@ -214,8 +318,7 @@ public final class URIBuilder {
     }
 
     public URIBuilder setParameters(final String queryParameters) {
-        this.queryParams = new ArrayList<>();
-        this.queryParams.addAll(parseQuery(queryParameters));
+        this.queryParams = parseQuery(queryParameters);
         this.encodedQuery = null;
         this.encodedSchemeSpecificPart = null;
         this.query = null;
@@ -593,44 +696,51 @@ public final class URIBuilder {
 
         }
 
+    /**
+     * Splits the raw query on {@code &} (dropping trailing empty parameters, like {@link String#split(String)})
+     * and decodes each name and value, scanning the query only once.
+     * A parameter without {@code =} is kept with an empty value.
+     */
     private static List<BasicNameValuePair> parseQuery(final String query) {
+        final List<BasicNameValuePair> list = new ArrayList<>();
+        if (query == null) {
+            return list;
+        }
+        var limit = query.length();
+        while (limit > 0 && query.charAt(limit - 1) == '&') {
+            limit--;
+        }
+        var start = 0;
+        while (start < limit) {
+            var end = query.indexOf('&', start);
+            if (end < 0 || end > limit) {
+                end = limit;
+            }
+            addParameter(list, query, start, end);
+            start = end + 1;
+        }
+        return list;
+    }
 
-        try {
-            final var utf8 = Charset.forName("UTF-8");
-            if (query != null && !query.isEmpty()) {
-                final List<BasicNameValuePair> list = new ArrayList<>();
-                final var parametersArray = query.split("&");
-
-                for (final var parameter : parametersArray) {
-                    final var firstIndex = parameter.indexOf("=");
-                    if (firstIndex != -1) {
-                        final var paramName = parameter.substring(0, firstIndex);
-                        final var decodedParamName = URLDecoder.decode(paramName, utf8.name());
-
-                        final var paramVal = parameter.substring(firstIndex + 1);
-                        final var decodedParamVal = URLDecoder.decode(paramVal, utf8.name());
-
-                        list.add(new BasicNameValuePair(decodedParamName, decodedParamVal));
-                    } else {
-                        // Either we do not have a query parameter, or it might be encoded; take it verbaitm
-                        final var parameterCombo = parameter.split("=");
-                        if (parameterCombo.length >= 1) {
-                            final var key = URLDecoder.decode(parameterCombo[0], utf8.name());
-                            final var val = parameterCombo.length == 2 ? URLDecoder.decode(parameterCombo[1], utf8.name()) : "";
-                            list.add(new BasicNameValuePair(key, val));
-                        }
-                    }
-                }
-                return list;
+    private static void addParameter(final List<BasicNameValuePair> list, final String query,
+                                     final int start, final int end) {
+        var separator = -1;
+        for (var i = start; i < end; i++) {
+            if (query.charAt(i) == '=') {
+                separator = i;
+                break;
             }
-        } catch (final UnsupportedEncodingException e) {
-            LOGGER.error(e.getMessage(), e);
         }
-        return new ArrayList<>();
+        if (separator >= 0) {
+            list.add(new BasicNameValuePair(formDecode(query.substring(start, separator)),
+                formDecode(query.substring(separator + 1, end))));
+        } else {
+            list.add(new BasicNameValuePair(formDecode(query.substring(start, end)), ""));
+        }
     }
 
     private String buildString() {
-        final var sb = new StringBuilder();
+        final var sb = new StringBuilder(estimateLength());
         if (this.scheme != null) {
             sb.append(this.scheme).append(':');
         }
@@ -642,67 +752,88 @@ public final class URIBuilder {
             } else if (this.host != null) {
                 sb.append("//");
                 if (this.encodedUserInfo != null) {
-                    sb.append(this.encodedUserInfo).append("@");
+                    sb.append(this.encodedUserInfo).append('@');
                 } else if (this.userInfo != null) {
-                    sb.append(encodeUserInfo(this.userInfo)).append("@");
+                    appendEncoded(sb, this.userInfo);
+                    sb.append('@');
                 }
                 if (isIPv6Address(this.host)) {
-                    sb.append("[").append(this.host).append("]");
+                    sb.append('[').append(this.host).append(']');
                 } else {
                     sb.append(this.host);
                 }
                 if (this.port >= 0) {
-                    sb.append(":").append(this.port);
+                    sb.append(':').append(this.port);
                 }
             }
             if (this.encodedPath != null) {
                 sb.append(normalizePath(this.encodedPath));
             } else if (this.path != null) {
-                sb.append(encodePath(normalizePath(this.path)));
+                appendEncoded(sb, normalizePath(this.path));
             }
             if (this.encodedQuery != null) {
-                sb.append("?").append(this.encodedQuery);
+                sb.append('?').append(this.encodedQuery);
             } else if (this.queryParams != null && !this.queryParams.isEmpty()) {
-                sb.append("?").append(encodeUrlForm(this.queryParams));
+                sb.append('?');
+                appendUrlForm(sb, this.queryParams);
             } else if (this.query != null) {
-                sb.append("?").append(encodeUric(this.query));
+                sb.append('?');
+                appendEncoded(sb, this.query);
             }
         }
         if (this.encodedFragment != null) {
-            sb.append("#").append(this.encodedFragment);
+            sb.append('#').append(this.encodedFragment);
         } else if (this.fragment != null) {
-            sb.append("#").append(encodeUric(this.fragment));
+            sb.append('#');
+            appendEncoded(sb, this.fragment);
         }
         return sb.toString();
     }
 
-    private String encodeUserInfo(final String userInfo) {
-        return this.encode ? CommonUtils.urlEncode(userInfo) : userInfo;
+    /**
+     * Rough upper bound of the built uri length, used to size the buffer once; encoding may still grow it.
+     */
+    private int estimateLength() {
+        var length = 16 + lengthOf(this.scheme) + lengthOf(this.host) + lengthOf(this.encodedUserInfo)
+                     + lengthOf(this.userInfo) + lengthOf(this.encodedPath) + lengthOf(this.path)
+                     + lengthOf(this.encodedQuery) + lengthOf(this.query) + lengthOf(this.encodedFragment)
+                     + lengthOf(this.fragment);
+        if (this.encodedSchemeSpecificPart != null) {
+            length += this.encodedSchemeSpecificPart.length();
+        } else if (this.encodedAuthority != null) {
+            length += this.encodedAuthority.length();
+        }
+        if (this.queryParams != null) {
+            for (final var parameter : this.queryParams) {
+                length += 2 + lengthOf(parameter.name()) + lengthOf(parameter.value());
+            }
+        }
+        return length;
+    }
+
+    private static int lengthOf(final String value) {
+        return value != null ? value.length() : 0;
     }
 
-    private String encodePath(final String path) {
-        return this.encode ? CommonUtils.urlEncode(path) : path;
+    private void appendEncoded(final StringBuilder sb, final String value) {
+        if (this.encode) {
+            appendFormEncoded(sb, value);
+        } else {
+            sb.append(value);
+        }
     }
 
-    private String encodeUrlForm(final Iterable<BasicNameValuePair> params) {
-        final var result = new StringBuilder();
+    private void appendUrlForm(final StringBuilder sb, final Iterable<BasicNameValuePair> params) {
+        final var start = sb.length();
         for (final var parameter : params) {
-            final var encodedName = this.encode ? CommonUtils.urlEncode(parameter.name()) : parameter.name();
-            final var encodedValue = this.encode ? CommonUtils.urlEncode(parameter.value()) : parameter.value();
-
-            if (result.length() > 0) {
-                result.append("&");
+            if (sb.length() > start) {
+                sb.append('&');
             }
-            result.append(encodedName);
-            if (encodedValue != null) {
-                result.append("=");
-                result.append(encodedValue);
+            appendEncoded(sb, parameter.name());
+            if (parameter.value() != null) {
+                sb.append('=');
+                appendEncoded(sb, parameter.value());
             }
         }
-        return result.toString();
-    }
-
-    private String encodeUric(final String fragment) {
-        return this.encode ? CommonUtils.urlEncode(fragment) : fragment;
     }
 }
@@ -169,11 +169,90 @@ public final class WebUtils {
     public static String constructServiceUrl(final HttpServletRequest request, final HttpServletResponse response,
                                              final String service, final String serverNames, final String serviceParameterName,
                                              final String artifactParameterName, final boolean encode) {
+        return constructServiceUrl(request, response, service, serverNames, serviceParameterName,
+            artifactParameterName, encode, null);
+    }
+
+    /**
+     * Constructs a service url from the HttpServletRequest or from the given
+     * serviceUrl, memoizing the generated url in the provided cache.
+     * <p>
+     * The cache is keyed on every input the generated url depends on (matched server name, scheme, port,
+     * request uri and raw query string), so the result is always identical to the uncached algorithm.
+     * The artifact and service parameters are left out of the key query string, as they are removed from the
+     * generated url anyway: requests carrying different tickets share one entry and no ticket is retained.
+     * {@link HttpServletResponse#encodeURL(String)} is still applied on every call, as it is session dependent.
+     *
+     * @param request the HttpServletRequest
+     * @param response the HttpServletResponse
+     * @param service the configured service url (this will be used if not null)
+     * @param serverNames the space-separated server names to use to construct the service url if the service param is empty.
+     * @param serviceParameterName the service parameter name to remove (i.e. service)
+     * @param artifactParameterName the artifact parameter name to remove (i.e. ticket)
+     * @param encode whether to encode the url or not (i.e. Jsession).
+     * @param serviceUrlCache the cache of generated service urls, may be null to disable memoization.
+     * @return the service url to use.
+     */
+    public static String constructServiceUrl(final HttpServletRequest request, final HttpServletResponse response,
+                                             final String service, final String serverNames, final String serviceParameterName,
+                                             final String artifactParameterName, final boolean encode,
+                                             final LruCache<ServiceUrlKey, String> serviceUrlCache) {
         if (CommonUtils.isNotBlank(service)) {
             return encode ? response.encodeURL(service) : service;
         }
 
         final var serverName = findMatchingServerName(request, serverNames);
+
+        final String result;
+        if (serviceUrlCache != null) {
+            final var key = new ServiceUrlKey(serverName, serviceParameterName, artifactParameterName, encode,
+                request.isSecure(), request.getServerPort(), request.getRequestURI(),
+                stripProtocolParameters(request.getQueryString(), serviceParameterName, artifactParameterName));
+            result = serviceUrlCache.computeIfAbsent(key,
+                k -> buildServiceUrl(request, serverName, serviceParameterName, artifactParameterName, encode));
+        } else {
+            result = buildServiceUrl(request, serverName, serviceParameterName, artifactParameterName, encode);
+        }
+
+        final var returnValue = encode ? response.encodeURL(result) : result;
+        LOGGER.debug("serviceUrl generated: {}", returnValue);
+        return returnValue;
+    }
+
+    /**
+     * Removes the parameters named exactly like the artifact or one of the service parameters from the raw query.
+     * Escaped names are kept, as they might decode to anything; that only costs extra cache entries.
+     */
+    private static String stripProtocolParameters(final String queryString, final String serviceParameterName,
+                                                  final String artifactParameterName) {
+        if (queryString == null || queryString.isEmpty()) {
+            return queryString;
+        }
+        final var serviceParameterNames = Arrays.asList(serviceParameterName.split(","));
+        final var stripped = new StringBuilder(queryString.length());
+        var modified = false;
+        var start = 0;
+        while (start <= queryString.length()) {
+            var end = queryString.indexOf('&', start);
+            if (end < 0) {
+                end = queryString.length();
+            }
+            final var separator = queryString.indexOf('=', start);
+            final var name = queryString.substring(start, separator >= 0 && separator < end ? separator : end);
+            if (name.indexOf('%') < 0 && name.indexOf('+') < 0
+                && (name.equals(artifactParameterName) || serviceParameterNames.contains(name))) {
+                modified = true;
+            } else {
+                stripped.append(queryString, start, end).append('&');
+            }
+            start = end + 1;
+        }
+        return modified ? stripped.toString() : queryString;
+    }
+
+    private static String buildServiceUrl(final HttpServletRequest request, final String serverName,
+                                          final String serviceParameterName, final String artifactParameterName,
+                                          final boolean encode) {
         final var originalRequestUrl = new URIBuilder(request.getRequestURL().toString(), encode);
         originalRequestUrl.setParameters(request.getQueryString());
 
@@ -192,8 +271,9 @@ public final class WebUtils {
         builder.setEncodedPath(builder.getEncodedPath() + request.getRequestURI());
 
         final var serviceParameterNames = Arrays.asList(serviceParameterName.split(","));
-        if (!serviceParameterNames.isEmpty() && !originalRequestUrl.getQueryParams().isEmpty()) {
-            for (final var pair : originalRequestUrl.getQueryParams()) {
+        final var queryParams = originalRequestUrl.getQueryParams();
+        if (!serviceParameterNames.isEmpty() && !queryParams.isEmpty()) {
+            for (final var pair : queryParams) {
                 final var name = pair.name();
                 if (!name.equals(artifactParameterName) && !serviceParameterNames.contains(name)) {
                     if (name.contains("&") || name.contains("=")) {
@@ -212,10 +292,7 @@ public final class WebUtils {
             }
         }
 
-        final var result = builder.toString();
-        final var returnValue = encode ? response.encodeURL(result) : result;
-        LOGGER.debug("serviceUrl generated: {}", returnValue);
-        return returnValue;
+        return builder.toString();
     }
 
     /**
@@ -261,4 +338,11 @@ public final class WebUtils {
             LOGGER.warn(e.getMessage(), e);
         }
     }
+
+    /**
+     * Cache key capturing every request and configuration input of the generated service url.
+     */
+    public record ServiceUrlKey(String serverName, String serviceParameterName, String artifactParameterName,
+                                boolean encode, boolean secure, int serverPort, String requestUri, String queryString) {
+    }
 }
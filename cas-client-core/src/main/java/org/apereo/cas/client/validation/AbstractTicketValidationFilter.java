@@ -20,10 +20,24 @@ package org.apereo.cas.client.validation;
 
 import org.apereo.cas.client.Protocol;
 import org.apereo.cas.client.configuration.ConfigurationKeys;
+import org.apereo.cas.client.ssl.HttpURLConnectionFactory;
+import org.apereo.cas.client.ssl.HttpsURLConnectionFactory;
 import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.util.AdaptiveConcurrencyLimiter;
+import org.apereo.cas.client.util.CasServerPool;
+import org.apereo.cas.client.util.CircuitBreaker;
+import org.apereo.cas.client.util.ClientAddressResolver;
 import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.LruCache;
 import org.apereo.cas.client.util.ReflectUtils;
-
+import org.apereo.cas.client.util.RetryBudget;
+import org.apereo.cas.client.util.RotatingBloomFilter;
+import org.apereo.cas.client.util.TokenBucket;
+import org.apereo.cas.client.util.TrustedProxyClientAddressResolver;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
 import jakarta.servlet.ServletException;
@@ -36,6 +50,10 @@ import javax.net.ssl.HostnameVerifier;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 /**
  * The filter that handles all the work of validating ticket requests.
@@ -43,13 +61,61 @@ import java.util.Properties;
  * This filter can be configured with the following values:
  * <ul>
  * <li><code>redirectAfterValidation</code> - redirect the CAS client to the same URL without the ticket.
- * (default: true, Will be forced to false when {@link #useSession} is false.)</li>
+ * (default: true, Will be forced to false when {@link #useSession} is false, unless the assertion cookie is enabled.)</li>
+ * <li><code>hideTicketAfterValidation</code> - instead of redirecting, go on with the filter chain right away with a
+ * {@link TicketHidingRequestWrapper}, sending the URL without the ticket in a <code>Link</code> header with
+ * <code>rel="canonical"</code> so that the page can clean its address. Takes precedence over
+ * <code>redirectAfterValidation</code>. (default: false)</li>
  * <li><code>exceptionOnValidationFailure</code> - throw an exception if the validation fails.  Otherwise, continue
  *  processing. (default: true)</li>
  * <li><code>useSession</code> - store any of the useful information in a session attribute. (default: true)</li>
  * <li><code>hostnameVerifier</code> - name of class implementing a {@link HostnameVerifier}.</li>
  * <li><code>hostnameVerifierConfig</code> - name of configuration class (constructor argument of verifier).</li>
+ * <li><code>asyncValidation</code> - validate tickets asynchronously when the validator is an {@link AsyncTicketValidator}
+ * and the request supports it, releasing the container thread during the CAS round-trip. The filter must then be
+ * async-supported and also mapped to the <code>ASYNC</code> dispatcher. (default: false)</li>
+ * <li><code>asyncValidationTimeout</code> - milliseconds to wait for an asynchronous validation before failing it.
+ * (default: 30000)</li>
+ * <li><code>coalesceValidations</code> - share one validation between concurrent requests carrying the same ticket
+ * for the same service, see {@link CoalescingTicketValidator}. (default: false)</li>
+ * <li><code>hedgeValidations</code> - send a second validation request to another node of the
+ * <code>casServerUrlPrefixes</code> when the CAS server is slower than usual to answer, see
+ * {@link HedgingTicketValidator}. (default: false)</li>
+ * <li><code>connectTimeout</code> - milliseconds allowed to connect to the CAS server. (default: 5000)</li>
+ * <li><code>readTimeout</code> - milliseconds allowed for the CAS server to answer. (default: 15000)</li>
+ * <li><code>circuitBreaker</code> - guard the CAS server with a {@link CircuitBreaker} and a {@link RetryBudget}
+ * for failed connections. (default: false)</li>
+ * <li><code>circuitBreakerOpenDuration</code> - milliseconds the breaker stays open before probing the CAS server
+ * again. (default: 30000)</li>
+ * <li><code>casServerUrlPrefixes</code> - comma or whitespace separated URL prefixes of several CAS server nodes to
+ * spread the back-channel calls over, see {@link CasServerPool}.</li>
+ * <li><code>negativeTicketCacheSize</code> - number of tickets rejected by the CAS server to remember per period, so
+ * that presenting them again is redirected to the service URL without the ticket, for the user to log in again,
+ * without a round-trip; zero disables the cache. (default: 0)</li>
+ * <li><code>negativeTicketCacheTtl</code> - milliseconds after which remembered tickets start being forgotten, all
+ * of them being within twice that. (default: 60000)</li>
+ * <li><code>negativeTicketCacheFalsePositiveRate</code> - probability that a ticket never rejected is taken for a
+ * remembered one. (default: 0.001)</li>
+ * <li><code>clientRejectionRate</code> - rejected tickets per minute forgiven to a client address; once a client
+ * exhausts its <code>clientRejectionBurst</code>, its tickets are refused with 429 until it is forgiven. Zero disables
+ * throttling. (default: 0)</li>
+ * <li><code>clientRejectionBurst</code> - rejected tickets a client address may accumulate. (default: 10)</li>
+ * <li><code>trustedProxies</code> - regular expression matching the addresses of the reverse proxies and load
+ * balancers in front of the application, whose <code>clientAddressHeader</code> tells the client address, see
+ * {@link TrustedProxyClientAddressResolver}. Without it clients are told apart by the remote address, which is the
+ * one of the proxy behind a proxy. (default: none)</li>
+ * <li><code>clientAddressHeader</code> - header the trusted proxies list the hops of the request in.
+ * (default: X-Forwarded-For)</li>
+ * <li><code>ticketFormatPolicyClass</code> - {@link TicketFormatPolicy} refusing malformed tickets before any
+ * round-trip. (default: the policy of the ticket validator or else of the protocol)</li>
+ * <li><code>adaptiveConcurrencyLimit</code> - bound the back-channel calls in flight with an
+ * {@link AdaptiveConcurrencyLimiter}, new logins beyond the limit being shed while requests of users already
+ * holding a session are unaffected. (default: false)</li>
+ * <li><code>concurrencyLimitRetryAfter</code> - milliseconds after which shed requests are advised to come back.
+ * (default: 1000)</li>
  * </ul>
+ * When the CAS server cannot be consulted the request is answered with <code>503 Service Unavailable</code>,
+ * regardless of <code>exceptionOnValidationFailure</code>.
  *
  * @author Scott Battaglia
  * @version $Revision$ $Date$
@@ -57,6 +123,9 @@ import java.util.Properties;
  */
 public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
 
+    /** Status of throttled requests, missing from {@link HttpServletResponse}. */
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
     /** The TicketValidator we will use to validate tickets. */
     private TicketValidator ticketValidator;
 
@@ -67,6 +136,9 @@ public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
      */
     private boolean redirectAfterValidation = true;
 
+    /** Whether the chain goes on with the ticket hidden from the request rather than redirecting. */
+    private boolean hideTicketAfterValidation;
+
     /** Determines whether an exception is thrown when there is a ticket validation failure. */
     private boolean exceptionOnValidationFailure = false;
 
@@ -76,6 +148,38 @@ public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
      */
     private boolean useSession = true;
 
+    /** Whether tickets are validated asynchronously when the validator and the request support it. */
+    private boolean asyncValidation;
+
+    /** Milliseconds to wait for an asynchronous validation. */
+    private long asyncValidationTimeout = ConfigurationKeys.ASYNC_VALIDATION_TIMEOUT.getDefaultValue();
+
+    /** Tickets the CAS server rejected recently, refused without asking it again; null when disabled. */
+    private RotatingBloomFilter negativeTicketCache;
+
+    /** Per client address buckets of rejected tickets; null when disabled. */
+    private LruCache<String, TokenBucket> clientBuckets;
+
+    private double clientRejectionRate;
+
+    private int clientRejectionBurst;
+
+    private ClientAddressResolver clientAddressResolver = ClientAddressResolver.REMOTE_ADDRESS;
+
+    private final LongAdder rejectedFromCache = new LongAdder();
+
+    private final LongAdder throttledClients = new LongAdder();
+
+    private TicketFormatPolicy ticketFormatPolicy;
+
+    private final LongAdder malformedTickets = new LongAdder();
+
+    /** Pool of CAS server nodes created from the configuration, closed with the filter. */
+    private CasServerPool casServerPool;
+
+    /** Request attribute carrying the outcome of an asynchronous validation into the async dispatch. */
+    private final String asyncOutcomeAttribute = getClass().getName() + ".asyncOutcome";
+
     protected AbstractTicketValidationFilter(final Protocol protocol) {
         super(protocol);
     }
@@ -84,20 +188,58 @@ public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
     public void init() {
         super.init();
         CommonUtils.assertNotNull(this.ticketValidator, "ticketValidator cannot be null.");
+        if (this.ticketFormatPolicy == null) {
+            final var validatorPolicy = this.ticketValidator.getTicketFormatPolicy();
+            setTicketFormatPolicy(validatorPolicy != null ? validatorPolicy : TicketFormatPolicy.forProtocol(getProtocol()));
+        }
     }
 
     @Override
     protected void initInternal(final FilterConfig filterConfig) throws ServletException {
         setExceptionOnValidationFailure(getBoolean(ConfigurationKeys.EXCEPTION_ON_VALIDATION_FAILURE));
         setRedirectAfterValidation(getBoolean(ConfigurationKeys.REDIRECT_AFTER_VALIDATION));
+        setHideTicketAfterValidation(getBoolean(ConfigurationKeys.HIDE_TICKET_AFTER_VALIDATION));
         setUseSession(getBoolean(ConfigurationKeys.USE_SESSION));
+        setAsyncValidation(getBoolean(ConfigurationKeys.ASYNC_VALIDATION));
+        setAsyncValidationTimeout(getLong(ConfigurationKeys.ASYNC_VALIDATION_TIMEOUT));
+        setNegativeTicketCache(getInt(ConfigurationKeys.NEGATIVE_TICKET_CACHE_SIZE),
+            getLong(ConfigurationKeys.NEGATIVE_TICKET_CACHE_TTL),
+            Double.parseDouble(getString(ConfigurationKeys.NEGATIVE_TICKET_CACHE_FALSE_POSITIVE_RATE)));
+        setClientRejectionRate(getInt(ConfigurationKeys.CLIENT_REJECTION_RATE),
+            getInt(ConfigurationKeys.CLIENT_REJECTION_BURST));
+        final var trustedProxies = getString(ConfigurationKeys.TRUSTED_PROXIES);
+        if (CommonUtils.isNotBlank(trustedProxies)) {
+            setClientAddressResolver(new TrustedProxyClientAddressResolver(
+                getString(ConfigurationKeys.CLIENT_ADDRESS_HEADER), Pattern.compile(trustedProxies)));
+        }
+        final var ticketFormatPolicyClass = getClass(ConfigurationKeys.TICKET_FORMAT_POLICY_CLASS);
+        if (ticketFormatPolicyClass != null) {
+            setTicketFormatPolicy(ReflectUtils.newInstance(ticketFormatPolicyClass));
+        }
 
-        if (!this.useSession && this.redirectAfterValidation) {
+        if (!this.useSession && this.redirectAfterValidation && getAssertionCookieCodec() == null) {
             logger.warn("redirectAfterValidation parameter may not be true when useSession parameter is false. Resetting it to false in order to prevent infinite redirects.");
             setRedirectAfterValidation(false);
         }
+        if (!this.useSession && getAssertionCookieCodec() != null && getAssertionCookieCodec().getRevocationList().isLocal()) {
+            logger.warn("Assertion cookies are checked against the in-memory session revocation list: a single sign-out "
+                        + "request only revokes them on the node receiving it, the other nodes of a cluster keep accepting "
+                        + "them for up to [{}] ms. Configure a sessionRevocationListClass backed by a shared store unless "
+                        + "the application runs on a single node.", getAssertionCookieCodec().getMaxAgeMillis());
+        }
 
-        setTicketValidator(getTicketValidator(filterConfig));
+        var ticketValidator = getTicketValidator(filterConfig);
+        if (getBoolean(ConfigurationKeys.HEDGE_VALIDATIONS)) {
+            CommonUtils.assertTrue(ticketValidator instanceof AbstractUrlBasedTicketValidator urlBasedTicketValidator
+                    && urlBasedTicketValidator.getCasServerPool() != null
+                    && urlBasedTicketValidator.getCasServerPool().size() > 1,
+                "hedgeValidations requires casServerUrlPrefixes to list several CAS server nodes for the hedges to go to.");
+            ticketValidator = new HedgingTicketValidator((AsyncTicketValidator) ticketValidator);
+        }
+        if (ticketValidator != null && getBoolean(ConfigurationKeys.COALESCE_VALIDATIONS)) {
+            ticketValidator = new CoalescingTicketValidator(ticketValidator);
+        }
+        setTicketValidator(ticketValidator);
         super.initInternal(filterConfig);
     }
 
@@ -111,46 +253,239 @@ public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
 
         final var request = (HttpServletRequest) servletRequest;
         final var response = (HttpServletResponse) servletResponse;
+
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // the ticket of an async dispatch has been validated already, possibly by this filter
+            final var outcome = request.getAttribute(this.asyncOutcomeAttribute);
+            request.removeAttribute(this.asyncOutcomeAttribute);
+            if (outcome == null || (outcome instanceof Assertion assertion
+                ? onValidationSuccess(request, response, retrieveTicketFromRequest(request), assertion)
+                : onValidationFailure(request, response, retrieveTicketFromRequest(request),
+                    (TicketValidationException) outcome))) {
+                filterChain.doFilter(outcome == null ? request : hideValidatedTicket(request,
+                    retrieveTicketFromRequest(request)), response);
+            }
+            return;
+        }
+
         final var ticket = retrieveTicketFromRequest(request);
+        if (this.asyncValidation && CommonUtils.isNotBlank(ticket) && request.isAsyncSupported()
+            && this.ticketValidator instanceof AsyncTicketValidator asyncTicketValidator) {
+            try {
+                admitTicket(request, ticket);
+            } catch (final TicketValidationException e) {
+                onValidationFailure(request, response, ticket, e);
+                return;
+            }
+            validateTicketAsync(request, response, ticket, asyncTicketValidator);
+            return;
+        }
 
+        if (validateTicket(request, response, ticket)) {
+            filterChain.doFilter(hideValidatedTicket(request, ticket), response);
+        }
+    }
+
+    /**
+     * Hides the ticket a request was successfully validated with, when <code>hideTicketAfterValidation</code> is set.
+     *
+     * @param request the HttpServletRequest whose ticket passed {@link #validateTicket}.
+     * @param ticket the ticket extracted from the request, may be blank.
+     * @return the request to go on with.
+     * @since 4.0.5
+     */
+    protected final HttpServletRequest hideValidatedTicket(final HttpServletRequest request, final String ticket) {
+        return this.hideTicketAfterValidation && CommonUtils.isNotBlank(ticket)
+            ? new TicketHidingRequestWrapper(request, getProtocol().getArtifactParameterName()) : request;
+    }
+
+    /**
+     * Validates the ticket, if any, and stores the resulting assertion in the request and, when configured, the session.
+     *
+     * @param request the HttpServletRequest.
+     * @param response the HttpServletResponse.
+     * @param ticket the ticket extracted from the request, may be blank.
+     * @return true if the filter chain should proceed, false if a redirect or an error has been sent.
+     * @throws IOException if there is an I/O problem
+     * @throws ServletException if the validation fails and exceptionOnValidationFailure is set.
+     */
+    protected final boolean validateTicket(final HttpServletRequest request, final HttpServletResponse response,
+                                           final String ticket) throws IOException, ServletException {
         if (CommonUtils.isNotBlank(ticket)) {
             logger.debug("Attempting to validate ticket: {}", ticket);
 
             try {
+                admitTicket(request, ticket);
                 final var assertion = this.ticketValidator.validate(ticket,
                     constructServiceUrl(request, response));
+                return onValidationSuccess(request, response, ticket, assertion);
+            } catch (final TicketValidationException e) {
+                return onValidationFailure(request, response, ticket, e);
+            }
+        }
+        return true;
+    }
 
-                logger.debug("Successfully authenticated user: {}", assertion.getPrincipal().getName());
+    /**
+     * Starts asynchronous processing of the request and validates the ticket without holding the container thread.
+     * The request is dispatched again once the validation completes or times out, and the outcome is then handled
+     * exactly as for a synchronous validation.
+     */
+    private void validateTicketAsync(final HttpServletRequest request, final HttpServletResponse response,
+                                     final String ticket, final AsyncTicketValidator asyncTicketValidator) {
+        logger.debug("Attempting to validate ticket asynchronously: {}", ticket);
+        final var serviceUrl = constructServiceUrl(request, response);
+        final var asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(this.asyncValidationTimeout);
+        final var completed = new AtomicBoolean();
+
+        final var validation = asyncTicketValidator.validateAsync(ticket, serviceUrl);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(final AsyncEvent event) {
+                if (completed.compareAndSet(false, true)) {
+                    validation.cancel(true);
+                    request.setAttribute(asyncOutcomeAttribute, new TicketValidationException(
+                        "Ticket validation timed out after " + asyncValidationTimeout + " ms"));
+                    asyncContext.dispatch();
+                }
+            }
 
-                request.setAttribute(CONST_CAS_ASSERTION, assertion);
+            @Override
+            public void onComplete(final AsyncEvent event) {
+                // nothing to do
+            }
 
-                if (this.useSession) {
-                    request.getSession().setAttribute(CONST_CAS_ASSERTION, assertion);
+            @Override
+            public void onError(final AsyncEvent event) {
+                if (completed.compareAndSet(false, true)) {
+                    validation.cancel(true);
                 }
-                onSuccessfulValidation(request, response, assertion);
+            }
 
-                if (this.redirectAfterValidation) {
-                    logger.debug("Redirecting after successful ticket validation.");
-                    response.sendRedirect(constructServiceUrl(request, response));
-                    return;
-                }
-            } catch (final TicketValidationException e) {
-                logger.debug(e.getMessage(), e);
+            @Override
+            public void onStartAsync(final AsyncEvent event) {
+                // nothing to do
+            }
+        });
 
-                onFailedValidation(request, response);
+        validation.whenComplete((assertion, throwable) -> {
+            if (completed.compareAndSet(false, true)) {
+                request.setAttribute(this.asyncOutcomeAttribute, throwable == null ? assertion : toValidationException(throwable));
+                asyncContext.dispatch();
+            }
+        });
+    }
 
-                if (this.exceptionOnValidationFailure) {
-                    throw new ServletException(e);
-                }
+    /**
+     * Refuses, without asking the CAS server, a malformed ticket, a ticket it rejected recently or one presented by a
+     * client that had too many tickets rejected lately.
+     */
+    private void admitTicket(final HttpServletRequest request, final String ticket) throws TicketValidationException {
+        if (this.ticketFormatPolicy != null && !this.ticketFormatPolicy.isWellFormed(ticket)) {
+            this.malformedTickets.increment();
+            throw new MalformedTicketException("Ticket " + ticket + " is malformed.");
+        }
+        if (this.negativeTicketCache != null && this.negativeTicketCache.mightContain(ticket)) {
+            this.rejectedFromCache.increment();
+            throw new RecentlyRejectedTicketException("Ticket " + ticket + " was rejected recently.");
+        }
+        if (this.clientBuckets != null) {
+            final var clientAddress = this.clientAddressResolver.resolveClientAddress(request);
+            final var bucket = this.clientBuckets.get(clientAddress);
+            if (bucket != null && !bucket.hasToken()) {
+                this.throttledClients.increment();
+                throw new ClientThrottledException("Too many rejected tickets from " + clientAddress + ".",
+                    bucket.getMillisUntilToken());
+            }
+        }
+    }
 
-                response.sendError(HttpServletResponse.SC_FORBIDDEN, e.getMessage());
+    /**
+     * Remembers a ticket the CAS server rejected and charges the rejection to the client presenting it.
+     */
+    private void recordRejection(final HttpServletRequest request, final String ticket) {
+        if (this.negativeTicketCache != null && CommonUtils.isNotBlank(ticket)) {
+            this.negativeTicketCache.put(ticket);
+        }
+        if (this.clientBuckets != null) {
+            this.clientBuckets.computeIfAbsent(this.clientAddressResolver.resolveClientAddress(request),
+                k -> new TokenBucket(this.clientRejectionRate, this.clientRejectionBurst)).tryConsume();
+        }
+    }
 
-                return;
+    private static TicketValidationException toValidationException(final Throwable throwable) {
+        final var cause = throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause() : throwable;
+        return cause instanceof TicketValidationException e ? e : new TicketValidationException(cause);
+    }
+
+    private boolean onValidationSuccess(final HttpServletRequest request, final HttpServletResponse response,
+                                        final String ticket, final Assertion assertion) throws IOException {
+        logger.debug("Successfully authenticated user: {}", assertion.getPrincipal().getName());
+
+        request.setAttribute(CONST_CAS_ASSERTION, assertion);
+
+        if (this.useSession) {
+            request.getSession().setAttribute(CONST_CAS_ASSERTION, assertion);
+        }
+        final var cookieWritten = getAssertionCookieCodec() != null
+            && getAssertionCookieCodec().writeCookie(request, response, assertion, ticket);
+        onSuccessfulValidation(request, response, assertion);
+
+        if (this.hideTicketAfterValidation) {
+            response.setHeader("Link", '<' + constructServiceUrl(request, response) + ">; rel=\"canonical\"");
+            return true;
+        }
+        // without a session, only the cookie remembers the assertion across the redirect
+        if (this.redirectAfterValidation && (this.useSession || cookieWritten)) {
+            logger.debug("Redirecting after successful ticket validation.");
+            response.sendRedirect(constructServiceUrl(request, response));
+            return false;
+        }
+        return true;
+    }
+
+    private boolean onValidationFailure(final HttpServletRequest request, final HttpServletResponse response,
+                                        final String ticket, final TicketValidationException e)
+        throws IOException, ServletException {
+        logger.debug(e.getMessage(), e);
+
+        // timeouts and other failures say nothing about the ticket
+        if (e.isTicketRejected()) {
+            recordRejection(request, ticket);
+        }
+
+        onFailedValidation(request, response);
+
+        if (e instanceof ClientThrottledException throttled) {
+            response.setHeader("Retry-After", Long.toString(Math.max(1, (throttled.getRetryAfterMillis() + 999) / 1000)));
+            response.sendError(SC_TOO_MANY_REQUESTS, e.getMessage());
+            return false;
+        }
+
+        if (e instanceof RecentlyRejectedTicketException) {
+            // possibly a false positive of the cache for a fresh ticket, which logging in again replaces
+            logger.debug("Redirecting the recently rejected ticket to the service URL without it.");
+            response.sendRedirect(constructServiceUrl(request, response));
+            return false;
+        }
+
+        if (e instanceof CasServerUnavailableException unavailable) {
+            if (unavailable.getRetryAfterMillis() > 0) {
+                response.setHeader("Retry-After", Long.toString((unavailable.getRetryAfterMillis() + 999) / 1000));
             }
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            return false;
         }
 
-        filterChain.doFilter(request, response);
+        if (this.exceptionOnValidationFailure) {
+            throw new ServletException(e);
+        }
+
+        response.sendError(HttpServletResponse.SC_FORBIDDEN, e.getMessage());
 
+        return false;
     }
 
     public final void setTicketValidator(final TicketValidator ticketValidator) {
@@ -161,6 +496,10 @@ public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
         this.redirectAfterValidation = redirectAfterValidation;
     }
 
+    public final void setHideTicketAfterValidation(final boolean hideTicketAfterValidation) {
+        this.hideTicketAfterValidation = hideTicketAfterValidation;
+    }
+
     public final void setExceptionOnValidationFailure(final boolean exceptionOnValidationFailure) {
         this.exceptionOnValidationFailure = exceptionOnValidationFailure;
     }
@@ -169,6 +508,103 @@ public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
         this.useSession = useSession;
     }
 
+    public final void setAsyncValidation(final boolean asyncValidation) {
+        this.asyncValidation = asyncValidation;
+    }
+
+    public final void setAsyncValidationTimeout(final long asyncValidationTimeout) {
+        this.asyncValidationTimeout = asyncValidationTimeout;
+    }
+
+    /**
+     * Remembers the tickets the CAS server rejects, so that presenting them again is refused without a round-trip.
+     *
+     * @param expectedTickets the rejected tickets remembered per period, zero or less to disable the cache.
+     * @param ttlMillis the period after which remembered tickets start being forgotten.
+     * @since 4.0.5
+     */
+    public final void setNegativeTicketCache(final int expectedTickets, final long ttlMillis) {
+        setNegativeTicketCache(expectedTickets, ttlMillis,
+            Double.parseDouble(ConfigurationKeys.NEGATIVE_TICKET_CACHE_FALSE_POSITIVE_RATE.getDefaultValue()));
+    }
+
+    /**
+     * Remembers the tickets the CAS server rejects, so that presenting them again is refused without a round-trip.
+     * A ticket taken for a remembered one by mistake is redirected to the service URL without it, for the user to log
+     * in again.
+     *
+     * @param expectedTickets the rejected tickets remembered per period, zero or less to disable the cache.
+     * @param ttlMillis the period after which remembered tickets start being forgotten.
+     * @param falsePositiveRate the probability that a ticket never rejected is taken for a remembered one.
+     * @since 4.0.5
+     */
+    public final void setNegativeTicketCache(final int expectedTickets, final long ttlMillis,
+                                             final double falsePositiveRate) {
+        this.negativeTicketCache = expectedTickets > 0
+            ? new RotatingBloomFilter(expectedTickets, falsePositiveRate, ttlMillis) : null;
+    }
+
+    /**
+     * Throttles the clients presenting tickets the CAS server rejects: once a client exhausts its bucket of
+     * rejections, its tickets are refused with <code>429 Too Many Requests</code> until the bucket refills.
+     *
+     * @param rejectionsPerMinute the rate at which rejections are forgiven, zero or less to disable throttling.
+     * @param burst the rejections a client may accumulate.
+     * @since 4.0.5
+     */
+    public final void setClientRejectionRate(final int rejectionsPerMinute, final int burst) {
+        this.clientRejectionRate = rejectionsPerMinute / 60.0;
+        this.clientRejectionBurst = burst;
+        this.clientBuckets = rejectionsPerMinute > 0 ? new LruCache<>(10_000) : null;
+    }
+
+    /**
+     * Sets how the clients throttled by {@link #setClientRejectionRate(int, int)} are told apart. Defaults to
+     * {@link ClientAddressResolver#REMOTE_ADDRESS}, which behind a reverse proxy throttles all clients together.
+     *
+     * @param clientAddressResolver the resolver of the client address.
+     * @since 4.0.5
+     */
+    public final void setClientAddressResolver(final ClientAddressResolver clientAddressResolver) {
+        CommonUtils.assertNotNull(clientAddressResolver, "clientAddressResolver cannot be null.");
+        this.clientAddressResolver = clientAddressResolver;
+    }
+
+    /**
+     * Sets the policy refusing malformed tickets before they reach the ticket validator. Defaults to the policy of the
+     * ticket validator, if any, or else to the one of the protocol.
+     *
+     * @param ticketFormatPolicy the policy, {@link TicketFormatPolicy#ANY} to disable the check.
+     * @since 4.0.5
+     */
+    public final void setTicketFormatPolicy(final TicketFormatPolicy ticketFormatPolicy) {
+        this.ticketFormatPolicy = ticketFormatPolicy;
+    }
+
+    /**
+     * @return the tickets refused because their {@link TicketFormatPolicy} found them malformed.
+     * @since 4.0.5
+     */
+    public final long getMalformedTicketCount() {
+        return this.malformedTickets.sum();
+    }
+
+    /**
+     * @return the tickets refused because the CAS server rejected them recently.
+     * @since 4.0.5
+     */
+    public final long getRejectedFromCacheCount() {
+        return this.rejectedFromCache.sum();
+    }
+
+    /**
+     * @return the tickets refused because their client had too many tickets rejected lately.
+     * @since 4.0.5
+     */
+    public final long getThrottledCount() {
+        return this.throttledClients.sum();
+    }
+
     /**
      * Template method to return the appropriate validator.
      *
@@ -179,6 +615,85 @@ public abstract class AbstractTicketValidationFilter extends AbstractCasFilter {
         return this.ticketValidator;
     }
 
+    /**
+     * Creates the connection factory for the calls to the CAS server from the SSL, hostname verifier and timeout
+     * settings of this filter.
+     *
+     * @return the connection factory.
+     * @since 4.0.5
+     */
+    protected final HttpsURLConnectionFactory createURLConnectionFactory() {
+        final var factory = new HttpsURLConnectionFactory(getHostnameVerifier(), getSSLConfig());
+        factory.setConnectTimeout(getInt(ConfigurationKeys.CONNECT_TIMEOUT));
+        factory.setReadTimeout(getInt(ConfigurationKeys.READ_TIMEOUT));
+        return factory;
+    }
+
+    /**
+     * Guards the validator with a circuit breaker and retry budget when <code>circuitBreaker</code> is set.
+     *
+     * @param validator the validator to guard.
+     * @return the breaker, to be shared with other callers of the same CAS server, or null if disabled.
+     * @since 4.0.5
+     */
+    protected final CircuitBreaker applyCircuitBreaker(final AbstractUrlBasedTicketValidator validator) {
+        if (!getBoolean(ConfigurationKeys.CIRCUIT_BREAKER)) {
+            return null;
+        }
+        final var circuitBreaker = new CircuitBreaker(20, 10, 0.5, getLong(ConfigurationKeys.CIRCUIT_BREAKER_OPEN_DURATION));
+        validator.setCircuitBreaker(circuitBreaker);
+        validator.setRetryBudget(new RetryBudget());
+        return circuitBreaker;
+    }
+
+    /**
+     * Bounds the calls of the validator with an adaptive concurrency limiter when <code>adaptiveConcurrencyLimit</code>
+     * is set.
+     *
+     * @param validator the validator to bound.
+     * @return the limiter, to be shared with other callers of the same CAS server, or null if disabled.
+     * @since 4.0.5
+     */
+    protected final AdaptiveConcurrencyLimiter applyConcurrencyLimiter(final AbstractUrlBasedTicketValidator validator) {
+        if (!getBoolean(ConfigurationKeys.ADAPTIVE_CONCURRENCY_LIMIT)) {
+            return null;
+        }
+        final var limiter = new AdaptiveConcurrencyLimiter(20, 1, 200,
+            getLong(ConfigurationKeys.CONCURRENCY_LIMIT_RETRY_AFTER));
+        validator.setConcurrencyLimiter(limiter);
+        return limiter;
+    }
+
+    /**
+     * Spreads the calls of the validator over the nodes listed by <code>casServerUrlPrefixes</code>, if any.
+     *
+     * @param validator the validator.
+     * @param factory the connection factory used to probe ejected nodes.
+     * @return the pool, to be shared with other callers of the same CAS servers, or null if none is configured.
+     * @since 4.0.5
+     */
+    protected final CasServerPool applyCasServerPool(final AbstractUrlBasedTicketValidator validator,
+                                                     final HttpURLConnectionFactory factory) {
+        final var urlPrefixes = getString(ConfigurationKeys.CAS_SERVER_URL_PREFIXES);
+        if (CommonUtils.isBlank(urlPrefixes)) {
+            return null;
+        }
+        if (this.casServerPool != null) {
+            this.casServerPool.close();
+        }
+        this.casServerPool = new CasServerPool(CasServerPool.parseUrlPrefixes(urlPrefixes), 3, 10000, factory);
+        validator.setCasServerPool(this.casServerPool);
+        return this.casServerPool;
+    }
+
+    @Override
+    public void destroy() {
+        if (this.casServerPool != null) {
+            this.casServerPool.close();
+        }
+        super.destroy();
+    }
+
     /**
      * Gets the ssl config to use for HTTPS connections
      * if one is configured for this filter.
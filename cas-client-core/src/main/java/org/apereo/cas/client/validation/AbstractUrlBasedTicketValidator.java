@@ -20,17 +20,33 @@ package org.apereo.cas.client.validation;
 
 import org.apereo.cas.client.ssl.HttpURLConnectionFactory;
 import org.apereo.cas.client.ssl.HttpsURLConnectionFactory;
+import org.apereo.cas.client.util.AdaptiveConcurrencyLimiter;
+import org.apereo.cas.client.util.CasServerPool;
+import org.apereo.cas.client.util.CircuitBreaker;
 import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.RetryBudget;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Abstract validator implementation for tickets that must be validated against a server.
@@ -38,7 +54,23 @@ import java.util.Map;
  * @author Scott Battaglia
  * @since 3.1
  */
-public abstract class AbstractUrlBasedTicketValidator implements TicketValidator {
+public abstract class AbstractUrlBasedTicketValidator implements AsyncTicketValidator {
+
+    /** Threads of the default asynchronous executor, and so validations it runs at once. */
+    private static final int DEFAULT_ASYNC_THREADS = 64;
+
+    /** Validations the default asynchronous executor queues before refusing more. */
+    private static final int DEFAULT_ASYNC_QUEUE_SIZE = 1024;
+
+    /** Milliseconds after which the validations refused by the executor are advised to come back. */
+    private static final long ASYNC_REJECTION_RETRY_AFTER = 1000;
+
+    /**
+     * Default executor of {@link #validateAsync(String, String)}; a dedicated pool so that waiting for the CAS
+     * server never ties up container or common pool threads. It is bounded, so that a slow CAS server makes it refuse
+     * validations rather than start a thread for each of them.
+     */
+    private static final ExecutorService DEFAULT_ASYNC_EXECUTOR = newDefaultAsyncExecutor();
 
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -67,6 +99,29 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
 
     private String encoding;
 
+    private Executor asyncExecutor = DEFAULT_ASYNC_EXECUTOR;
+
+    /** Optional breaker failing validations fast while the CAS server is unhealthy. */
+    private CircuitBreaker circuitBreaker;
+
+    /** Optional limiter shedding validations beyond the concurrency the CAS server currently sustains. */
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /** Optional pool of CAS server nodes to spread the validations over instead of the single prefix. */
+    private CasServerPool casServerPool;
+
+    /** Optional budget for retrying validations whose connection to the CAS server could not be established. */
+    private RetryBudget retryBudget;
+
+    /** Whether the validation URLs are expanded from a template rather than built from the parameters every time. */
+    private final boolean validationUrlTemplated;
+
+    /**
+     * Validation URL with every parameter but the ticket and the service already encoded, built by the setters of the
+     * parameters.
+     */
+    private volatile ValidationUrlTemplate validationUrlTemplate;
+
     /**
      * Constructs a new TicketValidator with the casServerUrlPrefix.
      *
@@ -75,31 +130,225 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
     protected AbstractUrlBasedTicketValidator(final String casServerUrlPrefix) {
         CommonUtils.assertNotNull(casServerUrlPrefix, "casServerUrlPrefix cannot be null.");
         this.casServerUrlPrefix = CommonUtils.addTrailingSlash(casServerUrlPrefix);
+        this.validationUrlTemplated = isUrlAttributeMapConstant()
+            && declaringClass("populateUrlAttributeMap", Map.class)
+                .isAssignableFrom(declaringClass("isUrlAttributeMapConstant"));
     }
 
     @Override
     public final Assertion validate(final String ticket, final String service) throws TicketValidationException {
-        final var validationUrl = constructValidationUrl(ticket, service);
-        logger.debug("Constructing validation url: {}", validationUrl);
+        return validate(ticket, service, null, null);
+    }
+
+    private Assertion validate(final String ticket, final String service, final CasServerPool.Endpoint avoid,
+                               final AtomicReference<CasServerPool.Endpoint> chosen) throws TicketValidationException {
+        logger.debug("Retrieving response from server.");
+        final var serverResponse = this.concurrencyLimiter != null
+            ? retrieveResponseWithinLimit(ticket, service, avoid, chosen) : retrieveResponse(ticket, service, avoid, chosen);
+
+        return validateResponse(serverResponse);
+    }
 
+    /**
+     * Retrieves the response if the concurrency limiter lets the call through, feeding its round-trip time back.
+     */
+    private String retrieveResponseWithinLimit(final String ticket, final String service,
+                                               final CasServerPool.Endpoint avoid,
+                                               final AtomicReference<CasServerPool.Endpoint> chosen)
+        throws TicketValidationException {
+        final var limiter = this.concurrencyLimiter;
+        if (!limiter.tryAcquire()) {
+            throw new CasServerUnavailableException("Too many validations in flight, shedding load.", null,
+                limiter.getRetryAfterMillis());
+        }
+        final var start = System.nanoTime();
         try {
-            logger.debug("Retrieving response from server.");
-            final var serverResponse = retrieveResponseFromServer(new URL(validationUrl), ticket);
+            final var serverResponse = retrieveResponse(ticket, service, avoid, chosen);
+            limiter.onSample(System.nanoTime() - start);
+            return serverResponse;
+        } catch (final CasServerUnavailableException e) {
+            if (e.getCause() != null) {
+                limiter.onDropped();
+            } else {
+                limiter.release();
+            }
+            throw e;
+        } catch (final TicketValidationException | RuntimeException e) {
+            limiter.release();
+            throw e;
+        }
+    }
 
-            if (serverResponse == null) {
-                throw new TicketValidationException("The CAS server returned no response.");
+    /**
+     * Retrieves the response through the circuit breaker, server pool and retry budget, when configured. Only
+     * failures to connect are retried: once the request may have reached the server, the ticket may have been
+     * consumed. With a server pool they fail over to another node straight away, otherwise the retry is charged
+     * to the budget and delayed.
+     *
+     * @param avoid the pool node not to send the first attempt to, null for none.
+     * @param chosen receives the pool node each attempt is sent to, may be null.
+     */
+    private String retrieveResponse(final String ticket, final String service, final CasServerPool.Endpoint avoid,
+                                    final AtomicReference<CasServerPool.Endpoint> chosen) throws TicketValidationException {
+        if (this.retryBudget != null) {
+            this.retryBudget.onCall();
+        }
+        var failed = avoid;
+        for (var attempt = 1; ; attempt++) {
+            final var endpoint = this.casServerPool != null ? this.casServerPool.choose(failed) : null;
+            if (chosen != null) {
+                chosen.set(endpoint);
             }
+            final var validationUrl = constructValidationUrl(
+                endpoint != null ? endpoint.getUrlPrefix() : this.casServerUrlPrefix, ticket, service);
+            logger.debug("Constructing validation url: {}", validationUrl);
+            final URL url;
+            try {
+                url = new URL(validationUrl);
+            } catch (final MalformedURLException e) {
+                release(endpoint);
+                throw new TicketValidationException(e);
+            }
+            if (this.circuitBreaker != null && !this.circuitBreaker.tryAcquirePermission()) {
+                release(endpoint);
+                throw new CasServerUnavailableException("Circuit breaker open, not contacting the CAS server.", null,
+                    this.circuitBreaker.getRemainingOpenMillis());
+            }
+            final var start = System.nanoTime();
+            try {
+                final var serverResponse = retrieveResponseFromServer(url, ticket);
+                if (this.circuitBreaker != null) {
+                    this.circuitBreaker.onSuccess();
+                }
+                if (endpoint != null) {
+                    this.casServerPool.onSuccess(endpoint, System.nanoTime() - start);
+                }
+                return serverResponse;
+            } catch (final RuntimeException e) {
+                if (this.circuitBreaker != null) {
+                    this.circuitBreaker.onFailure();
+                }
+                if (endpoint != null) {
+                    this.casServerPool.onFailure(endpoint, System.nanoTime() - start);
+                }
+                if (!hasCause(e, IOException.class)) {
+                    throw e;
+                }
+                if (!hasCause(e, ConnectException.class)) {
+                    throw unavailable(e);
+                }
+                if (endpoint != null && attempt < this.casServerPool.size()) {
+                    logger.debug("Could not connect to CAS server [{}], failing over: {}", endpoint, e.getMessage());
+                    failed = endpoint;
+                    continue;
+                }
+                if (this.retryBudget == null || !this.retryBudget.tryAcquireRetry()) {
+                    throw unavailable(e);
+                }
+                logger.debug("Could not connect to the CAS server, retrying: {}", e.getMessage());
+                try {
+                    Thread.sleep(this.retryBudget.nextBackoffMillis(attempt));
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new CasServerUnavailableException("Interrupted while retrying the CAS server.", e, 0);
+                }
+            }
+        }
+    }
 
-            logger.debug("Server response: {}", serverResponse);
+    private void release(final CasServerPool.Endpoint endpoint) {
+        if (endpoint != null) {
+            this.casServerPool.release(endpoint);
+        }
+    }
+
+    private CasServerUnavailableException unavailable(final RuntimeException e) {
+        return new CasServerUnavailableException("The CAS server could not be reached.", e,
+            this.circuitBreaker != null ? this.circuitBreaker.getRemainingOpenMillis() : 0);
+    }
 
-            return parseResponseFromServer(serverResponse);
-        } catch (final MalformedURLException e) {
-            throw new TicketValidationException(e);
+    private static boolean hasCause(final Throwable throwable, final Class<? extends Throwable> type) {
+        for (var t = throwable; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Validates the ticket on the configured asynchronous executor, releasing the calling thread while the
+     * CAS server is contacted.
+     */
+    @Override
+    public CompletableFuture<Assertion> validateAsync(final String ticket, final String service) {
+        return validateAsync(ticket, service, null, null);
+    }
+
+    /**
+     * Validates the ticket asynchronously like {@link #validateAsync(String, String)}, steering the request
+     * away from a node of the {@link #setCasServerPool(CasServerPool) server pool}, so that a hedge does not queue
+     * behind the request it hedges.
+     *
+     * @param ticket the ticket to validate.
+     * @param service the service the ticket was issued for.
+     * @param avoid the pool node not to send the request to, unless it is the only one; null for none.
+     * @param chosen receives the pool node the request is sent to once chosen, may be null.
+     * @return the future assertion.
+     * @since 4.0.5
+     */
+    public CompletableFuture<Assertion> validateAsync(final String ticket, final String service,
+                                                      final CasServerPool.Endpoint avoid,
+                                                      final AtomicReference<CasServerPool.Endpoint> chosen) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return validate(ticket, service, avoid, chosen);
+                } catch (final TicketValidationException e) {
+                    throw new CompletionException(e);
+                }
+            }, this.asyncExecutor);
+        } catch (final RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new CasServerUnavailableException(
+                "Too many validations waiting for the CAS server.", e, ASYNC_REJECTION_RETRY_AFTER));
+        }
+    }
+
+    private static ExecutorService newDefaultAsyncExecutor() {
+        final var executor = new ThreadPoolExecutor(DEFAULT_ASYNC_THREADS, DEFAULT_ASYNC_THREADS, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(DEFAULT_ASYNC_QUEUE_SIZE), runnable -> {
+                final var thread = new Thread(runnable, "cas-ticket-validation");
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Turns the response of the CAS server into an assertion. Exposed so that callers retrieving the response
+     * through their own (e.g. non-blocking) transport from {@link #constructValidationUrl(String, String)}
+     * can reuse this validator's parsing.
+     *
+     * @param serverResponse the response from the CAS server, may be null.
+     * @return the CAS assertion.
+     * @throws TicketValidationException if there is no response or an Assertion could not be created.
+     */
+    public final Assertion validateResponse(final String serverResponse) throws TicketValidationException {
+        if (serverResponse == null) {
+            throw new TicketValidationException("The CAS server returned no response.");
+        }
+
+        logger.debug("Server response: {}", serverResponse);
+
+        return parseResponseFromServer(serverResponse);
     }
 
     /**
      * Template method for ticket validators that need to provide additional parameters to the validation url.
+     * <p>
+     * Called for every validation, unless the class overriding it also overrides {@link #isUrlAttributeMapConstant()}
+     * to return true.
      *
      * @param urlParameters the map containing the parameters.
      */
@@ -107,6 +356,24 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
         // nothing to do
     }
 
+    /**
+     * Opts in to building the validation URLs from a template: the parameters are then populated once by the setters
+     * of the parameters, with placeholders for the ticket and the service, and only these two values are encoded for
+     * every validation. Overriding classes returning true promise that their {@link #populateUrlAttributeMap(Map)}
+     * only moves the ticket and service placeholders to other parameters, without reading or transforming them, and
+     * that the setters of the parameters it adds call {@link #rebuildValidationUrlTemplate()}.
+     * <p>
+     * The answer is only trusted from the class overriding {@link #populateUrlAttributeMap(Map)} or one of its
+     * subclasses, so that subclasses populating parameters of their own keep them built for every validation unless
+     * they opt in themselves. Called once by the constructor, so it must not depend on the state of the validator.
+     *
+     * @return whether the validation URLs may be expanded from a template.
+     * @since 4.0.5
+     */
+    protected boolean isUrlAttributeMapConstant() {
+        return true;
+    }
+
     /**
      * The endpoint of the validation URL.  Should be relative (i.e. not start with a "/").  I.e. validate or serviceValidate.
      * @return the endpoint of the validation URL.
@@ -120,7 +387,24 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
      * @param serviceUrl the service identifier.
      * @return the fully constructed URL.
      */
-    protected final String constructValidationUrl(final String ticket, final String serviceUrl) {
+    public final String constructValidationUrl(final String ticket, final String serviceUrl) {
+        return constructValidationUrl(this.casServerUrlPrefix, ticket, serviceUrl);
+    }
+
+    private String constructValidationUrl(final String serverUrlPrefix, final String ticket, final String serviceUrl) {
+        if (!this.validationUrlTemplated) {
+            return buildValidationUrl(serverUrlPrefix, ticket, serviceUrl);
+        }
+        var template = this.validationUrlTemplate;
+        if (template == null) {
+            // a validator none of whose parameters was set
+            template = compileValidationUrlTemplate();
+            this.validationUrlTemplate = template;
+        }
+        return template.expand(serverUrlPrefix, ticket, serviceUrl);
+    }
+
+    private String buildValidationUrl(final String serverUrlPrefix, final String ticket, final String serviceUrl) {
         final Map<String, String> urlParameters = new HashMap<>();
 
         logger.debug("Placing URL parameters in map.");
@@ -140,12 +424,12 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
         }
 
         final var suffix = getUrlSuffix();
-        final var buffer = new StringBuilder(urlParameters.size() * 10 + this.casServerUrlPrefix.length()
+        final var buffer = new StringBuilder(urlParameters.size() * 10 + serverUrlPrefix.length()
                                              + suffix.length() + 1);
 
         var i = 0;
 
-        buffer.append(this.casServerUrlPrefix);
+        buffer.append(serverUrlPrefix);
         buffer.append(suffix);
 
         for (final var entry : urlParameters.entrySet()) {
@@ -162,7 +446,72 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
         }
 
         return buffer.toString();
+    }
 
+    /**
+     * Runs the parameters through {@link #populateUrlAttributeMap(Map)} and the custom parameters once, with
+     * placeholders for the ticket and the service, and encodes every other parameter for good.
+     */
+    private ValidationUrlTemplate compileValidationUrlTemplate() {
+        final Map<String, String> urlParameters = new HashMap<>();
+        // distinct instances, recognized by identity wherever the subclass moves them
+        final var ticketPlaceholder = new String("ticket");
+        final var servicePlaceholder = new String("service");
+        urlParameters.put("ticket", ticketPlaceholder);
+        urlParameters.put("service", servicePlaceholder);
+
+        if (this.renew) {
+            urlParameters.put("renew", "true");
+        }
+
+        populateUrlAttributeMap(urlParameters);
+
+        if (this.customParameters != null) {
+            urlParameters.putAll(this.customParameters);
+        }
+
+        final var staticPart = new StringBuilder(getUrlSuffix());
+        String ticketParameter = null;
+        String serviceParameter = null;
+        var parameters = 0;
+        for (final var entry : urlParameters.entrySet()) {
+            final var value = entry.getValue();
+            if (value == ticketPlaceholder) {
+                ticketParameter = entry.getKey();
+            } else if (value == servicePlaceholder) {
+                serviceParameter = entry.getKey();
+            } else if (value != null) {
+                staticPart.append(parameters++ == 0 ? '?' : '&').append(entry.getKey()).append('=')
+                    .append(encodeUrl(value));
+            }
+        }
+        return new ValidationUrlTemplate(staticPart.toString(), parameters > 0, ticketParameter, serviceParameter);
+    }
+
+    /**
+     * Builds the validation URL template again with the current parameters, when the validator
+     * {@link #isUrlAttributeMapConstant() uses one}. Called by the setters of the parameters that are part of it.
+     *
+     * @since 4.0.5
+     */
+    protected final void rebuildValidationUrlTemplate() {
+        if (this.validationUrlTemplated) {
+            this.validationUrlTemplate = compileValidationUrlTemplate();
+        }
+    }
+
+    /**
+     * @return the most derived class of this validator declaring the given method.
+     */
+    private Class<?> declaringClass(final String name, final Class<?>... parameterTypes) {
+        for (Class<?> type = getClass(); ; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(name, parameterTypes);
+                return type;
+            } catch (final NoSuchMethodException e) {
+                // declared by a superclass, AbstractUrlBasedTicketValidator at the latest
+            }
+        }
     }
 
     /**
@@ -217,18 +566,85 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
 
     public final void setRenew(final boolean renew) {
         this.renew = renew;
+        rebuildValidationUrlTemplate();
     }
 
     protected final String getCasServerUrlPrefix() {
         return this.casServerUrlPrefix;
     }
 
+    /**
+     * @return the custom parameters, which cannot be changed but through {@link #setCustomParameters(Map)}.
+     */
     protected final Map<String, String> getCustomParameters() {
-        return this.customParameters;
+        return this.customParameters != null ? Collections.unmodifiableMap(this.customParameters) : null;
     }
 
     public final void setCustomParameters(final Map<String, String> customParameters) {
-        this.customParameters = customParameters;
+        this.customParameters = customParameters != null ? new HashMap<>(customParameters) : null;
+        rebuildValidationUrlTemplate();
+    }
+
+    /**
+     * Sets the executor of {@link #validateAsync(String, String)}. Validations it rejects fail with a
+     * {@link CasServerUnavailableException}. Defaults to a shared pool of 64 threads queuing up to 1024 validations.
+     *
+     * @param asyncExecutor the executor.
+     */
+    public final void setAsyncExecutor(final Executor asyncExecutor) {
+        CommonUtils.assertNotNull(asyncExecutor, "asyncExecutor cannot be null.");
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Guards the calls to the CAS server with the given breaker; while it is open, validations fail fast with a
+     * {@link CasServerUnavailableException}.
+     *
+     * @param circuitBreaker the breaker, null for none.
+     * @since 4.0.5
+     */
+    public final void setCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Bounds the validations in flight with the given limiter; validations beyond the limit fail fast with a
+     * {@link CasServerUnavailableException}.
+     *
+     * @param concurrencyLimiter the limiter, null for none.
+     * @since 4.0.5
+     */
+    public final void setConcurrencyLimiter(final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Spreads the validations over the nodes of the given pool rather than sending them all to the
+     * <code>casServerUrlPrefix</code> this validator was created with.
+     *
+     * @param casServerPool the pool, null for none.
+     * @since 4.0.5
+     */
+    public final void setCasServerPool(final CasServerPool casServerPool) {
+        this.casServerPool = casServerPool;
+    }
+
+    /**
+     * @return the pool the validations are spread over, null for none.
+     * @since 4.0.5
+     */
+    public final CasServerPool getCasServerPool() {
+        return this.casServerPool;
+    }
+
+    /**
+     * Retries validations whose connection to the CAS server failed, within the given budget.
+     *
+     * @param retryBudget the budget, null to never retry.
+     * @since 4.0.5
+     */
+    public final void setRetryBudget(final RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
     }
 
     protected HttpURLConnectionFactory getURLConnectionFactory() {
@@ -238,4 +654,44 @@ public abstract class AbstractUrlBasedTicketValidator implements TicketValidator
     public void setURLConnectionFactory(final HttpURLConnectionFactory urlConnectionFactory) {
         this.urlConnectionFactory = urlConnectionFactory;
     }
+
+    /**
+     * Validation URL of a validator, the ticket and the service being the only parameters encoded per validation.
+     */
+    private static final class ValidationUrlTemplate {
+
+        private final String staticPart;
+
+        private final boolean hasQuery;
+
+        private final String ticketParameter;
+
+        private final String serviceParameter;
+
+        private ValidationUrlTemplate(final String staticPart, final boolean hasQuery, final String ticketParameter,
+                                      final String serviceParameter) {
+            this.staticPart = staticPart;
+            this.hasQuery = hasQuery;
+            this.ticketParameter = ticketParameter;
+            this.serviceParameter = serviceParameter;
+        }
+
+        private String expand(final String serverUrlPrefix, final String ticket, final String serviceUrl) {
+            final var encodedTicket = this.ticketParameter != null ? encodeUrl(ticket) : null;
+            final var encodedService = this.serviceParameter != null ? encodeUrl(serviceUrl) : null;
+            final var buffer = new StringBuilder(serverUrlPrefix.length() + this.staticPart.length()
+                + (encodedTicket != null ? this.ticketParameter.length() + encodedTicket.length() + 2 : 0)
+                + (encodedService != null ? this.serviceParameter.length() + encodedService.length() + 2 : 0));
+            buffer.append(serverUrlPrefix).append(this.staticPart);
+            var separator = this.hasQuery ? '&' : '?';
+            if (encodedTicket != null) {
+                buffer.append(separator).append(this.ticketParameter).append('=').append(encodedTicket);
+                separator = '&';
+            }
+            if (encodedService != null) {
+                buffer.append(separator).append(this.serviceParameter).append('=').append(encodedService);
+            }
+            return buffer.toString();
+        }
+    }
 }
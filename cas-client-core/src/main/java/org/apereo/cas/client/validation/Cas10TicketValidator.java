@@ -40,10 +40,15 @@ public final class Cas10TicketValidator extends AbstractCasProtocolUrlBasedTicke
         return "validate";
     }
 
+    @Override
+    public TicketFormatPolicy getTicketFormatPolicy() {
+        return TicketFormatPolicy.casTicket("ST-");
+    }
+
     @Override
     protected Assertion parseResponseFromServer(final String response) throws TicketValidationException {
         if (!response.startsWith("yes")) {
-            throw new TicketValidationException("CAS Server could not validate ticket.");
+            throw TicketValidationException.ticketRejected("CAS Server could not validate ticket.");
         }
 
         try {
@@ -26,7 +26,6 @@ import org.apereo.cas.client.proxy.CleanUpTimerTask;
 import org.apereo.cas.client.proxy.ProxyGrantingTicketStorage;
 import org.apereo.cas.client.proxy.ProxyGrantingTicketStorageImpl;
 import org.apereo.cas.client.ssl.HttpURLConnectionFactory;
-import org.apereo.cas.client.ssl.HttpsURLConnectionFactory;
 import org.apereo.cas.client.util.CommonUtils;
 import org.apereo.cas.client.util.WebUtils;
 import org.apereo.cas.client.util.PrivateKeyUtils;
@@ -77,7 +76,22 @@ public class Cas20ProxyReceivingTicketValidationFilter extends AbstractTicketVal
             ConfigurationKeys.PROXY_GRANTING_TICKET_STORAGE_CLASS.getName(), ConfigurationKeys.MILLIS_BETWEEN_CLEAN_UPS.getName(), ConfigurationKeys.ACCEPT_ANY_PROXY.getName(),
             ConfigurationKeys.ALLOWED_PROXY_CHAINS.getName(), ConfigurationKeys.TICKET_VALIDATOR_CLASS.getName(),
             ConfigurationKeys.PROXY_CALLBACK_URL.getName(), ConfigurationKeys.RELAY_STATE_PARAMETER_NAME.getName(), ConfigurationKeys.METHOD.getName(),
-            ConfigurationKeys.PRIVATE_KEY_PATH.getName(), ConfigurationKeys.PRIVATE_KEY_ALGORITHM.getName()
+            ConfigurationKeys.PRIVATE_KEY_PATH.getName(), ConfigurationKeys.PRIVATE_KEY_ALGORITHM.getName(),
+            ConfigurationKeys.SERVICE_URL_CACHE_SIZE.getName(), ConfigurationKeys.SINGLE_SIGN_OUT.getName(),
+            ConfigurationKeys.LOGOUT_CALLBACK_PATH.getName(), ConfigurationKeys.ASYNC_VALIDATION.getName(),
+            ConfigurationKeys.ASYNC_VALIDATION_TIMEOUT.getName(), ConfigurationKeys.COALESCE_VALIDATIONS.getName(),
+            ConfigurationKeys.CONNECT_TIMEOUT.getName(), ConfigurationKeys.READ_TIMEOUT.getName(),
+            ConfigurationKeys.CIRCUIT_BREAKER.getName(), ConfigurationKeys.CIRCUIT_BREAKER_OPEN_DURATION.getName(),
+            ConfigurationKeys.CAS_SERVER_URL_PREFIXES.getName(), ConfigurationKeys.HEDGE_VALIDATIONS.getName(),
+            ConfigurationKeys.ADAPTIVE_CONCURRENCY_LIMIT.getName(), ConfigurationKeys.CONCURRENCY_LIMIT_RETRY_AFTER.getName(),
+            ConfigurationKeys.NEGATIVE_TICKET_CACHE_SIZE.getName(), ConfigurationKeys.NEGATIVE_TICKET_CACHE_TTL.getName(),
+            ConfigurationKeys.CLIENT_REJECTION_RATE.getName(), ConfigurationKeys.CLIENT_REJECTION_BURST.getName(),
+            ConfigurationKeys.TICKET_FORMAT_POLICY_CLASS.getName(), ConfigurationKeys.ASSERTION_COOKIE_SECRET_KEYS.getName(),
+            ConfigurationKeys.ASSERTION_COOKIE_NAME.getName(), ConfigurationKeys.ASSERTION_COOKIE_MAX_AGE.getName(),
+            ConfigurationKeys.ASSERTION_COOKIE_ATTRIBUTES.getName(), ConfigurationKeys.HIDE_TICKET_AFTER_VALIDATION.getName(),
+            ConfigurationKeys.SESSION_REVOCATION_LIST_CLASS.getName(),
+            ConfigurationKeys.NEGATIVE_TICKET_CACHE_FALSE_POSITIVE_RATE.getName(), ConfigurationKeys.TRUSTED_PROXIES.getName(),
+            ConfigurationKeys.CLIENT_ADDRESS_HEADER.getName()
         };
 
     protected Class<? extends Cas20ServiceTicketValidator> defaultServiceTicketValidatorClass;
@@ -193,11 +207,14 @@ public class Cas20ProxyReceivingTicketValidationFilter extends AbstractTicketVal
         validator.setProxyCallbackUrl(getString(ConfigurationKeys.PROXY_CALLBACK_URL));
         validator.setProxyGrantingTicketStorage(this.proxyGrantingTicketStorage);
 
-        final HttpURLConnectionFactory factory = new HttpsURLConnectionFactory(getHostnameVerifier(),
-            getSSLConfig());
+        final HttpURLConnectionFactory factory = createURLConnectionFactory();
         validator.setURLConnectionFactory(factory);
 
-        validator.setProxyRetriever(new Cas20ProxyRetriever(casServerUrlPrefix, getString(ConfigurationKeys.ENCODING), factory));
+        final var proxyRetriever = new Cas20ProxyRetriever(casServerUrlPrefix, getString(ConfigurationKeys.ENCODING), factory);
+        proxyRetriever.setCircuitBreaker(applyCircuitBreaker(validator));
+        proxyRetriever.setCasServerPool(applyCasServerPool(validator, factory));
+        proxyRetriever.setConcurrencyLimiter(applyConcurrencyLimiter(validator));
+        validator.setProxyRetriever(proxyRetriever);
         validator.setRenew(getBoolean(ConfigurationKeys.RENEW));
         validator.setEncoding(getString(ConfigurationKeys.ENCODING));
 
@@ -20,7 +20,6 @@ package org.apereo.cas.client.validation;
 
 import org.apereo.cas.client.util.XmlUtils;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -56,6 +55,11 @@ public class Cas20ProxyTicketValidator extends Cas20ServiceTicketValidator {
         return "proxyValidate";
     }
 
+    @Override
+    public TicketFormatPolicy getTicketFormatPolicy() {
+        return TicketFormatPolicy.casTicket("ST-", "PT-");
+    }
+
     @Override
     protected void customParseResponse(final String response, final Assertion assertion)
         throws TicketValidationException {
@@ -80,14 +84,13 @@ public class Cas20ProxyTicketValidator extends Cas20ServiceTicketValidator {
             return;
         }
 
-        final var proxiedList = proxies.toArray(new String[proxies.size()]);
-        if (this.allowedProxyChains.contains(proxiedList)) {
+        if (this.allowedProxyChains.contains(proxies)) {
             return;
         }
 
         logger.warn("Proxies received from the CAS validation response are {}. "
                     + "However, none are allowed by allowed proxy chain of the client which is {}",
-            Arrays.toString(proxiedList), this.allowedProxyChains);
+            proxies, this.allowedProxyChains);
 
         throw new InvalidProxyChainTicketValidationException("Invalid proxy chain: " + proxies.toString());
     }
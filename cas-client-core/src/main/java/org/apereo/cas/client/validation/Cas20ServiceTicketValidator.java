@@ -95,17 +95,30 @@ public class Cas20ServiceTicketValidator extends AbstractCasProtocolUrlBasedTick
         urlParameters.put("pgtUrl", this.proxyCallbackUrl);
     }
 
+    /**
+     * @return true, the pgtUrl only changing through {@link #setProxyCallbackUrl(String)}.
+     */
+    @Override
+    protected boolean isUrlAttributeMapConstant() {
+        return true;
+    }
+
     @Override
     protected String getUrlSuffix() {
         return "serviceValidate";
     }
 
+    @Override
+    public TicketFormatPolicy getTicketFormatPolicy() {
+        return TicketFormatPolicy.casTicket("ST-");
+    }
+
     @Override
     protected Assertion parseResponseFromServer(final String response) throws TicketValidationException {
         final var error = parseAuthenticationFailureFromResponse(response);
 
         if (CommonUtils.isNotBlank(error)) {
-            throw new TicketValidationException(error);
+            throw TicketValidationException.ticketRejected(error);
         }
 
         final var principal = parsePrincipalFromResponse(response);
@@ -230,6 +243,7 @@ public class Cas20ServiceTicketValidator extends AbstractCasProtocolUrlBasedTick
 
     public final void setProxyCallbackUrl(final String proxyCallbackUrl) {
         this.proxyCallbackUrl = proxyCallbackUrl;
+        rebuildValidationUrlTemplate();
     }
 
     protected final ProxyGrantingTicketStorage getProxyGrantingTicketStorage() {
@@ -0,0 +1,151 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.Protocol;
+import org.apereo.cas.client.authentication.AuthenticationFilter;
+import org.apereo.cas.client.configuration.ConfigurationKeys;
+import org.apereo.cas.client.session.SingleSignOutFilter;
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.util.AssertionHolder;
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.HttpServletRequestWrapperFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Runs the whole CAS client pipeline in a single filter, equivalent to chaining (in this order)
+ * {@link SingleSignOutFilter}, {@link Cas30ProxyReceivingTicketValidationFilter}, {@link AuthenticationFilter},
+ * {@link HttpServletRequestWrapperFilter} and {@link org.apereo.cas.client.util.AssertionThreadLocalFilter}.
+ * <p>
+ * The ticket parameter is extracted once and the session is looked up at most once per request, and the assertion is
+ * handed from one stage to the next instead of being read back from the session by every filter.
+ * <p>
+ * Each stage is configured from the same init parameters as its standalone filter; in addition:
+ * <ul>
+ * <li><code>singleSignOut</code> - whether to handle single sign out requests and record sessions (default: false).
+ * The {@link org.apereo.cas.client.session.SingleSignOutHttpSessionListener} must be registered when enabled.</li>
+ * </ul>
+ * Tickets are validated synchronously: <code>asyncValidation</code> is refused, the standalone filters supporting it.
+ *
+ * @since 4.0.5
+ */
+public class Cas30CompositeFilter extends AbstractCasFilter {
+
+    private SingleSignOutFilter singleSignOutFilter;
+
+    private final Cas20ProxyReceivingTicketValidationFilter ticketValidationFilter;
+
+    private final AuthenticationFilter authenticationFilter = new AuthenticationFilter();
+
+    private final HttpServletRequestWrapperFilter requestWrapperFilter = new HttpServletRequestWrapperFilter();
+
+    public Cas30CompositeFilter() {
+        this(Protocol.CAS3, new Cas30ProxyReceivingTicketValidationFilter());
+    }
+
+    protected Cas30CompositeFilter(final Protocol protocol,
+                                   final Cas20ProxyReceivingTicketValidationFilter ticketValidationFilter) {
+        super(protocol);
+        this.ticketValidationFilter = ticketValidationFilter;
+    }
+
+    @Override
+    protected void initInternal(final FilterConfig filterConfig) throws ServletException {
+        CommonUtils.assertFalse(getBoolean(ConfigurationKeys.ASYNC_VALIDATION),
+            "asyncValidation is not supported by the composite filter, use the standalone filters instead.");
+        if (getBoolean(ConfigurationKeys.SINGLE_SIGN_OUT)) {
+            this.singleSignOutFilter = new SingleSignOutFilter();
+            this.singleSignOutFilter.init(filterConfig);
+        }
+        this.ticketValidationFilter.init(filterConfig);
+        this.authenticationFilter.init(filterConfig);
+        this.requestWrapperFilter.init(filterConfig);
+        super.initInternal(filterConfig);
+    }
+
+    @Override
+    public void doFilter(final ServletRequest servletRequest, final ServletResponse servletResponse,
+                         final FilterChain filterChain) throws IOException, ServletException {
+        final var request = (HttpServletRequest) servletRequest;
+        final var response = (HttpServletResponse) servletResponse;
+        final var ticket = retrieveTicketFromRequest(request);
+
+        if (this.singleSignOutFilter != null
+            && !SingleSignOutFilter.getSingleSignOutHandler().process(request, response, ticket)) {
+            return;
+        }
+
+        if (!this.ticketValidationFilter.preFilter(request, response, filterChain)
+            || !this.ticketValidationFilter.validateTicket(request, response, ticket)) {
+            return;
+        }
+
+        var assertion = (Assertion) request.getAttribute(CONST_CAS_ASSERTION);
+        if (assertion == null) {
+            final var session = request.getSession(false);
+            if (session != null) {
+                assertion = (Assertion) session.getAttribute(CONST_CAS_ASSERTION);
+            }
+        }
+        if (assertion == null && getAssertionCookieCodec() != null) {
+            assertion = getAssertionCookieCodec().readCookie(request);
+            if (assertion != null) {
+                request.setAttribute(CONST_CAS_ASSERTION, assertion);
+            }
+        }
+
+        if (assertion == null && !this.authenticationFilter.isRequestUrlExcluded(request)
+            && !this.authenticationFilter.authenticate(request, response, ticket)) {
+            return;
+        }
+
+        final var principal = assertion != null ? assertion.getPrincipal() : null;
+        try {
+            AssertionHolder.setAssertion(assertion);
+            filterChain.doFilter(this.requestWrapperFilter.wrapRequest(
+                this.ticketValidationFilter.hideValidatedTicket(request, ticket), principal), response);
+        } finally {
+            AssertionHolder.clear();
+        }
+    }
+
+    public final void setTicketValidator(final TicketValidator ticketValidator) {
+        this.ticketValidationFilter.setTicketValidator(ticketValidator);
+    }
+
+    @Override
+    public void destroy() {
+        if (this.singleSignOutFilter != null) {
+            this.singleSignOutFilter.destroy();
+        }
+        this.ticketValidationFilter.destroy();
+        this.authenticationFilter.destroy();
+        this.requestWrapperFilter.destroy();
+        super.destroy();
+    }
+}
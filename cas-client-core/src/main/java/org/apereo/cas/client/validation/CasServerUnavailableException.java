@@ -0,0 +1,49 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import java.io.Serial;
+
+/**
+ * Exception denoting that the CAS server could not be consulted, either because it could not be reached or because
+ * the circuit breaker guarding it is open. The ticket itself may well be valid.
+ *
+ * @since 4.0.5
+ */
+public final class CasServerUnavailableException extends TicketValidationException {
+
+    @Serial
+    private static final long serialVersionUID = 3312856530291542236L;
+
+    private final long retryAfterMillis;
+
+    /**
+     * @param string the message.
+     * @param throwable the root exception, may be null.
+     * @param retryAfterMillis the milliseconds after which the server may be consulted again, zero if unknown.
+     */
+    public CasServerUnavailableException(final String string, final Throwable throwable, final long retryAfterMillis) {
+        super(string, throwable);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return this.retryAfterMillis;
+    }
+}
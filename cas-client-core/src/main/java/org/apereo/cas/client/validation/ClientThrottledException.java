@@ -0,0 +1,48 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import java.io.Serial;
+
+/**
+ * Exception denoting that a ticket was refused without asking the CAS server, because the client presenting it had
+ * too many tickets rejected lately. It carries no stack trace, being cheap to raise by design.
+ *
+ * @since 4.0.5
+ */
+public final class ClientThrottledException extends TicketValidationException {
+
+    @Serial
+    private static final long serialVersionUID = 5812073364218837425L;
+
+    private final long retryAfterMillis;
+
+    /**
+     * @param string the message.
+     * @param retryAfterMillis the milliseconds after which the client may present a ticket again.
+     */
+    public ClientThrottledException(final String string, final long retryAfterMillis) {
+        super(string, false);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return this.retryAfterMillis;
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.util.CommonUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link TicketValidator} decorator that coalesces concurrent validations of the same ticket for the same service.
+ * <p>
+ * Retried or double-submitted requests carrying one ticket would otherwise each call the CAS server, and all but the
+ * first would fail because the ticket has already been used. Here the first caller validates and every caller
+ * arriving while it is in flight shares its outcome, so they all get the same {@link Assertion} (or the same
+ * failure). The in-flight entry is released as soon as the outcome is known; later callers validate again.
+ *
+ * @since 4.0.5
+ */
+public class CoalescingTicketValidator implements AsyncTicketValidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingTicketValidator.class);
+
+    private final TicketValidator ticketValidator;
+
+    private final Map<Key, CompletableFuture<Assertion>> inFlight = new ConcurrentHashMap<>();
+
+    public CoalescingTicketValidator(final TicketValidator ticketValidator) {
+        CommonUtils.assertNotNull(ticketValidator, "ticketValidator cannot be null.");
+        this.ticketValidator = ticketValidator;
+    }
+
+    @Override
+    public Assertion validate(final String ticket, final String service) throws TicketValidationException {
+        final var key = new Key(ticket, service);
+        final var validation = new CompletableFuture<Assertion>();
+        final var existing = this.inFlight.putIfAbsent(key, validation);
+        if (existing != null) {
+            LOGGER.debug("Joining in-flight validation of ticket {}", ticket);
+            return await(existing);
+        }
+        try {
+            final var assertion = this.ticketValidator.validate(ticket, service);
+            validation.complete(assertion);
+            return assertion;
+        } catch (final Throwable e) {
+            // errors included, or the callers that joined would wait forever
+            validation.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, validation);
+        }
+    }
+
+    /**
+     * Coalesces asynchronous validations. When the decorated validator is not an {@link AsyncTicketValidator}, the
+     * first caller validates synchronously and receives a completed future.
+     * <p>
+     * Every caller gets its own copy of the shared future, so cancelling one does not affect the others.
+     */
+    @Override
+    public CompletableFuture<Assertion> validateAsync(final String ticket, final String service) {
+        if (!(this.ticketValidator instanceof AsyncTicketValidator asyncTicketValidator)) {
+            try {
+                return CompletableFuture.completedFuture(validate(ticket, service));
+            } catch (final TicketValidationException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        final var key = new Key(ticket, service);
+        final var validation = new CompletableFuture<Assertion>();
+        final var existing = this.inFlight.putIfAbsent(key, validation);
+        if (existing != null) {
+            LOGGER.debug("Joining in-flight validation of ticket {}", ticket);
+            return existing.copy();
+        }
+        final CompletableFuture<Assertion> delegated;
+        try {
+            delegated = asyncTicketValidator.validateAsync(ticket, service);
+        } catch (final Throwable e) {
+            this.inFlight.remove(key, validation);
+            validation.completeExceptionally(e);
+            throw e;
+        }
+        delegated.whenComplete((assertion, throwable) -> {
+            this.inFlight.remove(key, validation);
+            if (throwable == null) {
+                validation.complete(assertion);
+            } else {
+                validation.completeExceptionally(
+                    throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            }
+        });
+        return validation.copy();
+    }
+
+    @Override
+    public TicketFormatPolicy getTicketFormatPolicy() {
+        return this.ticketValidator.getTicketFormatPolicy();
+    }
+
+    private static Assertion await(final CompletableFuture<Assertion> validation) throws TicketValidationException {
+        try {
+            return validation.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TicketValidationException(e);
+        } catch (final ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof TicketValidationException tve) {
+                throw tve;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new TicketValidationException(cause);
+        }
+    }
+
+    private record Key(String ticket, String service) {
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.util.CasServerPool;
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.RetryBudget;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link TicketValidator} decorator hedging slow validations: when the CAS server has not answered within the
+ * configured percentile of the recent validation latencies, a second, identical validation is sent and the first
+ * success is used.
+ * <p>
+ * A ticket can only be validated once, so the losing request will usually be rejected by the CAS server; a
+ * rejection is therefore only reported once every request sent has failed. Hedges are charged to a
+ * {@link RetryBudget}, which bounds them to a fraction of the validations so that they cannot amplify the load
+ * of a struggling server. When hedging an {@link AbstractUrlBasedTicketValidator} with a {@link CasServerPool}, the
+ * hedge is sent to another node than the one the primary request went to.
+ *
+ * @since 4.0.5
+ */
+public class HedgingTicketValidator implements AsyncTicketValidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgingTicketValidator.class);
+
+    private static final ScheduledExecutorService HEDGE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "cas-validation-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Number of latency samples kept to compute the hedging delay. */
+    private static final int SAMPLES = 128;
+
+    /** Number of new samples after which the hedging delay is computed again. */
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final AsyncTicketValidator ticketValidator;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final RetryBudget hedgeBudget;
+
+    private final ReentrantLock samplesLock = new ReentrantLock();
+
+    private final long[] samples = new long[SAMPLES];
+
+    private int sampleCount;
+
+    private volatile long delayNanos;
+
+    private final AtomicLong hedgesSent = new AtomicLong();
+
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    public HedgingTicketValidator(final AsyncTicketValidator ticketValidator) {
+        this(ticketValidator, 0.95, 50, new RetryBudget(0.05, 10));
+    }
+
+    /**
+     * @param ticketValidator the validator sending the requests.
+     * @param percentile the latency percentile, between zero and one, after which a validation is hedged.
+     * @param minDelayMillis the minimum delay before hedging, also used until enough latencies have been observed.
+     * @param hedgeBudget the budget the hedges are charged to.
+     */
+    public HedgingTicketValidator(final AsyncTicketValidator ticketValidator, final double percentile,
+                                  final long minDelayMillis, final RetryBudget hedgeBudget) {
+        CommonUtils.assertNotNull(ticketValidator, "ticketValidator cannot be null.");
+        CommonUtils.assertNotNull(hedgeBudget, "hedgeBudget cannot be null.");
+        CommonUtils.assertTrue(percentile > 0 && percentile < 1, "percentile must be between zero and one.");
+        CommonUtils.assertTrue(minDelayMillis > 0, "minDelayMillis must be greater than zero.");
+        this.ticketValidator = ticketValidator;
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.hedgeBudget = hedgeBudget;
+        this.delayNanos = this.minDelayNanos;
+    }
+
+    @Override
+    public Assertion validate(final String ticket, final String service) throws TicketValidationException {
+        try {
+            return validateAsync(ticket, service).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TicketValidationException(e);
+        } catch (final ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof TicketValidationException tve) {
+                throw tve;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new TicketValidationException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Assertion> validateAsync(final String ticket, final String service) {
+        this.hedgeBudget.onCall();
+        final var result = new CompletableFuture<Assertion>();
+        final var outstanding = new AtomicInteger(1);
+        final var failure = new AtomicReference<Throwable>();
+
+        final var primaryNode = new AtomicReference<CasServerPool.Endpoint>();
+        final var primary = send(ticket, service, null, primaryNode, result, outstanding, failure, false);
+        final var hedge = HEDGE_SCHEDULER.schedule(() -> {
+            if (result.isDone() || !this.hedgeBudget.tryAcquireRetry()) {
+                return;
+            }
+            LOGGER.debug("No answer within {} ms, hedging the validation of ticket {}",
+                TimeUnit.NANOSECONDS.toMillis(this.delayNanos), ticket);
+            outstanding.incrementAndGet();
+            this.hedgesSent.incrementAndGet();
+            final var secondary = send(ticket, service, primaryNode.get(), null, result, outstanding, failure, true);
+            result.whenComplete((assertion, throwable) -> secondary.cancel(true));
+        }, this.delayNanos, TimeUnit.NANOSECONDS);
+        result.whenComplete((assertion, throwable) -> {
+            hedge.cancel(false);
+            primary.cancel(true);
+        });
+        return result;
+    }
+
+    @Override
+    public TicketFormatPolicy getTicketFormatPolicy() {
+        return this.ticketValidator.getTicketFormatPolicy();
+    }
+
+    /**
+     * @return the number of hedged requests sent so far.
+     */
+    public long getHedgesSent() {
+        return this.hedgesSent.get();
+    }
+
+    /**
+     * @return the number of validations whose hedged request answered first.
+     */
+    public long getHedgesWon() {
+        return this.hedgesWon.get();
+    }
+
+    /**
+     * @return the current delay after which a validation is hedged, in milliseconds.
+     */
+    public long getHedgeDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.delayNanos);
+    }
+
+    private CompletableFuture<Assertion> send(final String ticket, final String service,
+                                              final CasServerPool.Endpoint avoid,
+                                              final AtomicReference<CasServerPool.Endpoint> chosen,
+                                              final CompletableFuture<Assertion> result, final AtomicInteger outstanding,
+                                              final AtomicReference<Throwable> failure, final boolean hedged) {
+        final var start = System.nanoTime();
+        final var request = this.ticketValidator instanceof AbstractUrlBasedTicketValidator urlBasedTicketValidator
+            ? urlBasedTicketValidator.validateAsync(ticket, service, avoid, chosen)
+            : this.ticketValidator.validateAsync(ticket, service);
+        request.whenComplete((assertion, throwable) -> {
+            if (throwable == null) {
+                if (result.complete(assertion)) {
+                    recordLatency(System.nanoTime() - start);
+                    if (hedged) {
+                        this.hedgesWon.incrementAndGet();
+                    }
+                }
+                return;
+            }
+            failure.compareAndSet(null,
+                throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(failure.get());
+            }
+        });
+        return request;
+    }
+
+    private void recordLatency(final long latencyNanos) {
+        this.samplesLock.lock();
+        try {
+            this.samples[this.sampleCount % SAMPLES] = latencyNanos;
+            this.sampleCount++;
+            if (this.sampleCount % RECOMPUTE_EVERY == 0) {
+                final var sorted = Arrays.copyOf(this.samples, Math.min(this.sampleCount, SAMPLES));
+                Arrays.sort(sorted);
+                final var index = Math.min(sorted.length - 1, (int) Math.ceil(this.percentile * sorted.length) - 1);
+                this.delayNanos = Math.max(this.minDelayNanos, sorted[Math.max(index, 0)]);
+            }
+        } finally {
+            this.samplesLock.unlock();
+        }
+    }
+}
@@ -27,10 +27,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Holding class for the proxy list to make Spring configuration easier.
+ * <p>
+ * The chains are compiled into an index on construction: by length, then by their first link when it is an exact
+ * URL, so that a lookup only tries the chains of the right length starting with the first proxy, plus those starting
+ * with a regular expression.
  *
  * @author Scott Battaglia
  * @version $Revision$ $Date$
@@ -42,6 +49,8 @@ public final class ProxyList {
 
     private final List<List<UrlPatternMatcherStrategy>> proxyChains;
 
+    private final Map<Integer, ChainsOfLength> index = new HashMap<>();
+
     public ProxyList(final Iterable<String[]> proxyChains) {
         CommonUtils.assertNotNull(proxyChains, "List of proxy chains cannot be null.");
 
@@ -59,6 +68,15 @@ public final class ProxyList {
             }
 
             this.proxyChains.add(chain);
+            // an empty chain matches nothing
+            if (!chain.isEmpty()) {
+                final var chains = this.index.computeIfAbsent(chain.size(), size -> new ChainsOfLength());
+                if (list[0].startsWith("^")) {
+                    chains.startingWithRegex.add(chain);
+                } else {
+                    chains.startingWith.computeIfAbsent(list[0], first -> new ArrayList<>()).add(chain);
+                }
+            }
         }
     }
 
@@ -67,37 +85,57 @@ public final class ProxyList {
     }
 
     public boolean contains(final String[] proxiedList) {
-        StringBuilder loggingOutput;
-
-        for (final var proxyChain : this.proxyChains) {
-            loggingOutput = new StringBuilder();
-
-            if (proxyChain.size() == proxiedList.length) {
-                for (var linkIndex = 0; linkIndex < proxyChain.size(); linkIndex++) {
-                    final var linkToTest = proxiedList[linkIndex];
-                    loggingOutput.append(linkToTest);
-
-                    if (proxyChain.get(linkIndex).matches(linkToTest)) {
-                        //If we are at the last link, we found a good proxyChain.
-                        if (linkIndex == proxyChain.size() - 1) {
-                            logger.info("Proxy chain matched: {}", loggingOutput.toString());
-                            return true;
-                        }
-
-                    } else {
-                        logger.warn("Proxy chain did not match at {}. Skipping to next allowedProxyChain", loggingOutput.toString());
-                        break;
-                    }
-                    loggingOutput.append("->");
-                }
-            }
+        return contains(Arrays.asList(proxiedList));
+    }
+
+    /**
+     * @param proxiedList the proxies of a validation response, most recent first.
+     * @return whether an allowed chain matches the proxies, link by link.
+     * @since 4.0.5
+     */
+    public boolean contains(final List<String> proxiedList) {
+        final var chains = this.index.get(proxiedList.size());
+        if (chains != null && (matchesAny(chains.startingWith.get(proxiedList.get(0)), proxiedList)
+                               || matchesAny(chains.startingWithRegex, proxiedList))) {
+            logger.debug("Proxy chain matched: {}", proxiedList);
+            return true;
         }
+        logger.debug("No proxy chain matched the allowedProxyChains list.");
+        return false;
+    }
 
-        logger.warn("No proxy chain matched the allowedProxyChains list.");
+    private static boolean matchesAny(final List<List<UrlPatternMatcherStrategy>> chains, final List<String> proxiedList) {
+        if (chains == null) {
+            return false;
+        }
+        for (final var chain : chains) {
+            if (matches(chain, proxiedList)) {
+                return true;
+            }
+        }
         return false;
     }
 
+    private static boolean matches(final List<UrlPatternMatcherStrategy> chain, final List<String> proxiedList) {
+        for (var linkIndex = 0; linkIndex < chain.size(); linkIndex++) {
+            if (!chain.get(linkIndex).matches(proxiedList.get(linkIndex))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public String toString() {
         return this.proxyChains.toString();
     }
+
+    /**
+     * Allowed chains of one length, indexed by their first link when it is an exact URL.
+     */
+    private static final class ChainsOfLength {
+
+        private final Map<String, List<List<UrlPatternMatcherStrategy>>> startingWith = new HashMap<>();
+
+        private final List<List<UrlPatternMatcherStrategy>> startingWithRegex = new ArrayList<>();
+    }
 }
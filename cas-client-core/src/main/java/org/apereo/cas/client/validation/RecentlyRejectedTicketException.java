@@ -0,0 +1,37 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import java.io.Serial;
+
+/**
+ * Exception denoting that a ticket was refused without asking the CAS server, because the server rejected the same
+ * ticket recently. It carries no stack trace, being cheap to raise by design.
+ *
+ * @since 4.0.5
+ */
+public final class RecentlyRejectedTicketException extends TicketValidationException {
+
+    @Serial
+    private static final long serialVersionUID = -2469184106712311290L;
+
+    public RecentlyRejectedTicketException(final String string) {
+        super(string, false);
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.Protocol;
+
+/**
+ * Cheap, local check that a ticket is at least shaped like one, so that obviously malformed tickets are rejected
+ * before any I/O or parsing.
+ * <p>
+ * A policy must never reject a ticket the CAS server could accept; it only weeds out what cannot possibly be valid.
+ *
+ * @since 4.0.5
+ */
+@FunctionalInterface
+public interface TicketFormatPolicy {
+
+    /** Accepts every ticket. */
+    TicketFormatPolicy ANY = ticket -> true;
+
+    /**
+     * Longest CAS ticket or SAML artifact accepted by the default policies: the request line servlet containers
+     * accept by default is no longer, so only tickets posted by hand could be refused.
+     */
+    int MAX_CAS_TICKET_LENGTH = 8192;
+
+    /** Longest JWT accepted by the default policy. */
+    int MAX_JWT_LENGTH = 16384;
+
+    /**
+     * @param ticket the ticket presented, never blank.
+     * @return false if the ticket cannot possibly be valid.
+     */
+    boolean isWellFormed(String ticket);
+
+    /**
+     * @param protocol the protocol the tickets are presented with.
+     * @return the default policy of the protocol.
+     */
+    static TicketFormatPolicy forProtocol(final Protocol protocol) {
+        return switch (protocol) {
+            case CAS1 -> casTicket("ST-");
+            case CAS2, CAS3 -> casTicket("ST-", "PT-");
+            case SAML11 -> samlArtifact();
+        };
+    }
+
+    /**
+     * @param prefixes the accepted ticket prefixes, i.e. "ST-".
+     * @return a policy accepting tickets that start with one of the prefixes and are at most
+     * {@link #MAX_CAS_TICKET_LENGTH} long. The characters are left to the CAS server, which may be customized to hand
+     * out any.
+     */
+    static TicketFormatPolicy casTicket(final String... prefixes) {
+        final var accepted = prefixes.clone();
+        return ticket -> {
+            if (ticket.length() > MAX_CAS_TICKET_LENGTH) {
+                return false;
+            }
+            for (final var prefix : accepted) {
+                if (ticket.length() > prefix.length() && ticket.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * @return a policy accepting SAML artifacts of at most {@link #MAX_CAS_TICKET_LENGTH} characters, be they base64
+     * encoded or plain CAS tickets as most CAS servers hand out.
+     */
+    static TicketFormatPolicy samlArtifact() {
+        return ticket -> ticket.length() <= MAX_CAS_TICKET_LENGTH;
+    }
+
+    /**
+     * @return a policy accepting compact serialized JWTs: three (signed) or five (encrypted) dot-separated base64url
+     * segments of at most {@link #MAX_JWT_LENGTH} characters overall.
+     */
+    static TicketFormatPolicy jwt() {
+        return ticket -> {
+            if (ticket.length() > MAX_JWT_LENGTH) {
+                return false;
+            }
+            var segments = 0;
+            var start = 0;
+            var secondEmpty = false;
+            for (var end = ticket.indexOf('.'); ; end = ticket.indexOf('.', start)) {
+                final var segmentEnd = end < 0 ? ticket.length() : end;
+                if (segmentEnd == start) {
+                    if (segments != 1) {
+                        return false;
+                    }
+                    secondEmpty = true;
+                }
+                if (!isBase64Url(ticket, start, segmentEnd)) {
+                    return false;
+                }
+                segments++;
+                if (end < 0) {
+                    break;
+                }
+                start = end + 1;
+            }
+            // only the encrypted key of a JWE may be empty, with direct encryption; never the claims of a JWS
+            return segments == 3 && !secondEmpty || segments == 5;
+        };
+    }
+
+    private static boolean isBase64Url(final String value, final int from, final int to) {
+        for (var i = from; i < to; i++) {
+            final var c = value.charAt(i);
+            if (!(isAlphanumeric(c) || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAlphanumeric(final char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request wrapper hiding the ticket parameter from the application, so that the filter chain can go on right after
+ * the validation instead of redirecting the browser to the same URL without the ticket.
+ * <p>
+ * {@link #getRequestURL()} needs no change since it never includes the query string.
+ *
+ * @since 4.0.5
+ */
+public final class TicketHidingRequestWrapper extends HttpServletRequestWrapper {
+
+    private final String artifactParameterName;
+
+    private Map<String, String[]> parameterMap;
+
+    public TicketHidingRequestWrapper(final HttpServletRequest request, final String artifactParameterName) {
+        super(request);
+        this.artifactParameterName = artifactParameterName;
+    }
+
+    @Override
+    public String getParameter(final String name) {
+        return this.artifactParameterName.equals(name) ? null : super.getParameter(name);
+    }
+
+    @Override
+    public String[] getParameterValues(final String name) {
+        return this.artifactParameterName.equals(name) ? null : super.getParameterValues(name);
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        if (this.parameterMap == null) {
+            final Map<String, String[]> parameters = new LinkedHashMap<>(super.getParameterMap());
+            parameters.remove(this.artifactParameterName);
+            this.parameterMap = Collections.unmodifiableMap(parameters);
+        }
+        return this.parameterMap;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(getParameterMap().keySet());
+    }
+
+    @Override
+    public String getQueryString() {
+        return stripParameter(super.getQueryString(), this.artifactParameterName);
+    }
+
+    /**
+     * @param queryString the query string, may be null.
+     * @param name the name of the parameter to remove.
+     * @return the query string without the parameter, null if nothing else remains.
+     */
+    static String stripParameter(final String queryString, final String name) {
+        if (queryString == null || !queryString.contains(name) && queryString.indexOf('%') < 0) {
+            return queryString;
+        }
+        final var stripped = new StringBuilder(queryString.length());
+        for (final var pair : queryString.split("&")) {
+            final var separator = pair.indexOf('=');
+            final var pairName = separator < 0 ? pair : pair.substring(0, separator);
+            if (!name.equals(decode(pairName))) {
+                if (stripped.length() > 0) {
+                    stripped.append('&');
+                }
+                stripped.append(pair);
+            }
+        }
+        return stripped.length() == 0 ? null : stripped.toString();
+    }
+
+    private static String decode(final String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (final IllegalArgumentException e) {
+            return value;
+        }
+    }
+}
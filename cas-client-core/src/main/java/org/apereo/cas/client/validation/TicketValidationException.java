@@ -35,6 +35,9 @@ public class TicketValidationException extends Exception {
     @Serial
     private static final long serialVersionUID = -7036248720402711806L;
 
+    /** Whether the ticket itself was found invalid, as opposed to a failure to validate it. */
+    private boolean ticketRejected;
+
     /**
      * Constructs an exception with the supplied message.
      *
@@ -61,4 +64,54 @@ public class TicketValidationException extends Exception {
     public TicketValidationException(final Throwable throwable) {
         super(throwable);
     }
+
+    /**
+     * Constructs an exception with the supplied message that may skip recording its stack trace, for failures
+     * raised often enough that filling the stack trace in would matter.
+     *
+     * @param string the message.
+     * @param writableStackTrace whether the stack trace should be recorded.
+     * @since 4.0.5
+     */
+    protected TicketValidationException(final String string, final boolean writableStackTrace) {
+        super(string, null, false, writableStackTrace);
+    }
+
+    /**
+     * Creates the exception raised when the CAS server answers that it does not recognize the ticket, or when the
+     * token fails verification.
+     *
+     * @param string the message.
+     * @return the exception, marked as a rejection of the ticket.
+     * @since 4.0.5
+     */
+    public static TicketValidationException ticketRejected(final String string) {
+        final var e = new TicketValidationException(string);
+        e.ticketRejected = true;
+        return e;
+    }
+
+    /**
+     * Creates the exception raised when the ticket is found invalid for the chained reason.
+     *
+     * @param throwable the reason the ticket was rejected.
+     * @return the exception, marked as a rejection of the ticket.
+     * @since 4.0.5
+     */
+    public static TicketValidationException ticketRejected(final Throwable throwable) {
+        final var e = new TicketValidationException(throwable);
+        e.ticketRejected = true;
+        return e;
+    }
+
+    /**
+     * Tells a rejected ticket from a failure to validate it, such as a timeout or an unexpected error. Only
+     * rejections are remembered by the negative ticket cache and charged to the client presenting the ticket.
+     *
+     * @return whether the ticket itself was found invalid.
+     * @since 4.0.5
+     */
+    public final boolean isTicketRejected() {
+        return this.ticketRejected;
+    }
 }
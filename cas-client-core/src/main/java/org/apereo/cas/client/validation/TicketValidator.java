@@ -40,4 +40,14 @@ public interface TicketValidator {
      *
      */
     Assertion validate(String ticket, String service) throws TicketValidationException;
+
+    /**
+     * Describes the tickets this validator could possibly accept, so that malformed ones can be refused up front.
+     *
+     * @return the policy, or null to leave it to the caller.
+     * @since 4.0.5
+     */
+    default TicketFormatPolicy getTicketFormatPolicy() {
+        return null;
+    }
 }
@@ -55,7 +55,7 @@ final class JsonValidationResponseParser {
         if (serviceResponse.authenticationFailure() != null) {
             final var error = json.serviceResponse().authenticationFailure().getCode()
                               + " - " + serviceResponse.authenticationFailure().getDescription();
-            throw new TicketValidationException(error);
+            throw TicketValidationException.ticketRejected(error);
         }
 
         final var principal = json.serviceResponse().authenticationSuccess().getUser();
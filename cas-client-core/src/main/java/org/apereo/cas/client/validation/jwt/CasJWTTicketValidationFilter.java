@@ -2,11 +2,14 @@ package org.apereo.cas.client.validation.jwt;
 
 import org.apereo.cas.client.Protocol;
 import org.apereo.cas.client.configuration.ConfigurationKey;
+import org.apereo.cas.client.util.CommonUtils;
 import org.apereo.cas.client.validation.AbstractTicketValidationFilter;
 import org.apereo.cas.client.validation.TicketValidator;
 
 import jakarta.servlet.FilterConfig;
 
+import java.nio.file.Path;
+
 public class CasJWTTicketValidationFilter extends AbstractTicketValidationFilter {
     protected CasJWTTicketValidationFilter() {
         super(Protocol.CAS3);
@@ -25,6 +28,23 @@ public class CasJWTTicketValidationFilter extends AbstractTicketValidationFilter
         validator.setBase64EncryptionKey(getBoolean(new ConfigurationKey<>("base64EncryptionKey", true)));
         validator.setBase64SigningKey(getBoolean(new ConfigurationKey<>("base64SigningKey", true)));
         validator.setMaxClockSkew(getInt(new ConfigurationKey<>("maxClockSkew", 60)));
+        final var claimsCacheSize = getInt(new ConfigurationKey<>("claimsCacheSize", 0));
+        validator.setClaimsCacheSize(claimsCacheSize);
+        final var jwkSetFile = getString(new ConfigurationKey<>("jwkSetFile"));
+        if (jwkSetFile != null) {
+            validator.setJwkSetKeyStore(new JwkSetKeyStore(Path.of(jwkSetFile),
+                getLong(new ConfigurationKey<>("jwkSetRefreshInterval", 5000L))));
+        }
+        final var replayWindow = getLong(new ConfigurationKey<>("replayWindow", 0L));
+        CommonUtils.assertFalse(replayWindow > 0 && claimsCacheSize > 0,
+            "claimsCacheSize cannot be combined with replayWindow, as replayed tokens are never served from the cache.");
+        if (replayWindow > 0) {
+            final var falsePositiveRate = getString(new ConfigurationKey<>("replayBloomFilterRate"));
+            validator.setReplayCache(falsePositiveRate == null
+                ? JwtReplayCache.exact(replayWindow)
+                : JwtReplayCache.bloomFilter(replayWindow, getInt(new ConfigurationKey<>("replayExpectedTokens", 100000)),
+                    Double.parseDouble(falsePositiveRate)));
+        }
         validator.initialize();
         return validator;
     }
@@ -19,28 +19,25 @@
 package org.apereo.cas.client.validation.jwt;
 
 import org.apereo.cas.client.authentication.AttributePrincipalImpl;
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.LruCache;
 import org.apereo.cas.client.validation.Assertion;
 import org.apereo.cas.client.validation.AssertionImpl;
+import org.apereo.cas.client.validation.AsyncTicketValidator;
+import org.apereo.cas.client.validation.MalformedTicketException;
+import org.apereo.cas.client.validation.TicketFormatPolicy;
 import org.apereo.cas.client.validation.TicketValidationException;
-import org.apereo.cas.client.validation.TicketValidator;
 
-import com.nimbusds.jose.EncryptionMethod;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JOSEObjectType;
-import com.nimbusds.jose.JWEAlgorithm;
 import com.nimbusds.jose.JWEDecrypter;
 import com.nimbusds.jose.JWEHeader;
-import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.KeySourceException;
-import com.nimbusds.jose.jwk.source.ImmutableSecret;
 import com.nimbusds.jose.proc.BadJOSEException;
 import com.nimbusds.jose.proc.BadJWEException;
 import com.nimbusds.jose.proc.BadJWSException;
 import com.nimbusds.jose.proc.DefaultJOSEObjectTypeVerifier;
-import com.nimbusds.jose.proc.JWEDecryptionKeySelector;
-import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.EncryptedJWT;
 import com.nimbusds.jwt.JWTClaimsSet;
@@ -57,20 +54,36 @@ import javax.crypto.spec.SecretKeySpec;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This is {@link CasJWTTicketValidator} that attempts to parse the CAS service ticket
  * as a JWT.
+ * <p>
+ * The validator is thread-safe once {@link #initialize() initialized}, which happens on the first validation at the
+ * latest. Verified claims may be cached until the token expires, see {@link #setClaimsCacheSize(int)}.
+ * <p>
+ * Tokens are verified and decrypted with the configured shared secrets, or with the keys of a
+ * {@link #setJwkSetKeyStore(JwkSetKeyStore) JWK set} picked by the <code>kid</code> of their headers. When both are
+ * configured, the shared secrets serve the tokens whose key id is not in the set.
+ * <p>
+ * With a {@link #setReplayCache(JwtReplayCache) replay cache}, each token is only accepted once, and the claims cache
+ * is not used since a token found in it could only be a replay.
  *
  * @author Misagh Moayyed
  */
-public class CasJWTTicketValidator implements TicketValidator {
+public class CasJWTTicketValidator implements AsyncTicketValidator {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     private String signingKey;
@@ -93,38 +106,134 @@ public class CasJWTTicketValidator implements TicketValidator {
 
     private int maxClockSkew = 60;
 
-    private ConfigurableJWTProcessor<SecurityContext> jwtProcessor;
+    private JwkSetKeyStore jwkSetKeyStore;
+
+    private JwtReplayCache replayCache;
+
+    private volatile ConfigurableJWTProcessor<SecurityContext> jwtProcessor;
+
+    private final TicketFormatPolicy ticketFormatPolicy = TicketFormatPolicy.jwt();
+
+    private LruCache<String, CachedClaims> claimsCache;
+
+    private final LongAdder claimsCacheHits = new LongAdder();
+
+    private final LongAdder claimsCacheMisses = new LongAdder();
 
     @Override
     public Assertion validate(final String ticket, final String service) throws TicketValidationException {
+        if (ticket == null || !this.ticketFormatPolicy.isWellFormed(ticket)) {
+            throw new MalformedTicketException("Ticket is not a compact serialized JWT.");
+        }
+        final JWTClaimsSet claimsSet;
         try {
-            if (jwtProcessor == null) {
+            claimsSet = verify(ticket);
+        } catch (final BadJOSEException | ParseException e) {
+            throw TicketValidationException.ticketRejected(e);
+        } catch (final Exception e) {
+            throw new TicketValidationException(e);
+        }
+        logger.debug("Validated claims are {}", claimsSet);
+
+        final var replayCache = this.replayCache;
+        if (replayCache != null && !replayCache.markUsed(claimsSet.getJWTID(), acceptedUntil(claimsSet))) {
+            throw TicketValidationException.ticketRejected("JWT [" + claimsSet.getJWTID()
+                + "] was already used, or lacks the jti and exp claims needed to detect its replays.");
+        }
+        return new AssertionImpl(
+            new AttributePrincipalImpl(claimsSet.getSubject(), claimsSet.getClaims()),
+            claimsSet.getIssueTime(), claimsSet.getExpirationTime(),
+            claimsSet.getIssueTime(), new HashMap<>());
+    }
+
+    /**
+     * JWT tickets are validated locally without any remote call, so the returned future is already complete.
+     */
+    @Override
+    public CompletableFuture<Assertion> validateAsync(final String ticket, final String service) {
+        try {
+            return CompletableFuture.completedFuture(validate(ticket, service));
+        } catch (final TicketValidationException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public TicketFormatPolicy getTicketFormatPolicy() {
+        return this.ticketFormatPolicy;
+    }
+
+    private JWTClaimsSet verify(final String ticket) throws BadJOSEException, JOSEException, ParseException {
+        final var cache = this.claimsCache;
+        if (cache == null || this.replayCache != null) {
+            return processor().process(ticket, null);
+        }
+        final var key = digest(ticket);
+        final var cached = cache.get(key);
+        if (cached != null && cached.deadline > System.currentTimeMillis()) {
+            this.claimsCacheHits.increment();
+            return cached.claims;
+        }
+        this.claimsCacheMisses.increment();
+        final var claimsSet = processor().process(ticket, null);
+        if (claimsSet.getExpirationTime() != null) {
+            cache.put(key, new CachedClaims(claimsSet, acceptedUntil(claimsSet)));
+        }
+        return claimsSet;
+    }
+
+    /**
+     * @return the last instant the claims verifier accepts the token at, its expiration plus the clock skew.
+     */
+    private long acceptedUntil(final JWTClaimsSet claimsSet) {
+        if (claimsSet.getExpirationTime() == null) {
+            return Long.MIN_VALUE;
+        }
+        final var expiration = claimsSet.getExpirationTime().getTime();
+        final var skewMillis = this.maxClockSkew * 1000L;
+        return expiration > Long.MAX_VALUE - skewMillis ? Long.MAX_VALUE : expiration + skewMillis;
+    }
+
+    private ConfigurableJWTProcessor<SecurityContext> processor() {
+        final var processor = this.jwtProcessor;
+        if (processor != null) {
+            return processor;
+        }
+        synchronized (this) {
+            if (this.jwtProcessor == null) {
                 initialize();
             }
+            return this.jwtProcessor;
+        }
+    }
 
-            final var claimsSet = this.jwtProcessor.process(ticket, null);
-            logger.debug("Validated claims are {}", claimsSet);
-
-            return new AssertionImpl(
-                new AttributePrincipalImpl(claimsSet.getSubject(), claimsSet.getClaims()),
-                claimsSet.getIssueTime(), claimsSet.getExpirationTime(),
-                claimsSet.getIssueTime(), new HashMap<>());
-        } catch (final Exception e) {
-            throw new TicketValidationException(e);
+    private static String digest(final String ticket) {
+        try {
+            return Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(ticket.getBytes(StandardCharsets.UTF_8)));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    public void initialize() {
+    /**
+     * Builds the JWT processor from the configured keys and claims. Called by the filter right after configuring the
+     * validator, or else by the first validation; concurrent validations wait for it rather than racing to build
+     * their own.
+     */
+    public synchronized void initialize() {
         logger.debug("Initializing JWT processor...");
-        this.jwtProcessor = new CasJWTProcessor();
-        jwtProcessor.setJWSTypeVerifier(new DefaultJOSEObjectTypeVerifier<>(JOSEObjectType.JWT));
+        final var processor = new CasJWTProcessor(jwkSetKeyStore);
+        processor.setJWSTypeVerifier(new DefaultJOSEObjectTypeVerifier<>(JOSEObjectType.JWT));
 
-        final var jweKeySource = new ImmutableSecret<>(new SecretKeySpec(
-            base64EncryptionKey ? Base64.getDecoder().decode(encryptionKey) : encryptionKey.getBytes(StandardCharsets.UTF_8), encryptionKeyAlgorithm));
-        final var jwsKeySource = new ImmutableSecret<>(new SecretKeySpec(
-            base64SigningKey ? Base64.getDecoder().decode(signingKey) : signingKey.getBytes(StandardCharsets.UTF_8), signingKeyAlgorithm));
+        CommonUtils.assertTrue(jwkSetKeyStore != null || signingKey != null && encryptionKey != null,
+            "signingKey and encryptionKey, or a JWK set, must be configured.");
+        final var jweKey = encryptionKey == null ? null : new SecretKeySpec(
+            base64EncryptionKey ? Base64.getDecoder().decode(encryptionKey) : encryptionKey.getBytes(StandardCharsets.UTF_8), encryptionKeyAlgorithm);
+        final var jwsKey = signingKey == null ? null : new SecretKeySpec(
+            base64SigningKey ? Base64.getDecoder().decode(signingKey) : signingKey.getBytes(StandardCharsets.UTF_8), signingKeyAlgorithm);
 
-        configureKeySelectors(jwtProcessor, jweKeySource, jwsKeySource);
+        configureKeySelectors(processor, jwkSetKeyStore, jweKey, jwsKey);
 
         final var requiredClaimsSet = Set.of(requiredClaims.split(","));
         final var exactMatchClaims = new JWTClaimsSet.Builder()
@@ -133,26 +242,23 @@ public class CasJWTTicketValidator implements TicketValidator {
             .build();
         final var jwtClaimsSetVerifier = new DefaultJWTClaimsVerifier<>(exactMatchClaims, requiredClaimsSet);
         jwtClaimsSetVerifier.setMaxClockSkew(this.maxClockSkew);
-        jwtProcessor.setJWTClaimsSetVerifier(jwtClaimsSetVerifier);
+        processor.setJWTClaimsSetVerifier(jwtClaimsSetVerifier);
+        this.jwtProcessor = processor;
     }
 
     private static void configureKeySelectors(final ConfigurableJWTProcessor<SecurityContext> jwtProcessor,
-                                              final ImmutableSecret<SecurityContext> jweKeySource,
-                                              final ImmutableSecret<SecurityContext> jwsKeySource) {
-        final var jwsKeySelector = new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwsKeySource) {
-            @Override
-            public List<Key> selectJWSKeys(final JWSHeader jwsHeader, final SecurityContext context) {
-                return List.of(jwsKeySource.getSecretKey());
-            }
-        };
-        final var jweKeySelector = new JWEDecryptionKeySelector<>(JWEAlgorithm.DIR, EncryptionMethod.A128CBC_HS256, jweKeySource) {
-            @Override
-            public List<Key> selectJWEKeys(final JWEHeader jweHeader, final SecurityContext context) {
-                return List.of(jweKeySource.getSecretKey());
-            }
-        };
-        jwtProcessor.setJWSKeySelector(jwsKeySelector);
-        jwtProcessor.setJWEKeySelector(jweKeySelector);
+                                              final JwkSetKeyStore keyStore, final Key jweKey, final Key jwsKey) {
+        jwtProcessor.setJWSKeySelector((jwsHeader, context) -> selectKeys(
+            keyStore == null ? List.of() : keyStore.getVerificationKeys(jwsHeader.getKeyID()), jwsKey));
+        jwtProcessor.setJWEKeySelector((jweHeader, context) -> selectKeys(
+            keyStore == null ? List.of() : keyStore.getDecryptionKeys(jweHeader.getKeyID()), jweKey));
+    }
+
+    private static List<Key> selectKeys(final List<Key> keySetKeys, final Key sharedSecret) {
+        if (!keySetKeys.isEmpty() || sharedSecret == null) {
+            return keySetKeys;
+        }
+        return List.of(sharedSecret);
     }
 
     public void setBase64EncryptionKey(final boolean base64EncryptionKey) {
@@ -195,7 +301,136 @@ public class CasJWTTicketValidator implements TicketValidator {
         this.maxClockSkew = maxClockSkew;
     }
 
+    /**
+     * @param jwkSetKeyStore the keys to select by key id, in addition to or instead of the shared secrets.
+     * @since 4.0.5
+     */
+    public void setJwkSetKeyStore(final JwkSetKeyStore jwkSetKeyStore) {
+        this.jwkSetKeyStore = jwkSetKeyStore;
+    }
+
+    /**
+     * @param replayCache the cache refusing the tokens already validated, null to accept them again until they expire.
+     * @since 4.0.5
+     */
+    public void setReplayCache(final JwtReplayCache replayCache) {
+        this.replayCache = replayCache;
+    }
+
+    /**
+     * Caches the claims of verified tokens, keyed by a digest of the token, so that a token presented again is not
+     * decrypted and verified again. Entries are dropped when the token expires. Ignored when a
+     * {@link #setReplayCache(JwtReplayCache) replay cache} is set, which refuses tokens presented again anyway.
+     *
+     * @param claimsCacheSize the number of tokens to remember, zero or less to disable the cache.
+     * @since 4.0.5
+     */
+    public void setClaimsCacheSize(final int claimsCacheSize) {
+        this.claimsCache = claimsCacheSize > 0 ? new LruCache<>(claimsCacheSize) : null;
+    }
+
+    /**
+     * @return the validations answered from the claims cache.
+     * @since 4.0.5
+     */
+    public long getClaimsCacheHits() {
+        return this.claimsCacheHits.sum();
+    }
+
+    /**
+     * @return the validations that missed the claims cache.
+     * @since 4.0.5
+     */
+    public long getClaimsCacheMisses() {
+        return this.claimsCacheMisses.sum();
+    }
+
+    /**
+     * @return the share of validations answered from the claims cache, zero before the first one.
+     * @since 4.0.5
+     */
+    public double getClaimsCacheHitRate() {
+        final var hits = getClaimsCacheHits();
+        final var total = hits + getClaimsCacheMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private record CachedClaims(JWTClaimsSet claims, long deadline) {
+    }
+
+    /**
+     * Cache key of a verifier or decrypter: the algorithms of the header it was created for and the key.
+     */
+    private record CryptoKey(Object algorithm, Object encryptionMethod, Key key) {
+    }
+
+    /**
+     * Processor reusing its verifiers and decrypters, which are thread-safe, instead of creating them for each token.
+     * They are dropped whenever the JWK set swaps its keys, so that rotated out keys are not retained, and at the
+     * latest once {@link #MAX_CACHED_CRYPTO} of them accumulated.
+     */
     private static class CasJWTProcessor extends DefaultJWTProcessor<SecurityContext> {
+
+        private static final int MAX_CACHED_CRYPTO = 256;
+
+        private final Map<CryptoKey, JWSVerifier> verifiers = new ConcurrentHashMap<>();
+
+        private final Map<CryptoKey, JWEDecrypter> decrypters = new ConcurrentHashMap<>();
+
+        private final JwkSetKeyStore keyStore;
+
+        private volatile int keyGeneration;
+
+        CasJWTProcessor(final JwkSetKeyStore keyStore) {
+            this.keyStore = keyStore;
+            this.keyGeneration = keyStore == null ? 0 : keyStore.getGeneration();
+        }
+
+        /**
+         * Called once the keys of a token were selected, which is when the key store swaps in a new key set.
+         */
+        private void dropStaleCrypto() {
+            if (this.keyStore != null) {
+                final var generation = this.keyStore.getGeneration();
+                if (generation != this.keyGeneration) {
+                    this.keyGeneration = generation;
+                    this.verifiers.clear();
+                    this.decrypters.clear();
+                    return;
+                }
+            }
+            if (this.verifiers.size() > MAX_CACHED_CRYPTO) {
+                this.verifiers.clear();
+            }
+            if (this.decrypters.size() > MAX_CACHED_CRYPTO) {
+                this.decrypters.clear();
+            }
+        }
+
+        private JWSVerifier verifierFor(final JWSHeader header, final Key key) throws JOSEException {
+            final var cacheKey = new CryptoKey(header.getAlgorithm(), null, key);
+            var verifier = this.verifiers.get(cacheKey);
+            if (verifier == null) {
+                verifier = getJWSVerifierFactory().createJWSVerifier(header, key);
+                if (verifier != null) {
+                    this.verifiers.put(cacheKey, verifier);
+                }
+            }
+            return verifier;
+        }
+
+        private JWEDecrypter decrypterFor(final JWEHeader header, final Key key) throws JOSEException {
+            final var cacheKey = new CryptoKey(header.getAlgorithm(), header.getEncryptionMethod(), key);
+            var decrypter = this.decrypters.get(cacheKey);
+            if (decrypter == null) {
+                decrypter = getJWEDecrypterFactory().createJWEDecrypter(header, key);
+                if (decrypter != null) {
+                    this.decrypters.put(cacheKey, decrypter);
+                }
+            }
+            return decrypter;
+        }
+
         @Override
         public JWTClaimsSet process(final SignedJWT signedJWT, final SecurityContext context) throws BadJOSEException, JOSEException {
             getJWETypeVerifier().verify(signedJWT.getHeader().getType(), context);
@@ -203,9 +438,10 @@ public class CasJWTTicketValidator implements TicketValidator {
             if (keyCandidates == null || keyCandidates.isEmpty()) {
                 throw new BadJOSEException("Signed JWT rejected: Another algorithm expected, or no matching key(s) found");
             }
+            dropStaleCrypto();
             var it = keyCandidates.listIterator();
             while (it.hasNext()) {
-                final var verifier = getJWSVerifierFactory().createJWSVerifier(signedJWT.getHeader(), it.next());
+                final var verifier = verifierFor(signedJWT.getHeader(), it.next());
                 if (verifier == null) {
                     continue;
                 }
@@ -245,10 +481,11 @@ public class CasJWTTicketValidator implements TicketValidator {
             if (keyCandidates == null || keyCandidates.isEmpty()) {
                 throw new BadJOSEException("Encrypted JWT rejected: Another algorithm expected, or no matching key(s) found");
             }
+            dropStaleCrypto();
 
             var it = keyCandidates.listIterator();
             while (it.hasNext()) {
-                var decrypter = getJWEDecrypterFactory().createJWEDecrypter(encryptedJWT.getHeader(), it.next());
+                var decrypter = decrypterFor(encryptedJWT.getHeader(), it.next());
                 if (decrypter == null) {
                     continue;
                 }
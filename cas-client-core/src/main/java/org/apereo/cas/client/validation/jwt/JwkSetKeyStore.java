@@ -0,0 +1,220 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation.jwt;
+
+import org.apereo.cas.client.util.CommonUtils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.AsymmetricJWK;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keys of a local JWK set file, indexed by key id so that the key of a token is found without trying the others.
+ * <p>
+ * Symmetric keys verify signatures and decrypt; RSA and EC keys verify signatures with their public part and decrypt
+ * with their private part, when present. Keys restricted to a use by their <code>use</code> member only serve that use.
+ * <p>
+ * The file is checked for modifications at most every <code>refreshIntervalMillis</code>, by the first lookup past
+ * that delay. A modified file is loaded aside and swapped in whole, so lookups see either the old or the new key set;
+ * a file that fails to load leaves the previous keys in place. Adding the new key before signing with it and removing
+ * the old one once its tokens have expired thus rotates keys without redeploying.
+ *
+ * @since 4.0.5
+ */
+public final class JwkSetKeyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwkSetKeyStore.class);
+
+    private final Path file;
+
+    private final long refreshIntervalMillis;
+
+    private final LongSupplier clock;
+
+    private final AtomicLong nextCheck = new AtomicLong();
+
+    private volatile KeySet keySet;
+
+    private volatile int generation;
+
+    /**
+     * @param file the JWK set file.
+     * @param refreshIntervalMillis milliseconds between two checks of the file, zero to never reload it.
+     * @throws IllegalArgumentException if the file cannot be loaded.
+     */
+    public JwkSetKeyStore(final Path file, final long refreshIntervalMillis) {
+        this(file, refreshIntervalMillis, System::currentTimeMillis);
+    }
+
+    JwkSetKeyStore(final Path file, final long refreshIntervalMillis, final LongSupplier clock) {
+        CommonUtils.assertNotNull(file, "file cannot be null.");
+        CommonUtils.assertTrue(refreshIntervalMillis >= 0, "refreshIntervalMillis cannot be negative.");
+        this.file = file;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.clock = clock;
+        try {
+            this.keySet = load(file);
+        } catch (final IOException | ParseException e) {
+            throw new IllegalArgumentException("Unable to load the JWK set " + file, e);
+        }
+        this.nextCheck.set(clock.getAsLong() + refreshIntervalMillis);
+    }
+
+    /**
+     * @param keyId the <code>kid</code> of the JWS header, null if absent.
+     * @return the key of that id if it verifies signatures, or every such key when the token names none.
+     */
+    public List<Key> getVerificationKeys(final String keyId) {
+        final var current = current();
+        if (keyId == null) {
+            return current.verificationKeys;
+        }
+        final var entry = current.byKeyId.get(keyId);
+        return entry == null || entry.verificationKey == null ? List.of() : List.of(entry.verificationKey);
+    }
+
+    /**
+     * @param keyId the <code>kid</code> of the JWE header, null if absent.
+     * @return the key of that id if it decrypts, or every such key when the token names none.
+     */
+    public List<Key> getDecryptionKeys(final String keyId) {
+        final var current = current();
+        if (keyId == null) {
+            return current.decryptionKeys;
+        }
+        final var entry = current.byKeyId.get(keyId);
+        return entry == null || entry.decryptionKey == null ? List.of() : List.of(entry.decryptionKey);
+    }
+
+    /**
+     * @return the number of usable keys currently loaded.
+     */
+    public int size() {
+        return this.keySet.size;
+    }
+
+    /**
+     * @return a number changing each time a new key set is swapped in, so that state derived from the keys can be
+     * dropped.
+     */
+    int getGeneration() {
+        return this.generation;
+    }
+
+    private KeySet current() {
+        if (this.refreshIntervalMillis > 0) {
+            final var now = this.clock.getAsLong();
+            final var due = this.nextCheck.get();
+            if (now >= due && this.nextCheck.compareAndSet(due, now + this.refreshIntervalMillis)) {
+                reloadIfModified();
+            }
+        }
+        return this.keySet;
+    }
+
+    private void reloadIfModified() {
+        try {
+            final var current = this.keySet;
+            if (Files.getLastModifiedTime(this.file).toMillis() != current.lastModified
+                || Files.size(this.file) != current.length) {
+                final var reloaded = load(this.file);
+                this.keySet = reloaded;
+                this.generation++;
+                LOGGER.info("Reloaded {} key(s) from the JWK set [{}].", reloaded.size, this.file);
+            }
+        } catch (final IOException | ParseException e) {
+            LOGGER.warn("Unable to reload the JWK set [{}], keeping the previous keys: {}", this.file, e.getMessage());
+        }
+    }
+
+    private static KeySet load(final Path file) throws IOException, ParseException {
+        // read the attributes first: a write racing the load is then picked up by the next check
+        final var lastModified = Files.getLastModifiedTime(file).toMillis();
+        final var length = Files.size(file);
+        final var jwkSet = JWKSet.parse(Files.readString(file));
+
+        final Map<String, Entry> byKeyId = new HashMap<>();
+        final List<Key> verificationKeys = new ArrayList<>();
+        final List<Key> decryptionKeys = new ArrayList<>();
+        var size = 0;
+        for (final var jwk : jwkSet.getKeys()) {
+            final var entry = toEntry(jwk);
+            if (entry == null || entry.verificationKey == null && entry.decryptionKey == null) {
+                continue;
+            }
+            if (jwk.getKeyID() != null && byKeyId.putIfAbsent(jwk.getKeyID(), entry) != null) {
+                LOGGER.warn("Ignoring the duplicate key id [{}] of the JWK set [{}].", jwk.getKeyID(), file);
+                continue;
+            }
+            size++;
+            if (entry.verificationKey != null) {
+                verificationKeys.add(entry.verificationKey);
+            }
+            if (entry.decryptionKey != null) {
+                decryptionKeys.add(entry.decryptionKey);
+            }
+        }
+        return new KeySet(lastModified, length, Map.copyOf(byKeyId), List.copyOf(verificationKeys),
+            List.copyOf(decryptionKeys), size);
+    }
+
+    private static Entry toEntry(final JWK jwk) {
+        final var use = jwk.getKeyUse();
+        final var verifies = use == null || KeyUse.SIGNATURE.equals(use);
+        final var decrypts = use == null || KeyUse.ENCRYPTION.equals(use);
+        try {
+            if (jwk instanceof OctetSequenceKey octetSequenceKey) {
+                return new Entry(verifies ? octetSequenceKey.toSecretKey() : null,
+                    decrypts ? octetSequenceKey.toSecretKey("AES") : null);
+            }
+            if (jwk instanceof AsymmetricJWK asymmetricJWK) {
+                return new Entry(verifies ? asymmetricJWK.toPublicKey() : null,
+                    decrypts && jwk.isPrivate() ? asymmetricJWK.toPrivateKey() : null);
+            }
+        } catch (final JOSEException e) {
+            LOGGER.debug("Unable to convert the key [{}]: {}", jwk.getKeyID(), e.getMessage());
+        }
+        LOGGER.warn("Ignoring the unsupported {} key [{}].", jwk.getKeyType(), jwk.getKeyID());
+        return null;
+    }
+
+    private record Entry(Key verificationKey, Key decryptionKey) {
+    }
+
+    private record KeySet(long lastModified, long length, Map<String, Entry> byKeyId, List<Key> verificationKeys,
+                          List<Key> decryptionKeys, int size) {
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation.jwt;
+
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.SeededHash;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the <code>jti</code> of the JWTs already validated so that a token is only accepted once.
+ * <p>
+ * Ids are kept in buckets by the time their token expires, so that a whole bucket is forgotten at once when its
+ * tokens have all expired: memory only depends on the tokens issued over <code>maxLifetimeMillis</code>, and a check
+ * only looks at the bucket of the token. A bucket is either an exact set of ids, or a Bloom filter of fixed size that
+ * may take a token for a replay with the configured false positive rate but never lets a replay through. Unlike the
+ * {@link org.apereo.cas.client.util.RotatingBloomFilter}, whose generations rotate with time, buckets here are
+ * retired by the expiration of their tokens, so that a token is remembered exactly as long as it is accepted.
+ * <p>
+ * Tokens expiring further than <code>maxLifetimeMillis</code> from now cannot be tracked and are refused, as are
+ * tokens without an expiration. The cache is local to the JVM.
+ *
+ * @since 4.0.5
+ */
+public final class JwtReplayCache {
+
+    /** Number of buckets covering the maximum token lifetime. */
+    private static final int BUCKETS_PER_LIFETIME = 8;
+
+    private final long bucketMillis;
+
+    private final long maxLifetimeMillis;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private final BucketFactory bucketFactory;
+
+    private final LongSupplier clock;
+
+    private JwtReplayCache(final long maxLifetimeMillis, final BucketFactory bucketFactory, final LongSupplier clock) {
+        CommonUtils.assertTrue(maxLifetimeMillis > 0, "maxLifetimeMillis must be greater than zero.");
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.bucketMillis = Math.max(1, maxLifetimeMillis / BUCKETS_PER_LIFETIME);
+        // the buckets of every trackable expiration, plus a spare so that a bucket is only reused once expired
+        final var bucketCount = (int) ((maxLifetimeMillis + this.bucketMillis - 1) / this.bucketMillis) + 2;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.bucketFactory = bucketFactory;
+        this.clock = clock;
+    }
+
+    /**
+     * @param maxLifetimeMillis the longest time between the validation of a token and its expiration.
+     * @return a cache keeping the exact ids.
+     */
+    public static JwtReplayCache exact(final long maxLifetimeMillis) {
+        return exact(maxLifetimeMillis, System::currentTimeMillis);
+    }
+
+    static JwtReplayCache exact(final long maxLifetimeMillis, final LongSupplier clock) {
+        return new JwtReplayCache(maxLifetimeMillis, ExactBucket::new, clock);
+    }
+
+    /**
+     * @param maxLifetimeMillis the longest time between the validation of a token and its expiration.
+     * @param expectedTokens the tokens expected to be validated over <code>maxLifetimeMillis</code>.
+     * @param falsePositiveRate the rate of fresh tokens taken for replays when that many tokens are tracked.
+     * @return a cache keeping the ids in Bloom filters.
+     */
+    public static JwtReplayCache bloomFilter(final long maxLifetimeMillis, final int expectedTokens,
+                                             final double falsePositiveRate) {
+        return bloomFilter(maxLifetimeMillis, expectedTokens, falsePositiveRate, System::currentTimeMillis);
+    }
+
+    static JwtReplayCache bloomFilter(final long maxLifetimeMillis, final int expectedTokens,
+                                      final double falsePositiveRate, final LongSupplier clock) {
+        CommonUtils.assertTrue(expectedTokens > 0, "expectedTokens must be greater than zero.");
+        CommonUtils.assertTrue(falsePositiveRate > 0 && falsePositiveRate < 1,
+            "falsePositiveRate must be between zero and one.");
+        final var perBucket = Math.max(1, expectedTokens / BUCKETS_PER_LIFETIME);
+        final var bits = (long) Math.ceil(-perBucket * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        final var words = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+        final var hashes = Math.max(1, (int) Math.round((double) words * 64 / perBucket * Math.log(2)));
+        final var seed = ThreadLocalRandom.current().nextLong();
+        return new JwtReplayCache(maxLifetimeMillis, epoch -> new BloomFilterBucket(epoch, words, hashes, seed), clock);
+    }
+
+    /**
+     * Records the use of a token.
+     *
+     * @param tokenId the <code>jti</code> of the token.
+     * @param expiresAtMillis the last instant the token is accepted at.
+     * @return true on the first use of the token, false on a replay or when the token cannot be tracked.
+     */
+    public boolean markUsed(final String tokenId, final long expiresAtMillis) {
+        final var now = this.clock.getAsLong();
+        if (tokenId == null || expiresAtMillis < now || expiresAtMillis - now > this.maxLifetimeMillis) {
+            return false;
+        }
+        final var epoch = expiresAtMillis / this.bucketMillis;
+        final var index = (int) (epoch % this.buckets.length());
+        var bucket = this.buckets.get(index);
+        while (bucket == null || bucket.epoch < epoch) {
+            final var fresh = this.bucketFactory.create(epoch);
+            if (this.buckets.compareAndSet(index, bucket, fresh)) {
+                bucket = fresh;
+            } else {
+                bucket = this.buckets.get(index);
+            }
+        }
+        return bucket.add(tokenId);
+    }
+
+    @FunctionalInterface
+    private interface BucketFactory {
+        Bucket create(long epoch);
+    }
+
+    private abstract static class Bucket {
+
+        private final long epoch;
+
+        Bucket(final long epoch) {
+            this.epoch = epoch;
+        }
+
+        abstract boolean add(String tokenId);
+    }
+
+    private static final class ExactBucket extends Bucket {
+
+        private final Set<String> tokenIds = ConcurrentHashMap.newKeySet();
+
+        ExactBucket(final long epoch) {
+            super(epoch);
+        }
+
+        @Override
+        boolean add(final String tokenId) {
+            return this.tokenIds.add(tokenId);
+        }
+    }
+
+    private static final class BloomFilterBucket extends Bucket {
+
+        private final long[] bits;
+
+        private final int hashes;
+
+        private final long seed;
+
+        BloomFilterBucket(final long epoch, final int words, final int hashes, final long seed) {
+            super(epoch);
+            this.bits = new long[words];
+            this.hashes = hashes;
+            this.seed = seed;
+        }
+
+        @Override
+        boolean add(final String tokenId) {
+            final var hash = SeededHash.doubleHash(tokenId, this.seed);
+            final var size = (long) this.bits.length * 64;
+            var added = false;
+            // a lookup and its insertion must not interleave with those of the same id
+            synchronized (this) {
+                var combined = hash[0];
+                for (var i = 0; i < this.hashes; i++, combined += hash[1]) {
+                    final var bit = Long.remainderUnsigned(combined, size);
+                    final var mask = 1L << bit;
+                    final var word = (int) (bit >>> 6);
+                    if ((this.bits[word] & mask) == 0) {
+                        this.bits[word] |= mask;
+                        added = true;
+                    }
+                }
+            }
+            return added;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client;
+
+import org.apereo.cas.client.authentication.AttributePrincipalImpl;
+import org.apereo.cas.client.session.SingleSignOutFilter;
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.util.AssertionHolder;
+import org.apereo.cas.client.util.AssertionThreadLocalFilter;
+import org.apereo.cas.client.util.HttpServletRequestWrapperFilter;
+import org.apereo.cas.client.util.PooledXPathExpression;
+import org.apereo.cas.client.util.XmlUtils;
+import org.apereo.cas.client.validation.AssertionImpl;
+import org.apereo.cas.client.validation.Cas20ProxyReceivingTicketValidationFilter;
+
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import javax.xml.namespace.NamespaceContext;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the single sign out, ticket validation (with a stub validator), request wrapper and assertion thread local
+ * filters, plus a shared XPath expression, on many concurrent threads.
+ * <p>
+ * On a Java runtime with virtual threads, 100,000 virtual threads are used and the
+ * <code>jdk.VirtualThreadPinned</code> JFR event is recorded to assert that none of them pinned its carrier thread;
+ * run with <code>-Djdk.tracePinnedThreads=full</code> to print the stack of any offender. On older runtimes the
+ * same workload runs on a platform thread pool, checking thread safety only. The CI build runs on a Java 21 runtime
+ * too, for the pinning check to run.
+ *
+ * @since 4.0.5
+ */
+public class VirtualThreadFilterChainTests {
+
+    private static final int VIRTUAL_THREAD_TASKS = 100_000;
+
+    private static final int PLATFORM_THREAD_TASKS = 10_000;
+
+    private static final NamespaceContext NS_CONTEXT = new NamespaceContext() {
+        @Override
+        public String getNamespaceURI(final String prefix) {
+            return "http://www.yale.edu/tp/cas";
+        }
+
+        @Override
+        public String getPrefix(final String namespaceURI) {
+            return "cas";
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(final String namespaceURI) {
+            return Collections.singletonList("cas").iterator();
+        }
+    };
+
+    private static final PooledXPathExpression XPATH_USER =
+        new PooledXPathExpression("//cas:authenticationSuccess/cas:user", NS_CONTEXT);
+
+    private final SingleSignOutFilter singleSignOutFilter = new SingleSignOutFilter();
+
+    private final Cas20ProxyReceivingTicketValidationFilter ticketValidationFilter =
+        new Cas20ProxyReceivingTicketValidationFilter();
+
+    private final HttpServletRequestWrapperFilter requestWrapperFilter = new HttpServletRequestWrapperFilter();
+
+    private final AssertionThreadLocalFilter assertionThreadLocalFilter = new AssertionThreadLocalFilter();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws Exception {
+        this.singleSignOutFilter.setIgnoreInitConfiguration(true);
+        this.singleSignOutFilter.init(new MockFilterConfig());
+        this.ticketValidationFilter.setServerName("localhost");
+        this.ticketValidationFilter.setRedirectAfterValidation(false);
+        this.ticketValidationFilter.setMillisBetweenCleanUps(60000);
+        this.ticketValidationFilter.setTicketValidator((ticket, service) -> {
+            final var id = ticket.substring("ST-".length());
+            return new AssertionImpl(new AttributePrincipalImpl("user" + id,
+                Map.of("memberOf", List.of("staff", "group" + id))));
+        });
+        this.ticketValidationFilter.init();
+        final var config = new MockFilterConfig();
+        config.addInitParameter("roleAttribute", "memberOf");
+        this.requestWrapperFilter.init(config);
+    }
+
+    @After
+    public void tearDown() {
+        this.singleSignOutFilter.destroy();
+        this.ticketValidationFilter.destroy();
+        this.requestWrapperFilter.destroy();
+    }
+
+    @Test
+    public void filterChainDoesNotPinVirtualThreads() throws Exception {
+        final var executor = newVirtualThreadPerTaskExecutor();
+        Assume.assumeNotNull(executor);
+
+        final var pinnedEvents = new AtomicInteger();
+        final var flushes = new Semaphore(0);
+        try (var recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.incrementAndGet());
+            recording.onFlush(flushes::release);
+            recording.startAsync();
+
+            runTasks(executor, VIRTUAL_THREAD_TASKS);
+
+            // events of the finished tasks are delivered at the latest by the second flush from now
+            flushes.drainPermits();
+            assertTrue(flushes.tryAcquire(2, 30, TimeUnit.SECONDS));
+        }
+
+        assertNoFailures();
+        assertEquals("Virtual threads pinned their carrier", 0, pinnedEvents.get());
+    }
+
+    @Test
+    public void filterChainIsThreadSafe() throws Exception {
+        runTasks(Executors.newFixedThreadPool(16), PLATFORM_THREAD_TASKS);
+        assertNoFailures();
+    }
+
+    private void runTasks(final ExecutorService executor, final int tasks) throws InterruptedException {
+        for (var i = 0; i < tasks; i++) {
+            final var id = i;
+            executor.execute(() -> {
+                try {
+                    runFilterChain(id);
+                } catch (final Throwable t) {
+                    this.failures.incrementAndGet();
+                    this.firstFailure.compareAndSet(null, t);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+    }
+
+    private void runFilterChain(final int id) throws Exception {
+        final var ticket = "ST-" + id;
+        final var user = "user" + id;
+        final var session = new MockHttpSession(null, "session-" + id);
+        final var request = new MockHttpServletRequest("GET", "/app");
+        request.setQueryString("ticket=" + ticket);
+        request.addParameter("ticket", ticket);
+        request.setSession(session);
+
+        final Servlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(final HttpServletRequest req, final HttpServletResponse resp) {
+                assertEquals(user, req.getRemoteUser());
+                assertTrue(req.isUserInRole("group" + id));
+                assertEquals(user, AssertionHolder.getAssertion().getPrincipal().getName());
+            }
+        };
+        new MockFilterChain(servlet, this.singleSignOutFilter, this.ticketValidationFilter, this.requestWrapperFilter,
+            this.assertionThreadLocalFilter).doFilter(request, new MockHttpServletResponse());
+        assertNull(AssertionHolder.getAssertion());
+        assertNotNull(session.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION));
+
+        final var response = "<cas:serviceResponse xmlns:cas='http://www.yale.edu/tp/cas'><cas:authenticationSuccess>"
+                             + "<cas:user>" + user + "</cas:user></cas:authenticationSuccess></cas:serviceResponse>";
+        assertEquals(user, XPATH_USER.evaluateAsString(XmlUtils.newDocument(response)));
+
+        final var storage = SingleSignOutFilter.getSingleSignOutHandler().getSessionMappingStorage();
+        assertSame(session, storage.removeSessionByMappingId(ticket));
+    }
+
+    private void assertNoFailures() {
+        if (this.failures.get() > 0) {
+            throw new AssertionError(this.failures.get() + " tasks failed", this.firstFailure.get());
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -18,13 +18,16 @@
  */
 package org.apereo.cas.client.authentication;
 
+import org.apereo.cas.client.session.AssertionCookieCodec;
 import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.validation.Assertion;
 import org.apereo.cas.client.validation.AssertionImpl;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpSession;
 
 import org.junit.After;
@@ -39,6 +42,9 @@ import org.springframework.mock.web.MockServletContext;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -117,6 +123,44 @@ public final class AuthenticationFilterTests {
                 "UTF-8"), response.getRedirectedUrl());
     }
 
+    @Test
+    public void testRedirectWithServiceUrlCache() throws Exception {
+        this.filter = new AuthenticationFilter();
+        final var config = new MockFilterConfig();
+        config.addInitParameter("casServerLoginUrl", CAS_LOGIN_URL);
+        config.addInitParameter("serverName", "localhost:8443");
+        config.addInitParameter("serviceUrlCacheSize", "10");
+        this.filter.init(config);
+
+        final var filterChain = new FilterChain() {
+
+            @Override
+            public void doFilter(final ServletRequest request, final ServletResponse response) throws IOException, ServletException {
+                // nothing to do
+            }
+        };
+        final var expected = CAS_LOGIN_URL + "?service="
+            + URLEncoder.encode("https://localhost:8443/test?test=12456", "UTF-8");
+        for (var i = 0; i < 2; i++) {
+            final var request = new MockHttpServletRequest();
+            final var response = new MockHttpServletResponse();
+            request.setQueryString("test=12456");
+            request.setRequestURI("/test");
+            request.setSecure(true);
+            this.filter.doFilter(request, response, filterChain);
+            assertEquals(expected, response.getRedirectedUrl());
+        }
+
+        this.filter.setRenew(true);
+        final var request = new MockHttpServletRequest();
+        final var response = new MockHttpServletResponse();
+        request.setQueryString("test=12456");
+        request.setRequestURI("/test");
+        request.setSecure(true);
+        this.filter.doFilter(request, response, filterChain);
+        assertEquals(expected + "&renew=true", response.getRedirectedUrl());
+    }
+
     @Test
     public void testAssertion() throws Exception {
         final HttpSession session = new MockHttpSession();
@@ -382,6 +426,38 @@ public final class AuthenticationFilterTests {
         System.out.println(response.getRedirectedUrl());
     }
 
+    @Test
+    public void testValidAssertionCookieAuthenticatesWithoutRedirect() throws Exception {
+        final var secretKey = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes("US-ASCII"));
+        this.filter = new AuthenticationFilter();
+        final var config = new MockFilterConfig();
+        config.addInitParameter("casServerLoginUrl", CAS_LOGIN_URL);
+        config.addInitParameter("service", CAS_SERVICE_URL);
+        config.addInitParameter("assertionCookieSecretKeys", secretKey);
+        this.filter.init(config);
+
+        final var codec = new AssertionCookieCodec(AssertionCookieCodec.parseSecretKeys(secretKey), "CASASSERTION",
+            60000, List.of());
+        final var login = new MockHttpServletResponse();
+        codec.writeCookie(new MockHttpServletRequest(), login, new AssertionImpl("alice"), "ST-1");
+
+        final var request = new MockHttpServletRequest();
+        request.setCookies(login.getCookie("CASASSERTION"));
+        final var response = new MockHttpServletResponse();
+        final var authenticated = new AtomicReference<Assertion>();
+        this.filter.doFilter(request, response, (req, res) ->
+            authenticated.set((Assertion) req.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION)));
+
+        assertNull(response.getRedirectedUrl());
+        assertEquals("alice", authenticated.get().getPrincipal().getName());
+
+        final var forged = new MockHttpServletRequest();
+        forged.setCookies(new Cookie("CASASSERTION", "forged.value.mac"));
+        final var forgedResponse = new MockHttpServletResponse();
+        this.filter.doFilter(forged, forgedResponse, (req, res) -> fail("Forged cookie must not authenticate."));
+        assertNotNull(forgedResponse.getRedirectedUrl());
+    }
+
     private void replaceFilterWithPrefixConfiguredFilter() throws ServletException {
         this.filter = new AuthenticationFilter();
         final var config = new MockFilterConfig();
@@ -0,0 +1,172 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.jaas;
+
+import org.apereo.cas.client.authentication.AttributePrincipalImpl;
+import org.apereo.cas.client.validation.Assertion;
+import org.apereo.cas.client.validation.AssertionImpl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AssertionCache}.
+ *
+ * @since 4.0.5
+ */
+public final class AssertionCacheTests {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    public void cachedAssertionIsFoundUntilItExpires() {
+        final var cache = new AssertionCache(10, this.clock::get);
+        final var ticket = new TicketCredential("ST-1");
+        final var assertion = assertion("user", this.clock.get());
+        cache.put(ticket, assertion, 1000);
+
+        assertSame(assertion, cache.get(ticket));
+        assertNull(cache.get(new TicketCredential("ST-2")));
+        this.clock.addAndGet(1000);
+        assertNull(cache.get(ticket));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expirationStartsWhenTheAssertionBecameValid() {
+        final var cache = new AssertionCache(10, this.clock::get);
+        final var ticket = new TicketCredential("ST-1");
+        cache.put(ticket, assertion("user", this.clock.get() - 900), 1000);
+
+        this.clock.addAndGet(100);
+        assertNull(cache.get(ticket));
+    }
+
+    @Test
+    public void mapViewSharesTheEntriesOfTheCache() {
+        final var cache = new AssertionCache(10, this.clock::get);
+        final var map = cache.asMap(1000);
+        final var one = new TicketCredential("ST-1");
+        final var two = new TicketCredential("ST-2");
+        final var assertion = assertion("user", this.clock.get());
+        cache.put(one, assertion, 60000);
+
+        assertSame(assertion, map.get(one));
+        assertNull(map.put(two, assertion));
+        assertSame(assertion, cache.get(two));
+        assertEquals(2, map.size());
+        assertEquals(2, map.entrySet().size());
+
+        assertSame(assertion, map.remove(one));
+        assertNull(cache.get(one));
+        this.clock.addAndGet(1000);
+        assertNull(map.get(two));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void oldestEntriesAreEvictedBeyondTheMaximumSize() {
+        final var cache = new AssertionCache(2, this.clock::get);
+        cache.put(new TicketCredential("ST-1"), assertion("one", this.clock.get()), 60000);
+        cache.put(new TicketCredential("ST-2"), assertion("two", this.clock.get()), 60000);
+        cache.put(new TicketCredential("ST-3"), assertion("three", this.clock.get()), 60000);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(new TicketCredential("ST-1")));
+        assertNotNull(cache.get(new TicketCredential("ST-3")));
+    }
+
+    @Test
+    public void purgeDropsExpiredEntries() {
+        final var cache = new AssertionCache(10, this.clock::get);
+        cache.put(new TicketCredential("ST-1"), assertion("one", this.clock.get()), 1000);
+        cache.put(new TicketCredential("ST-2"), assertion("two", this.clock.get()), 1000);
+        this.clock.addAndGet(500);
+        cache.put(new TicketCredential("ST-3"), assertion("three", this.clock.get()), 1000);
+        this.clock.addAndGet(500);
+
+        cache.purgeExpired();
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getExpirationCount());
+    }
+
+    @Test
+    public void concurrentLoginsKeepTheCacheConsistent() throws Exception {
+        final var cache = new AssertionCache(64);
+        final var threads = 16;
+        final var operations = 20000;
+        final var pool = Executors.newFixedThreadPool(threads);
+        try {
+            final var start = new CountDownLatch(1);
+            final var results = new ArrayList<Future<Long>>();
+            for (var t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    final var random = ThreadLocalRandom.current();
+                    var lookups = 0L;
+                    for (var i = 0; i < operations; i++) {
+                        final var ticket = new TicketCredential("ST-" + random.nextInt(256));
+                        final var choice = random.nextInt(10);
+                        if (choice < 6) {
+                            final var cached = cache.get(ticket);
+                            lookups++;
+                            assertTrue(cached == null || ticket.getName().equals(cached.getPrincipal().getName()));
+                        } else if (choice < 9) {
+                            cache.put(ticket, assertion(ticket.getName(), System.currentTimeMillis()), 60000);
+                        } else {
+                            cache.remove(ticket);
+                        }
+                    }
+                    return lookups;
+                }));
+            }
+            start.countDown();
+            var lookups = 0L;
+            for (final var result : results) {
+                lookups += result.get();
+            }
+            assertEquals(lookups, cache.getHitCount() + cache.getMissCount());
+            assertTrue(cache.size() <= 64);
+            assertTrue(cache.getHitCount() > 0);
+            assertTrue(cache.getEvictionCount() > 0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Assertion assertion(final String name, final long validFrom) {
+        return new AssertionImpl(new AttributePrincipalImpl(name), new Date(validFrom), null, new Date(validFrom),
+            new HashMap<>());
+    }
+}
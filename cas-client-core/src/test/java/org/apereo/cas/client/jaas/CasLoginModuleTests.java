@@ -239,6 +239,22 @@ public class CasLoginModuleTests {
         }
     }
 
+    /**
+     * Confirm that login modules configured alike share their ticket validator.
+     */
+    @Test
+    public void testTicketValidatorIsSharedByModulesWithTheSameOptions() {
+        final var handler = new ServiceAndTicketCallbackHandler("https://example.com/service", "ST-1");
+        final var other = new CasLoginModule();
+        module.initialize(subject, handler, new HashMap<>(), options);
+        other.initialize(new Subject(), handler, new HashMap<>(), new HashMap<>(options));
+        assertSame(module.ticketValidator, other.ticketValidator);
+
+        options.put("renew", "false");
+        other.initialize(new Subject(), handler, new HashMap<>(), options);
+        assertNotSame(module.ticketValidator, other.ticketValidator);
+    }
+
     private static boolean hasPrincipalName(final Subject subject, final Class<? extends Principal> principalClass,
                                             final String name) {
         final var principals = subject.getPrincipals(principalClass);
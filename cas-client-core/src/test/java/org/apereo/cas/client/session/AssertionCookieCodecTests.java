@@ -0,0 +1,190 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.session;
+
+import org.apereo.cas.client.authentication.AttributePrincipalImpl;
+import org.apereo.cas.client.validation.AssertionImpl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AssertionCookieCodec}.
+ *
+ * @since 4.0.5
+ */
+public final class AssertionCookieCodecTests {
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] OTHER_KEY = "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    private InMemorySessionRevocationList revocationList;
+
+    private AssertionImpl assertion;
+
+    @Before
+    public void setUp() {
+        this.revocationList = new InMemorySessionRevocationList(this.clock::get);
+        this.assertion = new AssertionImpl(new AttributePrincipalImpl("alice",
+            Map.of("memberOf", List.of("staff", "admins"), "mail", "alice@example.org", "secret", "s3cr3t")));
+    }
+
+    @Test
+    public void roundTripKeepsPrincipalAndSelectedAttributes() {
+        final var codec = newCodec(List.of(KEY));
+        final var decoded = codec.decode(codec.encode(this.assertion, "ST-1"));
+
+        assertEquals("alice", decoded.getPrincipal().getName());
+        assertEquals(List.of("staff", "admins"), decoded.getPrincipal().getAttributes().get("memberOf"));
+        assertEquals("alice@example.org", decoded.getPrincipal().getAttributes().get("mail"));
+        assertFalse(decoded.getPrincipal().getAttributes().containsKey("secret"));
+        assertEquals(new Date(this.clock.get() + 60000), decoded.getValidUntilDate());
+    }
+
+    @Test
+    public void tamperedCookieIsRefused() {
+        final var codec = newCodec(List.of(KEY));
+        final var value = codec.encode(this.assertion, "ST-1");
+        final var parts = value.split("\\.");
+        final var payload = Base64.getUrlDecoder().decode(parts[1]);
+        payload[payload.length - 1] ^= 1;
+        final var tampered = parts[0] + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + '.' + parts[2];
+
+        assertNull(codec.decode(tampered));
+        assertNull(codec.decode(value.substring(0, value.length() - 2)));
+        assertNull(codec.decode("garbage"));
+    }
+
+    @Test
+    public void expiredCookieIsRefused() {
+        final var codec = newCodec(List.of(KEY));
+        final var value = codec.encode(this.assertion, "ST-1");
+        this.clock.addAndGet(60000);
+        assertNull(codec.decode(value));
+    }
+
+    @Test
+    public void rotatedKeysStillVerifyOldCookies() {
+        final var oldCodec = newCodec(List.of(KEY));
+        final var rotatedCodec = newCodec(Arrays.asList(OTHER_KEY, KEY));
+        final var withoutOldKey = newCodec(List.of(OTHER_KEY));
+        final var oldValue = oldCodec.encode(this.assertion, "ST-1");
+
+        assertNotNull(rotatedCodec.decode(oldValue));
+        assertNull(withoutOldKey.decode(oldValue));
+        assertNotNull(withoutOldKey.decode(rotatedCodec.encode(this.assertion, "ST-2")));
+    }
+
+    @Test
+    public void loggedOutSessionIsRefused() {
+        final var codec = newCodec(List.of(KEY));
+        final var value = codec.encode(this.assertion, "ST-1");
+        final var other = codec.encode(this.assertion, "ST-2");
+
+        this.revocationList.revoke("ST-1");
+
+        assertNull(codec.decode(value));
+        assertNotNull(codec.decode(other));
+    }
+
+    @Test
+    public void cookiesCheckedAgainstALocalListLiveAtMostTheCap() {
+        final var local = new AssertionCookieCodec(List.of(KEY), "CASASSERTION", 28800000, List.of(),
+            this.revocationList, this.clock::get);
+        final var shared = new AssertionCookieCodec(List.of(KEY), "CASASSERTION", 28800000, List.of(),
+            new SingleSignOutFilterTests.SharedStoreRevocationList(), this.clock::get);
+
+        assertEquals(AssertionCookieCodec.MAX_AGE_WITH_LOCAL_REVOCATION, local.getMaxAgeMillis());
+        assertEquals(28800000, shared.getMaxAgeMillis());
+    }
+
+    @Test
+    public void cookieIsWrittenAndRead() {
+        final var codec = newCodec(List.of(KEY));
+        final var request = new MockHttpServletRequest();
+        request.setContextPath("/app");
+        request.setSecure(true);
+        final var response = new MockHttpServletResponse();
+
+        assertTrue(codec.writeCookie(request, response, this.assertion, "ST-1"));
+        final var cookie = response.getCookie("CASASSERTION");
+        assertTrue(cookie.isHttpOnly());
+        assertTrue(cookie.getSecure());
+        assertEquals("/app", cookie.getPath());
+        assertEquals(60, cookie.getMaxAge());
+
+        final var next = new MockHttpServletRequest();
+        next.setCookies(cookie);
+        assertEquals("alice", codec.readCookie(next).getPrincipal().getName());
+    }
+
+    @Test
+    public void concurrentSignaturesAreConsistent() throws Exception {
+        final var codec = newCodec(List.of(KEY));
+        final var expected = codec.encode(this.assertion, "ST-1");
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (var i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    for (var j = 0; j < 500; j++) {
+                        if (!expected.equals(codec.encode(this.assertion, "ST-1")) || codec.decode(expected) == null) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (final var result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortKeysAreRefused() {
+        newCodec(List.of(Arrays.copyOf(KEY, 16)));
+    }
+
+    private AssertionCookieCodec newCodec(final List<byte[]> keys) {
+        return new AssertionCookieCodec(keys, "CASASSERTION", 60000, List.of("memberOf", "mail"),
+            this.revocationList, this.clock::get);
+    }
+}
@@ -33,6 +33,8 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockHttpSession;
 
 import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.Assert.*;
 
@@ -87,6 +89,27 @@ public class SingleSignOutFilterTests {
         assertNull(SingleSignOutFilter.getSingleSignOutHandler().getSessionMappingStorage().removeSessionByMappingId(TICKET));
     }
 
+    @Test
+    public void backChannelRequestRevokesInConfiguredList() throws IOException, ServletException {
+        final var config = new MockFilterConfig();
+        config.addInitParameter(ConfigurationKeys.SESSION_REVOCATION_LIST_CLASS.getName(), SharedStoreRevocationList.class.getName());
+        final var configuredFilter = new SingleSignOutFilter();
+        configuredFilter.init(config);
+        final var ticket = "ST-shared";
+        try {
+            request.setParameter(ConfigurationKeys.LOGOUT_PARAMETER_NAME.getDefaultValue(),
+                LogoutMessageGenerator.generateBackChannelLogoutMessage(ticket));
+            request.setMethod("POST");
+            configuredFilter.doFilter(request, response, filterChain);
+
+            final var revocationList = SessionRevocationList.getInstance(SharedStoreRevocationList.class);
+            assertTrue(revocationList.isRevoked(SessionRevocationList.digest(ticket)));
+            assertFalse(SessionRevocationList.getSharedInstance().isRevoked(SessionRevocationList.digest(ticket)));
+        } finally {
+            SingleSignOutFilter.getSingleSignOutHandler().setSessionRevocationList(SessionRevocationList.getSharedInstance());
+        }
+    }
+
     @Test
     public void frontChannelRequest() throws IOException, ServletException {
         final var logoutMessage = LogoutMessageGenerator.generateFrontChannelLogoutMessage(TICKET);
@@ -113,4 +136,26 @@ public class SingleSignOutFilterTests {
         filter.doFilter(request, response, filterChain);
         assertNull(SingleSignOutFilter.getSingleSignOutHandler().getSessionMappingStorage().removeSessionByMappingId(TICKET));
     }
+
+    /**
+     * Stands for a list kept in a store shared by the nodes of a cluster.
+     */
+    public static class SharedStoreRevocationList implements SessionRevocationList {
+
+        private static final Set<String> STORE = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void retainAtLeast(final long millis) {
+        }
+
+        @Override
+        public void revoke(final String sessionIndex) {
+            STORE.add(SessionRevocationList.digest(sessionIndex));
+        }
+
+        @Override
+        public boolean isRevoked(final String digest) {
+            return STORE.contains(digest);
+        }
+    }
 }
@@ -124,6 +124,17 @@ public final class SingleSignOutHandlerTests {
         assertTrue(session.isInvalid());
     }
 
+    @Test
+    public void backChannelLogoutRevokesAssertionCookies() {
+        final var revocationList = new InMemorySessionRevocationList();
+        revocationList.retainAtLeast(60000);
+        handler.setSessionRevocationList(revocationList);
+        doBackChannelLogout();
+        assertFalse(handler.process(request, response));
+        assertTrue(revocationList.isRevoked(SessionRevocationList.digest(TICKET)));
+        assertFalse(revocationList.isRevoked(SessionRevocationList.digest("ST-other")));
+    }
+
     @Test
     public void backChannelLogoutDoesNotRunIfPathIsNotEligibleForLogout() {
         handler.setLogoutCallbackPath("/logout");
@@ -0,0 +1,92 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link AdaptiveConcurrencyLimiter}.
+ *
+ * @since 4.0.5
+ */
+public final class AdaptiveConcurrencyLimiterTests extends TestCase {
+
+    private static final long BASELINE = TimeUnit.MILLISECONDS.toNanos(10);
+
+    public void testRefusesCallsBeyondTheLimit() {
+        final var limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 500);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+        assertEquals(500, limiter.getRetryAfterMillis());
+    }
+
+    public void testGrowsWhileLatencyStaysAtBaseline() {
+        final var limiter = new AdaptiveConcurrencyLimiter(4, 1, 50, 1000);
+        for (var round = 0; round < 10; round++) {
+            saturate(limiter, BASELINE);
+        }
+        assertTrue(limiter.getLimit() > 4);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    public void testShrinksWhenCallsQueueAtTheServer() {
+        final var limiter = new AdaptiveConcurrencyLimiter(40, 1, 50, 1000);
+        saturate(limiter, BASELINE);
+        final var before = limiter.getLimit();
+        for (var round = 0; round < 5; round++) {
+            saturate(limiter, BASELINE * 10);
+        }
+        assertTrue(limiter.getLimit() < before);
+    }
+
+    public void testDropsCutTheLimitDownToTheMinimum() {
+        final var limiter = new AdaptiveConcurrencyLimiter(10, 2, 50, 1000);
+        for (var i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onDropped();
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    public void testIdleSamplesLeaveTheLimitUnchanged() {
+        final var limiter = new AdaptiveConcurrencyLimiter(20, 1, 50, 1000);
+        for (var i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onSample(BASELINE);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    private static void saturate(final AdaptiveConcurrencyLimiter limiter, final long rttNanos) {
+        var acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (var i = 0; i < acquired; i++) {
+            limiter.onSample(rttNanos);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link CasServerPool}.
+ *
+ * @since 4.0.5
+ */
+public final class CasServerPoolTests extends TestCase {
+
+    private final Set<String> answering = ConcurrentHashMap.newKeySet();
+
+    private CasServerPool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.pool = new CasServerPool(List.of("http://cas1/cas", "http://cas2/cas"), 2, 20, this.answering::contains);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.pool.close();
+    }
+
+    public void testParsesCommaAndWhitespaceSeparatedPrefixes() {
+        assertEquals(List.of("https://a/cas", "https://b/cas", "https://c/cas"),
+            CasServerPool.parseUrlPrefixes(" https://a/cas, https://b/cas\n\thttps://c/cas "));
+    }
+
+    public void testPrefersTheFasterNode() {
+        final var slow = this.pool.getEndpoints().get(0);
+        final var fast = this.pool.getEndpoints().get(1);
+        assertSame(slow, this.pool.choose(fast));
+        this.pool.onSuccess(slow, TimeUnit.MILLISECONDS.toNanos(500));
+        assertSame(fast, this.pool.choose(slow));
+        this.pool.onSuccess(fast, TimeUnit.MILLISECONDS.toNanos(5));
+
+        for (var i = 0; i < 10; i++) {
+            final var endpoint = this.pool.choose(null);
+            assertSame(fast, endpoint);
+            this.pool.onSuccess(endpoint, TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertEquals("http://cas2/cas/", fast.getUrlPrefix());
+    }
+
+    public void testFailuresDoNotChangeTheLatencyOfANode() {
+        final var failing = this.pool.getEndpoints().get(0);
+        final var healthy = this.pool.getEndpoints().get(1);
+        assertSame(failing, this.pool.choose(healthy));
+        this.pool.onSuccess(failing, TimeUnit.MILLISECONDS.toNanos(50));
+        assertSame(healthy, this.pool.choose(failing));
+        this.pool.onSuccess(healthy, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertSame(failing, this.pool.choose(healthy));
+        this.pool.onFailure(failing, TimeUnit.MICROSECONDS.toNanos(100));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), failing.getLatencyNanos());
+
+        final var endpoint = this.pool.choose(null);
+        assertSame(healthy, endpoint);
+        this.pool.release(endpoint);
+    }
+
+    public void testEjectsFailingNodeAndReadmitsItOnceProbed() throws Exception {
+        final var failing = this.pool.getEndpoints().get(0);
+        final var healthy = this.pool.getEndpoints().get(1);
+        assertSame(failing, this.pool.choose(healthy));
+        this.pool.onFailure(failing, 1000);
+        assertFalse(failing.isEjected());
+        assertSame(failing, this.pool.choose(healthy));
+        this.pool.onFailure(failing, 1000);
+        assertTrue(failing.isEjected());
+
+        for (var i = 0; i < 10; i++) {
+            final var endpoint = this.pool.choose(null);
+            assertSame(healthy, endpoint);
+            this.pool.release(endpoint);
+        }
+
+        this.answering.add(failing.getUrlPrefix());
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (failing.isEjected() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(failing.isEjected());
+    }
+
+    public void testFallsBackToEjectedNodesWhenNoneIsHealthy() {
+        final var first = this.pool.getEndpoints().get(0);
+        final var second = this.pool.getEndpoints().get(1);
+        for (var i = 0; i < 2; i++) {
+            this.pool.onFailure(this.pool.choose(second), 1000);
+        }
+        for (var i = 0; i < 2; i++) {
+            this.pool.onFailure(this.pool.choose(first), 1000);
+        }
+        assertTrue(first.isEjected());
+        assertTrue(second.isEjected());
+
+        final var endpoint = this.pool.choose(first);
+        assertSame(second, endpoint);
+        this.pool.release(endpoint);
+    }
+}
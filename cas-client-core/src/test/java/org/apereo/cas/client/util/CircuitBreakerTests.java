@@ -0,0 +1,110 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link CircuitBreaker}.
+ *
+ * @since 4.0.5
+ */
+public final class CircuitBreakerTests extends TestCase {
+
+    private long now = 1_000_000_000L;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, 1000, () -> this.now);
+
+    public void testStaysClosedBelowMinimumCalls() {
+        assertTrue(this.breaker.tryAcquirePermission());
+        this.breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+        assertEquals(0, this.breaker.getRemainingOpenMillis());
+    }
+
+    public void testOpensOnceFailureRateIsReached() {
+        this.breaker.onSuccess();
+        this.breaker.onSuccess();
+        this.breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+        this.breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+        assertFalse(this.breaker.tryAcquirePermission());
+        final var remaining = this.breaker.getRemainingOpenMillis();
+        assertTrue(remaining >= 800 && remaining <= 1200);
+    }
+
+    public void testWindowForgetsOldestOutcomes() {
+        this.breaker.onFailure();
+        for (var i = 0; i < 4; i++) {
+            this.breaker.onSuccess();
+        }
+        this.breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+    }
+
+    public void testHalfOpenLetsOneProbeThroughAndClosesOnSuccess() {
+        trip();
+        this.now += TimeUnit.MILLISECONDS.toNanos(1200);
+
+        assertTrue(this.breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, this.breaker.getState());
+        assertFalse(this.breaker.tryAcquirePermission());
+        this.breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+        assertTrue(this.breaker.tryAcquirePermission());
+    }
+
+    public void testFailedProbeReopens() {
+        trip();
+        this.now += TimeUnit.MILLISECONDS.toNanos(1200);
+
+        assertTrue(this.breaker.tryAcquirePermission());
+        this.breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+        assertFalse(this.breaker.tryAcquirePermission());
+    }
+
+    public void testRetryBudgetIsAFractionOfCalls() {
+        final var budget = new RetryBudget(0.5, 10, 50, 200);
+        assertFalse(budget.tryAcquireRetry());
+        budget.onCall();
+        budget.onCall();
+
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+        for (var retry = 1; retry < 10; retry++) {
+            final var backoff = budget.nextBackoffMillis(retry);
+            assertTrue(backoff >= 0 && backoff <= Math.min(200, 50L << (retry - 1)));
+        }
+    }
+
+    private void trip() {
+        this.breaker.onFailure();
+        this.breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+    }
+}
@@ -20,6 +20,7 @@ package org.apereo.cas.client.util;
 
 import org.apereo.cas.client.authentication.AttributePrincipal;
 import org.apereo.cas.client.authentication.AttributePrincipalImpl;
+import org.apereo.cas.client.session.AssertionCookieCodec;
 import org.apereo.cas.client.validation.AssertionImpl;
 
 import jakarta.servlet.FilterChain;
@@ -33,7 +34,9 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockHttpSession;
 
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -62,6 +65,30 @@ public final class HttpServletRequestWrapperFilterTests extends TestCase {
         filter.destroy();
     }
 
+    public void testAssertionCookieWithoutSession() throws Exception {
+        final var secretKey = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes("US-ASCII"));
+        final var config = new MockFilterConfig();
+        config.addInitParameter("assertionCookieSecretKeys", secretKey);
+        config.addInitParameter("assertionCookieAttributes", "memberOf");
+        config.addInitParameter("roleAttribute", "memberOf");
+        final var filter = new HttpServletRequestWrapperFilter();
+        filter.init(config);
+
+        final var codec = new AssertionCookieCodec(AssertionCookieCodec.parseSecretKeys(secretKey), "CASASSERTION",
+            60000, List.of("memberOf"));
+        final var login = new MockHttpServletResponse();
+        codec.writeCookie(new MockHttpServletRequest(), login, new AssertionImpl(new AttributePrincipalImpl("alice",
+            Map.of("memberOf", "administrators"))), "ST-1");
+        final var request = new MockHttpServletRequest();
+        request.setCookies(login.getCookie("CASASSERTION"));
+
+        filter.doFilter(request, new MockHttpServletResponse(), createFilterChain());
+        assertEquals("alice", this.mockRequest.getRemoteUser());
+        assertTrue(this.mockRequest.isUserInRole("administrators"));
+
+        filter.destroy();
+    }
+
     public void testIsUserInRole() throws Exception {
         final var request = new MockHttpServletRequest();
         final HttpSession session = new MockHttpSession();
@@ -117,6 +144,46 @@ public final class HttpServletRequestWrapperFilterTests extends TestCase {
         filter.destroy();
     }
 
+    public void testRoleIndexIsReusedUntilAssertionChanges() throws Exception {
+        final HttpSession session = new MockHttpSession();
+        final var config = new MockFilterConfig();
+
+        config.addInitParameter("roleAttribute", "memberOf");
+        config.addInitParameter("ignoreCase", "true");
+        final var filter = new HttpServletRequestWrapperFilter();
+        filter.init(config);
+
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put("memberOf", Arrays.asList("Staff", "Admins"));
+        session.setAttribute(AbstractCasFilter.CONST_CAS_ASSERTION,
+            new AssertionImpl(new AttributePrincipalImpl("alice", attributes)));
+
+        var request = new MockHttpServletRequest();
+        request.setSession(session);
+        filter.doFilter(request, new MockHttpServletResponse(), createFilterChain());
+        assertTrue(this.mockRequest.isUserInRole("staff"));
+        assertTrue(this.mockRequest.isUserInRole("aDMINS"));
+        final var index = session.getAttribute(HttpServletRequestWrapperFilter.CONST_CAS_ROLE_INDEX);
+        assertNotNull(index);
+
+        request = new MockHttpServletRequest();
+        request.setSession(session);
+        filter.doFilter(request, new MockHttpServletResponse(), createFilterChain());
+        assertTrue(this.mockRequest.isUserInRole("STAFF"));
+        assertSame(index, session.getAttribute(HttpServletRequestWrapperFilter.CONST_CAS_ROLE_INDEX));
+
+        session.setAttribute(AbstractCasFilter.CONST_CAS_ASSERTION,
+            new AssertionImpl(new AttributePrincipalImpl("bob", Map.of("memberOf", "guests"))));
+        request = new MockHttpServletRequest();
+        request.setSession(session);
+        filter.doFilter(request, new MockHttpServletResponse(), createFilterChain());
+        assertFalse(this.mockRequest.isUserInRole("staff"));
+        assertTrue(this.mockRequest.isUserInRole("Guests"));
+        assertNotSame(index, session.getAttribute(HttpServletRequestWrapperFilter.CONST_CAS_ROLE_INDEX));
+
+        filter.destroy();
+    }
+
     private FilterChain createFilterChain() {
         return (request, response) -> HttpServletRequestWrapperFilterTests.this.mockRequest = (HttpServletRequest) request;
     }
@@ -0,0 +1,78 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link LruCache}.
+ *
+ * @since 4.0.5
+ */
+public final class LruCacheTests extends TestCase {
+
+    public void testEvictsLeastRecentlyUsedEntry() {
+        final var cache = new LruCache<String, String>(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    public void testComputeIfAbsentOnlyComputesOnMiss() {
+        final var cache = new LruCache<String, String>(2);
+        final var calls = new int[1];
+        assertEquals("A", cache.computeIfAbsent("a", k -> {
+            calls[0]++;
+            return k.toUpperCase();
+        }));
+        assertEquals("A", cache.computeIfAbsent("a", k -> {
+            calls[0]++;
+            return k.toUpperCase();
+        }));
+        assertEquals(1, calls[0]);
+    }
+
+    public void testStripedCacheNeverExceedsMaxSize() {
+        final var cache = new LruCache<Integer, Integer>(LruCache.MIN_STRIPED_SIZE);
+        for (var i = 0; i < LruCache.MIN_STRIPED_SIZE * 4; i++) {
+            cache.put(i, i);
+            assertEquals(Integer.valueOf(i), cache.get(i));
+        }
+        assertTrue(cache.size() <= LruCache.MIN_STRIPED_SIZE);
+        assertTrue(cache.size() > LruCache.MIN_STRIPED_SIZE / 2);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testInvalidSize() {
+        try {
+            new LruCache<String, String>(0);
+            fail("IllegalArgumentException expected");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
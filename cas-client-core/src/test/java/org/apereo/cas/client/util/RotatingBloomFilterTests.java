@@ -0,0 +1,72 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link RotatingBloomFilter}.
+ *
+ * @since 4.0.5
+ */
+public final class RotatingBloomFilterTests extends TestCase {
+
+    public void testRemembersAddedValues() {
+        final var filter = new RotatingBloomFilter(1000, 0.001, 60000);
+        for (var i = 0; i < 1000; i++) {
+            filter.put("ST-" + i);
+        }
+        for (var i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("ST-" + i));
+        }
+    }
+
+    public void testFalsePositivesStayNearTheConfiguredRate() {
+        final var filter = new RotatingBloomFilter(1000, 0.01, 60000);
+        for (var i = 0; i < 1000; i++) {
+            filter.put("ST-" + i);
+        }
+        var falsePositives = 0;
+        for (var i = 0; i < 10000; i++) {
+            if (filter.mightContain("TGT-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("Too many false positives: " + falsePositives, falsePositives < 300);
+    }
+
+    public void testForgetsValuesAfterTwoRotations() throws Exception {
+        final var filter = new RotatingBloomFilter(100, 0.001, 50);
+        filter.put("ST-1");
+        Thread.sleep(60);
+        assertTrue(filter.mightContain("ST-1"));
+        Thread.sleep(60);
+        assertFalse(filter.mightContain("ST-1"));
+    }
+
+    public void testRotatesEarlyOnceAGenerationIsFull() {
+        final var filter = new RotatingBloomFilter(10, 0.001, 60000);
+        filter.put("ST-first");
+        for (var i = 0; i < 20; i++) {
+            filter.put("ST-" + i);
+        }
+        assertFalse(filter.mightContain("ST-first"));
+        assertTrue(filter.mightContain("ST-19"));
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import org.apereo.cas.client.validation.Assertion;
+import org.apereo.cas.client.validation.AssertionImpl;
+
+import junit.framework.TestCase;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for {@link ScopedAssertionFilter} and {@link AssertionHolder#runWithAssertion(Assertion, AssertionHolder.ScopedAction)}.
+ *
+ * @since 4.0.5
+ */
+public final class ScopedAssertionFilterTests extends TestCase {
+
+    public void testAssertionIsBoundForTheChainOnly() throws Exception {
+        final var filter = new ScopedAssertionFilter();
+        final var request = new MockHttpServletRequest();
+        final var session = new MockHttpSession();
+        final Assertion assertion = new AssertionImpl("alice");
+        session.setAttribute(AbstractCasFilter.CONST_CAS_ASSERTION, assertion);
+        request.setSession(session);
+        final var seen = new AtomicReference<Assertion>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> seen.set(AssertionHolder.getAssertion()));
+
+        assertSame(assertion, seen.get());
+        assertNull(AssertionHolder.getAssertion());
+    }
+
+    public void testNestedBindingsAreRestored() throws Exception {
+        final Assertion outer = new AssertionImpl("outer");
+        final Assertion inner = new AssertionImpl("inner");
+
+        AssertionHolder.runWithAssertion(outer, () -> {
+            assertSame(outer, AssertionHolder.getAssertion());
+            AssertionHolder.runWithAssertion(inner, () -> assertSame(inner, AssertionHolder.getAssertion()));
+            assertSame(outer, AssertionHolder.getAssertion());
+        });
+
+        assertNull(AssertionHolder.getAssertion());
+    }
+
+    public void testCheckedExceptionsPropagate() {
+        try {
+            AssertionHolder.runWithAssertion(new AssertionImpl("alice"), () -> {
+                throw new IOException("boom");
+            });
+            fail("IOException expected");
+        } catch (final IOException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertNull(AssertionHolder.getAssertion());
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link SeededHash}.
+ *
+ * @since 4.0.5
+ */
+public final class SeededHashTests extends TestCase {
+
+    public void testSameSeedGivesTheSameHashes() {
+        assertTrue(Arrays.equals(SeededHash.doubleHash("ST-1", 42), SeededHash.doubleHash("ST-1", 42)));
+    }
+
+    public void testSeedChangesTheHashes() {
+        final var first = SeededHash.doubleHash("ST-1", 42);
+        final var second = SeededHash.doubleHash("ST-1", 43);
+        assertTrue(first[0] != second[0] && first[1] != second[1]);
+    }
+
+    public void testStepIsOdd() {
+        for (var i = 0; i < 1000; i++) {
+            assertEquals(1, SeededHash.doubleHash("ST-" + i, i)[1] & 1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import junit.framework.TestCase;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.regex.Pattern;
+
+/**
+ * Tests for {@link TrustedProxyClientAddressResolver}.
+ *
+ * @since 4.0.5
+ */
+public final class TrustedProxyClientAddressResolverTests extends TestCase {
+
+    private final TrustedProxyClientAddressResolver resolver = new TrustedProxyClientAddressResolver("X-Forwarded-For",
+        Pattern.compile("10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}"));
+
+    public void testHeaderOfUntrustedClientIsIgnored() {
+        final var request = request("198.51.100.7", "203.0.113.9");
+        assertEquals("198.51.100.7", this.resolver.resolveClientAddress(request));
+    }
+
+    public void testClosestUntrustedHopIsTheClient() {
+        final var request = request("10.0.0.1", "203.0.113.9, 198.51.100.7, 10.0.0.2");
+        assertEquals("198.51.100.7", this.resolver.resolveClientAddress(request));
+    }
+
+    public void testHopsOfSeveralHeadersAreWalked() {
+        final var request = request("10.0.0.1", "198.51.100.7");
+        request.addHeader("X-Forwarded-For", "10.0.0.3");
+        assertEquals("198.51.100.7", this.resolver.resolveClientAddress(request));
+    }
+
+    public void testRequestWithoutHeaderIsTheProxy() {
+        final var request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        assertEquals("10.0.0.1", this.resolver.resolveClientAddress(request));
+    }
+
+    public void testFarthestHopWhenAllAreTrusted() {
+        final var request = request("10.0.0.1", "10.0.0.3, 10.0.0.2");
+        assertEquals("10.0.0.3", this.resolver.resolveClientAddress(request));
+    }
+
+    private static MockHttpServletRequest request(final String remoteAddress, final String forwardedFor) {
+        final var request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+}
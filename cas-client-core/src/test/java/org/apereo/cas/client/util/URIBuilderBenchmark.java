@@ -0,0 +1,90 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of {@link URIBuilder} over the uris and query strings exercised by {@link URIBuilderTests}
+ * and {@link WebUtilsTests}.  Not run by the test suite; run with:
+ * <pre>
+ * mvn -pl cas-client-core test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.apereo.cas.client.util.URIBuilderBenchmark
+ * </pre>
+ *
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class URIBuilderBenchmark {
+
+    @Param({
+        "http://apache.org/shindig?hello=world#foo",
+        "http://www.example.com/foo?bar=baz&quux=baz",
+        "http://apache.org/shindig?foo=bar%26baz&foo=three%3Dbaz#blah",
+        "http://apache.org/foo/bar?foo=bar&a=b&c=d&y=z&foo=zoo#foo"
+    })
+    public String uri;
+
+    @Param({
+        "service=this&ticket=that&custom=custom",
+        "TARGET%3Dthis%26SAMLart%3Dthat%26custom%3Dcustom%20value%20here%26another%3Dgood",
+        "conversation=e1s1&ticket=ST-1234-123456789-a&entityId=https://test.edu/sp?alias=1234-1234-1234-1234&something=else"
+    })
+    public String queryString;
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(URIBuilderBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Benchmark
+    public String digestAndBuild() {
+        return new URIBuilder(this.uri, true).toString();
+    }
+
+    @Benchmark
+    public String parseAndEncodeQuery() {
+        return new URIBuilder("https://www.myserver.com/hello/hithere/", true)
+            .setParameters(this.queryString)
+            .toString();
+    }
+
+    @Benchmark
+    public String urlEncode() {
+        return CommonUtils.urlEncode(this.queryString);
+    }
+}
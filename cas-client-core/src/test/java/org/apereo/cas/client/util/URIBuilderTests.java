@@ -42,8 +42,12 @@ package org.apereo.cas.client.util;
 import org.junit.Test;
 
 import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -329,5 +333,51 @@ public class URIBuilderTests {
         assertEquals(uri.hashCode(), uri2.hashCode());
     }
 
+    @Test
+    public void formEncodingMatchesUrlEncoder() {
+        final var random = new Random(42);
+        final var alphabet = "aZ09-_.*~ +&=?/#%:;@!$'()\u00e9\u4e2d\ud83d\ude00\ud83d\u0000\n";
+        for (var i = 0; i < 5000; i++) {
+            final var sb = new StringBuilder();
+            final var length = random.nextInt(12);
+            for (var j = 0; j < length; j++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            final var value = sb.toString();
+            assertEquals(value, URLEncoder.encode(value, StandardCharsets.UTF_8), CommonUtils.urlEncode(value));
+        }
+    }
 
+    @Test
+    public void queryParsingMatchesSplitAndUrlDecoder() {
+        final var queries = new String[]{"a=b", "a=b&c=d", "a", "a&", "&a", "a&&b", "&&", "=", "a=", "=b",
+            "a=b=c", "hello+world=world%26bar", "foo=bar%26baz&foo=three%3Dbaz",
+            "TARGET%3Dthis%26SAMLart%3Dthat%26custom%3Dcustom%20value%20here%26another%3Dgood",
+            "conversation=e1s1&ticket=ST-1234-123456789-a&entityId=https://test.edu/sp?alias=1234&something=else",
+            "caf%C3%A9=%E4%B8%AD&x=%F0%9F%98%80"};
+        for (final var query : queries) {
+            final List<URIBuilder.BasicNameValuePair> expected = new ArrayList<>();
+            for (final var parameter : query.split("&")) {
+                final var index = parameter.indexOf('=');
+                if (index != -1) {
+                    expected.add(new URIBuilder.BasicNameValuePair(
+                        URLDecoder.decode(parameter.substring(0, index), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(index + 1), StandardCharsets.UTF_8)));
+                } else {
+                    expected.add(new URIBuilder.BasicNameValuePair(URLDecoder.decode(parameter, StandardCharsets.UTF_8), ""));
+                }
+            }
+            assertEquals(query, expected, new URIBuilder().setParameters(query).getQueryParams());
+        }
+    }
+
+    @Test
+    public void ipv6HostsAreBracketed() {
+        assertEquals("http://[2001:db8:0:0:0:0:2:1]/", new URIBuilder().setScheme("http")
+            .setHost("2001:db8:0:0:0:0:2:1").setPath("/").toString());
+        assertEquals("http://2001:db8::2:1/", new URIBuilder().setScheme("http")
+            .setHost("2001:db8::2:1").setPath("/").toString());
+        assertEquals("http://apache.org/", new URIBuilder().setScheme("http")
+            .setHost("apache.org").setPath("/").toString());
+    }
 }
@@ -218,6 +218,79 @@ public final class WebUtilsTests extends TestCase {
                 constructedUrl);
     }
 
+    public void testCachedServiceUrlMatchesUncachedServiceUrl() {
+        final var serverNames = new String[]{"www.myserver.com", "https://www.myserver.com/app",
+            "www.amazon.com www.bestbuy.com www.myserver.com", "http://www.amazon.com https://www.myserver.com:8443"};
+        final var uris = new String[]{"/", "/hello/hithere/", "/idp/authN/ExtCas", "/caf%C3%A9/menu"};
+        final var queryStrings = new String[]{null, "", "service=this&ticket=that&custom=custom",
+            "TARGET%3Dthis%26SAMLart%3Dthat%26custom%3Dcustom%20value%20here%26another%3Dgood",
+            "TARGET=this&SAMLart=that&custom=custom+value+here&another=good",
+            "conversation=e1s1&ticket=ST-1234-123456789-a&entityId=https://test.edu/sp?alias=1234&something=else",
+            "a=1&a=2&b&=c&d=%26%3D"};
+        final var protocols = new Protocol[]{Protocol.CAS2, Protocol.SAML11};
+        final var ports = new int[]{443, 555};
+        final var hosts = new String[]{"www.myserver.com", "www.bestbuy.com"};
+
+        final var cache = new LruCache<WebUtils.ServiceUrlKey, String>(16);
+        for (var pass = 0; pass < 2; pass++) {
+            for (final var serverName : serverNames) {
+                for (final var uri : uris) {
+                    for (final var queryString : queryStrings) {
+                        for (final var protocol : protocols) {
+                            for (final var port : ports) {
+                                for (final var host : hosts) {
+                                    for (final var encode : new boolean[]{true, false}) {
+                                        final var request = new MockHttpServletRequest("GET", uri);
+                                        request.addHeader("Host", host);
+                                        request.setScheme(port == 443 ? "https" : "http");
+                                        request.setSecure(port == 443);
+                                        request.setServerPort(port);
+                                        request.setQueryString(queryString);
+                                        final HttpServletResponse response = new MockHttpServletResponse();
+
+                                        final var expected = WebUtils.constructServiceUrl(request, response, null, serverName,
+                                            protocol.getServiceParameterName(), protocol.getArtifactParameterName(), encode);
+                                        final var cached = WebUtils.constructServiceUrl(request, response, null, serverName,
+                                            protocol.getServiceParameterName(), protocol.getArtifactParameterName(), encode, cache);
+                                        assertEquals(expected, cached);
+                                        assertEquals(expected, WebUtils.constructServiceUrl(request, response, null, serverName,
+                                            protocol.getServiceParameterName(), protocol.getArtifactParameterName(), encode, cache));
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(16, cache.size());
+    }
+
+    public void testServiceUrlCacheKeyLeavesOutTheTicket() {
+        final var cache = new LruCache<WebUtils.ServiceUrlKey, String>(16);
+        for (final var ticket : new String[]{"ST-1", "ST-2", "ST-3"}) {
+            final var request = new MockHttpServletRequest("GET", "/hello/hithere/");
+            request.setScheme("https");
+            request.setSecure(true);
+            request.setServerPort(443);
+            request.setQueryString("a=1&ticket=" + ticket + "&service=https%3A%2F%2Fother&b=2");
+            final HttpServletResponse response = new MockHttpServletResponse();
+            assertEquals("https://www.myserver.com/hello/hithere/?a=1&b=2", WebUtils.constructServiceUrl(request, response,
+                null, "www.myserver.com", "service", "ticket", false, cache));
+        }
+        assertEquals(1, cache.size());
+    }
+
+    public void testServiceUrlCacheIsBypassedForConfiguredService() {
+        final var request = new MockHttpServletRequest("GET", "/hello/hithere/");
+        final HttpServletResponse response = new MockHttpServletResponse();
+        final var cache = new LruCache<WebUtils.ServiceUrlKey, String>(16);
+        final var constructedUrl = WebUtils.constructServiceUrl(request, response, "https://www.myserver.com/app",
+            "www.myserver.com", "service", "ticket", false, cache);
+        assertEquals("https://www.myserver.com/app", constructedUrl);
+        assertEquals(0, cache.size());
+    }
+
     private static void constructUrlNonStandardPortAndNoPortInConfigTest(final String serverNameList) {
         final var CONST_MY_URL = "https://www.myserver.com:555/hello/hithere/";
         final var request = new MockHttpServletRequest("GET", "/hello/hithere/");
@@ -0,0 +1,308 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.util.TrustedProxyClientAddressResolver;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+
+import junit.framework.TestCase;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Unit test for the asynchronous validation of {@link AbstractTicketValidationFilter}.
+ *
+ * @since 4.0.5
+ */
+public class AbstractTicketValidationFilterTests extends TestCase {
+
+    private final StubAsyncTicketValidator ticketValidator = new StubAsyncTicketValidator();
+
+    private final AtomicBoolean chainInvoked = new AtomicBoolean();
+
+    private final FilterChain filterChain = (request, response) -> chainInvoked.set(true);
+
+    private Cas20ProxyReceivingTicketValidationFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.filter = new Cas20ProxyReceivingTicketValidationFilter();
+        this.filter.setServerName("https://localhost:8443");
+        this.filter.setTicketValidator(this.ticketValidator);
+        this.filter.setAsyncValidation(true);
+        this.request = new MockHttpServletRequest("GET", "/app");
+        this.request.setQueryString("ticket=ST-1");
+        this.request.addParameter("ticket", "ST-1");
+        this.request.setAsyncSupported(true);
+        this.response = new MockHttpServletResponse();
+    }
+
+    public void testSuccessfulValidationRedirectsOnAsyncDispatch() throws Exception {
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+        assertTrue(this.request.isAsyncStarted());
+        assertNull(this.response.getRedirectedUrl());
+
+        this.ticketValidator.future.complete(new AssertionImpl("alice"));
+        redispatch();
+
+        assertFalse(this.chainInvoked.get());
+        assertEquals("https://localhost:8443/app", this.response.getRedirectedUrl());
+        final var assertion = (Assertion) this.request.getSession().getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION);
+        assertEquals("alice", assertion.getPrincipal().getName());
+    }
+
+    public void testSuccessfulValidationContinuesChainWithoutRedirect() throws Exception {
+        this.filter.setRedirectAfterValidation(false);
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+
+        this.ticketValidator.future.complete(new AssertionImpl("alice"));
+        redispatch();
+
+        assertTrue(this.chainInvoked.get());
+        assertNotNull(this.request.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION));
+    }
+
+    public void testHiddenTicketContinuesChainWithoutTicket() throws Exception {
+        this.filter.setHideTicketAfterValidation(true);
+        this.request.setQueryString("page=2&ticket=ST-1");
+        this.request.addParameter("page", "2");
+        final var downstream = new AtomicReference<HttpServletRequest>();
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+
+        this.ticketValidator.future.complete(new AssertionImpl("alice"));
+        this.request.setDispatcherType(DispatcherType.ASYNC);
+        this.filter.doFilter(this.request, this.response, (req, res) -> downstream.set((HttpServletRequest) req));
+
+        assertNull(this.response.getRedirectedUrl());
+        final var seen = downstream.get();
+        assertNull(seen.getParameter("ticket"));
+        assertFalse(seen.getParameterMap().containsKey("ticket"));
+        assertEquals("2", seen.getParameter("page"));
+        assertEquals("page=2", seen.getQueryString());
+        assertFalse(seen.getRequestURL().toString().contains("ST-1"));
+        assertEquals("<https://localhost:8443/app?page=2>; rel=\"canonical\"", this.response.getHeader("Link"));
+        assertNotNull(seen.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION));
+    }
+
+    public void testFailedValidationIsForbidden() throws Exception {
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+
+        this.ticketValidator.future.completeExceptionally(new TicketValidationException("Invalid ticket"));
+        redispatch();
+
+        assertFalse(this.chainInvoked.get());
+        assertEquals(403, this.response.getStatus());
+    }
+
+    public void testUnavailableServerIsServiceUnavailable() throws Exception {
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+
+        this.ticketValidator.future.completeExceptionally(
+            new CasServerUnavailableException("Circuit breaker open", null, 1500));
+        redispatch();
+
+        assertFalse(this.chainInvoked.get());
+        assertEquals(503, this.response.getStatus());
+        assertEquals("2", this.response.getHeader("Retry-After"));
+    }
+
+    public void testRecentlyRejectedTicketIsRedirectedWithoutValidation() throws Exception {
+        this.filter.setNegativeTicketCache(100, 60000);
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+        this.ticketValidator.future.completeExceptionally(TicketValidationException.ticketRejected("Invalid ticket"));
+        redispatch();
+        assertEquals(403, this.response.getStatus());
+
+        final var replay = newRequest("ST-1");
+        final var replayResponse = new MockHttpServletResponse();
+        this.filter.doFilter(replay, replayResponse, this.filterChain);
+
+        assertFalse(replay.isAsyncStarted());
+        assertEquals("https://localhost:8443/app", replayResponse.getRedirectedUrl());
+        assertEquals(1, this.filter.getRejectedFromCacheCount());
+        assertFalse(this.chainInvoked.get());
+
+        final var other = newRequest("ST-2");
+        this.filter.doFilter(other, new MockHttpServletResponse(), this.filterChain);
+        assertTrue(other.isAsyncStarted());
+    }
+
+    public void testClientWithTooManyRejectedTicketsIsThrottled() throws Exception {
+        this.filter.setClientRejectionRate(1, 1);
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+        this.ticketValidator.future.completeExceptionally(TicketValidationException.ticketRejected("Invalid ticket"));
+        redispatch();
+        assertEquals(403, this.response.getStatus());
+
+        final var next = newRequest("ST-2");
+        final var nextResponse = new MockHttpServletResponse();
+        this.filter.doFilter(next, nextResponse, this.filterChain);
+
+        assertFalse(next.isAsyncStarted());
+        assertEquals(429, nextResponse.getStatus());
+        assertNotNull(nextResponse.getHeader("Retry-After"));
+        assertEquals(1, this.filter.getThrottledCount());
+
+        final var otherClient = newRequest("ST-3");
+        otherClient.setRemoteAddr("192.0.2.1");
+        this.filter.doFilter(otherClient, new MockHttpServletResponse(), this.filterChain);
+        assertTrue(otherClient.isAsyncStarted());
+    }
+
+    public void testClientsBehindTrustedProxyAreThrottledIndividually() throws Exception {
+        this.filter.setClientRejectionRate(1, 1);
+        this.filter.setClientAddressResolver(new TrustedProxyClientAddressResolver("X-Forwarded-For",
+            Pattern.compile("10\\.0\\.0\\.\\d+")));
+        this.request.setRemoteAddr("10.0.0.1");
+        this.request.addHeader("X-Forwarded-For", "198.51.100.7");
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+        this.ticketValidator.future.completeExceptionally(TicketValidationException.ticketRejected("Invalid ticket"));
+        redispatch();
+
+        final var sameClient = newRequest("ST-2");
+        sameClient.setRemoteAddr("10.0.0.2");
+        sameClient.addHeader("X-Forwarded-For", "198.51.100.7");
+        final var sameClientResponse = new MockHttpServletResponse();
+        this.filter.doFilter(sameClient, sameClientResponse, this.filterChain);
+        assertEquals(429, sameClientResponse.getStatus());
+
+        final var otherClient = newRequest("ST-3");
+        otherClient.setRemoteAddr("10.0.0.1");
+        otherClient.addHeader("X-Forwarded-For", "203.0.113.9");
+        this.filter.doFilter(otherClient, new MockHttpServletResponse(), this.filterChain);
+        assertTrue(otherClient.isAsyncStarted());
+    }
+
+    public void testFailureToValidateIsNotRecordedAsRejection() throws Exception {
+        this.filter.setNegativeTicketCache(100, 60000);
+        this.filter.setClientRejectionRate(1, 1);
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+        this.ticketValidator.future.completeExceptionally(new TicketValidationException("Ticket validation timed out"));
+        redispatch();
+        assertEquals(403, this.response.getStatus());
+
+        this.ticketValidator.future = new CompletableFuture<>();
+        final var retry = newRequest("ST-1");
+        final var retryResponse = new MockHttpServletResponse();
+        this.filter.doFilter(retry, retryResponse, this.filterChain);
+        assertTrue(retry.isAsyncStarted());
+        this.ticketValidator.future.completeExceptionally(new IllegalStateException("Unexpected"));
+        retry.setDispatcherType(DispatcherType.ASYNC);
+        this.filter.doFilter(retry, retryResponse, this.filterChain);
+        assertEquals(403, retryResponse.getStatus());
+
+        final var next = newRequest("ST-2");
+        this.filter.doFilter(next, new MockHttpServletResponse(), this.filterChain);
+        assertTrue(next.isAsyncStarted());
+        assertEquals(0, this.filter.getRejectedFromCacheCount());
+        assertEquals(0, this.filter.getThrottledCount());
+    }
+
+    public void testMalformedTicketIsRefusedWithoutValidation() throws Exception {
+        this.filter.setMillisBetweenCleanUps(60000);
+        this.filter.init();
+        try {
+            final var malformed = newRequest("<script>");
+            final var malformedResponse = new MockHttpServletResponse();
+            this.filter.doFilter(malformed, malformedResponse, this.filterChain);
+
+            assertFalse(malformed.isAsyncStarted());
+            assertEquals(403, malformedResponse.getStatus());
+            assertEquals(1, this.filter.getMalformedTicketCount());
+            assertFalse(this.chainInvoked.get());
+
+            this.filter.doFilter(this.request, this.response, this.filterChain);
+            assertTrue(this.request.isAsyncStarted());
+        } finally {
+            this.filter.destroy();
+        }
+    }
+
+    public void testTimeoutCancelsValidationAndIsForbidden() throws Exception {
+        this.filter.setAsyncValidationTimeout(100);
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+        final var asyncContext = (MockAsyncContext) this.request.getAsyncContext();
+        assertEquals(100, asyncContext.getTimeout());
+
+        for (final var listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        this.ticketValidator.future.complete(new AssertionImpl("alice"));
+        redispatch();
+
+        assertTrue(this.ticketValidator.future.isCancelled());
+        assertEquals(403, this.response.getStatus());
+        assertTrue(this.response.getErrorMessage().contains("timed out"));
+    }
+
+    public void testSynchronousValidationWhenAsyncIsNotSupported() throws Exception {
+        this.request.setAsyncSupported(false);
+        this.ticketValidator.future.complete(new AssertionImpl("alice"));
+
+        try {
+            this.filter.doFilter(this.request, this.response, this.filterChain);
+            fail("Synchronous validation expected");
+        } catch (final UnsupportedOperationException e) {
+            assertFalse(this.request.isAsyncStarted());
+        }
+    }
+
+    private static MockHttpServletRequest newRequest(final String ticket) {
+        final var request = new MockHttpServletRequest("GET", "/app");
+        request.setQueryString("ticket=" + ticket);
+        request.addParameter("ticket", ticket);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private void redispatch() throws Exception {
+        this.request.setDispatcherType(DispatcherType.ASYNC);
+        this.filter.doFilter(this.request, this.response, this.filterChain);
+    }
+
+    private static final class StubAsyncTicketValidator implements AsyncTicketValidator {
+
+        private CompletableFuture<Assertion> future = new CompletableFuture<>();
+
+        @Override
+        public Assertion validate(final String ticket, final String service) {
+            throw new UnsupportedOperationException("Synchronous validation");
+        }
+
+        @Override
+        public CompletableFuture<Assertion> validateAsync(final String ticket, final String service) {
+            return this.future;
+        }
+    }
+}
@@ -19,11 +19,17 @@
 package org.apereo.cas.client.validation;
 
 import org.apereo.cas.client.PublicTestHttpServer;
+import org.apereo.cas.client.ssl.HttpsURLConnectionFactory;
+import org.apereo.cas.client.util.AdaptiveConcurrencyLimiter;
+import org.apereo.cas.client.util.CasServerPool;
+import org.apereo.cas.client.util.CircuitBreaker;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.UnsupportedEncodingException;
+import java.net.ServerSocket;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -95,4 +101,88 @@ public final class Cas10TicketValidatorTests extends AbstractTicketValidatorTest
         assertTrue(url.contains(encodedValue));
         assertFalse(url.contains(ticket));
     }
+
+    @Test
+    public void testInvalidTicketDoesNotTripCircuitBreaker() throws Exception {
+        final var breaker = new CircuitBreaker(2, 1, 0.5, 60000);
+        this.ticketValidator.setCircuitBreaker(breaker);
+        server.content = "no\n\n".getBytes(server.encoding);
+        try {
+            this.ticketValidator.validate("testTicket", "myService");
+            fail("ValidationException expected.");
+        } catch (final CasServerUnavailableException e) {
+            fail("The CAS server answered.");
+        } catch (final TicketValidationException e) {
+            // expected
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testUnreachableServerOpensCircuitBreaker() throws Exception {
+        final int closedPort;
+        try (var socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        final var validator = new Cas10TicketValidator("http://localhost:" + closedPort);
+        final var breaker = new CircuitBreaker(2, 1, 0.5, 60000);
+        validator.setCircuitBreaker(breaker);
+
+        try {
+            validator.validate("testTicket", "myService");
+            fail("CasServerUnavailableException expected.");
+        } catch (final CasServerUnavailableException e) {
+            assertNotNull(e.getCause());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        try {
+            validator.validate("testTicket", "myService");
+            fail("CasServerUnavailableException expected.");
+        } catch (final CasServerUnavailableException e) {
+            assertNull(e.getCause());
+            assertTrue(e.getRetryAfterMillis() > 0);
+        }
+    }
+
+    @Test
+    public void testServerPoolFailsOverUnreachableNode() throws Exception {
+        final var otherServer = PublicTestHttpServer.instance(8094);
+        server.content = "yes\nusername\n\n".getBytes(server.encoding);
+        otherServer.content = "yes\nusername\n\n".getBytes(otherServer.encoding);
+        final int closedPort;
+        try (var socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        try (var pool = new CasServerPool(List.of(CONST_CAS_SERVER_URL_PREFIX + PORT,
+            CONST_CAS_SERVER_URL_PREFIX + 8094, "http://localhost:" + closedPort), 2, 60000, new HttpsURLConnectionFactory())) {
+            this.ticketValidator.setCasServerPool(pool);
+
+            for (var i = 0; i < 20; i++) {
+                assertEquals("username", this.ticketValidator.validate("testTicket", "myService").getPrincipal().getName());
+            }
+            assertFalse(pool.getEndpoints().get(0).isEjected());
+            assertFalse(pool.getEndpoints().get(1).isEjected());
+            assertTrue(pool.getEndpoints().get(2).isEjected());
+        }
+    }
+
+    @Test
+    public void testValidationsBeyondConcurrencyLimitAreShed() throws Exception {
+        final var limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2000);
+        this.ticketValidator.setConcurrencyLimiter(limiter);
+        server.content = "yes\nusername\n\n".getBytes(server.encoding);
+        assertEquals("username", this.ticketValidator.validate("testTicket", "myService").getPrincipal().getName());
+
+        assertTrue(limiter.tryAcquire());
+        try {
+            this.ticketValidator.validate("testTicket", "myService");
+            fail("CasServerUnavailableException expected.");
+        } catch (final CasServerUnavailableException e) {
+            assertEquals(2000, e.getRetryAfterMillis());
+        } finally {
+            limiter.release();
+        }
+        assertEquals(0, limiter.getInFlight());
+    }
 }
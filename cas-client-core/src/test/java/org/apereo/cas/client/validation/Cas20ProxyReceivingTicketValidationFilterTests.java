@@ -207,6 +207,24 @@ public class Cas20ProxyReceivingTicketValidationFilterTests extends TestCase {
         }
     }
 
+    public void testHedgingRequiresSeveralServerNodes() throws Exception {
+        final var config = new MockFilterConfig();
+        config.addInitParameter("casServerUrlPrefix", "https://cas.example.com");
+        config.addInitParameter("service", "http://www.jasig.org");
+        config.addInitParameter("hedgeValidations", "true");
+        try {
+            new Cas20ProxyReceivingTicketValidationFilter().init(config);
+            fail("Should have thrown IllegalArgumentException.");
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("hedgeValidations"));
+        }
+
+        config.addInitParameter("casServerUrlPrefixes", "https://cas1.example.com/cas, https://cas2.example.com/cas");
+        final var f = new Cas20ProxyReceivingTicketValidationFilter();
+        f.init(config);
+        f.destroy();
+    }
+
     public void testAllowsRenewContextParam() throws Exception {
         final var f = new Cas20ProxyReceivingTicketValidationFilter();
         final var context = new MockServletContext();
@@ -32,8 +32,15 @@ import java.io.Serial;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.security.Principal;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.Assert.*;
 
@@ -190,6 +197,80 @@ public final class Cas20ServiceTicketValidatorTests extends AbstractTicketValida
         }
     }
 
+    @Test
+    public void testValidationUrlCarriesEveryParameter() {
+        this.ticketValidator.setCustomParameters(Map.of("custom", "a b"));
+        final var url = this.ticketValidator.constructValidationUrl("ST-1", "https://example.org/app?x=1&y=2");
+
+        assertTrue(url.startsWith(CONST_CAS_SERVER_URL_PREFIX + "8088/serviceValidate?"));
+        assertEquals(Set.of("ticket=ST-1", "service=https%3A%2F%2Fexample.org%2Fapp%3Fx%3D1%26y%3D2", "renew=true",
+            "pgtUrl=test", "custom=a+b"), queryParameters(url));
+        assertEquals(Set.of("ticket=ST-2", "service=other", "renew=true", "pgtUrl=test", "custom=a+b"),
+            queryParameters(this.ticketValidator.constructValidationUrl("ST-2", "other")));
+    }
+
+    @Test
+    public void testValidationUrlFollowsTheSetters() {
+        this.ticketValidator.constructValidationUrl("ST-1", "service");
+
+        this.ticketValidator.setRenew(false);
+        this.ticketValidator.setProxyCallbackUrl(null);
+        assertEquals(Set.of("ticket=ST-1", "service=service"),
+            queryParameters(this.ticketValidator.constructValidationUrl("ST-1", "service")));
+
+        this.ticketValidator.setCustomParameters(Map.of("service", "overridden"));
+        assertEquals(Set.of("ticket=ST-1", "service=overridden"),
+            queryParameters(this.ticketValidator.constructValidationUrl("ST-1", "service")));
+    }
+
+    @Test
+    public void testValidationRefusedByTheAsyncExecutorIsUnavailable() {
+        this.ticketValidator.setAsyncExecutor(runnable -> {
+            throw new RejectedExecutionException("saturated");
+        });
+        final var validation = this.ticketValidator.validateAsync("ST-1", "service");
+
+        try {
+            validation.join();
+            fail("Should have failed.");
+        } catch (final CompletionException e) {
+            assertTrue(e.getCause() instanceof CasServerUnavailableException);
+            assertTrue(((CasServerUnavailableException) e.getCause()).getRetryAfterMillis() > 0);
+        }
+    }
+
+    @Test
+    public void testCustomParametersAreCopied() {
+        final var customParameters = new HashMap<String, String>();
+        customParameters.put("custom", "before");
+        this.ticketValidator.setCustomParameters(customParameters);
+        customParameters.put("custom", "after");
+
+        assertTrue(queryParameters(this.ticketValidator.constructValidationUrl("ST-1", "service")).contains("custom=before"));
+    }
+
+    @Test
+    public void testSubclassPopulatingParametersOfItsOwnGetsTheActualValues() {
+        final var validator = new Cas20ServiceTicketValidator(CONST_CAS_SERVER_URL_PREFIX + "8088") {
+            @Override
+            protected void populateUrlAttributeMap(final Map<String, String> urlParameters) {
+                super.populateUrlAttributeMap(urlParameters);
+                urlParameters.put("digest", Integer.toHexString(urlParameters.get("ticket").hashCode()));
+                urlParameters.put("service", urlParameters.get("service").toUpperCase());
+            }
+        };
+        validator.setProxyCallbackUrl("test");
+
+        assertEquals(Set.of("ticket=ST-1", "service=SERVICE", "pgtUrl=test", "digest=" + Integer.toHexString("ST-1".hashCode())),
+            queryParameters(validator.constructValidationUrl("ST-1", "service")));
+        assertEquals(Set.of("ticket=ST-2", "service=OTHER", "pgtUrl=test", "digest=" + Integer.toHexString("ST-2".hashCode())),
+            queryParameters(validator.constructValidationUrl("ST-2", "other")));
+    }
+
+    private static Set<String> queryParameters(final String url) {
+        return new HashSet<>(Arrays.asList(url.substring(url.indexOf('?') + 1).split("&")));
+    }
+
     private static ProxyRetriever getProxyRetriever() {
         return new ProxyRetriever() {
 
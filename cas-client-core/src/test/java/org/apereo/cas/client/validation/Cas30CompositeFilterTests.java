@@ -0,0 +1,176 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.util.AssertionHolder;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+
+import junit.framework.TestCase;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit test for {@link Cas30CompositeFilter}.
+ *
+ * @since 4.0.5
+ */
+public class Cas30CompositeFilterTests extends TestCase {
+
+    private Cas30CompositeFilter filter;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.filter = newFilter(new MockFilterConfig());
+    }
+
+    private static Cas30CompositeFilter newFilter(final MockFilterConfig config) throws Exception {
+        config.addInitParameter("casServerUrlPrefix", "https://cas.example.com/cas");
+        config.addInitParameter("casServerLoginUrl", "https://cas.example.com/cas/login");
+        config.addInitParameter("serverName", "localhost:8443");
+        config.addInitParameter("exceptionOnValidationFailure", "false");
+        config.addInitParameter("ignorePattern", "/public/");
+        final var filter = new Cas30CompositeFilter();
+        filter.init(config);
+        filter.setTicketValidator((ticket, service) -> {
+            if ("ST-valid".equals(ticket)) {
+                return new AssertionImpl("alice");
+            }
+            throw new TicketValidationException("Invalid ticket " + ticket);
+        });
+        return filter;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.filter.destroy();
+    }
+
+    public void testAsyncValidationIsRefused() throws Exception {
+        final var config = new MockFilterConfig();
+        config.addInitParameter("asyncValidation", "true");
+        try {
+            newFilter(config);
+            fail("Should have thrown IllegalArgumentException.");
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("asyncValidation"));
+        }
+    }
+
+    public void testRedirectsToLoginWithoutAssertion() throws Exception {
+        final var request = new MockHttpServletRequest("GET", "/app");
+        request.setSecure(true);
+        final var response = new MockHttpServletResponse();
+
+        this.filter.doFilter(request, response, (req, res) -> fail("Chain must not be invoked"));
+
+        assertTrue(response.getRedirectedUrl().startsWith("https://cas.example.com/cas/login?service="));
+    }
+
+    public void testIgnoredUrlPassesThroughWithoutAssertion() throws Exception {
+        final var request = new MockHttpServletRequest("GET", "/public/page");
+        final var invoked = new AtomicReference<Boolean>(Boolean.FALSE);
+
+        this.filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> invoked.set(Boolean.TRUE));
+
+        assertTrue(invoked.get());
+    }
+
+    public void testValidTicketStoresAssertionAndRedirectsToService() throws Exception {
+        final var request = new MockHttpServletRequest("GET", "/app");
+        request.setSecure(true);
+        request.setQueryString("ticket=ST-valid");
+        request.addParameter("ticket", "ST-valid");
+        final var response = new MockHttpServletResponse();
+
+        this.filter.doFilter(request, response, (req, res) -> fail("Chain must not be invoked"));
+
+        assertEquals("https://localhost:8443/app", response.getRedirectedUrl());
+        final var assertion = (Assertion) request.getSession().getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION);
+        assertEquals("alice", assertion.getPrincipal().getName());
+    }
+
+    public void testInvalidTicketIsRejected() throws Exception {
+        final var request = new MockHttpServletRequest("GET", "/app");
+        request.setQueryString("ticket=ST-invalid");
+        request.addParameter("ticket", "ST-invalid");
+        final var response = new MockHttpServletResponse();
+
+        this.filter.doFilter(request, response, (req, res) -> fail("Chain must not be invoked"));
+
+        assertEquals(403, response.getStatus());
+    }
+
+    public void testSessionAssertionIsExposedToChain() throws Exception {
+        final var request = new MockHttpServletRequest("GET", "/app");
+        final var session = new MockHttpSession();
+        final Assertion assertion = new AssertionImpl("alice");
+        session.setAttribute(AbstractCasFilter.CONST_CAS_ASSERTION, assertion);
+        request.setSession(session);
+        final var seenUser = new AtomicReference<String>();
+        final var seenAssertion = new AtomicReference<Assertion>();
+
+        this.filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            seenUser.set(((HttpServletRequest) req).getRemoteUser());
+            seenAssertion.set(AssertionHolder.getAssertion());
+        });
+
+        assertEquals("alice", seenUser.get());
+        assertSame(assertion, seenAssertion.get());
+        assertNull(AssertionHolder.getAssertion());
+    }
+
+    public void testCookieAssertionIsExposedToChainWithoutSession() throws Exception {
+        final var config = new MockFilterConfig();
+        config.addInitParameter("useSession", "false");
+        config.addInitParameter("assertionCookieSecretKeys", Base64.getEncoder().encodeToString(new byte[32]));
+        final var cookieFilter = newFilter(config);
+        try {
+            final var validation = new MockHttpServletRequest("GET", "/app");
+            validation.setSecure(true);
+            validation.setQueryString("ticket=ST-valid");
+            validation.addParameter("ticket", "ST-valid");
+            final var validationResponse = new MockHttpServletResponse();
+            cookieFilter.doFilter(validation, validationResponse, (req, res) -> fail("Chain must not be invoked"));
+            assertEquals("https://localhost:8443/app", validationResponse.getRedirectedUrl());
+            final Cookie cookie = validationResponse.getCookie("CASASSERTION");
+            assertNotNull(cookie);
+
+            final var request = new MockHttpServletRequest("GET", "/app");
+            request.setSecure(true);
+            request.setCookies(cookie);
+            final var response = new MockHttpServletResponse();
+            final var seenUser = new AtomicReference<String>();
+            cookieFilter.doFilter(request, response, (req, res) -> seenUser.set(((HttpServletRequest) req).getRemoteUser()));
+
+            assertNull(response.getRedirectedUrl());
+            assertEquals("alice", seenUser.get());
+            assertNull(request.getSession(false));
+        } finally {
+            cookieFilter.destroy();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit test for {@link CoalescingTicketValidator}.
+ *
+ * @since 4.0.5
+ */
+public final class CoalescingTicketValidatorTests extends TestCase {
+
+    private static final int CALLERS = 8;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch started = new CountDownLatch(CALLERS);
+
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() {
+        this.executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @Override
+    protected void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    public void testConcurrentCallersShareOneValidation() throws Exception {
+        final var validator = new CoalescingTicketValidator((ticket, service) -> {
+            calls.incrementAndGet();
+            awaitRelease();
+            return new AssertionImpl("alice");
+        });
+
+        final var results = submitCallers(validator, "ST-1", "https://app.example.com");
+        awaitCallers();
+        this.release.countDown();
+
+        final var first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (final var result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, this.calls.get());
+
+        validator.validate("ST-1", "https://app.example.com");
+        assertEquals("In-flight entry must be released once delivered", 2, this.calls.get());
+    }
+
+    public void testFailureIsSharedByConcurrentCallers() throws Exception {
+        final var validator = new CoalescingTicketValidator((ticket, service) -> {
+            calls.incrementAndGet();
+            awaitRelease();
+            throw new TicketValidationException("Ticket " + ticket + " not recognized");
+        });
+
+        final var results = submitCallers(validator, "ST-1", "https://app.example.com");
+        awaitCallers();
+        this.release.countDown();
+
+        for (final var result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("TicketValidationException expected");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof TicketValidationException);
+            }
+        }
+        assertEquals(1, this.calls.get());
+    }
+
+    public void testErrorIsSharedByConcurrentCallers() throws Exception {
+        final var validator = new CoalescingTicketValidator((ticket, service) -> {
+            calls.incrementAndGet();
+            awaitRelease();
+            throw new StackOverflowError();
+        });
+
+        final var results = submitCallers(validator, "ST-1", "https://app.example.com");
+        awaitCallers();
+        this.release.countDown();
+
+        for (final var result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("StackOverflowError expected");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof StackOverflowError);
+            }
+        }
+        assertEquals(1, this.calls.get());
+    }
+
+    public void testDifferentServicesAreNotCoalesced() throws Exception {
+        final var validator = new CoalescingTicketValidator((ticket, service) -> {
+            calls.incrementAndGet();
+            return new AssertionImpl(service);
+        });
+
+        assertEquals("a", validator.validate("ST-1", "a").getPrincipal().getName());
+        assertEquals("b", validator.validate("ST-1", "b").getPrincipal().getName());
+        assertEquals(2, this.calls.get());
+    }
+
+    public void testAsyncCallersShareOneValidationAndMayCancelIndependently() throws Exception {
+        final var shared = new CompletableFuture<Assertion>();
+        final var validator = new CoalescingTicketValidator(new AsyncTicketValidator() {
+            @Override
+            public Assertion validate(final String ticket, final String service) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Assertion> validateAsync(final String ticket, final String service) {
+                calls.incrementAndGet();
+                return shared;
+            }
+        });
+
+        final var first = validator.validateAsync("ST-1", "a");
+        final var second = validator.validateAsync("ST-1", "a");
+        first.cancel(true);
+        final var assertion = new AssertionImpl("alice");
+        shared.complete(assertion);
+
+        assertSame(assertion, second.get());
+        assertEquals(1, this.calls.get());
+        validator.validateAsync("ST-1", "a");
+        assertEquals(2, this.calls.get());
+    }
+
+    private List<Future<Assertion>> submitCallers(final TicketValidator validator, final String ticket, final String service) {
+        final List<Future<Assertion>> results = new ArrayList<>();
+        for (var i = 0; i < CALLERS; i++) {
+            results.add(this.executor.submit(() -> {
+                started.countDown();
+                return validator.validate(ticket, service);
+            }));
+        }
+        return results;
+    }
+
+    private void awaitCallers() throws InterruptedException {
+        assertTrue(this.started.await(5, TimeUnit.SECONDS));
+        // give the last callers time to join the in-flight validation
+        Thread.sleep(100);
+    }
+
+    private void awaitRelease() {
+        try {
+            this.release.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.util.CasServerPool;
+import org.apereo.cas.client.util.RetryBudget;
+
+import junit.framework.TestCase;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test for {@link HedgingTicketValidator}.
+ *
+ * @since 4.0.5
+ */
+public final class HedgingTicketValidatorTests extends TestCase {
+
+    private final List<CompletableFuture<Assertion>> requests = new CopyOnWriteArrayList<>();
+
+    private final AsyncTicketValidator stub = new AsyncTicketValidator() {
+        @Override
+        public Assertion validate(final String ticket, final String service) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Assertion> validateAsync(final String ticket, final String service) {
+            final var request = new CompletableFuture<Assertion>();
+            requests.add(request);
+            return request;
+        }
+    };
+
+    public void testFastAnswerIsNotHedged() throws Exception {
+        final var validator = new HedgingTicketValidator(this.stub, 0.95, 200, budget());
+        final var result = validator.validateAsync("ST-1", "a");
+        final var assertion = new AssertionImpl("alice");
+        this.requests.get(0).complete(assertion);
+
+        assertSame(assertion, result.get(1, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(1, this.requests.size());
+        assertEquals(0, validator.getHedgesSent());
+    }
+
+    public void testSlowAnswerIsHedgedAndFirstSuccessWins() throws Exception {
+        final var validator = new HedgingTicketValidator(this.stub, 0.95, 20, budget());
+        final var result = validator.validateAsync("ST-1", "a");
+        awaitRequests(2);
+
+        final var assertion = new AssertionImpl("alice");
+        this.requests.get(1).complete(assertion);
+
+        assertSame(assertion, result.get(1, TimeUnit.SECONDS));
+        assertTrue(this.requests.get(0).isCancelled());
+        assertEquals(1, validator.getHedgesSent());
+        assertEquals(1, validator.getHedgesWon());
+    }
+
+    public void testRejectionOfOneRequestWaitsForTheOther() throws Exception {
+        final var validator = new HedgingTicketValidator(this.stub, 0.95, 20, budget());
+        final var result = validator.validateAsync("ST-1", "a");
+        awaitRequests(2);
+
+        this.requests.get(1).completeExceptionally(new TicketValidationException("Ticket already used"));
+        assertFalse(result.isDone());
+        final var assertion = new AssertionImpl("alice");
+        this.requests.get(0).complete(assertion);
+
+        assertSame(assertion, result.get(1, TimeUnit.SECONDS));
+        assertEquals(0, validator.getHedgesWon());
+    }
+
+    public void testFailsOnceEveryRequestFailed() throws Exception {
+        final var validator = new HedgingTicketValidator(this.stub, 0.95, 20, budget());
+        final var result = validator.validateAsync("ST-1", "a");
+        awaitRequests(2);
+
+        this.requests.get(0).completeExceptionally(new TicketValidationException("Invalid ticket"));
+        this.requests.get(1).completeExceptionally(new TicketValidationException("Ticket already used"));
+
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail("TicketValidationException expected");
+        } catch (final ExecutionException e) {
+            assertEquals("Invalid ticket", e.getCause().getMessage());
+        }
+    }
+
+    public void testHedgesAreBoundedByTheBudget() throws Exception {
+        final var validator = new HedgingTicketValidator(this.stub, 0.95, 20, new RetryBudget(0.5, 1));
+        validator.validateAsync("ST-1", "a");
+        validator.validateAsync("ST-2", "a");
+        awaitRequests(3);
+        validator.validateAsync("ST-3", "a");
+        Thread.sleep(200);
+
+        assertEquals(4, this.requests.size());
+        assertEquals(1, validator.getHedgesSent());
+    }
+
+    public void testHedgeIsSentToAnotherServerNode() throws Exception {
+        try (var pool = new CasServerPool(List.of("http://cas1/cas", "http://cas2/cas"))) {
+            for (var i = 0; i < 10; i++) {
+                final var hosts = new CopyOnWriteArrayList<String>();
+                final var primaryAnswer = new CountDownLatch(1);
+                final var urlBasedValidator = new AbstractUrlBasedTicketValidator("http://cas1/cas") {
+                    @Override
+                    protected String getUrlSuffix() {
+                        return "validate";
+                    }
+
+                    @Override
+                    protected Assertion parseResponseFromServer(final String response) {
+                        return new AssertionImpl(response);
+                    }
+
+                    @Override
+                    protected String retrieveResponseFromServer(final URL validationUrl, final String ticket) {
+                        hosts.add(validationUrl.getHost());
+                        if (hosts.size() == 1) {
+                            try {
+                                primaryAnswer.await(5, TimeUnit.SECONDS);
+                            } catch (final InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return "alice";
+                    }
+                };
+                urlBasedValidator.setCasServerPool(pool);
+                final var validator = new HedgingTicketValidator(urlBasedValidator, 0.95, 20, budget());
+
+                assertEquals("alice", validator.validateAsync("ST-1", "a").get(5, TimeUnit.SECONDS).getPrincipal().getName());
+                primaryAnswer.countDown();
+                assertEquals(2, hosts.size());
+                assertFalse(hosts.get(0).equals(hosts.get(1)));
+            }
+        }
+    }
+
+    private static RetryBudget budget() {
+        return new RetryBudget(1, 10);
+    }
+
+    private void awaitRequests(final int count) throws InterruptedException {
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (this.requests.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, this.requests.size());
+    }
+}
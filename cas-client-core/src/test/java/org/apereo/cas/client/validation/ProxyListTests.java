@@ -0,0 +1,111 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Tests for {@link ProxyList}, checking its index against a linear walk of the allowed chains.
+ *
+ * @since 4.0.5
+ */
+public final class ProxyListTests extends TestCase {
+
+    private static final String[] URLS = {
+        "https://portal.example.org/proxy", "https://portal.example.org/other", "https://app.example.org/proxy",
+        "https://app.example.org/proxy/", "http://legacy.example.org/cb", "https://evil.example.com/proxy"};
+
+    private static final String[] REGEXES = {
+        "^https://portal\\.example\\.org/", "^https://.*/proxy$", "^https://app\\.", "^http://"};
+
+    public void testExactAndRegexLinks() {
+        final var proxyList = new ProxyList(List.of(
+            new String[]{"https://portal.example.org/proxy", "https://app.example.org/proxy"},
+            new String[]{"^https://app\\.", "https://portal.example.org/proxy"},
+            new String[]{"https://legacy.example.org/cb"}));
+
+        assertTrue(proxyList.contains(new String[]{"https://portal.example.org/proxy", "https://app.example.org/proxy"}));
+        assertTrue(proxyList.contains(new String[]{"https://app.example.org/cb", "https://portal.example.org/proxy"}));
+        assertTrue(proxyList.contains(List.of("https://legacy.example.org/cb")));
+        assertFalse(proxyList.contains(new String[]{"https://portal.example.org/proxy"}));
+        assertFalse(proxyList.contains(new String[]{"https://app.example.org/proxy", "https://app.example.org/proxy"}));
+        assertFalse(proxyList.contains(new String[]{"https://legacy.example.org/cb", "https://legacy.example.org/cb"}));
+        assertFalse(proxyList.contains(new String[0]));
+    }
+
+    public void testEmptyChainMatchesNothing() {
+        final var proxyList = new ProxyList(List.<String[]>of(new String[0]));
+        assertFalse(proxyList.contains(new String[0]));
+        assertFalse(new ProxyList().contains(new String[]{"https://portal.example.org/proxy"}));
+    }
+
+    public void testIndexAgreesWithLinearWalk() {
+        final var random = new Random(42);
+        for (var round = 0; round < 50; round++) {
+            final List<String[]> chains = new ArrayList<>();
+            for (var i = 0; i < 1 + random.nextInt(40); i++) {
+                final var chain = new String[random.nextInt(4)];
+                for (var link = 0; link < chain.length; link++) {
+                    chain[link] = random.nextInt(4) == 0 ? pick(random, REGEXES) : pick(random, URLS);
+                }
+                chains.add(chain);
+            }
+            final var proxyList = new ProxyList(chains);
+            for (var i = 0; i < 200; i++) {
+                final var proxied = new String[random.nextInt(4)];
+                for (var link = 0; link < proxied.length; link++) {
+                    proxied[link] = pick(random, URLS);
+                }
+                assertEquals(linearContains(chains, proxied), proxyList.contains(proxied));
+            }
+        }
+    }
+
+    private static String pick(final Random random, final String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * The matching of the allowed chains before they were indexed.
+     */
+    private static boolean linearContains(final List<String[]> chains, final String[] proxiedList) {
+        for (final var chain : chains) {
+            if (chain.length == proxiedList.length) {
+                for (var linkIndex = 0; linkIndex < chain.length; linkIndex++) {
+                    final var link = chain[linkIndex];
+                    final var matches = link.startsWith("^")
+                        ? Pattern.compile(link).matcher(proxiedList[linkIndex]).find()
+                        : link.equals(proxiedList[linkIndex]);
+                    if (!matches) {
+                        break;
+                    }
+                    if (linkIndex == chain.length - 1) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import junit.framework.TestCase;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Collections;
+
+/**
+ * Tests for {@link TicketHidingRequestWrapper}.
+ *
+ * @since 4.0.5
+ */
+public final class TicketHidingRequestWrapperTests extends TestCase {
+
+    public void testTicketIsHiddenFromParameters() {
+        final var request = new MockHttpServletRequest("GET", "/app/page");
+        request.setQueryString("a=1&ticket=ST-1&b=2");
+        request.addParameter("a", "1");
+        request.addParameter("ticket", "ST-1");
+        request.addParameter("b", "2");
+
+        final var wrapper = new TicketHidingRequestWrapper(request, "ticket");
+
+        assertNull(wrapper.getParameter("ticket"));
+        assertNull(wrapper.getParameterValues("ticket"));
+        assertFalse(wrapper.getParameterMap().containsKey("ticket"));
+        assertFalse(Collections.list(wrapper.getParameterNames()).contains("ticket"));
+        assertEquals("1", wrapper.getParameter("a"));
+        assertEquals("2", wrapper.getParameterValues("b")[0]);
+        assertEquals("a=1&b=2", wrapper.getQueryString());
+        assertEquals("http://localhost/app/page", wrapper.getRequestURL().toString());
+        assertFalse(wrapper.getRequestURL().toString().contains("ST-1"));
+    }
+
+    public void testQueryStringIsStripped() {
+        assertNull(TicketHidingRequestWrapper.stripParameter(null, "ticket"));
+        assertNull(TicketHidingRequestWrapper.stripParameter("ticket=ST-1", "ticket"));
+        assertEquals("a=1", TicketHidingRequestWrapper.stripParameter("ticket=ST-1&a=1", "ticket"));
+        assertEquals("a=1", TicketHidingRequestWrapper.stripParameter("a=1&ticket=ST-1", "ticket"));
+        assertEquals("a=1", TicketHidingRequestWrapper.stripParameter("a=1&%74icket=ST-1", "ticket"));
+        assertEquals("a=1&ticket=ST-1", TicketHidingRequestWrapper.stripParameter("a=1&ticket=ST-1", "SAMLart"));
+        assertEquals("myticket=1&ticketx=2", TicketHidingRequestWrapper.stripParameter("myticket=1&ticketx=2", "ticket"));
+        assertEquals("a=%zz", TicketHidingRequestWrapper.stripParameter("a=%zz&ticket", "ticket"));
+    }
+}
@@ -1,11 +1,45 @@
 package org.apereo.cas.client.validation.jwt;
 
+import org.apereo.cas.client.validation.Assertion;
+import org.apereo.cas.client.validation.TicketValidationException;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockFilterConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
 public class CasJWTTicketValidatorTests {
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     private static CasJWTTicketValidator getValidator(final String url) {
         var validator = new CasJWTTicketValidator();
         validator.setEncryptionKey("GR7E6uL9djKBSH59BN8boYQ68gQgzwehIIp6s1QicPc");
@@ -44,4 +78,153 @@ public class CasJWTTicketValidatorTests {
         assertEquals("919d04b9-55c0-43ae-81fa-f5e3a55e6c85", assertion.getPrincipal().getName());
         assertEquals("919d04b9-55c0-43ae-81fa-f5e3a55e6c85", assertion.getPrincipal().getAttributes().get("sub"));
     }
+
+    @Test
+    public void verifiedClaimsAreCachedUntilExpiration() throws Exception {
+        var validator = getValidator("jwtservice");
+        validator.setClaimsCacheSize(10);
+        var jwt = "eyJhbGciOiJIUzUxMiIsInR5cCI6IkpXVCIsImtpZCI6ImQ4OTQ2MTMyLTRkZjYtNDBmZS05YTc0LWVhOTRkYTliMThjZCJ9.ZXlKNmFYQWlPaUpFUlVZaUxDSmhiR2NpT2lKa2FYSWlMQ0psYm1NaU9pSkJNVEk0UTBKRExVaFRNalUySWl3aVkzUjVJam9pU2xkVUlpd2lkSGx3SWpvaVNsZFVJaXdpYTJsa0lqb2lZamc0T0dZMVltWXRZekkyWVMwMFpEUmtMVGc0WTJZdE4yWTROV05oT0dWaE16WXdJbjAuLjY1TWdBZ1JnRXdGUnNhbmRFdGUwVXcuOHBEc1Bodnh5Q29Cc2ZIeFY3MjNzOUxvdkt0aEgyYkI4aUdsTlpEYXNpX0dQWmh1UHBsbGhNWHZrSTM5Q053Z1drWlRJQWRpOWxQSVk1YWc0RVNweWZDbEJRaUg3THdfaWNqTGhWaUVrY2RXRkx3THNQcFRaWkNUUnFKSTRmNzBQUnBBZmpFd0RKX0xzN204RERyVDRDYmFPalR2Q2JLdVAtYzFScDl0amg3cVFBUG5QcGplVGduQVppMExtaWxDXzlyYnhnZ0s1cmxYeXY5dzRQb0Z5aXR0MlZlRERmZjJGcXFLYlNnQUswZWRhdHV5ZHlqYjlFT1FvZktDdUNiZE1GRXI0TTBjOGtjN3BKU3VDZE1oYjBZUjliS3YySVY2Mks5VGU5em53MDQud0VLcTRRQjRXVlJNOUxIYnlnSW5aUQ.NiL7D5ZmBVOuG5zbgpESH-gwoWZyZwXPi8ueGdOjTYDPX14CdMitRS-827jAyC4o14q4Gdfue39yV1ahENpP4g";
+        assertEquals("919d04b9-55c0-43ae-81fa-f5e3a55e6c85", validator.validate(jwt, "https://example.org").getPrincipal().getName());
+        assertEquals("919d04b9-55c0-43ae-81fa-f5e3a55e6c85", validator.validate(jwt, "https://example.org").getPrincipal().getName());
+        assertEquals(1, validator.getClaimsCacheHits());
+        assertEquals(1, validator.getClaimsCacheMisses());
+        assertEquals(0.5, validator.getClaimsCacheHitRate(), 0);
+
+        var expiring = getValidator("jwtservice");
+        expiring.setMaxClockSkew(0);
+        expiring.setClaimsCacheSize(10);
+        for (var i = 0; i < 2; i++) {
+            try {
+                expiring.validate(jwt, "https://example.org");
+                fail("Expired token accepted");
+            } catch (final TicketValidationException e) {
+                // expected
+            }
+        }
+        assertEquals(0, expiring.getClaimsCacheHits());
+        assertEquals(2, expiring.getClaimsCacheMisses());
+    }
+
+    @Test
+    public void concurrentFirstValidationsShareOneProcessor() throws Exception {
+        var validator = getValidator("jwtservice");
+        var jwt = "eyJhbGciOiJIUzUxMiIsInR5cCI6IkpXVCIsImtpZCI6ImQ4OTQ2MTMyLTRkZjYtNDBmZS05YTc0LWVhOTRkYTliMThjZCJ9.ZXlKNmFYQWlPaUpFUlVZaUxDSmhiR2NpT2lKa2FYSWlMQ0psYm1NaU9pSkJNVEk0UTBKRExVaFRNalUySWl3aVkzUjVJam9pU2xkVUlpd2lkSGx3SWpvaVNsZFVJaXdpYTJsa0lqb2lZamc0T0dZMVltWXRZekkyWVMwMFpEUmtMVGc0WTJZdE4yWTROV05oT0dWaE16WXdJbjAuLjY1TWdBZ1JnRXdGUnNhbmRFdGUwVXcuOHBEc1Bodnh5Q29Cc2ZIeFY3MjNzOUxvdkt0aEgyYkI4aUdsTlpEYXNpX0dQWmh1UHBsbGhNWHZrSTM5Q053Z1drWlRJQWRpOWxQSVk1YWc0RVNweWZDbEJRaUg3THdfaWNqTGhWaUVrY2RXRkx3THNQcFRaWkNUUnFKSTRmNzBQUnBBZmpFd0RKX0xzN204RERyVDRDYmFPalR2Q2JLdVAtYzFScDl0amg3cVFBUG5QcGplVGduQVppMExtaWxDXzlyYnhnZ0s1cmxYeXY5dzRQb0Z5aXR0MlZlRERmZjJGcXFLYlNnQUswZWRhdHV5ZHlqYjlFT1FvZktDdUNiZE1GRXI0TTBjOGtjN3BKU3VDZE1oYjBZUjliS3YySVY2Mks5VGU5em53MDQud0VLcTRRQjRXVlJNOUxIYnlnSW5aUQ.NiL7D5ZmBVOuG5zbgpESH-gwoWZyZwXPi8ueGdOjTYDPX14CdMitRS-827jAyC4o14q4Gdfue39yV1ahENpP4g";
+        var pool = Executors.newFixedThreadPool(8);
+        try {
+            var start = new CountDownLatch(1);
+            var results = new ArrayList<Future<Assertion>>();
+            for (var i = 0; i < 32; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return validator.validate(jwt, "https://example.org");
+                }));
+            }
+            start.countDown();
+            for (var result : results) {
+                assertEquals("919d04b9-55c0-43ae-81fa-f5e3a55e6c85", result.get().getPrincipal().getName());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keysOfTheJwkSetAreSelectedByKeyId() throws Exception {
+        var validator = getValidator("jwtservice");
+        validator.setSigningKey(null);
+        validator.setEncryptionKey(null);
+        var signingKey = new OctetSequenceKey.Builder("vTRQaUu8oDlMrsuhsgNgtk6yie2O6XwRsnDS1POstAQkA1_5TI8-mwrqo1wQ1VahGXLgjCtOb9PLOplmvFzvQA"
+            .getBytes(StandardCharsets.UTF_8)).keyID("590852fe-a61a-4186-aa32-18f253eb16f9").build();
+        var encryptionKey = new OctetSequenceKey.Builder(Base64.getDecoder().decode("GR7E6uL9djKBSH59BN8boYQ68gQgzwehIIp6s1QicPc"))
+            .keyID("36e4ae4f-ca21-4d10-9dbb-5db1cd6c9678").build();
+        var retiredKey = new OctetSequenceKeyGenerator(512).keyID("retired").generate();
+        validator.setJwkSetKeyStore(new JwkSetKeyStore(writeJwkSet(retiredKey, signingKey, encryptionKey), 0));
+        var jwt = "eyJhbGciOiJIUzUxMiIsInR5cCI6IkpXVCIsImtpZCI6IjU5MDg1MmZlLWE2MWEtNDE4Ni1hYTMyLTE4ZjI1M2ViMTZmOSJ9.ZXlKNmFYQWlPaUpFUlVZaUxDSmhiR2NpT2lKa2FYSWlMQ0psYm1NaU9pSkJNVEk0UTBKRExVaFRNalUySWl3aVkzUjVJam9pU2xkVUlpd2lkSGx3SWpvaVNsZFVJaXdpYTJsa0lqb2lNelpsTkdGbE5HWXRZMkV5TVMwMFpERXdMVGxrWW1JdE5XUmlNV05rTm1NNU5qYzRJbjAuLkRvVmtETV8wU1FaQUxxMEFFejE1UkEuOXg4TlpPbWoyMG8yMWpqb2FOY0ZwX0dzNF9jdHJiTlRtMDBVV1BWS1g1bnBNamJxdjZOTXJoWWhhT3E3N1E0OEpCUF9SZTVXSE9LazA4bEtfZHBuMlBIYlJJT0lZa1V0cjRBNkd3NnZBNnZvT0pud1hZS0pyZUlUeVhuZ3ptdVFjMV9wSmIzTlBpMjN5S010VGx0U2FOam5VODRzUE5fQVJNb0lObGktVGs0ZkowMk0zZzFXdkwzVFVPbHJqaVJzbzFQZXhoMkpTOHlhMUhud2RFZ3FtOEVXVEhpRGJGaXV2VldQMG1WLUJsRmx3TVNFcXR0dC1oc3JXQ3NyRTdKUnlhX0J0dkFnSnVYaklZUjV5SFdpcnI4QTQ0S2xOM21ORkhuLVlYaWViUjguOVJaRUh0czJrVmcteF8ycE56cTRiZw.C-pNsdLn4spTsM6NSvvfTIkSFJnjtCEIy4DmfAPhhnbEwV7Rl_NZ6M2IGxrMSeqOE3ckA65b1NceH6yaA_8IwQ";
+        var assertion = validator.validate(jwt, "https://example.org");
+        assertEquals("1f43798b-92c5-47f4-a1a9-0fcc51f185a9", assertion.getPrincipal().getName());
+    }
+
+    @Test
+    public void tokenSignedWithAnUnknownKeyIdIsRejected() throws Exception {
+        var validator = getValidator("jwtservice");
+        validator.setSigningKey(null);
+        validator.setEncryptionKey(null);
+        validator.setJwkSetKeyStore(new JwkSetKeyStore(writeJwkSet(new OctetSequenceKeyGenerator(512).keyID("other").generate()), 0));
+        var jwt = "eyJhbGciOiJIUzUxMiIsInR5cCI6IkpXVCIsImtpZCI6IjU5MDg1MmZlLWE2MWEtNDE4Ni1hYTMyLTE4ZjI1M2ViMTZmOSJ9.ZXlKNmFYQWlPaUpFUlVZaUxDSmhiR2NpT2lKa2FYSWlMQ0psYm1NaU9pSkJNVEk0UTBKRExVaFRNalUySWl3aVkzUjVJam9pU2xkVUlpd2lkSGx3SWpvaVNsZFVJaXdpYTJsa0lqb2lNelpsTkdGbE5HWXRZMkV5TVMwMFpERXdMVGxrWW1JdE5XUmlNV05rTm1NNU5qYzRJbjAuLkRvVmtETV8wU1FaQUxxMEFFejE1UkEuOXg4TlpPbWoyMG8yMWpqb2FOY0ZwX0dzNF9jdHJiTlRtMDBVV1BWS1g1bnBNamJxdjZOTXJoWWhhT3E3N1E0OEpCUF9SZTVXSE9LazA4bEtfZHBuMlBIYlJJT0lZa1V0cjRBNkd3NnZBNnZvT0pud1hZS0pyZUlUeVhuZ3ptdVFjMV9wSmIzTlBpMjN5S010VGx0U2FOam5VODRzUE5fQVJNb0lObGktVGs0ZkowMk0zZzFXdkwzVFVPbHJqaVJzbzFQZXhoMkpTOHlhMUhud2RFZ3FtOEVXVEhpRGJGaXV2VldQMG1WLUJsRmx3TVNFcXR0dC1oc3JXQ3NyRTdKUnlhX0J0dkFnSnVYaklZUjV5SFdpcnI4QTQ0S2xOM21ORkhuLVlYaWViUjguOVJaRUh0czJrVmcteF8ycE56cTRiZw.C-pNsdLn4spTsM6NSvvfTIkSFJnjtCEIy4DmfAPhhnbEwV7Rl_NZ6M2IGxrMSeqOE3ckA65b1NceH6yaA_8IwQ";
+        try {
+            validator.validate(jwt, "https://example.org");
+            fail("Token signed with an unknown key accepted");
+        } catch (final TicketValidationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void tokenSignedWithAnEllipticCurveKeyIsVerified() throws Exception {
+        var ecKey = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        var validator = new CasJWTTicketValidator();
+        validator.setExpectedIssuer("https://cas.example.org:8443/cas");
+        validator.setExpectedAudience("jwtservice");
+        validator.setJwkSetKeyStore(new JwkSetKeyStore(writeJwkSet(ecKey.toPublicJWK()), 0));
+        assertEquals("casuser", validator.validate(signWithEllipticCurveKey(ecKey), "https://example.org").getPrincipal().getName());
+    }
+
+    @Test
+    public void replayedTokenIsRejected() throws Exception {
+        var ecKey = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        var validator = new CasJWTTicketValidator();
+        validator.setExpectedIssuer("https://cas.example.org:8443/cas");
+        validator.setExpectedAudience("jwtservice");
+        validator.setJwkSetKeyStore(new JwkSetKeyStore(writeJwkSet(ecKey.toPublicJWK()), 0));
+        validator.setClaimsCacheSize(10);
+        validator.setReplayCache(JwtReplayCache.exact(300000));
+
+        var jwt = signWithEllipticCurveKey(ecKey);
+        assertEquals("casuser", validator.validate(jwt, "https://example.org").getPrincipal().getName());
+        try {
+            validator.validate(jwt, "https://example.org");
+            fail("Replayed token accepted");
+        } catch (final TicketValidationException e) {
+            // expected
+        }
+        assertEquals("casuser", validator.validate(signWithEllipticCurveKey(ecKey), "https://example.org").getPrincipal().getName());
+        assertEquals(0, validator.getClaimsCacheHits());
+        assertEquals(0, validator.getClaimsCacheMisses());
+    }
+
+    @Test
+    public void filterRefusesClaimsCacheWithReplayDetection() throws Exception {
+        var config = new MockFilterConfig();
+        config.addInitParameter("casServerUrlPrefix", "https://cas.example.org:8443/cas");
+        config.addInitParameter("serverName", "https://example.org");
+        config.addInitParameter("signingKey", "vTRQaUu8oDlMrsuhsgNgtk6yie2O6XwRsnDS1POstAQkA1_5TI8-mwrqo1wQ1VahGXLgjCtOb9PLOplmvFzvQA");
+        config.addInitParameter("claimsCacheSize", "10");
+        config.addInitParameter("replayWindow", "300000");
+        try {
+            new CasJWTTicketValidationFilter().init(config);
+            fail("IllegalArgumentException expected");
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("replayWindow"));
+        }
+    }
+
+    private static String signWithEllipticCurveKey(final ECKey ecKey) throws Exception {
+        var claims = new JWTClaimsSet.Builder()
+            .subject("casuser")
+            .audience("jwtservice")
+            .issuer("https://cas.example.org:8443/cas")
+            .issueTime(new Date())
+            .expirationTime(new Date(System.currentTimeMillis() + 60000))
+            .jwtID(UUID.randomUUID().toString())
+            .build();
+        var signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.ES256).type(JOSEObjectType.JWT).keyID(ecKey.getKeyID()).build(), claims);
+        signedJWT.sign(new ECDSASigner(ecKey));
+        return signedJWT.serialize();
+    }
+
+    private Path writeJwkSet(final JWK... keys) throws Exception {
+        var file = folder.newFile().toPath();
+        Files.writeString(file, new JWKSet(List.of(keys)).toString(false));
+        return file;
+    }
 }
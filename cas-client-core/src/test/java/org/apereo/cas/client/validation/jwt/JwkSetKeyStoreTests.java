@@ -0,0 +1,134 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation.jwt;
+
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.crypto.SecretKey;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JwkSetKeyStore}.
+ *
+ * @since 4.0.5
+ */
+public final class JwkSetKeyStoreTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    @Test
+    public void keysAreSelectedByKeyIdAndUse() throws Exception {
+        final var file = write(folder.newFile().toPath(), 0,
+            new OctetSequenceKeyGenerator(256).keyID("oct").generate(),
+            new RSAKeyGenerator(2048).keyID("rsa").generate(),
+            new ECKeyGenerator(Curve.P_256).keyID("ec").keyUse(KeyUse.SIGNATURE).generate());
+        final var store = new JwkSetKeyStore(file, 0, this.clock::get);
+
+        assertEquals(3, store.size());
+        assertTrue(store.getVerificationKeys("oct").get(0) instanceof SecretKey);
+        assertTrue(store.getDecryptionKeys("oct").get(0) instanceof SecretKey);
+        assertTrue(store.getVerificationKeys("rsa").get(0) instanceof RSAPublicKey);
+        assertTrue(store.getDecryptionKeys("rsa").get(0) instanceof RSAPrivateKey);
+        assertTrue(store.getVerificationKeys("ec").get(0) instanceof ECPublicKey);
+        assertTrue(store.getDecryptionKeys("ec").isEmpty());
+        assertTrue(store.getVerificationKeys("unknown").isEmpty());
+        assertEquals(3, store.getVerificationKeys(null).size());
+        assertEquals(2, store.getDecryptionKeys(null).size());
+    }
+
+    @Test
+    public void publicKeysDoNotDecrypt() throws Exception {
+        final var file = write(folder.newFile().toPath(), 0,
+            new RSAKeyGenerator(2048).keyID("rsa").generate().toPublicJWK());
+        final var store = new JwkSetKeyStore(file, 0, this.clock::get);
+
+        assertEquals(1, store.getVerificationKeys("rsa").size());
+        assertTrue(store.getDecryptionKeys("rsa").isEmpty());
+    }
+
+    @Test
+    public void modifiedFileIsSwappedInAfterTheRefreshInterval() throws Exception {
+        final var file = write(folder.newFile().toPath(), 0, octetKey("old"));
+        final var store = new JwkSetKeyStore(file, 1000, this.clock::get);
+        write(file, 10000, octetKey("old"), octetKey("new"));
+
+        assertTrue(store.getVerificationKeys("new").isEmpty());
+        this.clock.addAndGet(1000);
+        assertEquals(1, store.getVerificationKeys("new").size());
+        assertEquals(1, store.getVerificationKeys("old").size());
+        assertEquals(1, store.getGeneration());
+
+        write(file, 20000, octetKey("new"));
+        this.clock.addAndGet(1000);
+        assertTrue(store.getVerificationKeys("old").isEmpty());
+        assertEquals(1, store.size());
+        assertEquals(2, store.getGeneration());
+    }
+
+    @Test
+    public void invalidFileKeepsThePreviousKeys() throws Exception {
+        final var file = write(folder.newFile().toPath(), 0, octetKey("current"));
+        final var store = new JwkSetKeyStore(file, 1000, this.clock::get);
+        Files.writeString(file, "{\"keys\": [");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(10000));
+
+        this.clock.addAndGet(1000);
+        assertEquals(1, store.getVerificationKeys("current").size());
+        assertEquals(0, store.getGeneration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingFileIsRefused() {
+        new JwkSetKeyStore(this.folder.getRoot().toPath().resolve("missing.json"), 1000);
+    }
+
+    private static JWK octetKey(final String keyId) throws Exception {
+        return new OctetSequenceKeyGenerator(256).keyID(keyId).generate();
+    }
+
+    private static Path write(final Path file, final long lastModified, final JWK... keys) throws Exception {
+        Files.writeString(file, new JWKSet(List.of(keys)).toString(false));
+        if (lastModified > 0) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation.jwt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JMH throughput benchmark of {@link JwtReplayCache}, recording fresh token ids from several threads with
+ * expirations spread over the tracked lifetime.  Not run by the test suite; run with:
+ * <pre>
+ * mvn -pl cas-client-core test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.apereo.cas.client.validation.jwt.JwtReplayCacheBenchmark
+ * </pre>
+ *
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class JwtReplayCacheBenchmark {
+
+    private static final long LIFETIME = 300000;
+
+    @Param({"exact", "bloomFilter"})
+    public String kind;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private JwtReplayCache cache;
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtReplayCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        this.cache = "exact".equals(this.kind)
+            ? JwtReplayCache.exact(LIFETIME)
+            : JwtReplayCache.bloomFilter(LIFETIME, 1_000_000, 0.001);
+    }
+
+    @Benchmark
+    public boolean markUsed() {
+        // a bounded set of ids keeps the exact cache from growing over the run; repeated ids are replays
+        final var next = this.sequence.incrementAndGet() & ((1 << 20) - 1);
+        return this.cache.markUsed("ST-" + next + "-cas.example.org",
+            System.currentTimeMillis() + 1000 + next % (LIFETIME - 2000));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation.jwt;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JwtReplayCache}.
+ *
+ * @since 4.0.5
+ */
+public final class JwtReplayCacheTests {
+
+    private static final long LIFETIME = 60000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    public void exactCacheAcceptsEachTokenOnce() {
+        final var cache = JwtReplayCache.exact(LIFETIME, this.clock::get);
+        final var expiresAt = this.clock.get() + 30000;
+
+        assertTrue(cache.markUsed("jti-1", expiresAt));
+        assertFalse(cache.markUsed("jti-1", expiresAt));
+        assertTrue(cache.markUsed("jti-2", expiresAt));
+    }
+
+    @Test
+    public void untrackableTokensAreRefused() {
+        final var cache = JwtReplayCache.exact(LIFETIME, this.clock::get);
+
+        assertFalse(cache.markUsed(null, this.clock.get() + 30000));
+        assertFalse(cache.markUsed("expired", this.clock.get() - 1));
+        assertFalse(cache.markUsed("long-lived", this.clock.get() + LIFETIME + 1));
+        assertTrue(cache.markUsed("longest-lived", this.clock.get() + LIFETIME));
+    }
+
+    @Test
+    public void bucketsAreReusedOnceTheirTokensExpired() {
+        final var cache = JwtReplayCache.exact(LIFETIME, this.clock::get);
+        assertTrue(cache.markUsed("jti", this.clock.get() + 1000));
+
+        // ten buckets later the same slot serves a later expiration and forgets the expired ids
+        this.clock.addAndGet(10 * LIFETIME / 8);
+        assertTrue(cache.markUsed("jti", this.clock.get() + 1000));
+        assertFalse(cache.markUsed("jti", this.clock.get() + 1000));
+    }
+
+    @Test
+    public void bloomFilterNeverLetsAReplayThrough() {
+        final var cache = JwtReplayCache.bloomFilter(LIFETIME, 80000, 0.01, this.clock::get);
+        final var expiresAt = this.clock.get() + 30000;
+        final var ids = new ArrayList<String>();
+        var accepted = 0;
+        for (var i = 0; i < 10000; i++) {
+            final var id = UUID.randomUUID().toString();
+            ids.add(id);
+            if (cache.markUsed(id, expiresAt)) {
+                accepted++;
+            }
+        }
+        for (final var id : ids) {
+            assertFalse(cache.markUsed(id, expiresAt));
+        }
+        assertTrue(accepted > 9900);
+    }
+
+    @Test
+    public void bloomFilterFalsePositiveRateIsHonoured() {
+        final var cache = JwtReplayCache.bloomFilter(LIFETIME, 80000, 0.01, this.clock::get);
+        final var expiresAt = this.clock.get() + 30000;
+        // fill the bucket of that expiration to its expected capacity
+        for (var i = 0; i < 10000; i++) {
+            cache.markUsed("filled-" + i, expiresAt);
+        }
+        // each probe is recorded too, so only probe a little past the capacity
+        var falsePositives = 0;
+        for (var i = 0; i < 1000; i++) {
+            if (!cache.markUsed("fresh-" + i, expiresAt)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 30);
+    }
+
+    @Test
+    public void concurrentUsesOfATokenAcceptOnlyOne() throws Exception {
+        for (final var cache : new JwtReplayCache[]{JwtReplayCache.exact(LIFETIME, this.clock::get),
+            JwtReplayCache.bloomFilter(LIFETIME, 80000, 0.001, this.clock::get)}) {
+            final var expiresAt = this.clock.get() + 30000;
+            final var accepted = new AtomicInteger();
+            final var pool = Executors.newFixedThreadPool(8);
+            try {
+                final var start = new CountDownLatch(1);
+                final var results = new ArrayList<Future<?>>();
+                for (var t = 0; t < 8; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        for (var i = 0; i < 1000; i++) {
+                            if (cache.markUsed("jti-" + i, expiresAt)) {
+                                accepted.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (final var result : results) {
+                    result.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            assertEquals(1000, accepted.get());
+        }
+    }
+}
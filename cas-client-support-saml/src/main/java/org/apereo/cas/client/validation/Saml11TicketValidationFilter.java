@@ -24,7 +24,6 @@ import org.apereo.cas.client.ssl.HttpURLConnectionFactory;
 import jakarta.servlet.FilterConfig;
 
 import org.apereo.cas.client.configuration.ConfigurationKeys;
-import org.apereo.cas.client.ssl.HttpsURLConnectionFactory;
 
 /**
  * Implementation of TicketValidationFilter that can instanciate a SAML 1.1 Ticket Validator.
@@ -50,8 +49,11 @@ public class Saml11TicketValidationFilter extends AbstractTicketValidationFilter
         validator.setTolerance(tolerance);
         validator.setRenew(getBoolean(ConfigurationKeys.RENEW));
 
-        final HttpURLConnectionFactory factory = new HttpsURLConnectionFactory(getHostnameVerifier(), getSSLConfig());
+        final HttpURLConnectionFactory factory = createURLConnectionFactory();
         validator.setURLConnectionFactory(factory);
+        applyCircuitBreaker(validator);
+        applyCasServerPool(validator, factory);
+        applyConcurrencyLimiter(validator);
 
         validator.setEncoding(getString(ConfigurationKeys.ENCODING));
         return validator;
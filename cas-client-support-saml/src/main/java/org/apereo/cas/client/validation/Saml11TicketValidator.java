@@ -22,8 +22,8 @@ import org.apereo.cas.client.authentication.AttributePrincipalImpl;
 import org.apereo.cas.client.util.CommonUtils;
 import org.apereo.cas.client.util.IOUtils;
 import org.apereo.cas.client.util.MapNamespaceContext;
+import org.apereo.cas.client.util.PooledXPathExpression;
 import org.apereo.cas.client.util.SamlUtils;
-import org.apereo.cas.client.util.ThreadLocalXPathExpression;
 import org.apereo.cas.client.util.XmlUtils;
 
 import org.w3c.dom.Element;
@@ -35,8 +35,6 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.Charset;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -44,7 +42,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * TicketValidator that can understand validating a SAML artifact.  This includes the SOAP request/response.
@@ -58,8 +56,11 @@ public final class Saml11TicketValidator extends AbstractUrlBasedTicketValidator
     /** Authentication attribute containing SAML AuthenticationMethod attribute value. */
     public static final String AUTH_METHOD_ATTRIBUTE = "samlAuthenticationStatement::authMethod";
 
-    /** SAML 1.1 request template. */
-    private static final String SAML_REQUEST_TEMPLATE;
+    /**
+     * SAML 1.1 request template, split around its RequestID, IssueInstant and AssertionArtifact placeholders once
+     * and for all rather than parsed by String.format for every request.
+     */
+    private static final String[] SAML_REQUEST_TEMPLATE;
 
     /** SAML 1.1. namespace context. */
     private static final NamespaceContext NS_CONTEXT = new MapNamespaceContext(
@@ -68,52 +69,48 @@ public final class Saml11TicketValidator extends AbstractUrlBasedTicketValidator
             "sp->urn:oasis:names:tc:SAML:1.0:protocol");
 
     /** XPath expression to extract Assertion validity start date. */
-    private static final ThreadLocalXPathExpression XPATH_ASSERTION_DATE_START =
-            new ThreadLocalXPathExpression("//sa:Assertion/sa:Conditions/@NotBefore", NS_CONTEXT);
+    private static final PooledXPathExpression XPATH_ASSERTION_DATE_START =
+            new PooledXPathExpression("//sa:Assertion/sa:Conditions/@NotBefore", NS_CONTEXT);
 
     /** XPath expression to extract Assertion validity end date. */
-    private static final ThreadLocalXPathExpression XPATH_ASSERTION_DATE_END =
-            new ThreadLocalXPathExpression("//sa:Assertion/sa:Conditions/@NotOnOrAfter", NS_CONTEXT);
+    private static final PooledXPathExpression XPATH_ASSERTION_DATE_END =
+            new PooledXPathExpression("//sa:Assertion/sa:Conditions/@NotOnOrAfter", NS_CONTEXT);
 
     /** XPath expression to extract NameIdentifier. */
-    private static final ThreadLocalXPathExpression XPATH_NAME_ID =
-            new ThreadLocalXPathExpression("//sa:AuthenticationStatement/sa:Subject/sa:NameIdentifier", NS_CONTEXT);
+    private static final PooledXPathExpression XPATH_NAME_ID =
+            new PooledXPathExpression("//sa:AuthenticationStatement/sa:Subject/sa:NameIdentifier", NS_CONTEXT);
 
     /** XPath expression to extract authentication method. */
-    private static final ThreadLocalXPathExpression XPATH_AUTH_METHOD =
-            new ThreadLocalXPathExpression("//sa:AuthenticationStatement/@AuthenticationMethod", NS_CONTEXT);
+    private static final PooledXPathExpression XPATH_AUTH_METHOD =
+            new PooledXPathExpression("//sa:AuthenticationStatement/@AuthenticationMethod", NS_CONTEXT);
 
     /** XPath expression to extract attributes. */
-    private static final ThreadLocalXPathExpression XPATH_ATTRIBUTES =
-            new ThreadLocalXPathExpression("//sa:AttributeStatement/sa:Attribute", NS_CONTEXT);
+    private static final PooledXPathExpression XPATH_ATTRIBUTES =
+            new PooledXPathExpression("//sa:AttributeStatement/sa:Attribute", NS_CONTEXT);
 
     private static final String HEX_CHARS = "0123456789abcdef";
 
     /** Time tolerance to allow for time drifting. */
     private long tolerance = 1000L;
 
-    private final Random random;
-
 
     /* Class initializer. */
     static {
         try {
             SAML_REQUEST_TEMPLATE = IOUtils.readString(
-                    Saml11TicketValidator.class.getResourceAsStream("/META-INF/cas/samlRequestTemplate.xml"));
+                    Saml11TicketValidator.class.getResourceAsStream("/META-INF/cas/samlRequestTemplate.xml"))
+                .split("%s", -1);
         } catch (final IOException e) {
             throw new IllegalStateException("Cannot load SAML request template from classpath", e);
         }
+        if (SAML_REQUEST_TEMPLATE.length != 4) {
+            throw new IllegalStateException("SAML request template must have exactly three placeholders");
+        }
 
     }
 
     public Saml11TicketValidator(final String casServerUrlPrefix) {
         super(casServerUrlPrefix);
-
-        try {
-            random = SecureRandom.getInstance("SHA1PRNG");
-        } catch (final NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Cannot find required SHA1PRNG algorithm");
-        }
     }
 
     @Override
@@ -121,6 +118,11 @@ public final class Saml11TicketValidator extends AbstractUrlBasedTicketValidator
         return "samlValidate";
     }
 
+    @Override
+    public TicketFormatPolicy getTicketFormatPolicy() {
+        return TicketFormatPolicy.samlArtifact();
+    }
+
     @Override
     protected void populateUrlAttributeMap(final Map<String, String> urlParameters) {
         final var service = urlParameters.get("service");
@@ -129,6 +131,14 @@ public final class Saml11TicketValidator extends AbstractUrlBasedTicketValidator
         urlParameters.put("TARGET", service);
     }
 
+    /**
+     * @return true, the service only being moved to the TARGET parameter.
+     */
+    @Override
+    protected boolean isUrlAttributeMapConstant() {
+        return true;
+    }
+
     @Override
     protected Assertion parseResponseFromServer(final String response) throws TicketValidationException {
         try {
@@ -138,7 +148,7 @@ public final class Saml11TicketValidator extends AbstractUrlBasedTicketValidator
             final var assertionValidityEnd = SamlUtils.parseUtcDate(
                     XPATH_ASSERTION_DATE_END.evaluateAsString(document));
             if (!isValidAssertion(assertionValidityStart, assertionValidityEnd)) {
-                throw new TicketValidationException("Invalid SAML assertion");
+                throw TicketValidationException.ticketRejected("Invalid SAML assertion");
             }
             final var nameId = XPATH_NAME_ID.evaluateAsString(document);
             if (nameId == null) {
@@ -202,11 +212,7 @@ public final class Saml11TicketValidator extends AbstractUrlBasedTicketValidator
 
     @Override
     protected String retrieveResponseFromServer(final URL validationUrl, final String ticket) {
-        final var request = String.format(
-                SAML_REQUEST_TEMPLATE,
-                generateId(),
-                SamlUtils.formatForUtcTime(new Date()),
-                ticket);
+        final var request = buildRequest(generateId(), SamlUtils.formatForUtcTime(new Date()), ticket);
         HttpURLConnection conn = null;
         try {
             conn = this.getURLConnectionFactory().buildHttpURLConnection(validationUrl.openConnection());
@@ -235,14 +241,29 @@ public final class Saml11TicketValidator extends AbstractUrlBasedTicketValidator
         this.tolerance = tolerance;
     }
 
-    private String generateId() {
-        final var data = new byte[16];
-        random.nextBytes(data);
+    static String buildRequest(final String requestId, final String issueInstant, final String ticket) {
+        final var template = SAML_REQUEST_TEMPLATE;
+        final var request = new StringBuilder(template[0].length() + template[1].length() + template[2].length()
+            + template[3].length() + requestId.length() + issueInstant.length() + ticket.length());
+        return request.append(template[0]).append(requestId)
+            .append(template[1]).append(issueInstant)
+            .append(template[2]).append(ticket)
+            .append(template[3]).toString();
+    }
+
+    /**
+     * Generates the RequestID of a SAML request. The id only has to be unique, it is not a secret, so it is drawn
+     * from the contention-free {@link ThreadLocalRandom} rather than a shared, internally synchronized SecureRandom.
+     */
+    private static String generateId() {
+        final var random = ThreadLocalRandom.current();
         final var id = new StringBuilder(33);
         id.append('_');
-        for (final byte datum : data) {
-            id.append(HEX_CHARS.charAt((datum & 0xF0) >> 4));
-            id.append(HEX_CHARS.charAt(datum & 0x0F));
+        for (var i = 0; i < 2; i++) {
+            final var bits = random.nextLong();
+            for (var shift = 60; shift >= 0; shift -= 4) {
+                id.append(HEX_CHARS.charAt((int) (bits >>> shift) & 0x0F));
+            }
         }
         return id.toString();
     }
@@ -0,0 +1,50 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.validation;
+
+import org.apereo.cas.client.util.IOUtils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the request {@link Saml11TicketValidator} sends, which need no CAS server.
+ *
+ * @since 4.0.5
+ */
+public class Saml11TicketValidatorRequestTests {
+
+    private final Saml11TicketValidator validator = new Saml11TicketValidator("https://cas.example.com");
+
+    @Test
+    public void validationUrlTargetsTheService() {
+        final var url = this.validator.constructValidationUrl("ST-1", "https://example.org/app");
+        assertEquals("https://cas.example.com/samlValidate?TARGET=https%3A%2F%2Fexample.org%2Fapp", url);
+    }
+
+    @Test
+    public void requestIsTheFilledTemplate() throws IOException {
+        final var template = IOUtils.readString(getClass().getResourceAsStream("/META-INF/cas/samlRequestTemplate.xml"));
+        assertEquals(String.format(template, "_id", "2024-01-01T00:00:00Z", "AAIfh9Tcd5l"),
+            Saml11TicketValidator.buildRequest("_id", "2024-01-01T00:00:00Z", "AAIfh9Tcd5l"));
+    }
+}
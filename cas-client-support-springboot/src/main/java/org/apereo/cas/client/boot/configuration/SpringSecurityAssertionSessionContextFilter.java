@@ -30,22 +30,34 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.AuthenticationUserDetailsService;
 
 import java.io.IOException;
 import java.io.Serial;
-import java.util.ArrayList;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Populates the Spring Security context with
  * the CAS authentication fetched from assertion
  * and processing roles, attributes, etc.
+ * <p>
+ * The authorities are resolved once per assertion and cached in the session,
+ * so the user details service is only consulted again when the assertion changes.
+ * Each request still gets its own authentication token, which the application
+ * may alter without affecting the concurrent requests of the session.
+ * Requests without a session are passed through without creating one.
  *
  * @author Misagh Moayyed
  * @since 3.6.2
  */
 public class SpringSecurityAssertionSessionContextFilter extends AbstractConfigurationFilter {
+    /** Name of the session attribute caching the authorities resolved for the session's assertion. */
+    public static final String CONST_CAS_AUTHENTICATION = "_const_cas_authentication_";
+
     private final AuthenticationUserDetailsService userDetailsService;
 
     private final String[] attributes;
@@ -62,26 +74,53 @@ public class SpringSecurityAssertionSessionContextFilter extends AbstractConfigu
                          final FilterChain filterChain) throws IOException, ServletException {
         final var request = (HttpServletRequest) servletRequest;
         final ServletResponse response = (HttpServletResponse) servletResponse;
-        final var session = request.getSession();
-        if (session != null && session.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION) != null) {
+        final var session = request.getSession(false);
+        if (session != null) {
             final var assertion = (Assertion) session.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION);
-
-            final var authentication = new CasAuthenticationToken(assertion);
-            final var userDetails = userDetailsService.loadUserDetails(authentication);
-            authentication.getAuthorities().addAll(userDetails.getAuthorities());
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (assertion != null) {
+                final var cached = session.getAttribute(CONST_CAS_AUTHENTICATION);
+                final ResolvedAuthorities resolved;
+                if (cached instanceof ResolvedAuthorities && ((ResolvedAuthorities) cached).assertion == assertion) {
+                    resolved = (ResolvedAuthorities) cached;
+                } else {
+                    resolved = resolveAuthorities(assertion);
+                    session.setAttribute(CONST_CAS_AUTHENTICATION, resolved);
+                }
+                SecurityContextHolder.getContext().setAuthentication(
+                    new CasAuthenticationToken(assertion, resolved.authorities));
+            }
         }
         filterChain.doFilter(request, response);
     }
 
+    private ResolvedAuthorities resolveAuthorities(final Assertion assertion) {
+        final var userDetails = userDetailsService.loadUserDetails(new CasAuthenticationToken(assertion, List.of()));
+        return new ResolvedAuthorities(assertion, List.copyOf(userDetails.getAuthorities()));
+    }
+
+    private static final class ResolvedAuthorities implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Assertion assertion;
+
+        private final List<GrantedAuthority> authorities;
+
+        private ResolvedAuthorities(final Assertion assertion, final List<GrantedAuthority> authorities) {
+            this.assertion = assertion;
+            this.authorities = authorities;
+        }
+    }
+
     private static class CasAuthenticationToken extends AbstractAuthenticationToken {
         @Serial
         private static final long serialVersionUID = -270498735829222143L;
 
         private final Assertion assertion;
 
-        public CasAuthenticationToken(final Assertion assertion) {
-            super(new ArrayList<>());
+        public CasAuthenticationToken(final Assertion assertion,
+                                      final Collection<? extends GrantedAuthority> authorities) {
+            super(authorities);
             this.assertion = assertion;
         }
 
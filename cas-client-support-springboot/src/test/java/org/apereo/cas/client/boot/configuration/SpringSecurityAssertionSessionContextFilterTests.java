@@ -0,0 +1,108 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.boot.configuration;
+
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.validation.AssertionImpl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SpringSecurityAssertionSessionContextFilter}.
+ *
+ * @since 4.0.5
+ */
+public final class SpringSecurityAssertionSessionContextFilterTests {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final MockHttpSession session = new MockHttpSession();
+
+    private SpringSecurityAssertionSessionContextFilter filter;
+
+    @Before
+    public void setUp() {
+        this.filter = new SpringSecurityAssertionSessionContextFilter(token -> new User(
+            (String) token.getPrincipal(), "", AuthorityUtils.createAuthorityList("ROLE_" + this.lookups.incrementAndGet())));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void authoritiesAreResolvedOncePerAssertion() throws Exception {
+        this.session.setAttribute(AbstractCasFilter.CONST_CAS_ASSERTION, new AssertionImpl("alice"));
+
+        final var first = authenticate();
+        final var second = authenticate();
+
+        assertEquals(1, this.lookups.get());
+        assertEquals("alice", second.getPrincipal());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_1"), second.getAuthorities());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void changedAssertionTriggersNewLookup() throws Exception {
+        this.session.setAttribute(AbstractCasFilter.CONST_CAS_ASSERTION, new AssertionImpl("alice"));
+        authenticate();
+
+        this.session.setAttribute(AbstractCasFilter.CONST_CAS_ASSERTION, new AssertionImpl("bob"));
+        final var authentication = authenticate();
+
+        assertEquals(2, this.lookups.get());
+        assertEquals("bob", authentication.getPrincipal());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_2"), authentication.getAuthorities());
+    }
+
+    @Test
+    public void requestWithoutSessionDoesNotCreateOne() throws Exception {
+        final var request = new MockHttpServletRequest();
+        this.filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(request.getSession(false));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(0, this.lookups.get());
+    }
+
+    private Authentication authenticate() throws Exception {
+        final var request = new MockHttpServletRequest();
+        request.setSession(this.session);
+        this.filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        final var authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
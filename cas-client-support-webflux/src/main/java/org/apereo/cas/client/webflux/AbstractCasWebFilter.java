@@ -0,0 +1,95 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.Protocol;
+import org.apereo.cas.client.util.CommonUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Base class for the reactive CAS filters, the {@link WebFilter} counterpart of
+ * {@link org.apereo.cas.client.util.AbstractCasFilter}.
+ * <p>
+ * The service url is either the configured <code>service</code>, or the url of the current request without the
+ * ticket parameter, optionally with its scheme, host and port replaced by the configured <code>serverName</code>.
+ *
+ * @since 4.0.5
+ */
+public abstract class AbstractCasWebFilter implements WebFilter {
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Protocol protocol;
+
+    private String serverName;
+
+    private String service;
+
+    protected AbstractCasWebFilter(final Protocol protocol) {
+        this.protocol = protocol;
+    }
+
+    protected final String retrieveTicketFromRequest(final ServerWebExchange exchange) {
+        return exchange.getRequest().getQueryParams().getFirst(this.protocol.getArtifactParameterName());
+    }
+
+    protected final String constructServiceUrl(final ServerWebExchange exchange) {
+        if (CommonUtils.isNotBlank(this.service)) {
+            return this.service;
+        }
+        final var requestUri = exchange.getRequest().getURI();
+        final var builder = UriComponentsBuilder.fromUri(requestUri)
+            .replaceQueryParam(this.protocol.getArtifactParameterName())
+            .fragment(null);
+        if (CommonUtils.isNotBlank(this.serverName)) {
+            final var server = URI.create(this.serverName.contains("://")
+                ? this.serverName : requestUri.getScheme() + "://" + this.serverName);
+            builder.scheme(server.getScheme()).host(server.getHost()).port(server.getPort());
+        }
+        return builder.build(true).toUriString();
+    }
+
+    protected static Mono<Void> redirect(final ServerWebExchange exchange, final String url) {
+        final var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.FOUND);
+        response.getHeaders().setLocation(URI.create(url));
+        return response.setComplete();
+    }
+
+    protected final Protocol getProtocol() {
+        return this.protocol;
+    }
+
+    public final void setServerName(final String serverName) {
+        this.serverName = serverName;
+    }
+
+    public final void setService(final String service) {
+        this.service = service;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.Protocol;
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.validation.Assertion;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Predicate;
+
+/**
+ * Reactive counterpart of {@link org.apereo.cas.client.authentication.AuthenticationFilter}: redirects requests
+ * without a CAS assertion in their {@link org.springframework.web.server.WebSession} to the CAS login page.
+ * <p>
+ * The assertion of authenticated requests is exposed as the {@link AbstractCasFilter#CONST_CAS_ASSERTION} exchange
+ * attribute. Requests carrying a ticket are passed on, so this filter must be ordered after
+ * {@link CasTicketValidationWebFilter}.
+ *
+ * @since 4.0.5
+ */
+public class CasAuthenticationWebFilter extends AbstractCasWebFilter {
+
+    private final String casServerLoginUrl;
+
+    private boolean renew;
+
+    private Predicate<ServerHttpRequest> ignoredRequests = request -> false;
+
+    public CasAuthenticationWebFilter(final String casServerLoginUrl) {
+        this(Protocol.CAS3, casServerLoginUrl);
+    }
+
+    public CasAuthenticationWebFilter(final Protocol protocol, final String casServerLoginUrl) {
+        super(protocol);
+        CommonUtils.assertNotNull(casServerLoginUrl, "casServerLoginUrl cannot be null.");
+        this.casServerLoginUrl = casServerLoginUrl;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        if (this.ignoredRequests.test(exchange.getRequest())) {
+            logger.debug("Request is ignored.");
+            return chain.filter(exchange);
+        }
+        return exchange.getSession().flatMap(session -> {
+            final Assertion assertion = session.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION);
+            if (assertion != null) {
+                exchange.getAttributes().put(AbstractCasFilter.CONST_CAS_ASSERTION, assertion);
+                return chain.filter(exchange);
+            }
+            if (CommonUtils.isNotBlank(retrieveTicketFromRequest(exchange))) {
+                return chain.filter(exchange);
+            }
+            final var urlToRedirectTo = CommonUtils.constructRedirectUrl(this.casServerLoginUrl,
+                getProtocol().getServiceParameterName(), constructServiceUrl(exchange), this.renew, false);
+            logger.debug("Redirecting to \"{}\"", urlToRedirectTo);
+            return redirect(exchange, urlToRedirectTo);
+        });
+    }
+
+    public final void setRenew(final boolean renew) {
+        this.renew = renew;
+    }
+
+    /**
+     * Sets the predicate telling which requests do not require authentication.
+     *
+     * @param ignoredRequests the predicate matching ignored requests.
+     */
+    public final void setIgnoredRequests(final Predicate<ServerHttpRequest> ignoredRequests) {
+        this.ignoredRequests = ignoredRequests;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.util.XmlUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.server.session.WebSessionStore;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link org.apereo.cas.client.session.SingleSignOutFilter} handling back channel logout
+ * requests: the session recorded in the {@link WebSessionTicketRegistry} for the logged out ticket is removed from
+ * the {@link WebSessionStore}.
+ * <p>
+ * Only form posts are inspected; their form data is read through {@link ServerWebExchange#getFormData()}, which
+ * caches it for later filters and handlers. Front channel logout is not supported.
+ *
+ * @since 4.0.5
+ */
+public class CasSingleSignOutWebFilter implements WebFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CasSingleSignOutWebFilter.class);
+
+    private final WebSessionStore sessionStore;
+
+    private final WebSessionTicketRegistry ticketRegistry;
+
+    private String logoutParameterName = "logoutRequest";
+
+    public CasSingleSignOutWebFilter(final WebSessionStore sessionStore, final WebSessionTicketRegistry ticketRegistry) {
+        CommonUtils.assertNotNull(sessionStore, "sessionStore cannot be null.");
+        CommonUtils.assertNotNull(ticketRegistry, "ticketRegistry cannot be null.");
+        this.sessionStore = sessionStore;
+        this.ticketRegistry = ticketRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        final var request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.POST
+            || !MediaType.APPLICATION_FORM_URLENCODED.isCompatibleWith(request.getHeaders().getContentType())) {
+            return chain.filter(exchange);
+        }
+        return exchange.getFormData().flatMap(formData -> {
+            final var logoutMessage = formData.getFirst(this.logoutParameterName);
+            if (CommonUtils.isBlank(logoutMessage)) {
+                return chain.filter(exchange);
+            }
+            LOGGER.trace("Logout request:\n{}", logoutMessage);
+            final var token = XmlUtils.getTextForElement(logoutMessage, "SessionIndex");
+            final var sessionId = CommonUtils.isNotBlank(token) ? this.ticketRegistry.remove(token) : null;
+            if (sessionId == null) {
+                LOGGER.debug("No session found for logout request");
+                return exchange.getResponse().setComplete();
+            }
+            LOGGER.debug("Invalidating session [{}] for token [{}]", sessionId, token);
+            return this.sessionStore.removeSession(sessionId).then(exchange.getResponse().setComplete());
+        });
+    }
+
+    public final void setLogoutParameterName(final String logoutParameterName) {
+        this.logoutParameterName = logoutParameterName;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.Protocol;
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.validation.TicketValidationException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link org.apereo.cas.client.validation.AbstractTicketValidationFilter}: validates the
+ * ticket of a request through a {@link ReactiveTicketValidator} and stores the resulting assertion in the
+ * {@link org.springframework.web.server.WebSession}.
+ * <p>
+ * The session id is changed on successful validation. When a {@link WebSessionTicketRegistry} is set, the ticket is
+ * recorded against the new session id for {@link CasSingleSignOutWebFilter}. Failed validations are answered with
+ * 403 Forbidden.
+ *
+ * @since 4.0.5
+ */
+public class CasTicketValidationWebFilter extends AbstractCasWebFilter {
+
+    private final ReactiveTicketValidator ticketValidator;
+
+    private boolean redirectAfterValidation = true;
+
+    private WebSessionTicketRegistry ticketRegistry;
+
+    public CasTicketValidationWebFilter(final ReactiveTicketValidator ticketValidator) {
+        this(Protocol.CAS3, ticketValidator);
+    }
+
+    public CasTicketValidationWebFilter(final Protocol protocol, final ReactiveTicketValidator ticketValidator) {
+        super(protocol);
+        CommonUtils.assertNotNull(ticketValidator, "ticketValidator cannot be null.");
+        this.ticketValidator = ticketValidator;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        final var ticket = retrieveTicketFromRequest(exchange);
+        if (CommonUtils.isBlank(ticket)) {
+            return chain.filter(exchange);
+        }
+        logger.debug("Attempting to validate ticket: {}", ticket);
+        final var serviceUrl = constructServiceUrl(exchange);
+
+        return this.ticketValidator.validate(ticket, serviceUrl)
+            .flatMap(assertion -> exchange.getSession().flatMap(session -> {
+                logger.debug("Successfully authenticated user: {}", assertion.getPrincipal().getName());
+                return session.changeSessionId().then(Mono.defer(() -> {
+                    session.getAttributes().put(AbstractCasFilter.CONST_CAS_ASSERTION, assertion);
+                    if (this.ticketRegistry != null) {
+                        this.ticketRegistry.record(ticket, session.getId());
+                    }
+                    if (this.redirectAfterValidation) {
+                        logger.debug("Redirecting after successful ticket validation.");
+                        return redirect(exchange, serviceUrl);
+                    }
+                    exchange.getAttributes().put(AbstractCasFilter.CONST_CAS_ASSERTION, assertion);
+                    return chain.filter(exchange);
+                }));
+            }))
+            .onErrorResume(TicketValidationException.class, e -> {
+                logger.debug(e.getMessage(), e);
+                exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+                return exchange.getResponse().setComplete();
+            });
+    }
+
+    public final void setRedirectAfterValidation(final boolean redirectAfterValidation) {
+        this.redirectAfterValidation = redirectAfterValidation;
+    }
+
+    public final void setTicketRegistry(final WebSessionTicketRegistry ticketRegistry) {
+        this.ticketRegistry = ticketRegistry;
+    }
+}
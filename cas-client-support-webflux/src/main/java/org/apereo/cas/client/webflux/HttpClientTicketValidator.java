@@ -0,0 +1,128 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.configuration.ConfigurationKeys;
+import org.apereo.cas.client.util.CommonUtils;
+import org.apereo.cas.client.validation.AbstractUrlBasedTicketValidator;
+import org.apereo.cas.client.validation.Assertion;
+import org.apereo.cas.client.validation.TicketValidationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * {@link ReactiveTicketValidator} calling the CAS server with the JDK's asynchronous {@link HttpClient}.
+ * <p>
+ * The validation url is built and the response parsed by the wrapped {@link AbstractUrlBasedTicketValidator}, so
+ * any validator fetching its response with a GET of the validation url (CAS 1.0, 2.0, 3.0 and JSON) can be used
+ * and behaves exactly as in the servlet filters. No thread waits for the CAS server: the response is parsed on the
+ * HTTP client's executor once it has arrived, and cancelling the subscription cancels the request.
+ * <p>
+ * As with the servlet filters, connecting to the CAS server and waiting for its answer are bounded by the
+ * <code>connectTimeout</code> and <code>readTimeout</code> settings, 5 and 15 seconds by default, so that a hung
+ * CAS server cannot hold validations indefinitely; a validation timing out signals an
+ * {@link java.net.http.HttpTimeoutException}.
+ *
+ * @since 4.0.5
+ */
+public class HttpClientTicketValidator implements ReactiveTicketValidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientTicketValidator.class);
+
+    private final AbstractUrlBasedTicketValidator ticketValidator;
+
+    private final HttpClient httpClient;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private Duration readTimeout = Duration.ofMillis(ConfigurationKeys.READ_TIMEOUT.getDefaultValue());
+
+    public HttpClientTicketValidator(final AbstractUrlBasedTicketValidator ticketValidator) {
+        this(ticketValidator, ConfigurationKeys.CONNECT_TIMEOUT.getDefaultValue(),
+            ConfigurationKeys.READ_TIMEOUT.getDefaultValue());
+    }
+
+    /**
+     * @param ticketValidator the validator building the validation url and parsing the response.
+     * @param connectTimeout milliseconds allowed to connect to the CAS server; zero or less for no limit.
+     * @param readTimeout milliseconds allowed for the CAS server to answer; zero or less for no limit.
+     */
+    public HttpClientTicketValidator(final AbstractUrlBasedTicketValidator ticketValidator, final int connectTimeout,
+                                     final int readTimeout) {
+        this(ticketValidator, connectTimeout > 0
+            ? HttpClient.newBuilder().connectTimeout(Duration.ofMillis(connectTimeout)).build()
+            : HttpClient.newHttpClient());
+        setReadTimeout(readTimeout);
+    }
+
+    public HttpClientTicketValidator(final AbstractUrlBasedTicketValidator ticketValidator, final HttpClient httpClient) {
+        CommonUtils.assertNotNull(ticketValidator, "ticketValidator cannot be null.");
+        CommonUtils.assertNotNull(httpClient, "httpClient cannot be null.");
+        this.ticketValidator = ticketValidator;
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public Mono<Assertion> validate(final String ticket, final String service) {
+        return Mono.defer(() -> {
+            final var validationUrl = this.ticketValidator.constructValidationUrl(ticket, service);
+            LOGGER.debug("Constructing validation url: {}", validationUrl);
+            final var builder = HttpRequest.newBuilder(URI.create(validationUrl)).GET();
+            if (this.readTimeout != null) {
+                builder.timeout(this.readTimeout);
+            }
+            final var request = builder.build();
+            return Mono.fromFuture(this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(this.charset)));
+        }).handle((response, sink) -> {
+            if (response.statusCode() != 200) {
+                sink.error(new TicketValidationException("The CAS server responded with status " + response.statusCode()));
+                return;
+            }
+            try {
+                sink.next(this.ticketValidator.validateResponse(response.body()));
+            } catch (final TicketValidationException e) {
+                sink.error(e);
+            }
+        });
+    }
+
+    public final void setCharset(final Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Bounds the time spent waiting for the CAS server to answer. The connect timeout belongs to the
+     * {@link HttpClient}, given or built at construction.
+     *
+     * @param readTimeout the timeout in milliseconds; zero or less for no limit.
+     */
+    public final void setReadTimeout(final int readTimeout) {
+        this.readTimeout = readTimeout > 0 ? Duration.ofMillis(readTimeout) : null;
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.validation.Assertion;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link org.apereo.cas.client.validation.TicketValidator}.
+ *
+ * @since 4.0.5
+ */
+@FunctionalInterface
+public interface ReactiveTicketValidator {
+
+    /**
+     * Validates a ticket for the given service.
+     *
+     * @param ticket the ticket to validate.
+     * @param service the service the ticket was issued for.
+     * @return a {@link Mono} emitting the assertion, or failing with a
+     * {@link org.apereo.cas.client.validation.TicketValidationException} when the ticket is not valid.
+     */
+    Mono<Assertion> validate(String ticket, String service);
+}
@@ -0,0 +1,59 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.util.LruCache;
+
+/**
+ * Maps the service tickets of authenticated sessions to their {@link org.springframework.web.server.WebSession} id
+ * so that {@link CasSingleSignOutWebFilter} can find the session a CAS logout request refers to.
+ * <p>
+ * Reactive session stores do not notify about expired sessions, so the registry is bounded and forgets the least
+ * recently recorded sessions once full.
+ *
+ * @since 4.0.5
+ */
+public class WebSessionTicketRegistry {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final LruCache<String, String> sessionIdsByTicket;
+
+    public WebSessionTicketRegistry() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public WebSessionTicketRegistry(final int maxSize) {
+        this.sessionIdsByTicket = new LruCache<>(maxSize);
+    }
+
+    public void record(final String ticket, final String sessionId) {
+        this.sessionIdsByTicket.put(ticket, sessionId);
+    }
+
+    /**
+     * Removes the mapping of the given ticket.
+     *
+     * @param ticket the service ticket of the session.
+     * @return the id of the session the ticket was recorded for, or null if unknown.
+     */
+    public String remove(final String ticket) {
+        return this.sessionIdsByTicket.remove(ticket);
+    }
+}
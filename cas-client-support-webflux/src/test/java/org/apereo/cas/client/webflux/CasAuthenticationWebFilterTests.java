@@ -0,0 +1,97 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.validation.AssertionImpl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link CasAuthenticationWebFilter}.
+ *
+ * @since 4.0.5
+ */
+public final class CasAuthenticationWebFilterTests {
+
+    private CasAuthenticationWebFilter filter;
+
+    private final AtomicBoolean chainInvoked = new AtomicBoolean();
+
+    @Before
+    public void setUp() {
+        this.filter = new CasAuthenticationWebFilter("https://cas.example.com/cas/login");
+        this.filter.setServerName("https://app.example.com");
+        this.filter.setIgnoredRequests(request -> request.getPath().value().startsWith("/public/"));
+    }
+
+    @Test
+    public void redirectsToLoginWithoutAssertion() {
+        final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost:8080/app?x=1"));
+
+        this.filter.filter(exchange, e -> {
+            chainInvoked.set(true);
+            return Mono.empty();
+        }).block();
+
+        assertFalse(chainInvoked.get());
+        assertEquals(HttpStatus.FOUND, exchange.getResponse().getStatusCode());
+        assertEquals("https://cas.example.com/cas/login?service=https%3A%2F%2Fapp.example.com%2Fapp%3Fx%3D1",
+            exchange.getResponse().getHeaders().getLocation().toString());
+    }
+
+    @Test
+    public void passesAuthenticatedRequestWithAssertionAttribute() {
+        final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app"));
+        final var assertion = new AssertionImpl("alice");
+        exchange.getSession().block().getAttributes().put(AbstractCasFilter.CONST_CAS_ASSERTION, assertion);
+
+        this.filter.filter(exchange, e -> {
+            chainInvoked.set(true);
+            return Mono.empty();
+        }).block();
+
+        assertTrue(chainInvoked.get());
+        assertSame(assertion, exchange.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION));
+    }
+
+    @Test
+    public void passesIgnoredRequestAndRequestWithTicket() {
+        this.filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/public/page")), e -> {
+            chainInvoked.set(true);
+            return Mono.empty();
+        }).block();
+        assertTrue(chainInvoked.getAndSet(false));
+
+        this.filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/app?ticket=ST-1")), e -> {
+            chainInvoked.set(true);
+            return Mono.empty();
+        }).block();
+        assertTrue(chainInvoked.get());
+    }
+}
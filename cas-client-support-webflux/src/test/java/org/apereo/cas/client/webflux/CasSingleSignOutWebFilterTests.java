@@ -0,0 +1,85 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.validation.AssertionImpl;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import reactor.core.publisher.Mono;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link CasSingleSignOutWebFilter}.
+ *
+ * @since 4.0.5
+ */
+public final class CasSingleSignOutWebFilterTests {
+
+    private static final String LOGOUT_REQUEST = "<samlp:LogoutRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" "
+        + "ID=\"LR-1\" Version=\"2.0\" IssueInstant=\"2024-01-01T00:00:00Z\"><saml:NameID "
+        + "xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\">@NOT_USED@</saml:NameID>"
+        + "<samlp:SessionIndex>ST-1</samlp:SessionIndex></samlp:LogoutRequest>";
+
+    private final InMemoryWebSessionStore sessionStore = new InMemoryWebSessionStore();
+
+    private final WebSessionTicketRegistry ticketRegistry = new WebSessionTicketRegistry();
+
+    private final CasSingleSignOutWebFilter filter = new CasSingleSignOutWebFilter(sessionStore, ticketRegistry);
+
+    @Test
+    public void logoutRequestRemovesRecordedSession() {
+        final var session = this.sessionStore.createWebSession().block();
+        session.getAttributes().put(AbstractCasFilter.CONST_CAS_ASSERTION, new AssertionImpl("alice"));
+        session.save().block();
+        this.ticketRegistry.record("ST-1", session.getId());
+
+        final var exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/app")
+            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+            .body("logoutRequest=" + URLEncoder.encode(LOGOUT_REQUEST, StandardCharsets.UTF_8)));
+
+        this.filter.filter(exchange, e -> Mono.error(new AssertionError("Chain must not be invoked"))).block();
+
+        assertNull(this.sessionStore.retrieveSession(session.getId()).block());
+        assertNull(this.ticketRegistry.remove("ST-1"));
+    }
+
+    @Test
+    public void otherRequestsArePassedOn() {
+        final var invoked = new AtomicBoolean();
+
+        this.filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post("/app")
+            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+            .body("name=value")), e -> {
+            invoked.set(true);
+            return Mono.empty();
+        }).block();
+
+        assertTrue(invoked.get());
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.util.AbstractCasFilter;
+import org.apereo.cas.client.validation.Assertion;
+import org.apereo.cas.client.validation.AssertionImpl;
+import org.apereo.cas.client.validation.TicketValidationException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link CasTicketValidationWebFilter}.
+ *
+ * @since 4.0.5
+ */
+public final class CasTicketValidationWebFilterTests {
+
+    private final AtomicReference<String> validatedService = new AtomicReference<>();
+
+    private final WebSessionTicketRegistry ticketRegistry = new WebSessionTicketRegistry();
+
+    private CasTicketValidationWebFilter filter;
+
+    @Before
+    public void setUp() {
+        this.filter = new CasTicketValidationWebFilter((ticket, service) -> {
+            validatedService.set(service);
+            return "ST-valid".equals(ticket)
+                ? Mono.just(new AssertionImpl("alice"))
+                : Mono.error(new TicketValidationException("Invalid ticket " + ticket));
+        });
+        this.filter.setTicketRegistry(this.ticketRegistry);
+    }
+
+    @Test
+    public void validTicketStoresAssertionAndRedirectsToService() {
+        final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/app?a=b&ticket=ST-valid"));
+
+        this.filter.filter(exchange, e -> Mono.error(new AssertionError("Chain must not be invoked"))).block();
+
+        assertEquals("http://localhost/app?a=b", validatedService.get());
+        assertEquals(HttpStatus.FOUND, exchange.getResponse().getStatusCode());
+        assertEquals("http://localhost/app?a=b", exchange.getResponse().getHeaders().getLocation().toString());
+        final var session = exchange.getSession().block();
+        final Assertion assertion = session.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION);
+        assertEquals("alice", assertion.getPrincipal().getName());
+        assertEquals(session.getId(), this.ticketRegistry.remove("ST-valid"));
+    }
+
+    @Test
+    public void validTicketContinuesChainWithoutRedirect() {
+        this.filter.setRedirectAfterValidation(false);
+        final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app?ticket=ST-valid"));
+        final var seen = new AtomicReference<Assertion>();
+
+        this.filter.filter(exchange, e -> {
+            seen.set(e.getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION));
+            return Mono.empty();
+        }).block();
+
+        assertEquals("alice", seen.get().getPrincipal().getName());
+    }
+
+    @Test
+    public void invalidTicketIsForbidden() {
+        final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app?ticket=ST-invalid"));
+
+        this.filter.filter(exchange, e -> Mono.error(new AssertionError("Chain must not be invoked"))).block();
+
+        assertEquals(HttpStatus.FORBIDDEN, exchange.getResponse().getStatusCode());
+        assertNull(exchange.getSession().block().getAttribute(AbstractCasFilter.CONST_CAS_ASSERTION));
+    }
+}
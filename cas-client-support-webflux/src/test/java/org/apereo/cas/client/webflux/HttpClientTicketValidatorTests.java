@@ -0,0 +1,86 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apereo.cas.client.webflux;
+
+import org.apereo.cas.client.PublicTestHttpServer;
+import org.apereo.cas.client.validation.Cas30ServiceTicketValidator;
+import org.apereo.cas.client.validation.TicketValidationException;
+
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.net.http.HttpTimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link HttpClientTicketValidator}.
+ *
+ * @since 4.0.5
+ */
+public final class HttpClientTicketValidatorTests {
+
+    private static final PublicTestHttpServer server = PublicTestHttpServer.instance(8093);
+
+    private final HttpClientTicketValidator ticketValidator =
+        new HttpClientTicketValidator(new Cas30ServiceTicketValidator("http://localhost:8093/"));
+
+    @Test
+    public void successResponseIsParsedIntoAssertion() throws Exception {
+        server.content = ("<cas:serviceResponse xmlns:cas='http://www.yale.edu/tp/cas'><cas:authenticationSuccess>"
+                          + "<cas:user>alice</cas:user><cas:attributes><cas:memberOf>staff</cas:memberOf></cas:attributes>"
+                          + "</cas:authenticationSuccess></cas:serviceResponse>").getBytes(server.encoding);
+
+        final var assertion = this.ticketValidator.validate("ST-1", "https://app.example.com/").block();
+
+        assertEquals("alice", assertion.getPrincipal().getName());
+        assertEquals("staff", assertion.getPrincipal().getAttributes().get("memberOf"));
+    }
+
+    @Test
+    public void failureResponseIsSignalledAsError() throws Exception {
+        server.content = ("<cas:serviceResponse xmlns:cas='http://www.yale.edu/tp/cas'><cas:authenticationFailure "
+                          + "code=\"INVALID_TICKET\">Ticket ST-1 not recognized</cas:authenticationFailure>"
+                          + "</cas:serviceResponse>").getBytes(server.encoding);
+
+        try {
+            this.ticketValidator.validate("ST-1", "https://app.example.com/").block();
+            fail("TicketValidationException expected");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getCause() instanceof TicketValidationException);
+        }
+    }
+
+    @Test
+    public void unansweredValidationTimesOut() throws Exception {
+        // the backlog accepts the connection, nobody ever answers
+        try (var socket = new ServerSocket(0)) {
+            final var validator = new HttpClientTicketValidator(
+                new Cas30ServiceTicketValidator("http://localhost:" + socket.getLocalPort() + "/"), 1000, 200);
+            final var start = System.nanoTime();
+            try {
+                validator.validate("ST-1", "https://app.example.com/").block();
+                fail("HttpTimeoutException expected");
+            } catch (final RuntimeException e) {
+                assertTrue(e.getCause() instanceof HttpTimeoutException);
+            }
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        }
+    }
+}